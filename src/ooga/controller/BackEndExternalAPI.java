@@ -2,8 +2,10 @@
 
 package ooga.controller;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import ooga.model.grid.gridData.TickDelta;
 import ooga.view.level.codearea.CommandBlock;
 
 /**
@@ -15,7 +17,7 @@ import ooga.view.level.codearea.CommandBlock;
  * the model to be parsed and ran.
  * @author billyluqiu responsible for database updates.
  */
-public interface BackEndExternalAPI {
+public interface BackEndExternalAPI extends TickDelta.SingleUpdates {
 
   /**
    * sets the view controller to set up the line of communication from/to the backend
@@ -40,10 +42,50 @@ public interface BackEndExternalAPI {
   void parseCommands(List<CommandBlock> commandBlocks);
 
   /**
-   * Runs the next command in the command queue
+   * Hands the next tick computed by the simulation thread to the frontend. If it is not ready
+   * yet, the simulation thread is asked for it and the frontend tries again on a later frame.
    */
   void runNextCommand();
 
+  /**
+   * Sends a play command to the simulation thread
+   *
+   * @param ticksPerFrame number of ticks merged into each tick the frontend receives
+   */
+  void playSimulation(int ticksPerFrame);
+
+  /**
+   * Sends a play command to the simulation thread that merges the rest of the run into a single
+   * tick
+   */
+  void runSimulationToEnd();
+
+  /**
+   * Sends a pause command to the simulation thread
+   */
+  void pauseSimulation();
+
+  /**
+   * Shows the tick before the one on the board again, from the ticks the frontend was already
+   * sent
+   */
+  void stepBack();
+
+  /**
+   * Shows the run as it was after a tick the frontend was already sent
+   *
+   * @param tick number of ticks into the run
+   */
+  void seekTick(int tick);
+
+  /**
+   * Sets the breakpoints of the next run, and of the current one from its next tick
+   *
+   * @param lines      line numbers with a breakpoint, starting at 1
+   * @param conditions breakpoint conditions separated by semicolons, such as "tick >= 500"
+   */
+  void setBreakpoints(Collection<Integer> lines, String conditions);
+
   /**
    * Updates a specific avatar's position to new a new location on the grid
    *
@@ -78,6 +120,17 @@ public interface BackEndExternalAPI {
    */
   void setBlockNumber(int id, int newDisplayNum);
 
+  /**
+   * Applies everything that changed in one tick in a single call. The default passes each change
+   * on to the matching single update method; implementations that can take the whole tick at
+   * once override it.
+   *
+   * @param tickDelta changes of the tick, only valid during this call
+   */
+  default void applyTickDelta(TickDelta tickDelta) {
+    TickDelta.applyAsSingleUpdates(tickDelta, this);
+  }
+
   /**
    * All commands have reached the end and no more to be executed
    */
@@ -114,6 +167,20 @@ public interface BackEndExternalAPI {
    */
   void loseLevel();
 
+  /**
+   * Informs the frontend the program came back to a state it was already in, so it would repeat
+   * the same ticks forever without reaching the goal
+   * @param cycleLength number of ticks the program repeats
+   */
+  void loopsForever(int cycleLength);
+
+  /**
+   * Informs the frontend the program needs more commands to reach the goal than it has apples
+   * left, so it was stopped before running out of them
+   * @param commandsNeeded fewest commands the goal still needs
+   */
+  void cannotFinish(int commandsNeeded);
+
   /**
    * Updates the program (model) in the backend by providing it with a new set of
    * CommandBlock objects to parse and execute
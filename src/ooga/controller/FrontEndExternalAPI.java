@@ -1,10 +1,12 @@
 package ooga.controller;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import ooga.model.commands.AvailableCommands;
 import ooga.model.grid.gridData.GameGridData;
 import ooga.model.grid.gridData.InitialState;
+import ooga.model.grid.gridData.TickDelta;
 import ooga.view.level.codearea.CommandBlock;
 
 /**
@@ -14,7 +16,7 @@ import ooga.view.level.codearea.CommandBlock;
  * the model to be parsed and ran.
  * @author billyluqiu responsible for database updates.
  */
-public interface FrontEndExternalAPI {
+public interface FrontEndExternalAPI extends TickDelta.SingleUpdates {
 
   /**
    * Sets the model controller to set up the line of communication from/to the backend
@@ -90,10 +92,61 @@ public interface FrontEndExternalAPI {
   void parseCommands(List<CommandBlock> commandBlocks);
 
   /**
-   * Runs the next command in the command queue
+   * Shows the next tick of the program, or asks the simulation for it if it is not ready yet
    */
   void runNextCommand();
 
+  /**
+   * Lets the simulation run ahead of the animation
+   *
+   * @param ticksPerFrame number of ticks shown together as one, 1 to show every tick
+   */
+  void playSimulation(int ticksPerFrame);
+
+  /**
+   * Lets the simulation run the program to the end before showing anything
+   */
+  void runSimulationToEnd();
+
+  /**
+   * Stops the simulation from running further ahead of the animation
+   */
+  void pauseSimulation();
+
+  /**
+   * Goes back one tick of the run without running it again
+   */
+  void stepBack();
+
+  /**
+   * Shows the run as it was after a tick without running it again
+   *
+   * @param tick number of ticks into the run
+   */
+  void seekTick(int tick);
+
+  /**
+   * Sets the breakpoints the run stops at
+   *
+   * @param lines      line numbers with a breakpoint, starting at 1
+   * @param conditions breakpoint conditions separated by semicolons, such as "tick >= 500"
+   */
+  void setBreakpoints(Collection<Integer> lines, String conditions);
+
+  /**
+   * Notifies the view that the run stopped at a breakpoint
+   */
+  void breakpointHit();
+
+  /**
+   * Shows which ticks of the run can be moved to and which one is on the board
+   *
+   * @param firstTick   oldest tick that is kept
+   * @param currentTick tick being shown
+   * @param lastTick    last tick the frontend was sent
+   */
+  void updateTimeline(int firstTick, int currentTick, int lastTick);
+
   /**
    * Updates a specific avatar's position to new a new location on the grid
    *
@@ -128,6 +181,16 @@ public interface FrontEndExternalAPI {
    */
   void setBlockNumber(int id, int newDisplayNum);
 
+  /**
+   * Shows the changes of one tick. By default this falls back to updateAvatarPosition,
+   * updateBlockPosition, updateBlock, setBlockNumber, setLineIndicators and setScore.
+   *
+   * @param tickDelta changes of the tick, only valid during this call
+   */
+  default void applyTickDelta(TickDelta tickDelta) {
+    TickDelta.applyAsSingleUpdates(tickDelta, this);
+  }
+
   /**
    * All commands have reached the end and no more to be executed
    */
@@ -157,6 +220,25 @@ public interface FrontEndExternalAPI {
    */
   void loseLevel();
 
+  /**
+   * Informs the frontend the program was stopped because it repeats the same ticks forever
+   * @param cycleLength number of ticks the program repeats
+   */
+  void loopsForever(int cycleLength);
+
+  /**
+   * Informs the frontend the program was stopped because it cannot reach the goal with the
+   * apples it has left
+   * @param commandsNeeded fewest commands the goal still needs
+   */
+  void cannotFinish(int commandsNeeded);
+
+  /**
+   * Informs the frontend the program won the level's start state but not every test vector
+   * @param testVector index of the first start state the program does not win
+   */
+  void failsTestVector(int testVector);
+
   /**
    * Updates the program (model) in the backend by providing it with a new set of
    * CommandBlock objects to parse and execute
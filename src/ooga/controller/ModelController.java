@@ -1,15 +1,35 @@
 package ooga.controller;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import ooga.model.CommandExecutor;
 import ooga.model.Executor;
+import ooga.model.TraceReplayExecutor;
+import ooga.model.commands.CommandRegistry;
+import ooga.model.compiler.ProgramAnalysis;
 import ooga.model.database.FirebaseService;
 import ooga.model.database.PlayerInitialization;
 import ooga.model.database.parser.ConcreteDatabaseListener;
 import ooga.model.database.parser.InitialConfigurationParser;
 import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.gridData.GoalState;
+import ooga.model.grid.gridData.GoalTracker;
+import ooga.model.grid.gridData.TickDelta;
+import ooga.model.simulation.BreakCondition;
+import ooga.model.simulation.Breakpoints;
+import ooga.model.simulation.CachedRun;
+import ooga.model.simulation.ResultCache;
+import ooga.model.simulation.ResultKey;
+import ooga.model.simulation.RunTimeline;
+import ooga.model.simulation.SimulationThread;
+import ooga.model.simulation.TestVectorEvaluator;
+import ooga.model.simulation.TickEvent;
 import ooga.view.level.codearea.CommandBlock;
 import com.google.common.base.Stopwatch;
 
@@ -25,9 +45,24 @@ import com.google.common.base.Stopwatch;
 public class ModelController implements BackEndExternalAPI {
 
   public static final int SINGLE_PLAYER = 0;
+  public static final Path RESULT_CACHE_FILE = Path.of("data", "resultCache.dat");
+  private static final int RESULT_CACHE_ENTRIES = 256;
+  private static final int RESULT_CACHE_TRACE_SIZE = 1 << 22;
+  private static final int TIMELINE_SNAPSHOT_INTERVAL = 16;
+  private static final int TIMELINE_SNAPSHOTS = 64;
   private FrontEndExternalAPI viewController;
   private Executor commandExecutor;
+  private SimulationThread simulationThread;
+  private ResultCache resultCache;
+  private CommandExecutor lastRun;
+  private RunTimeline runTimeline;
+  private TickDelta seekDelta;
+  private boolean runEnded;
+  private Breakpoints breakpoints;
   private InitialConfigurationParser initialConfigurationParser;
+  private LevelTemplate levelTemplate;
+  private TestVectorEvaluator testVectorEvaluator;
+  private volatile List<CommandBlock> program;
   private FirebaseService firebaseService;
   private ConcreteDatabaseListener concreteDatabaseListener;
   private int level;
@@ -61,8 +96,13 @@ public class ModelController implements BackEndExternalAPI {
    */
   @Override
   public void initializeLevel(int level) {
+    saveResultCache();
     this.level = level;
     initialConfigurationParser = new InitialConfigurationParser(level, this.firebaseService, this.playerID);
+    levelTemplate = initialConfigurationParser.getLevelTemplate();
+    testVectorEvaluator = initialConfigurationParser.getTestVectorSet().size() > 1
+        ? new TestVectorEvaluator(initialConfigurationParser.getTestVectorSet()) : null;
+    program = new ArrayList<>();
 
     stopwatch = Stopwatch.createStarted();
     viewController.setBoard(initialConfigurationParser.getGameGridData(),
@@ -72,8 +112,11 @@ public class ModelController implements BackEndExternalAPI {
     viewController.setStartingApples(initialConfigurationParser.getGoalState().getNumOfCommands());
 
     commandExecutor = new CommandExecutor(new ArrayList<>(), this,
-        initialConfigurationParser.getInitialState(),
-        initialConfigurationParser.getGameGrid(), initialConfigurationParser.getGoalState(),stopwatch);
+        levelTemplate.getInitialState(),
+        levelTemplate.createGameGrid(), levelTemplate.getGoalState(),stopwatch);
+    lastRun = null;
+    getSimulationThread().reset(commandExecutor);
+    startTimeline();
 
 
     if (this.teamID != SINGLE_PLAYER) {
@@ -85,26 +128,226 @@ public class ModelController implements BackEndExternalAPI {
   }
 
   /**
-   * Passes in the commands to be parsed
+   * Passes in the commands to be parsed. The program is checked against the level's commands
+   * before anything is built, so unknown commands or bad parameters are reported right away, and
+   * so is a program that static analysis shows cannot change the grid before the apples run out.
+   * Each run starts from a fresh grid built from the level template, so the level files (or the
+   * database in multiplayer) are only read when the level is initialized. The new executor is
+   * handed to the simulation thread, which starts it paused.
+   *
+   * <p>If the same program already ran on a level with the same content, in this session or an
+   * earlier one, its run is replayed from the result cache instead of being executed again.
+   * Otherwise the run is recorded and added to the cache when it ends, and it resumes from the
+   * last executed run of the level, so an edit late in the program only reruns the ticks after
+   * the edited lines first ran. Runs with breakpoints are always executed from the start, since
+   * ticks that are replayed are not checked for breakpoints.
    *
    * @param commandBlocks List of individual command blocks derived from the blocks in the
    *                      CodeBuilderArea
    */
   @Override
   public void parseCommands(List<CommandBlock> commandBlocks) {
-    initialConfigurationParser = new InitialConfigurationParser(this.level, this.firebaseService, this.playerID);
+    CommandRegistry.validate(commandBlocks, initialConfigurationParser.getAvailableCommands(),
+        initialConfigurationParser.getAvailableCommandsOtherPlayer());
+    rejectIfSureToLose(commandBlocks);
+    program = new ArrayList<>(commandBlocks);
+
+    ResultKey resultKey = ResultKey.of(levelTemplate, commandBlocks);
+    CachedRun cachedRun = breakpoints == null ? getResultCache().get(resultKey) : null;
+    if (cachedRun != null && cachedRun.hasTrace()) {
+      commandExecutor = new TraceReplayExecutor(cachedRun.getTrace(), this,
+          levelTemplate.getInitialState(), stopwatch);
+    } else {
+      CommandExecutor executor = new CommandExecutor(commandBlocks, this,
+          levelTemplate.getInitialState(),
+          levelTemplate.createGameGrid(), levelTemplate.getGoalState(),stopwatch);
+      executor.recordInto(getResultCache(), resultKey);
+      executor.setBreakpoints(breakpoints);
+      if (lastRun != null && breakpoints == null) {
+        executor.resumeFrom(lastRun);
+      }
+      lastRun = executor;
+      commandExecutor = executor;
+    }
+    getSimulationThread().reset(commandExecutor);
+    startTimeline();
+  }
+
+  // a program that cannot change the grid before the apples run out loses unless the level
+  // starts out solved, so it is reported like an invalid program instead of being run
+  private void rejectIfSureToLose(List<CommandBlock> commandBlocks) {
+    ElementInformationBundle grid = levelTemplate.createGameGrid();
+    ProgramAnalysis programAnalysis = new ProgramAnalysis(commandBlocks, grid.getAvatarIds());
+    GoalState goalState = levelTemplate.getGoalState();
+    if (programAnalysis.cannotChangeGridWithin(goalState.getNumOfCommands())
+        && !new GoalTracker(goalState, grid).isGoalReached()) {
+      List<String> reasons = new ArrayList<>(programAnalysis.getProblems());
+      if (!programAnalysis.getLoopOnlyLines().isEmpty()) {
+        reasons.add("lines " + programAnalysis.getLoopOnlyLines() + " loop forever");
+      }
+      throw new ExceptionHandler("the program cannot move anything before it runs out of apples"
+          + (reasons.isEmpty() ? "" : ": " + String.join("; ", reasons)));
+    }
+  }
+
+  private void startTimeline() {
+    getRunTimeline().start(levelTemplate.createGameGrid(),
+        levelTemplate.getGoalState().getNumOfCommands());
+    runEnded = false;
+    viewController.updateTimeline(0, 0, 0);
+  }
+
+  private RunTimeline getRunTimeline() {
+    if (runTimeline == null) {
+      runTimeline = new RunTimeline(TIMELINE_SNAPSHOT_INTERVAL, TIMELINE_SNAPSHOTS);
+      seekDelta = new TickDelta();
+    }
+    return runTimeline;
+  }
+
+  /**
+   * Sets the breakpoints of the next run, and of the current one from its next tick
+   *
+   * @param lines      line numbers with a breakpoint, starting at 1
+   * @param conditions breakpoint conditions separated by semicolons, as read by BreakCondition
+   */
+  @Override
+  public void setBreakpoints(Collection<Integer> lines, String conditions) {
+    Breakpoints newBreakpoints = new Breakpoints(lines, BreakCondition.parseAll(conditions));
+    breakpoints = newBreakpoints.isEmpty() ? null : newBreakpoints;
+    if (commandExecutor instanceof CommandExecutor executor) {
+      executor.setBreakpoints(breakpoints);
+    }
+  }
+
+  // the cache is saved when a level is left and when the application closes, so finishing a
+  // run never writes the file on the simulation thread
+  private ResultCache getResultCache() {
+    if (resultCache == null) {
+      resultCache = new ResultCache(RESULT_CACHE_ENTRIES, RESULT_CACHE_TRACE_SIZE,
+          RESULT_CACHE_FILE);
+      Runtime.getRuntime().addShutdownHook(new Thread(resultCache::save));
+    }
+    return resultCache;
+  }
 
-    commandExecutor = new CommandExecutor(commandBlocks, this,
-        initialConfigurationParser.getInitialState(),
-        initialConfigurationParser.getGameGrid(), initialConfigurationParser.getGoalState(),stopwatch);
+  private void saveResultCache() {
+    if (resultCache != null) {
+      CompletableFuture.runAsync(resultCache::save);
+    }
   }
 
   /**
-   * Runs the next command in the command queue
+   * Hands the next tick computed by the simulation thread to the frontend. If it is not ready
+   * yet, the simulation thread is asked for it and the frontend tries again on a later frame.
+   * If the frontend was moved back through the run, the ticks it was already sent are shown
+   * again from the run's timeline until it is back at the last one.
    */
   @Override
   public void runNextCommand() {
-    commandExecutor.runNextCommand();
+    if (getRunTimeline().isBehind()) {
+      seekTick(runTimeline.getCurrentTick() + 1);
+      if (!runTimeline.isBehind() && runEnded) {
+        viewController.declareEndOfRun();
+      }
+    } else if (!getSimulationThread().pollTick(this::deliverTickEvent)) {
+      simulationThread.step();
+    }
+  }
+
+  /**
+   * Sends a play command to the simulation thread
+   *
+   * @param ticksPerFrame number of ticks merged into each tick the frontend receives
+   */
+  @Override
+  public void playSimulation(int ticksPerFrame) {
+    getSimulationThread().play(ticksPerFrame);
+  }
+
+  /**
+   * Sends a play command to the simulation thread that merges the rest of the run into a single
+   * tick
+   */
+  @Override
+  public void runSimulationToEnd() {
+    getSimulationThread().play(SimulationThread.RUN_TO_END);
+  }
+
+  /**
+   * Sends a pause command to the simulation thread
+   */
+  @Override
+  public void pauseSimulation() {
+    getSimulationThread().pause();
+  }
+
+  /**
+   * Shows the tick before the one on the board again, from the run's timeline
+   */
+  @Override
+  public void stepBack() {
+    seekTick(getRunTimeline().getCurrentTick() - 1);
+  }
+
+  /**
+   * Shows the run as it was after a tick the frontend was already sent. Only what differs from
+   * the board is sent, as a single tick.
+   *
+   * @param tick number of ticks into the run
+   */
+  @Override
+  public void seekTick(int tick) {
+    if (getRunTimeline().seek(tick, seekDelta)) {
+      viewController.applyTickDelta(seekDelta);
+      updateTimeline();
+    }
+  }
+
+  private void updateTimeline() {
+    viewController.updateTimeline(runTimeline.getFirstTick(), runTimeline.getCurrentTick(),
+        runTimeline.getLastTick());
+  }
+
+  private SimulationThread getSimulationThread() {
+    if (simulationThread == null) {
+      simulationThread = new SimulationThread();
+    }
+    return simulationThread;
+  }
+
+  // runs on the JavaFX Application Thread, in the order the executor sent the events
+  private void deliverTickEvent(TickEvent tickEvent) {
+    switch (tickEvent.getKind()) {
+      case TickEvent.TICK_DELTA -> deliverTickDelta(tickEvent.getTickDelta());
+      case TickEvent.WIN -> deliverWin(tickEvent.getExecutionScore(),
+          tickEvent.getBonusFromNumberOfCommands(), tickEvent.getBonusFromTimeTaken());
+      case TickEvent.LOSE -> viewController.loseLevel();
+      case TickEvent.LOOPS_FOREVER -> viewController.loopsForever(tickEvent.getCycleLength());
+      case TickEvent.CANNOT_FINISH -> viewController
+          .cannotFinish(tickEvent.getCommandsNeeded());
+      case TickEvent.FAILS_TEST_VECTOR -> viewController
+          .failsTestVector(tickEvent.getTestVector());
+      case TickEvent.BREAKPOINT -> viewController.breakpointHit();
+      case TickEvent.END_OF_RUN -> {
+        runEnded = true;
+        viewController.declareEndOfRun();
+      }
+      default -> throw tickEvent.getError();
+    }
+  }
+
+  private void deliverTickDelta(TickDelta tickDelta) {
+    getRunTimeline().record(tickDelta);
+    viewController.applyTickDelta(tickDelta);
+    updateTimeline();
+  }
+
+  private void deliverWin(int executionScore, int bonusFromNumberOfCommands,
+      int bonusFromTimeTaken) {
+    int total = executionScore + bonusFromNumberOfCommands + bonusFromTimeTaken;
+    if (teamID != ModelController.SINGLE_PLAYER) firebaseService.declareEndOfGame(this.matchID, this.teamID, total);
+    viewController.winLevel(executionScore, bonusFromNumberOfCommands, bonusFromTimeTaken);
   }
 
   /**
@@ -154,11 +397,23 @@ public class ModelController implements BackEndExternalAPI {
   }
 
   /**
-   * All commands have reached the end and no more to be executed
+   * Passes the changes of a whole tick on to the frontend in one call. Called by the executor on
+   * the simulation thread, so the changes are queued for the frontend to pick up.
+   *
+   * @param tickDelta changes of the tick
+   */
+  @Override
+  public void applyTickDelta(TickDelta tickDelta) {
+    simulationThread.publishTickDelta(tickDelta);
+  }
+
+  /**
+   * All commands have reached the end and no more to be executed. Queued for the frontend like
+   * the tick it happened in.
    */
   @Override
   public void declareEndOfRun() {
-    viewController.declareEndOfRun();
+    simulationThread.publishEndOfRun();
   }
 
   /**
@@ -185,16 +440,25 @@ public class ModelController implements BackEndExternalAPI {
    * Wins the level for the player. This method is the method that is called when the
    * goal state is met. It returns 3 sets of scores calculated according to the
    * game criteria: achieve less lines of commands, less number of execution of those commands,
-   * and less time taken to win the level
+   * and less time taken to win the level. The result reaches the frontend (and the database in
+   * multiplayer) when the frontend drains the tick it was won in.
+   *
+   * <p>On a level with more than one test vector, the program only wins if it also wins from
+   * every other start state. They are checked here, on the simulation thread, with the
+   * TestVectorEvaluator, and a program that loses one of them loses the level.
    * @param executionScore score corresponding to how many lines were run
    * @param bonusFromNumberOfCommands score corresponding to how many number of commands were used
    * @param bonusFromTimeTaken score corresponding to how much time was kaen
    */
   @Override
   public void winLevel(int executionScore, int bonusFromNumberOfCommands, int bonusFromTimeTaken) {
-    int total = executionScore + bonusFromNumberOfCommands + bonusFromTimeTaken;
-    if (teamID != ModelController.SINGLE_PLAYER) firebaseService.declareEndOfGame(this.matchID, this.teamID, total);
-    viewController.winLevel(executionScore, bonusFromNumberOfCommands, bonusFromTimeTaken);
+    int failingVector = testVectorEvaluator == null ? TestVectorEvaluator.ALL_PASSED
+        : testVectorEvaluator.findFailingVector(program);
+    if (failingVector != TestVectorEvaluator.ALL_PASSED) {
+      simulationThread.publishFailsTestVector(failingVector);
+      return;
+    }
+    simulationThread.publishWin(executionScore, bonusFromNumberOfCommands, bonusFromTimeTaken);
   }
 
   /**
@@ -203,7 +467,26 @@ public class ModelController implements BackEndExternalAPI {
    */
   @Override
   public void loseLevel() {
-    viewController.loseLevel();
+    simulationThread.publishLose();
+  }
+
+  /**
+   * Informs the frontend the program was stopped because it repeats the same ticks forever
+   * @param cycleLength number of ticks the program repeats
+   */
+  @Override
+  public void loopsForever(int cycleLength) {
+    simulationThread.publishLoopsForever(cycleLength);
+  }
+
+  /**
+   * Informs the frontend the program was stopped because it cannot reach the goal with the
+   * apples it has left
+   * @param commandsNeeded fewest commands the goal still needs
+   */
+  @Override
+  public void cannotFinish(int commandsNeeded) {
+    simulationThread.publishCannotFinish(commandsNeeded);
   }
 
   /**
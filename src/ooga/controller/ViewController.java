@@ -1,11 +1,13 @@
 package ooga.controller;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import javafx.stage.Stage;
 import ooga.model.commands.AvailableCommands;
 import ooga.model.grid.gridData.GameGridData;
 import ooga.model.grid.gridData.InitialState;
+import ooga.model.grid.gridData.TickDelta;
 import ooga.view.ScreenCreator;
 import ooga.view.level.LevelView;
 import ooga.view.level.MultiplayerLevelView;
@@ -138,13 +140,88 @@ public class ViewController implements FrontEndExternalAPI {
   }
 
   /**
-   * Runs the next command in the command queue
+   * Shows the next tick of the program, or asks the simulation for it if it is not ready yet
    */
   @Override
   public void runNextCommand() {
     modelController.runNextCommand();
   }
 
+  /**
+   * Lets the simulation run ahead of the animation
+   *
+   * @param ticksPerFrame number of ticks shown together as one, 1 to show every tick
+   */
+  @Override
+  public void playSimulation(int ticksPerFrame) {
+    modelController.playSimulation(ticksPerFrame);
+  }
+
+  /**
+   * Lets the simulation run the program to the end before showing anything
+   */
+  @Override
+  public void runSimulationToEnd() {
+    modelController.runSimulationToEnd();
+  }
+
+  /**
+   * Stops the simulation from running further ahead of the animation
+   */
+  @Override
+  public void pauseSimulation() {
+    modelController.pauseSimulation();
+  }
+
+  /**
+   * Goes back one tick of the run without running it again
+   */
+  @Override
+  public void stepBack() {
+    modelController.stepBack();
+  }
+
+  /**
+   * Shows the run as it was after a tick without running it again
+   *
+   * @param tick number of ticks into the run
+   */
+  @Override
+  public void seekTick(int tick) {
+    modelController.seekTick(tick);
+  }
+
+  /**
+   * Sets the breakpoints the run stops at
+   *
+   * @param lines      line numbers with a breakpoint, starting at 1
+   * @param conditions breakpoint conditions separated by semicolons
+   */
+  @Override
+  public void setBreakpoints(Collection<Integer> lines, String conditions) {
+    modelController.setBreakpoints(lines, conditions);
+  }
+
+  /**
+   * Notifies the view that the run stopped at a breakpoint
+   */
+  @Override
+  public void breakpointHit() {
+    levelView.breakpointHit();
+  }
+
+  /**
+   * Moves the scrubber of the level view
+   *
+   * @param firstTick   oldest tick that is kept
+   * @param currentTick tick being shown
+   * @param lastTick    last tick the frontend was sent
+   */
+  @Override
+  public void updateTimeline(int firstTick, int currentTick, int lastTick) {
+    levelView.updateTimeline(firstTick, currentTick, lastTick);
+  }
+
   /**
    * Updates a specific avatar's position to new a new location on the grid
    *
@@ -191,6 +268,16 @@ public class ViewController implements FrontEndExternalAPI {
     levelView.setBlockNumber(id, newDisplayNum);
   }
 
+  /**
+   * Shows the changes of a whole tick on the level view
+   *
+   * @param tickDelta changes of the tick
+   */
+  @Override
+  public void applyTickDelta(TickDelta tickDelta) {
+    levelView.applyTickDelta(tickDelta);
+  }
+
   /**
    * All commands have reached the end and no more to be executed
    */
@@ -234,6 +321,30 @@ public class ViewController implements FrontEndExternalAPI {
     levelView.loseLevel();
   }
 
+  /**
+   * Notifies the view that the program was stopped because it loops forever
+   */
+  @Override
+  public void loopsForever(int cycleLength) {
+    levelView.loopsForever(cycleLength);
+  }
+
+  /**
+   * Notifies the view that the program was stopped because it cannot reach the goal in time
+   */
+  @Override
+  public void cannotFinish(int commandsNeeded) {
+    levelView.cannotFinish(commandsNeeded);
+  }
+
+  /**
+   * Notifies the view that the program does not win every test vector of the level
+   */
+  @Override
+  public void failsTestVector(int testVector) {
+    levelView.failsTestVector(testVector);
+  }
+
   /**
    * Updates the program (model) in the backend by providing it with a new set of
    * CommandBlock objects to parse and execute
@@ -0,0 +1,51 @@
+package ooga.model;
+
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.player.Player;
+import ooga.model.simulation.Breakpoints;
+
+/**
+ * Pauses a run at its breakpoints. Lines are checked as they are dispatched, and conditions once
+ * the tick has run. The breakpoints can be changed from another thread while the run is going,
+ * so they are read once at the start of every tick; without breakpoints the only cost is one null
+ * check per line.
+ */
+class BreakpointListener implements TickListener {
+
+  private final ElementInformationBundle elementInformationBundle;
+  private volatile Breakpoints breakpoints;
+  private Breakpoints tickBreakpoints;
+  private boolean atBreakpoint;
+
+  BreakpointListener(ElementInformationBundle elementInformationBundle) {
+    this.elementInformationBundle = elementInformationBundle;
+  }
+
+  void setBreakpoints(Breakpoints breakpoints) {
+    this.breakpoints = breakpoints == null || breakpoints.isEmpty() ? null : breakpoints;
+  }
+
+  boolean isAtBreakpoint() {
+    return atBreakpoint;
+  }
+
+  @Override
+  public void tickStarting(int ticks, int commandsExecuted) {
+    atBreakpoint = false;
+    tickBreakpoints = breakpoints;
+  }
+
+  @Override
+  public void lineStarting(Player avatar, int tick) {
+    if (tickBreakpoints != null && tickBreakpoints.isLine(avatar.getProgramCounter())) {
+      atBreakpoint = true;
+    }
+  }
+
+  @Override
+  public void tickEnded(int ticks) {
+    if (tickBreakpoints != null && !atBreakpoint && tickBreakpoints.hasConditions()) {
+      atBreakpoint = tickBreakpoints.isConditionMet(ticks, elementInformationBundle);
+    }
+  }
+}
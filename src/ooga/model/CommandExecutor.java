@@ -2,45 +2,65 @@ package ooga.model;
 
 import com.google.common.base.Stopwatch;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Stack;
-import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import ooga.controller.BackEndExternalAPI;
-import ooga.model.commands.Commands;
 import ooga.model.grid.ElementInformationBundle;
 import ooga.model.grid.gridData.GoalState;
+import ooga.model.grid.gridData.GoalTracker;
 import ooga.model.grid.gridData.InitialState;
+import ooga.model.grid.gridData.TickDelta;
+import ooga.model.grid.gridData.TickDeltaRecorder;
 import ooga.model.player.Player;
+import ooga.model.simulation.Breakpoints;
+import ooga.model.simulation.Outcome;
+import ooga.model.simulation.ResultCache;
+import ooga.model.simulation.ResultKey;
+import ooga.model.simulation.RunTrace;
 import ooga.view.level.codearea.CommandBlock;
 
 /**
  * This class takes in the list of CommandBlock objects from the frontend, parses the commands,
  * and executes the commands. This class is the main class ModelController interacts with
  * in order to communicate with the backend.
+ *
+ * <p>The executor itself only runs the lines, sends the changes of every tick and decides when
+ * the level is won or lost. Everything else that happens every tick is a TickListener it calls:
+ * the RunHistory that takes checkpoints, cycle detection, the goal lower bound, breakpoints and,
+ * for runs that are recorded, the TraceRecorder.
+ *
+ * <p>A run of an edited program can be told to resume from the previous run, in which case its
+ * RunHistory starts it from the last checkpoint before an edited line first ran: the ticks before
+ * it are replayed to the frontend from the previous run's trace, and only the rest of the run is
+ * executed.
  * @author Ji Yun Hyo
  */
 public class CommandExecutor implements Executor {
 
+  private static final int SCORING_FACTOR = 10;
+
   private int score;
   private int idealTime;
   private int idealLines;
-  private int timeLeft;
   private int timeLimit;
-  private final String COMMAND_CLASSES_PACKAGE = Commands.class.getPackageName();
 
-  private List<Commands> commandBlocks;
-  private Map<Integer, CommandBlock> mapOfCommandBlocks;
+  private CommandProgram commandBlocks;
   private BackEndExternalAPI modelController;
   private ElementInformationBundle elementInformationBundle;
-  private ClassLoader classLoader;
   private GoalState goalState;
-  private List<Integer> endCommandLines;
-  private Map<Integer, Integer> idToCommandLines;
-  private Stack<Integer> stackOfIfCommands;
+  private GoalTracker goalTracker;
+  private TickDelta tickDelta;
+  private TickDeltaRecorder tickDeltaRecorder;
+  private int ticks;
+  private boolean levelDecided;
+  private Outcome outcome;
   private Stopwatch stopwatch;
+  private final List<CommandBlock> program;
+  private final List<TickListener> tickListeners;
+  private final RunHistory runHistory;
+  private final BreakpointListener breakpointListener;
+  private TraceRecorder traceRecorder;
+  private CommandExecutor previousRun;
 
   /**
    * This constructor takes in all the information from the frontend and re-organizes everything
@@ -53,10 +73,72 @@ public class CommandExecutor implements Executor {
       GoalState goalState, Stopwatch stopwatch) {
     initializeVariables(modelController, initialState, elementInformationBundle, goalState,
         stopwatch);
-    initializeDataStructures();
-    buildCommandMap(commandBlocks);
-    this.elementInformationBundle.setEndCommandLines(endCommandLines);
-    this.elementInformationBundle.setMapOfCommandLines(idToCommandLines);
+    this.commandBlocks = new CommandProgram(commandBlocks, elementInformationBundle);
+    this.program = new ArrayList<>(commandBlocks);
+    runHistory = new RunHistory(program, this.commandBlocks.getMapOfCommandLines(),
+        elementInformationBundle);
+    breakpointListener = new BreakpointListener(elementInformationBundle);
+    tickListeners = new ArrayList<>();
+    tickListeners.add(runHistory);
+    tickListeners.add(new CycleListener(this, elementInformationBundle, runHistory));
+    tickListeners.add(new LowerBoundListener(this, goalState, elementInformationBundle, program));
+    tickListeners.add(breakpointListener);
+  }
+
+  /**
+   * Lets this run start where a previous run of the same level stops matching it. Must be called
+   * before the first tick; the previous run is only looked at when this run starts, after it has
+   * stopped running. Runs are only resumed if the previous run was recorded with recordInto,
+   * since its trace is what the frontend is shown for the skipped ticks.
+   *
+   * @param previousRun executor of the last run on the same level
+   */
+  public void resumeFrom(CommandExecutor previousRun) {
+    // a run that never started has nothing to offer, but the run it would have resumed from does
+    this.previousRun = previousRun.previousRun != null ? previousRun.previousRun : previousRun;
+  }
+
+  /**
+   * Sets where the run stops. May be called from another thread while the run is going; the new
+   * breakpoints are used from the next tick.
+   *
+   * @param breakpoints breakpoints of the run, or null for none
+   */
+  public void setBreakpoints(Breakpoints breakpoints) {
+    breakpointListener.setBreakpoints(breakpoints);
+  }
+
+  /**
+   * Checks whether the last tick ran a line with a breakpoint or met a breakpoint condition.
+   * Ticks replayed from a previous run are not checked.
+   *
+   * @return true if the run should pause after the last tick
+   */
+  @Override
+  public boolean isAtBreakpoint() {
+    return breakpointListener.isAtBreakpoint();
+  }
+
+  /**
+   * Returns the number of ticks this run skipped by resuming from a previous run
+   *
+   * @return ticks taken from the previous run, 0 if the run started from the beginning
+   */
+  public int getResumedTick() {
+    return runHistory.getResumedTick();
+  }
+
+  /**
+   * Records the run as it goes and adds it to the cache once it ends, so the same program can be
+   * replayed from the cache the next time it is run on the level. Runs that time out or throw
+   * are not added. Must be called before the first tick.
+   *
+   * @param resultCache cache to add the finished run to
+   * @param resultKey   key of the level and program of this run
+   */
+  public void recordInto(ResultCache resultCache, ResultKey resultKey) {
+    traceRecorder = new TraceRecorder(resultCache, resultKey);
+    tickListeners.add(traceRecorder);
   }
 
   private void initializeVariables(BackEndExternalAPI modelController, InitialState initialState,
@@ -64,8 +146,8 @@ public class CommandExecutor implements Executor {
       Stopwatch stopwatch) {
     this.goalState = goalState;
     this.elementInformationBundle = elementInformationBundle;
-    this.elementInformationBundle.setModelController(modelController);
     this.modelController = modelController;
+    this.tickDelta = new TickDelta();
     this.stopwatch = stopwatch;
     this.idealTime = goalState.getIdealTime();
     this.idealLines = goalState.getIdealLines();
@@ -73,101 +155,178 @@ public class CommandExecutor implements Executor {
     this.score = 0;
   }
 
-  private void initializeDataStructures() {
-    this.commandBlocks = new ArrayList<>();
-    this.idToCommandLines = new TreeMap<>();
-    this.endCommandLines = new ArrayList<>();
-    this.stackOfIfCommands = new Stack<>();
-    this.classLoader = new ClassLoader() {
-    };
-    this.mapOfCommandBlocks = new HashMap<>();
-  }
-
-  private void buildCommandMap(List<CommandBlock> commandBlocks) {
-    for (CommandBlock commandBlock : commandBlocks) {
-      mapOfCommandBlocks.put(commandBlock.getIndex(), commandBlock);
-      Commands newCommand = null;
-      try {
-        Class r = classLoader.loadClass(
-            COMMAND_CLASSES_PACKAGE + "." + commandBlock.getType().replaceAll("\\s", "")
-                .substring(0, 1).toUpperCase() + commandBlock.getType().replaceAll("\\s", "")
-                .substring(1));
-        Object command = r.getDeclaredConstructor(ElementInformationBundle.class, Map.class)
-            .newInstance(elementInformationBundle, commandBlock.getParameters());
-        newCommand = (Commands) command;
-      } catch (Exception ignored) {
-        System.out.println("Failed");
+  /**
+   * Runs next commands passed to the backend. The commands do not talk to the frontend
+   * themselves; every change they make to the grid is collected in a TickDelta, together with the
+   * line indicators and the score, and sent once per tick. The clock is left to
+   * checkTimeLeftOrNot, which the frontend calls on every frame, so a tick can run on a thread
+   * other than the JavaFX Application Thread.
+   */
+  public void runNextCommand() {
+    if (previousRun != null) {
+      resumeFromPreviousRun();
+    }
+    if (runHistory.replayTick(ticks, modelController, tickDelta)) {
+      tickDelta.clear();
+      ticks++;
+      return;
+    }
+    boolean allCommandsFinishedExecuting = true;
+    getTickDeltaRecorder();
+    for (TickListener tickListener : tickListeners) {
+      tickListener.tickStarting(ticks, score);
+    }
+    tickDelta.startLineIndicators();
+    ticks++;
+    for (Player avatar : elementInformationBundle.getAvatarList()) {
+      allCommandsFinishedExecuting = executeCommandsOnAvatar(allCommandsFinishedExecuting,
+          avatar);
+    }
+    sendTickDelta();
+    if (allCommandsFinishedExecuting) {
+      endRun(Outcome.LOST, 0);
+    } else if (!levelDecided) {
+      for (TickListener tickListener : tickListeners) {
+        if (outcome != null) {
+          break;
+        }
+        tickListener.tickRan(ticks, goalState.getNumOfCommands() - score);
       }
-      this.commandBlocks.add(newCommand);
-      findEndCommands(commandBlock);
+    }
+    for (TickListener tickListener : tickListeners) {
+      tickListener.tickEnded(ticks);
     }
   }
 
-  private void findEndCommands(CommandBlock commandBlock) {
-    if (commandBlock.getType().equals("if")) {
-      stackOfIfCommands.add(commandBlock.getIndex());
+  // runs on the simulation thread before the first tick, when the previous run has stopped
+  private void resumeFromPreviousRun() {
+    CommandExecutor previous = previousRun;
+    previousRun = null;
+    if (previous.traceRecorder == null || traceRecorder == null) {
+      return;
     }
-    if (commandBlock.getType().equals("end if")) {
-      idToCommandLines.put(stackOfIfCommands.pop(), commandBlock.getIndex());
+    RunTrace previousTrace = previous.traceRecorder.getTrace();
+    RunHistory.Checkpoint resumePoint = runHistory.resumeFrom(previous.runHistory, previousTrace);
+    if (resumePoint != null) {
+      score = resumePoint.getCommandsExecuted();
+      for (TickListener tickListener : tickListeners) {
+        tickListener.runResumed(resumePoint.getTick(), previousTrace);
+      }
     }
   }
 
   /**
-   * Runs next commands passed to the backend
+   * Ends the run: tells the frontend and every listener, and takes away the apples unless the
+   * level was won. The first ending decides the outcome of the run, but the rest of the tick
+   * still runs and is sent.
+   *
+   * @param outcome how the run ends
+   * @param detail  length of the cycle for a run that loops forever, commands needed for a run
+   *                that cannot finish, ignored otherwise since a win reports its own bonus
    */
-  public void runNextCommand() {
-    boolean allCommandsFinishedExecuting = true;
-    Map<Integer, Integer> lineUpdates = new HashMap<>();
-    for (Player avatar : elementInformationBundle.getAvatarList()) {
-      allCommandsFinishedExecuting = executeCommandsOnAvatar(allCommandsFinishedExecuting,
-          lineUpdates, avatar);
+  void endRun(Outcome outcome, int detail) {
+    int applesLeft = outcome == Outcome.OUT_OF_APPLES ? 0 : goalState.getNumOfCommands() - score;
+    int reported = detail;
+    switch (outcome) {
+      case WON -> {
+        List<Integer> scores = calculateFinalScores(idealLines, idealTime);
+        reported = scores.get(0);
+        modelController.winLevel(applesLeft, reported, scores.get(1));
+      }
+      case LOST -> modelController.declareEndOfRun();
+      case OUT_OF_APPLES -> modelController.loseLevel();
+      case LOOPS_FOREVER -> modelController.loopsForever(detail);
+      case CANNOT_FINISH -> modelController.cannotFinish(detail);
     }
-    modelController.setLineIndicators(lineUpdates);
-    if (allCommandsFinishedExecuting) {
-      modelController.declareEndOfRun();
+    for (TickListener tickListener : tickListeners) {
+      tickListener.runEnded(outcome, applesLeft, reported);
+    }
+    if (this.outcome == null) {
+      this.outcome = outcome;
+    }
+    if (outcome != Outcome.WON) {
       score = 0;
     }
-    checkTimeLeftOrNot();
-
   }
 
-  private boolean executeCommandsOnAvatar(boolean ended, Map<Integer, Integer> lineUpdates,
-      Player avatar) {
+  private boolean executeCommandsOnAvatar(boolean ended, Player avatar) {
+    for (TickListener tickListener : tickListeners) {
+      tickListener.lineStarting(avatar, ticks);
+    }
     if (avatar.getProgramCounter() < commandBlocks.size() + 1) {
       ended = false;
-      lineUpdates.put(avatar.getId(), avatar.getProgramCounter());
-      commandBlocks.get(avatar.getProgramCounter() - 1).execute(avatar.getId());
+      tickDelta.addLineIndicator(avatar.getId(), avatar.getProgramCounter());
+      commandBlocks.getCommand(avatar.getProgramCounter()).execute(avatar.getId());
+      for (TickListener tickListener : tickListeners) {
+        tickListener.lineRan(avatar);
+      }
       score++;
-      modelController.setScore(goalState.getNumOfCommands() - score);
+      tickDelta.setScore(goalState.getNumOfCommands() - score);
     }
-    if (goalState.checkGameEnded(elementInformationBundle)) {
+    if (getGoalTracker().isGoalReached()) {
       ended = true;
-      List<Integer> scores = calculateFinalScores(idealLines, idealTime);
-      modelController.winLevel(goalState.getNumOfCommands() - score, scores.get(0), scores.get(1));
+      sendTickDelta();
+      endRun(Outcome.WON, 0);
+      levelDecided = true;
     }
     if ((goalState.getNumOfCommands() - score) < 0) {
-      modelController.setScore(0);
-      modelController.loseLevel();
-      score = 0;
+      tickDelta.setScore(0);
+      sendTickDelta();
+      endRun(Outcome.OUT_OF_APPLES, 0);
+      levelDecided = true;
     }
 
     return ended;
   }
 
+  // built on the first tick so that it sees every element added to the grid before the run
+  private GoalTracker getGoalTracker() {
+    if (goalTracker == null) {
+      goalTracker = new GoalTracker(goalState, elementInformationBundle);
+    }
+    return goalTracker;
+  }
+
+  // the frontend sees the changes so far before it is told the level was won or lost
+  private void sendTickDelta() {
+    if (!tickDelta.isEmpty()) {
+      modelController.applyTickDelta(tickDelta);
+      for (TickListener tickListener : tickListeners) {
+        tickListener.tickDeltaSent(tickDelta);
+      }
+    }
+    tickDelta.clear();
+  }
+
+  private TickDeltaRecorder getTickDeltaRecorder() {
+    if (tickDeltaRecorder == null) {
+      tickDeltaRecorder = new TickDeltaRecorder(elementInformationBundle, tickDelta);
+    }
+    return tickDeltaRecorder;
+  }
+
   private List<Integer> calculateFinalScores(int idealLines, int idealTime) {
     List<Integer> scores = new ArrayList<>();
-    timeLeft = (int) (timeLimit - stopwatch.elapsed(TimeUnit.SECONDS));
-    int SCORING_FACTOR = 10;
     scores.add((idealLines - commandBlocks.size()) * SCORING_FACTOR);
-    scores.add((timeLeft / 60) * SCORING_FACTOR);
+    scores.add(calculateTimeBonus(timeLimit, stopwatch));
     return scores;
   }
 
+  static int calculateTimeBonus(int timeLimit, Stopwatch stopwatch) {
+    int timeLeft = (int) (timeLimit - stopwatch.elapsed(TimeUnit.SECONDS));
+    return (timeLeft / 60) * SCORING_FACTOR;
+  }
+
   /**
    * Checks whether the game has timed out for not
    */
   public void checkTimeLeftOrNot() {
-    timeLeft = (int) (timeLimit - stopwatch.elapsed(TimeUnit.SECONDS));
+    checkTimeLeftOrNot(modelController, timeLimit, stopwatch);
+  }
+
+  static void checkTimeLeftOrNot(BackEndExternalAPI modelController, int timeLimit,
+      Stopwatch stopwatch) {
+    int timeLeft = (int) (timeLimit - stopwatch.elapsed(TimeUnit.SECONDS));
     if (timeLeft <= 0) {
       modelController.updateTime(0);
       modelController.timedOut();
@@ -0,0 +1,96 @@
+package ooga.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+import java.util.TreeMap;
+import ooga.model.commands.CommandRegistry;
+import ooga.model.commands.Commands;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * This class turns the list of CommandBlock objects from the frontend into the list of Commands
+ * objects that get executed on the avatars. It also pairs up each if with its end if so that the
+ * conditional commands know which line to jump to. Both CommandExecutor and the headless
+ * simulator build their programs through this class.
+ */
+public class CommandProgram {
+
+  private final List<Commands> commandBlocks;
+  private final List<Integer> endCommandLines;
+  private final Map<Integer, Integer> idToCommandLines;
+  private final Stack<Integer> stackOfIfCommands;
+  private final ElementInformationBundle elementInformationBundle;
+
+  /**
+   * Parses the command blocks into Commands objects that act on the given information bundle and
+   * registers the if/end if pairs with the bundle. Unknown commands and unmatched end ifs are
+   * reported here, before anything runs.
+   *
+   * @param commandBlocks            list of command blocks from the frontend
+   * @param elementInformationBundle bundle the commands are executed on
+   * @throws ExceptionHandler if the program cannot be built
+   */
+  public CommandProgram(List<CommandBlock> commandBlocks,
+      ElementInformationBundle elementInformationBundle) {
+    this.elementInformationBundle = elementInformationBundle;
+    this.commandBlocks = new ArrayList<>();
+    this.idToCommandLines = new TreeMap<>();
+    this.endCommandLines = new ArrayList<>();
+    this.stackOfIfCommands = new Stack<>();
+    buildCommandMap(commandBlocks);
+    elementInformationBundle.setEndCommandLines(endCommandLines);
+    elementInformationBundle.setMapOfCommandLines(idToCommandLines);
+  }
+
+  private void buildCommandMap(List<CommandBlock> commandBlocks) {
+    for (CommandBlock commandBlock : commandBlocks) {
+      this.commandBlocks.add(CommandRegistry.create(commandBlock, elementInformationBundle));
+      findEndCommands(commandBlock);
+    }
+  }
+
+  private void findEndCommands(CommandBlock commandBlock) {
+    if (commandBlock.getType().equals("if")) {
+      stackOfIfCommands.add(commandBlock.getIndex());
+    }
+    if (commandBlock.getType().equals("end if")) {
+      if (stackOfIfCommands.isEmpty()) {
+        throw new ExceptionHandler("end if on line " + commandBlock.getIndex() + " has no if");
+      }
+      idToCommandLines.put(stackOfIfCommands.pop(), commandBlock.getIndex());
+    }
+  }
+
+  /**
+   * Returns the command at the given line
+   *
+   * @param line line number of the command (starts at 1, like the program counter)
+   * @return command at the line
+   */
+  public Commands getCommand(int line) {
+    return commandBlocks.get(line - 1);
+  }
+
+  /**
+   * Returns the number of lines in the program
+   *
+   * @return number of lines
+   */
+  public int size() {
+    return commandBlocks.size();
+  }
+
+  /**
+   * Returns the map from each if line to its end if line
+   *
+   * @return map of command lines
+   */
+  public Map<Integer, Integer> getMapOfCommandLines() {
+    return Collections.unmodifiableMap(idToCommandLines);
+  }
+}
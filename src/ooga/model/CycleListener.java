@@ -0,0 +1,65 @@
+package ooga.model;
+
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.gridData.StateHasher;
+import ooga.model.player.Player;
+import ooga.model.simulation.CycleDetector;
+import ooga.model.simulation.Outcome;
+import ooga.model.simulation.RunTrace;
+
+/**
+ * Stops a run that comes back to a state it was already in, since it would repeat the same ticks
+ * forever. The state of the grid and the program counters is hashed after every tick, and the
+ * hashes are also written to the RunHistory so a resumed run knows the states before its
+ * checkpoint.
+ */
+class CycleListener implements TickListener {
+
+  private final CommandExecutor commandExecutor;
+  private final ElementInformationBundle elementInformationBundle;
+  private final RunHistory runHistory;
+  private StateHasher stateHasher;
+  private CycleDetector cycleDetector;
+
+  CycleListener(CommandExecutor commandExecutor,
+      ElementInformationBundle elementInformationBundle, RunHistory runHistory) {
+    this.commandExecutor = commandExecutor;
+    this.elementInformationBundle = elementInformationBundle;
+    this.runHistory = runHistory;
+  }
+
+  // built on the first tick so that it sees every element added to the grid before the run; the
+  // starting state counts as tick 0
+  @Override
+  public void tickStarting(int ticks, int commandsExecuted) {
+    if (stateHasher == null) {
+      stateHasher = new StateHasher(elementInformationBundle);
+      cycleDetector = new CycleDetector();
+      cycleDetector.visit(stateHasher.getHash(), ticks);
+      runHistory.recordHash(ticks, stateHasher.getHash());
+    }
+  }
+
+  @Override
+  public void lineRan(Player avatar) {
+    stateHasher.setProgramCounter(avatar.getId(), avatar.getProgramCounter());
+  }
+
+  @Override
+  public void tickRan(int ticks, int applesLeft) {
+    runHistory.recordHash(ticks, stateHasher.getHash());
+    int cycleLength = cycleDetector.visit(stateHasher.getHash(), ticks);
+    if (cycleLength > 0) {
+      commandExecutor.endRun(Outcome.LOOPS_FOREVER, cycleLength);
+    }
+  }
+
+  @Override
+  public void runResumed(int tick, RunTrace previousTrace) {
+    stateHasher = new StateHasher(elementInformationBundle);
+    cycleDetector = new CycleDetector();
+    for (int previousTick = 0; previousTick <= tick; previousTick++) {
+      cycleDetector.visit(runHistory.getHash(previousTick), previousTick);
+    }
+  }
+}
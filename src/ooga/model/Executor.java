@@ -19,4 +19,14 @@ public interface Executor {
    */
   void checkTimeLeftOrNot();
 
+  /**
+   * Checks whether the last tick that ran stopped at a breakpoint. Executors that do not run the
+   * program themselves never do.
+   *
+   * @return true if the run should pause after the last tick
+   */
+  default boolean isAtBreakpoint() {
+    return false;
+  }
+
 }
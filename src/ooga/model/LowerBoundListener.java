@@ -0,0 +1,46 @@
+package ooga.model;
+
+import java.util.List;
+import ooga.model.commands.CommandRegistry;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.gridData.GoalLowerBound;
+import ooga.model.grid.gridData.GoalState;
+import ooga.model.simulation.Outcome;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Stops a run as soon as the GoalLowerBound shows that the goal needs more commands than the run
+ * has apples left for.
+ */
+class LowerBoundListener implements TickListener {
+
+  private final CommandExecutor commandExecutor;
+  private final GoalState goalState;
+  private final ElementInformationBundle elementInformationBundle;
+  private final boolean throwsBlocks;
+  private GoalLowerBound goalLowerBound;
+
+  LowerBoundListener(CommandExecutor commandExecutor, GoalState goalState,
+      ElementInformationBundle elementInformationBundle, List<CommandBlock> program) {
+    this.commandExecutor = commandExecutor;
+    this.goalState = goalState;
+    this.elementInformationBundle = elementInformationBundle;
+    throwsBlocks = CommandRegistry.uses(program, "throw", "throwover");
+  }
+
+  // the goal is checked before the apples, so the command that uses the last apple can still win
+  @Override
+  public void tickRan(int ticks, int applesLeft) {
+    if (getGoalLowerBound().cannotFinishWithin(applesLeft + 1)) {
+      commandExecutor.endRun(Outcome.CANNOT_FINISH, goalLowerBound.getCommandsNeeded());
+    }
+  }
+
+  // like the goal tracker, built on the first tick
+  private GoalLowerBound getGoalLowerBound() {
+    if (goalLowerBound == null) {
+      goalLowerBound = new GoalLowerBound(goalState, elementInformationBundle, throwsBlocks);
+    }
+    return goalLowerBound;
+  }
+}
@@ -0,0 +1,293 @@
+package ooga.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import ooga.controller.BackEndExternalAPI;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.WorldCheckpoint;
+import ooga.model.grid.gridData.TickDelta;
+import ooga.model.player.Player;
+import ooga.model.simulation.RunTrace;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * What a CommandExecutor remembers about its run so that a run of an edited program can skip the
+ * ticks that cannot have changed: the first tick each line of the program ran in, checkpoints of
+ * the world taken every few ticks, and the state hash after every tick.
+ *
+ * <p>Before a changed line first runs, the edited program does exactly what the old one did, so
+ * its run can start from the last checkpoint taken before that tick. Line numbers one past the
+ * end of a program count as a line too, since an avatar that got there stopped, so adding or
+ * removing lines at the end is handled like any other edit. The if/end if pairs decide where an
+ * unchanged if jumps to, so if they differ the runs are not compared at all.
+ *
+ * <p>Checkpoints are taken every CHECKPOINT_INTERVAL ticks at first. Once there are
+ * MAX_CHECKPOINTS of them, every other one is dropped and the interval doubles, so a long run
+ * keeps a bounded number of checkpoints spread over the whole run.
+ *
+ * <p>The history is one of the TickListeners of its run, so it takes its checkpoints and records
+ * the lines on its own, and a run of an edited program only calls resumeFrom before its first
+ * tick and replays the ticks it skipped through replayTick.
+ */
+public class RunHistory implements TickListener {
+
+  private static final int CHECKPOINT_INTERVAL = 8;
+  private static final int MAX_CHECKPOINTS = 64;
+  private static final int NOT_RUN = Integer.MAX_VALUE;
+
+  private final List<CommandBlock> program;
+  private final Map<Integer, Integer> mapOfCommandLines;
+  private final ElementInformationBundle elementInformationBundle;
+  private final int[] firstTickAtLine;
+  private final List<Checkpoint> checkpoints;
+  private int checkpointInterval;
+  private long[] hashes;
+  private int lastHashedTick;
+  private RunTrace replayTrace;
+  private int resumedTick;
+
+  /**
+   * A checkpoint of a run, taken before a tick
+   */
+  public static class Checkpoint {
+
+    private final int tick;
+    private final int commandsExecuted;
+    private final WorldCheckpoint world;
+
+    Checkpoint(int tick, int commandsExecuted, WorldCheckpoint world) {
+      this.tick = tick;
+      this.commandsExecuted = commandsExecuted;
+      this.world = world;
+    }
+
+    /**
+     * Returns the number of ticks that had run when the checkpoint was taken
+     *
+     * @return ticks before the checkpoint
+     */
+    public int getTick() {
+      return tick;
+    }
+
+    public int getCommandsExecuted() {
+      return commandsExecuted;
+    }
+
+    public WorldCheckpoint getWorld() {
+      return world;
+    }
+  }
+
+  /**
+   * Creates the empty history of a run of a program
+   *
+   * @param program                  command blocks of the program
+   * @param mapOfCommandLines        map from each if line to its end if line
+   * @param elementInformationBundle grid the run takes checkpoints of
+   */
+  public RunHistory(List<CommandBlock> program, Map<Integer, Integer> mapOfCommandLines,
+      ElementInformationBundle elementInformationBundle) {
+    this.program = new ArrayList<>(program);
+    this.mapOfCommandLines = new HashMap<>(mapOfCommandLines);
+    this.elementInformationBundle = elementInformationBundle;
+    firstTickAtLine = new int[program.size() + 2];
+    Arrays.fill(firstTickAtLine, NOT_RUN);
+    checkpoints = new ArrayList<>();
+    checkpointInterval = CHECKPOINT_INTERVAL;
+    hashes = new long[64];
+    lastHashedTick = -1;
+  }
+
+  /**
+   * Records that an avatar is on a line in a tick. Lines past the end of the program count as
+   * the line one past the end.
+   *
+   * @param line program counter of the avatar
+   * @param tick number of the tick, starting at 1
+   */
+  public void recordLine(int line, int tick) {
+    int index = Math.min(Math.max(line, 0), program.size() + 1);
+    if (firstTickAtLine[index] == NOT_RUN) {
+      firstTickAtLine[index] = tick;
+    }
+  }
+
+  /**
+   * Records the state hash after a tick
+   *
+   * @param tick number of ticks that have run
+   * @param hash state hash
+   */
+  public void recordHash(int tick, long hash) {
+    if (tick == hashes.length) {
+      hashes = Arrays.copyOf(hashes, tick * 2);
+    }
+    hashes[tick] = hash;
+    lastHashedTick = tick;
+  }
+
+  /**
+   * Returns the state hash recorded after a tick
+   *
+   * @param tick number of ticks that had run
+   * @return state hash
+   */
+  public long getHash(int tick) {
+    return hashes[tick];
+  }
+
+  /**
+   * Checks whether a checkpoint should be taken before the next tick
+   *
+   * @param tick number of ticks that have run
+   * @return true if a checkpoint is due
+   */
+  private boolean isCheckpointDue(int tick) {
+    int lastTick = checkpoints.isEmpty() ? 0 : checkpoints.get(checkpoints.size() - 1).tick;
+    return tick - lastTick >= checkpointInterval;
+  }
+
+  /**
+   * Adds a checkpoint taken before the next tick
+   *
+   * @param tick             number of ticks that have run
+   * @param commandsExecuted number of commands executed so far
+   * @param world            state of the grid
+   */
+  private void addCheckpoint(int tick, int commandsExecuted, WorldCheckpoint world) {
+    checkpoints.add(new Checkpoint(tick, commandsExecuted, world));
+    if (checkpoints.size() > MAX_CHECKPOINTS) {
+      for (int i = checkpoints.size() - 1; i >= 0; i -= 2) {
+        checkpoints.remove(i);
+      }
+      checkpointInterval *= 2;
+    }
+  }
+
+  /**
+   * Finds where a run of an edited program can start from: the last checkpoint taken before any
+   * line that differs from this history's program ran
+   *
+   * @param editedProgram     command blocks of the edited program
+   * @param editedCommandLines map from each if line to its end if line of the edited program
+   * @return checkpoint to start from, or null if the edited program has to run from the start
+   */
+  private Checkpoint findResumePoint(List<CommandBlock> editedProgram,
+      Map<Integer, Integer> editedCommandLines) {
+    if (!mapOfCommandLines.equals(editedCommandLines)) {
+      return null;
+    }
+    int firstChangedTick = NOT_RUN;
+    int lines = Math.max(program.size(), editedProgram.size()) + 1;
+    for (int line = 1; line <= lines; line++) {
+      if (!isSameLine(editedProgram, line)) {
+        firstChangedTick = Math.min(firstChangedTick, firstTickAt(line));
+      }
+    }
+    Checkpoint resumePoint = null;
+    for (Checkpoint checkpoint : checkpoints) {
+      if (checkpoint.tick < firstChangedTick && checkpoint.tick <= lastHashedTick) {
+        resumePoint = checkpoint;
+      }
+    }
+    return resumePoint;
+  }
+
+  /**
+   * Starts this run from the last checkpoint of a previous run taken before any line that
+   * differs from this run's program ran. The grid is put back to the checkpoint, and everything
+   * the previous history knows about the ticks before it is true of this run as well, so it is
+   * carried over. Must be called before the first tick.
+   *
+   * @param previousHistory history of the previous run on the same level
+   * @param previousTrace   trace of the previous run, which the skipped ticks are replayed from
+   * @return checkpoint the run starts from, or null if it has to run from the start
+   */
+  public Checkpoint resumeFrom(RunHistory previousHistory, RunTrace previousTrace) {
+    Checkpoint resumePoint = previousHistory.findResumePoint(program, mapOfCommandLines);
+    if (resumePoint == null || resumePoint.tick > previousTrace.getTickCount()) {
+      return null;
+    }
+    resumePoint.world.restoreInto(elementInformationBundle);
+    for (int line = 0; line < firstTickAtLine.length; line++) {
+      int tick = previousHistory.firstTickAt(line);
+      if (tick <= resumePoint.tick) {
+        firstTickAtLine[line] = tick;
+      }
+    }
+    for (Checkpoint checkpoint : previousHistory.checkpoints) {
+      if (checkpoint.tick <= resumePoint.tick) {
+        checkpoints.add(checkpoint);
+      }
+    }
+    checkpointInterval = previousHistory.checkpointInterval;
+    hashes = Arrays.copyOf(previousHistory.hashes, Math.max(resumePoint.tick + 1, 64));
+    lastHashedTick = resumePoint.tick;
+    replayTrace = previousTrace;
+    resumedTick = resumePoint.tick;
+    return resumePoint;
+  }
+
+  /**
+   * Returns the number of ticks the run skipped by resuming from a previous run
+   *
+   * @return ticks taken from the previous run, 0 if the run started from the beginning
+   */
+  public int getResumedTick() {
+    return resumedTick;
+  }
+
+  /**
+   * Replays a tick the run skipped by resuming, making the calls the previous run made
+   *
+   * @param tick            index of the tick, starting at 0
+   * @param modelController API to make the calls on
+   * @param tickDelta       delta to fill with the recorded changes; it is reused
+   * @return true if the tick was replayed, false if it is past the checkpoint and has to run
+   */
+  public boolean replayTick(int tick, BackEndExternalAPI modelController, TickDelta tickDelta) {
+    if (tick >= resumedTick) {
+      return false;
+    }
+    replayTrace.replayTick(tick, modelController, tickDelta, 0);
+    return true;
+  }
+
+  @Override
+  public void tickStarting(int ticks, int commandsExecuted) {
+    if (isCheckpointDue(ticks)) {
+      addCheckpoint(ticks, commandsExecuted, new WorldCheckpoint(elementInformationBundle));
+    }
+  }
+
+  @Override
+  public void lineStarting(Player avatar, int tick) {
+    recordLine(avatar.getProgramCounter(), tick);
+  }
+
+  // the line one past the end of this history's program stands for every line after it
+  private int firstTickAt(int line) {
+    return firstTickAtLine[Math.min(line, program.size() + 1)];
+  }
+
+  private boolean isSameLine(List<CommandBlock> editedProgram, int line) {
+    boolean inProgram = line <= program.size();
+    boolean inEditedProgram = line <= editedProgram.size();
+    if (!inProgram || !inEditedProgram) {
+      return inProgram == inEditedProgram;
+    }
+    CommandBlock commandBlock = program.get(line - 1);
+    CommandBlock editedBlock = editedProgram.get(line - 1);
+    return commandBlock.getType().equals(editedBlock.getType())
+        && Objects.equals(parametersOf(commandBlock), parametersOf(editedBlock));
+  }
+
+  private static Map<String, String> parametersOf(CommandBlock commandBlock) {
+    return commandBlock.getParameters() == null ? Map.of() : commandBlock.getParameters();
+  }
+}
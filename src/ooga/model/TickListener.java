@@ -0,0 +1,91 @@
+package ooga.model;
+
+import ooga.model.grid.gridData.TickDelta;
+import ooga.model.player.Player;
+import ooga.model.simulation.Outcome;
+import ooga.model.simulation.RunTrace;
+
+/**
+ * Watches a CommandExecutor's run tick by tick. The executor only runs the lines, sends the
+ * changes of every tick and decides when the level is won or lost; everything else that has to
+ * happen every tick, like checkpoints, cycle detection, breakpoints or recording the run, is a
+ * listener it calls in the order they were added. Every method does nothing by default, so a
+ * listener only implements the events it needs.
+ */
+interface TickListener {
+
+  /**
+   * Called before a tick runs
+   *
+   * @param ticks            number of ticks that have run
+   * @param commandsExecuted number of commands executed so far
+   */
+  default void tickStarting(int ticks, int commandsExecuted) {
+  }
+
+  /**
+   * Called for every avatar before it runs the line it is on, including avatars that are past
+   * the end of the program
+   *
+   * @param avatar avatar about to run its line
+   * @param tick   number of the tick, starting at 1
+   */
+  default void lineStarting(Player avatar, int tick) {
+  }
+
+  /**
+   * Called after an avatar ran a line
+   *
+   * @param avatar avatar with its new program counter
+   */
+  default void lineRan(Player avatar) {
+  }
+
+  /**
+   * Called for every TickDelta sent to the frontend
+   *
+   * @param tickDelta changes sent
+   */
+  default void tickDeltaSent(TickDelta tickDelta) {
+  }
+
+  /**
+   * Called after a tick that neither won, lost nor finished the level, as long as no listener has
+   * ended the run yet. A listener may end the run here with CommandExecutor.endRun.
+   *
+   * @param ticks      number of ticks that have run
+   * @param applesLeft apples the run has left
+   */
+  default void tickRan(int ticks, int applesLeft) {
+  }
+
+  /**
+   * Called every time the run ends, after the frontend was told. A run can end more than once in
+   * a tick, and only the first ending decides its outcome.
+   *
+   * @param outcome    how the run ended
+   * @param applesLeft apples the run had left
+   * @param detail     bonus from the number of commands for a win, the length of the cycle for a
+   *                   run that loops forever, the commands needed for a run that cannot finish
+   */
+  default void runEnded(Outcome outcome, int applesLeft, int detail) {
+  }
+
+  /**
+   * Called once everything a tick does has been sent
+   *
+   * @param ticks number of ticks that have run
+   */
+  default void tickEnded(int ticks) {
+  }
+
+  /**
+   * Called before the first tick when the run skips the ticks before a checkpoint of a previous
+   * run. The world is already back at the checkpoint.
+   *
+   * @param tick          number of ticks skipped
+   * @param previousTrace trace of the previous run, which the skipped ticks are replayed from
+   */
+  default void runResumed(int tick, RunTrace previousTrace) {
+  }
+}
@@ -0,0 +1,71 @@
+package ooga.model;
+
+import ooga.model.grid.gridData.TickDelta;
+import ooga.model.simulation.CachedRun;
+import ooga.model.simulation.Outcome;
+import ooga.model.simulation.ResultCache;
+import ooga.model.simulation.ResultKey;
+import ooga.model.simulation.RunTrace;
+
+/**
+ * Records a run into a RunTrace as it goes and adds it to the ResultCache at the end of the tick
+ * it ends in, so the rest of that tick is still in the trace.
+ */
+class TraceRecorder implements TickListener {
+
+  private final ResultCache resultCache;
+  private final ResultKey resultKey;
+  private RunTrace trace;
+  private Outcome outcome;
+  private int applesLeftAtEnd;
+  private boolean isCached;
+
+  TraceRecorder(ResultCache resultCache, ResultKey resultKey) {
+    this.resultCache = resultCache;
+    this.resultKey = resultKey;
+    trace = new RunTrace();
+  }
+
+  RunTrace getTrace() {
+    return trace;
+  }
+
+  @Override
+  public void tickStarting(int ticks, int commandsExecuted) {
+    trace.startTick();
+  }
+
+  @Override
+  public void tickDeltaSent(TickDelta tickDelta) {
+    trace.addTickDelta(tickDelta);
+  }
+
+  @Override
+  public void runEnded(Outcome outcome, int applesLeft, int detail) {
+    switch (outcome) {
+      case WON -> trace.addWin(applesLeft, detail);
+      case LOST -> trace.addEndOfRun();
+      case OUT_OF_APPLES -> trace.addLose();
+      case LOOPS_FOREVER -> trace.addLoopsForever(detail);
+      case CANNOT_FINISH -> trace.addCannotFinish(detail);
+    }
+    if (this.outcome == null) {
+      this.outcome = outcome;
+      applesLeftAtEnd = Math.max(0, applesLeft);
+    }
+  }
+
+  @Override
+  public void tickEnded(int ticks) {
+    if (outcome != null && !isCached) {
+      isCached = true;
+      resultCache.put(resultKey, new CachedRun(outcome, applesLeftAtEnd, trace.getTickCount(),
+          trace));
+    }
+  }
+
+  @Override
+  public void runResumed(int tick, RunTrace previousTrace) {
+    trace = previousTrace.prefix(tick);
+  }
+}
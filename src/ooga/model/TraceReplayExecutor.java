@@ -0,0 +1,61 @@
+package ooga.model;
+
+import com.google.common.base.Stopwatch;
+import ooga.controller.BackEndExternalAPI;
+import ooga.model.grid.gridData.InitialState;
+import ooga.model.grid.gridData.TickDelta;
+import ooga.model.simulation.RunTrace;
+
+/**
+ * Plays back a run that was found in the ResultCache instead of executing its program. Each call
+ * to runNextCommand makes the calls the CommandExecutor made in the same tick of the original
+ * run, so the simulation thread and the frontend handle it like any other run. The time bonus of
+ * a win is worked out again from the level's clock, since the player took a different amount of
+ * time than in the run that was cached.
+ */
+public class TraceReplayExecutor implements Executor {
+
+  private final RunTrace trace;
+  private final BackEndExternalAPI modelController;
+  private final int timeLimit;
+  private final Stopwatch stopwatch;
+  private final TickDelta tickDelta;
+  private int tick;
+
+  /**
+   * Creates an executor that replays the given trace from its first tick
+   *
+   * @param trace           trace of the cached run
+   * @param modelController API the recorded calls are made on
+   * @param initialState    initial state of the level, for its time limit
+   * @param stopwatch       clock of the level
+   */
+  public TraceReplayExecutor(RunTrace trace, BackEndExternalAPI modelController,
+      InitialState initialState, Stopwatch stopwatch) {
+    this.trace = trace;
+    this.modelController = modelController;
+    this.timeLimit = initialState.getTimeLimit();
+    this.stopwatch = stopwatch;
+    tickDelta = new TickDelta();
+  }
+
+  /**
+   * Replays the next tick of the cached run
+   */
+  @Override
+  public void runNextCommand() {
+    if (tick < trace.getTickCount()) {
+      trace.replayTick(tick, modelController, tickDelta,
+          CommandExecutor.calculateTimeBonus(timeLimit, stopwatch));
+      tick++;
+    }
+  }
+
+  /**
+   * Checks whether the game has timed out for not
+   */
+  @Override
+  public void checkTimeLeftOrNot() {
+    CommandExecutor.checkTimeLeftOrNot(modelController, timeLimit, stopwatch);
+  }
+}
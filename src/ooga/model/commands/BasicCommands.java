@@ -69,8 +69,10 @@ public abstract class BasicCommands extends Commands {
    * @param avatar The avatar to be updated by position
    */
   protected void sendAvatarPositionUpdate(Avatar avatar) {
-    getElementInformationBundle().getModelController()
-        .updateAvatarPosition(avatar.getId(), avatar.getXCoord(), avatar.getYCoord());
+    if (hasModelController()) {
+      getElementInformationBundle().getModelController()
+          .updateAvatarPosition(avatar.getId(), avatar.getXCoord(), avatar.getYCoord());
+    }
   }
 
   /**
@@ -79,8 +81,10 @@ public abstract class BasicCommands extends Commands {
    * @param block The block to be updated by position
    */
   protected void sendBlockPositionUpdate(Block block) {
-    getElementInformationBundle().getModelController()
-        .updateBlockPosition(block.getId(), block.getXCoord(), block.getYCoord());
+    if (hasModelController()) {
+      getElementInformationBundle().getModelController()
+          .updateBlockPosition(block.getId(), block.getXCoord(), block.getYCoord());
+    }
   }
 
   /**
@@ -89,7 +93,10 @@ public abstract class BasicCommands extends Commands {
    * @param block The block to be updated if it is held
    */
   protected void sendBlockHeldUpdate(Block block) {
-    getElementInformationBundle().getModelController().updateBlock(block.getId(), block.isHeld());
+    if (hasModelController()) {
+      getElementInformationBundle().getModelController()
+          .updateBlock(block.getId(), block.isHeld());
+    }
   }
 
   /**
@@ -98,8 +105,15 @@ public abstract class BasicCommands extends Commands {
    * @param block The block whose number is to be updated
    */
   protected void sendDataCubeNumUpdate(Block block) {
-    getElementInformationBundle().getModelController().setBlockNumber(block.getId(),
-        block.getDisplayNum());
+    if (hasModelController()) {
+      getElementInformationBundle().getModelController().setBlockNumber(block.getId(),
+          block.getDisplayNum());
+    }
+  }
+
+  // headless runs (see ooga.model.simulation) execute commands without a model controller
+  private boolean hasModelController() {
+    return getElementInformationBundle().getModelController() != null;
   }
 
 }
\ No newline at end of file
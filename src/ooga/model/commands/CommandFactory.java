@@ -0,0 +1,22 @@
+package ooga.model.commands;
+
+import java.util.Map;
+import ooga.model.grid.ElementInformationBundle;
+
+/**
+ * Creates a command. Every command class registers its constructor as a CommandFactory in
+ * CommandRegistry, so a missing or mistyped constructor is caught by the compiler.
+ */
+@FunctionalInterface
+public interface CommandFactory {
+
+  /**
+   * Creates the command
+   *
+   * @param elementInformationBundle The ElementInformationBundle of the game
+   * @param parameters               A Map of parameters to the command
+   * @return new command
+   */
+  Commands create(ElementInformationBundle elementInformationBundle,
+      Map<String, String> parameters);
+}
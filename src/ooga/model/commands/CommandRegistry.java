@@ -0,0 +1,186 @@
+package ooga.model.commands;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Maps every command name to the constructor of its command class. The table is written out
+ * with constructor references instead of loading classes by name at runtime, so it is checked
+ * when the game is compiled and creating a command is a single call. Command names are matched
+ * ignoring whitespace and case, so "pickUp", "pick up" and "PickUp" are the same command.
+ *
+ * <p>The registry also checks programs against the parameter schema of a level (its
+ * commands.json, as parsed into AvailableCommands) so that a bad program is rejected when it is
+ * loaded instead of failing part way through a run.
+ */
+public final class CommandRegistry {
+
+  private static final Map<String, CommandFactory> FACTORIES = new HashMap<>();
+  // commands the frontend inserts on its own; they never appear in commands.json
+  private static final Set<String> STRUCTURAL_COMMANDS = Set.of("endif");
+
+  static {
+    FACTORIES.put("step", Step::new);
+    FACTORIES.put("pickup", PickUp::new);
+    FACTORIES.put("drop", Drop::new);
+    FACTORIES.put("throw", Throw::new);
+    FACTORIES.put("throwover", ThrowOver::new);
+    FACTORIES.put("add", Add::new);
+    FACTORIES.put("subtract", Subtract::new);
+    FACTORIES.put("multiply", Multiply::new);
+    FACTORIES.put("increment", Increment::new);
+    FACTORIES.put("decrement", Decrement::new);
+    FACTORIES.put("setzero", SetZero::new);
+    FACTORIES.put("nearest", Nearest::new);
+    FACTORIES.put("if", If::new);
+    FACTORIES.put("endif", Endif::new);
+    FACTORIES.put("jump", Jump::new);
+    FACTORIES.put("tell", Tell::new);
+  }
+
+  private CommandRegistry() {
+  }
+
+  /**
+   * Returns the name the registry uses for a command type
+   *
+   * @param type type of the command block, e.g. "pick up"
+   * @return name of the command with whitespace removed and in lower case, e.g. "pickup"
+   */
+  public static String normalize(String type) {
+    return type.replaceAll("\\s", "").toLowerCase();
+  }
+
+  /**
+   * Checks whether a command type is known
+   *
+   * @param type type of the command block
+   * @return true if the registry can create the command
+   */
+  public static boolean isRegistered(String type) {
+    return FACTORIES.containsKey(normalize(type));
+  }
+
+  /**
+   * Checks whether a program has a line of one of the given commands
+   *
+   * @param commandBlocks program to look through
+   * @param names         normalized names of the commands, e.g. "throwover"
+   * @return true if some line is one of the commands
+   */
+  public static boolean uses(List<CommandBlock> commandBlocks, String... names) {
+    for (CommandBlock commandBlock : commandBlocks) {
+      String name = normalize(commandBlock.getType());
+      for (String wanted : names) {
+        if (name.equals(wanted)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the registered name of a command type
+   *
+   * @param type type of the command block
+   * @return normalized name of the command
+   * @throws ExceptionHandler if the command is unknown
+   */
+  public static String getName(String type) {
+    String name = normalize(type);
+    if (!FACTORIES.containsKey(name)) {
+      throw new ExceptionHandler("Unknown command: " + type);
+    }
+    return name;
+  }
+
+  /**
+   * Creates the command for a command block
+   *
+   * @param commandBlock             command block from the frontend
+   * @param elementInformationBundle bundle the command is executed on
+   * @return new command
+   * @throws ExceptionHandler if the command is unknown
+   */
+  public static Commands create(CommandBlock commandBlock,
+      ElementInformationBundle elementInformationBundle) {
+    return FACTORIES.get(getName(commandBlock.getType()))
+        .create(elementInformationBundle, commandBlock.getParameters());
+  }
+
+  /**
+   * Checks that every command in the program is known, is available in the level, and has a
+   * valid value for each of the parameters the level declares for it. Parameters whose options
+   * are all numbers (jump destinations, tell ids) only need to be a number. In multiplayer the
+   * program holds both players' commands, so a command may come from any of the given schemas.
+   *
+   * @param commandBlocks     program to check
+   * @param availableCommands commands and parameter options of the level, null entries are
+   *                          ignored
+   * @throws ExceptionHandler describing the first problem found
+   */
+  public static void validate(List<CommandBlock> commandBlocks,
+      AvailableCommands... availableCommands) {
+    for (CommandBlock commandBlock : commandBlocks) {
+      String name = getName(commandBlock.getType());
+      if (STRUCTURAL_COMMANDS.contains(name)) {
+        continue;
+      }
+      AvailableCommands schema = findSchema(name, availableCommands);
+      if (schema == null) {
+        throw new ExceptionHandler(
+            "Command " + commandBlock.getType() + " is not available in this level");
+      }
+      String schemaName = findSchemaName(name, schema);
+      for (String parameter : schema.getParameters(schemaName)) {
+        validateParameter(commandBlock, parameter,
+            schema.getParameterOptions(schemaName, parameter));
+      }
+    }
+  }
+
+  private static AvailableCommands findSchema(String name, AvailableCommands[] availableCommands) {
+    for (AvailableCommands schema : availableCommands) {
+      if (schema != null && findSchemaName(name, schema) != null) {
+        return schema;
+      }
+    }
+    return null;
+  }
+
+  private static String findSchemaName(String name, AvailableCommands availableCommands) {
+    for (String command : availableCommands.getCommandNames()) {
+      if (normalize(command).equals(name)) {
+        return command;
+      }
+    }
+    return null;
+  }
+
+  private static void validateParameter(CommandBlock commandBlock, String parameter,
+      List<String> options) {
+    String value = commandBlock.getParameters().get(parameter);
+    if (value == null) {
+      throw new ExceptionHandler(
+          "Command " + commandBlock.getType() + " is missing parameter " + parameter);
+    }
+    if (isNumeric(options) ? !isNumber(value) : !options.contains(value)) {
+      throw new ExceptionHandler("Command " + commandBlock.getType() + " has invalid "
+          + parameter + " " + value);
+    }
+  }
+
+  private static boolean isNumeric(List<String> options) {
+    return !options.isEmpty() && options.stream().allMatch(CommandRegistry::isNumber);
+  }
+
+  private static boolean isNumber(String value) {
+    return value.matches("-?\\d+");
+  }
+}
@@ -83,6 +83,10 @@ public class Nearest extends AICommands {
   }
 
   private void moveAvatar(Avatar avatar, Tile prevTile, Tile nextTile, int newX, int newY) {
+    if (nextTile == prevTile) {
+      // no step possible; removing the avatar here would leave it off the grid
+      return;
+    }
     nextTile.add(avatar);
     prevTile.removeAvatar();
     avatar.setXY(newX, newY);
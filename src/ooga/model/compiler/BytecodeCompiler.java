@@ -0,0 +1,279 @@
+package ooga.model.compiler;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import ooga.model.compiler.ClassFileWriter.Code;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.PackedWorld;
+
+/**
+ * Optional tier above the PackedInterpreter for programs that are run many times, such as in
+ * grading or searches. A program that has been loaded hotThreshold times is turned into a hidden
+ * class (MethodHandles.Lookup.defineHiddenClass) with one method that runs a single line: it
+ * goes to the line through a tableswitch, and each case calls the PackedInterpreter method for its
+ * command with the operands written in as constants and returns the next line as a constant.
+ * Jumps return their destination, and ifs and tells branch straight to the line after them or to
+ * their end if, so no instruction is decoded or operand read while the program runs. The
+ * interpreter still calls the method once per avatar every tick, so what is saved is the
+ * decoding of each line, not the dispatch.
+ *
+ * <p>The generated code only calls the methods the PackedInterpreter itself uses and fails
+ * lines the same way, so a program runs exactly as it does on the PackedInterpreter and the
+ * Commands classes. The simulators still execute one line per avatar per tick: the goal and the
+ * apples are checked after every command, so lines cannot be run ahead in a loop.
+ *
+ * <p>Generated classes are cached by the program's ProgramKey, like ProgramCompiler caches
+ * compiled programs. They are defined without the STRONG option, so once a program is evicted
+ * from the cache and no interpreter uses it any more its class can be unloaded. Only the first
+ * thread to find a program hot defines its class; the others load it through the
+ * PackedInterpreter until the class is ready. Programs with more than MAX_LINES lines stay on the
+ * PackedInterpreter, since the generated method has to fit the JVM's limit on method size.
+ */
+public class BytecodeCompiler {
+
+  public static final int DEFAULT_HOT_THRESHOLD = 2;
+  public static final int MAX_LINES = 1000;
+
+  private static final int CACHE_SIZE = 256;
+  private static final String CLASS_NAME = "ooga/model/compiler/GeneratedProgram";
+  private static final String DISPATCHER = "ooga/model/compiler/LineDispatcher";
+  private static final String INTERPRETER = "ooga/model/compiler/PackedInterpreter";
+  private static final String EXECUTE = "(L" + INTERPRETER + ";II)I";
+  private static final int MAX_STACK = 7;
+  private static final int MAX_LOCALS = 4;
+
+  private final int hotThreshold;
+  private final Map<ProgramKey, CacheEntry> cache;
+  private final LongAdder classesDefined;
+
+  /**
+   * Creates a compiler that generates a class for a program the second time it is loaded
+   */
+  public BytecodeCompiler() {
+    this(DEFAULT_HOT_THRESHOLD);
+  }
+
+  /**
+   * Creates a compiler that generates a class for a program once it is hot
+   *
+   * @param hotThreshold number of loads after which a program gets its own class; 1 or less
+   *                     generates it on the first load
+   */
+  public BytecodeCompiler(int hotThreshold) {
+    this.hotThreshold = hotThreshold;
+    cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<ProgramKey, CacheEntry> eldest) {
+        return size() > CACHE_SIZE;
+      }
+    };
+    classesDefined = new LongAdder();
+  }
+
+  /**
+   * Binds a compiled program to the world it is executed on, through a generated class if the
+   * program is hot and through the PackedInterpreter otherwise
+   *
+   * @param program compiled program
+   * @param world   world the program is executed on
+   * @return interpreter for the program
+   */
+  public PackedInterpreter load(CompiledProgram program, PackedWorld world) {
+    LineDispatcher lineDispatcher = findDispatcher(program);
+    if (lineDispatcher == null) {
+      return new PackedInterpreter(program, world);
+    }
+    return new BytecodeInterpreter(program, world, lineDispatcher);
+  }
+
+  /**
+   * Checks whether a program already has a generated class
+   *
+   * @param program compiled program
+   * @return true if the program is loaded through a generated class
+   */
+  public boolean isGenerated(CompiledProgram program) {
+    synchronized (cache) {
+      CacheEntry cacheEntry = cache.get(program.getProgramKey());
+      return cacheEntry != null && cacheEntry.lineDispatcher != null;
+    }
+  }
+
+  /**
+   * Returns the number of classes generated so far, including evicted ones
+   *
+   * @return number of hidden classes defined
+   */
+  public long getClassesDefined() {
+    return classesDefined.sum();
+  }
+
+  private LineDispatcher findDispatcher(CompiledProgram program) {
+    if (program.size() == 0 || program.size() > MAX_LINES) {
+      return null;
+    }
+    CacheEntry cacheEntry;
+    synchronized (cache) {
+      cacheEntry = cache.computeIfAbsent(program.getProgramKey(), programKey -> new CacheEntry());
+      if (cacheEntry.lineDispatcher != null) {
+        return cacheEntry.lineDispatcher;
+      }
+      if (cacheEntry.isDefining || ++cacheEntry.loads < hotThreshold) {
+        return null;
+      }
+      cacheEntry.isDefining = true;
+    }
+    LineDispatcher lineDispatcher = null;
+    try {
+      lineDispatcher = define(program);
+      return lineDispatcher;
+    } finally {
+      synchronized (cache) {
+        cacheEntry.lineDispatcher = lineDispatcher;
+        cacheEntry.isDefining = false;
+      }
+    }
+  }
+
+  private LineDispatcher define(CompiledProgram program) {
+    try {
+      Lookup lookup = MethodHandles.lookup().defineHiddenClass(generate(program), true);
+      LineDispatcher lineDispatcher = (LineDispatcher) lookup
+          .findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+      classesDefined.increment();
+      return lineDispatcher;
+    } catch (Throwable e) {
+      throw new ExceptionHandler("the program could not be compiled to bytecode: " + e);
+    }
+  }
+
+  // execute(interpreter, avatar, line): locals are 0 this, 1 interpreter, 2 avatar, 3 line
+  private byte[] generate(CompiledProgram program) {
+    ClassFileWriter classFileWriter = new ClassFileWriter(CLASS_NAME, DISPATCHER);
+    Code code = classFileWriter.new Code();
+    code.op(ClassFileWriter.ILOAD_3);
+    int tableSwitch = code.size();
+    code.op(ClassFileWriter.TABLESWITCH);
+    while (code.size() % 4 != 0) {
+      code.op(0);
+    }
+    int defaultOffset = code.size();
+    code.u4(0);
+    code.u4(1);
+    code.u4(program.size());
+    int caseOffsets = code.size();
+    for (int line = 1; line <= program.size(); line++) {
+      code.u4(0);
+    }
+    for (int line = 1; line <= program.size(); line++) {
+      code.patchInt(caseOffsets + (line - 1) * 4, code.size() - tableSwitch);
+      generateLine(code, program, line);
+    }
+    code.patchInt(defaultOffset, code.size() - tableSwitch);
+    fail(code, "failLine");
+    classFileWriter.addMethod("execute", EXECUTE, code, MAX_STACK, MAX_LOCALS);
+    return classFileWriter.toByteArray();
+  }
+
+  private void generateLine(Code code, CompiledProgram program, int line) {
+    int opcode = program.getOpcode(line);
+    switch (opcode) {
+      case Opcodes.STEP -> callWithDirection(code, program, line, "step");
+      case Opcodes.THROW -> callWithDirection(code, program, line, "throwBlock");
+      case Opcodes.THROW_OVER -> callWithDirection(code, program, line, "throwOver");
+      case Opcodes.PICK_UP -> call(code, "pickUp", "(I)V");
+      case Opcodes.DROP -> call(code, "drop", "(I)V");
+      case Opcodes.NEAREST -> call(code, "nearest", "(I)V");
+      case Opcodes.ADD, Opcodes.SUBTRACT, Opcodes.MULTIPLY -> callWithOpcode(code, opcode,
+          "calculate");
+      case Opcodes.INCREMENT, Opcodes.DECREMENT, Opcodes.SET_ZERO -> callWithOpcode(code, opcode,
+          "setDataCube");
+      case Opcodes.END_IF -> {
+      }
+      case Opcodes.IF -> {
+        code.op(ClassFileWriter.ALOAD_1);
+        code.op(ClassFileWriter.ILOAD_2);
+        code.op(ClassFileWriter.ILOAD_3);
+        for (int operand = 0; operand < 4; operand++) {
+          code.pushInt(program.getOperand(line, operand));
+        }
+        code.invokeVirtual(INTERPRETER, "checkCondition", "(IIIIII)Z");
+        branch(code, code.branch(ClassFileWriter.IFEQ), line, program.getOperand(line, 4));
+        return;
+      }
+      case Opcodes.TELL -> {
+        code.op(ClassFileWriter.ALOAD_1);
+        code.op(ClassFileWriter.ILOAD_2);
+        code.invokeVirtual(INTERPRETER, "getAvatarId", "(I)I");
+        code.pushInt(program.getOperand(line, 0));
+        branch(code, code.branch(ClassFileWriter.IF_ICMPNE), line, program.getOperand(line, 1));
+        return;
+      }
+      case Opcodes.JUMP -> {
+        returnLine(code, program.getOperand(line, 0));
+        return;
+      }
+      default -> {
+        fail(code, "failLine");
+        return;
+      }
+    }
+    returnLine(code, line + 1);
+  }
+
+  private void call(Code code, String method, String descriptor) {
+    code.op(ClassFileWriter.ALOAD_1);
+    code.op(ClassFileWriter.ILOAD_2);
+    code.invokeVirtual(INTERPRETER, method, descriptor);
+  }
+
+  private void callWithDirection(Code code, CompiledProgram program, int line, String method) {
+    code.op(ClassFileWriter.ALOAD_1);
+    code.op(ClassFileWriter.ILOAD_2);
+    code.pushInt(program.getOperand(line, 0));
+    code.pushInt(program.getOperand(line, 1));
+    code.invokeVirtual(INTERPRETER, method, "(III)V");
+  }
+
+  private void callWithOpcode(Code code, int opcode, String method) {
+    code.op(ClassFileWriter.ALOAD_1);
+    code.op(ClassFileWriter.ILOAD_2);
+    code.pushInt(opcode);
+    code.invokeVirtual(INTERPRETER, method, "(II)V");
+  }
+
+  // same three ways out as PackedInterpreter.branch when the condition fails
+  private void branch(Code code, int conditionFails, int line, int falseTarget) {
+    returnLine(code, line + 1);
+    code.jumpHere(conditionFails);
+    if (falseTarget == Opcodes.NO_END_LINE) {
+      fail(code, "failBranch");
+    } else {
+      returnLine(code, falseTarget == Opcodes.STAY_ON_LINE ? line : falseTarget);
+    }
+  }
+
+  private void fail(Code code, String method) {
+    code.op(ClassFileWriter.ALOAD_1);
+    code.op(ClassFileWriter.ILOAD_3);
+    code.invokeVirtual(INTERPRETER, method, "(I)I");
+    code.op(ClassFileWriter.IRETURN);
+  }
+
+  private void returnLine(Code code, int line) {
+    code.pushInt(line);
+    code.op(ClassFileWriter.IRETURN);
+  }
+
+  // loads are counted until the program is hot; both fields are guarded by the cache's lock
+  private static class CacheEntry {
+
+    private int loads;
+    private boolean isDefining;
+    private LineDispatcher lineDispatcher;
+  }
+}
@@ -0,0 +1,29 @@
+package ooga.model.compiler;
+
+import ooga.model.grid.PackedWorld;
+
+/**
+ * PackedInterpreter that executes lines through a class generated by BytecodeCompiler instead
+ * of decoding the instruction stream. The generated class calls back into the same methods the
+ * PackedInterpreter uses, so both change the world the same way.
+ */
+class BytecodeInterpreter extends PackedInterpreter {
+
+  private final PackedWorld world;
+  private final LineDispatcher lineDispatcher;
+
+  BytecodeInterpreter(CompiledProgram program, PackedWorld world, LineDispatcher lineDispatcher) {
+    super(program, world);
+    this.world = world;
+    this.lineDispatcher = lineDispatcher;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void execute(int avatar) {
+    world.setProgramCounter(avatar,
+        lineDispatcher.execute(this, avatar, world.getProgramCounter(avatar)));
+  }
+}
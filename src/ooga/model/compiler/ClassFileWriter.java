@@ -0,0 +1,299 @@
+package ooga.model.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough of a class file writer for BytecodeCompiler: one final class that extends Object,
+ * implements one interface and has a no argument constructor plus methods whose code is written
+ * as raw bytes. The class file version is 49 so that the methods do not need stack map frames;
+ * the JVM verifies them by type inference instead.
+ */
+class ClassFileWriter {
+
+  static final int ALOAD_0 = 0x2a;
+  static final int ALOAD_1 = 0x2b;
+  static final int ILOAD_2 = 0x1c;
+  static final int ILOAD_3 = 0x1d;
+  static final int ICONST_0 = 0x03;
+  static final int BIPUSH = 0x10;
+  static final int SIPUSH = 0x11;
+  static final int LDC_W = 0x13;
+  static final int IFEQ = 0x99;
+  static final int IF_ICMPNE = 0xa0;
+  static final int TABLESWITCH = 0xaa;
+  static final int IRETURN = 0xac;
+  static final int RETURN = 0xb1;
+  static final int INVOKEVIRTUAL = 0xb6;
+  static final int INVOKESPECIAL = 0xb7;
+
+  private static final int MAGIC = 0xcafebabe;
+  private static final int VERSION = 49;
+  private static final int ACC_PUBLIC = 0x0001;
+  private static final int ACC_FINAL = 0x0010;
+  private static final int ACC_SUPER = 0x0020;
+  private static final int CONSTANT_UTF8 = 1;
+  private static final int CONSTANT_INTEGER = 3;
+  private static final int CONSTANT_CLASS = 7;
+  private static final int CONSTANT_METHODREF = 10;
+  private static final int CONSTANT_NAME_AND_TYPE = 12;
+  private static final String OBJECT = "java/lang/Object";
+
+  private final ByteArrayOutputStream constantPool;
+  private final Map<String, Integer> constants;
+  private final List<byte[]> methods;
+  private final int thisClass;
+  private final int superClass;
+  private final int anInterface;
+  private int constantCount;
+
+  /**
+   * Starts a class
+   *
+   * @param className     internal name of the class, e.g. ooga/model/compiler/Generated
+   * @param interfaceName internal name of the interface it implements
+   */
+  ClassFileWriter(String className, String interfaceName) {
+    constantPool = new ByteArrayOutputStream();
+    constants = new HashMap<>();
+    methods = new ArrayList<>();
+    constantCount = 1;
+    thisClass = classConstant(className);
+    superClass = classConstant(OBJECT);
+    anInterface = classConstant(interfaceName);
+    Code constructor = new Code();
+    constructor.op(ALOAD_0);
+    constructor.op(INVOKESPECIAL);
+    constructor.u2(methodConstant(OBJECT, "<init>", "()V"));
+    constructor.op(RETURN);
+    addMethod("<init>", "()V", constructor, 1, 1);
+  }
+
+  /**
+   * Adds a public method
+   *
+   * @param name       name of the method
+   * @param descriptor descriptor of the method
+   * @param code       body of the method
+   * @param maxStack   deepest the operand stack gets
+   * @param maxLocals  number of local variable slots, including this and the arguments
+   */
+  void addMethod(String name, String descriptor, Code code, int maxStack, int maxLocals) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeShort(ACC_PUBLIC);
+      out.writeShort(utf8Constant(name));
+      out.writeShort(utf8Constant(descriptor));
+      out.writeShort(1);
+      out.writeShort(utf8Constant("Code"));
+      out.writeInt(12 + code.size());
+      out.writeShort(maxStack);
+      out.writeShort(maxLocals);
+      out.writeInt(code.size());
+      code.writeTo(out);
+      out.writeShort(0);
+      out.writeShort(0);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    methods.add(bytes.toByteArray());
+  }
+
+  /**
+   * Returns the finished class file
+   *
+   * @return bytes of the class file
+   */
+  byte[] toByteArray() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(MAGIC);
+      out.writeShort(0);
+      out.writeShort(VERSION);
+      out.writeShort(constantCount);
+      constantPool.writeTo(out);
+      out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+      out.writeShort(thisClass);
+      out.writeShort(superClass);
+      out.writeShort(1);
+      out.writeShort(anInterface);
+      out.writeShort(0);
+      out.writeShort(methods.size());
+      for (byte[] method : methods) {
+        out.write(method);
+      }
+      out.writeShort(0);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Returns the constant pool index of a method reference
+   *
+   * @param owner      internal name of the class declaring the method
+   * @param name       name of the method
+   * @param descriptor descriptor of the method
+   * @return index of the constant
+   */
+  int methodConstant(String owner, String name, String descriptor) {
+    int ownerIndex = classConstant(owner);
+    int nameAndType = constant("nameAndType " + name + descriptor, CONSTANT_NAME_AND_TYPE,
+        utf8Constant(name), utf8Constant(descriptor));
+    return constant("method " + owner + "." + name + descriptor, CONSTANT_METHODREF, ownerIndex,
+        nameAndType);
+  }
+
+  /**
+   * Returns the constant pool index of an int constant
+   *
+   * @param value value of the constant
+   * @return index of the constant
+   */
+  int intConstant(int value) {
+    String key = "int " + value;
+    Integer index = constants.get(key);
+    if (index == null) {
+      constantPool.write(CONSTANT_INTEGER);
+      writeInt(value);
+      index = add(key);
+    }
+    return index;
+  }
+
+  private int classConstant(String name) {
+    return constant("class " + name, CONSTANT_CLASS, utf8Constant(name));
+  }
+
+  private int utf8Constant(String value) {
+    String key = "utf8 " + value;
+    Integer index = constants.get(key);
+    if (index == null) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      constantPool.write(CONSTANT_UTF8);
+      writeShort(bytes.length);
+      constantPool.writeBytes(bytes);
+      index = add(key);
+    }
+    return index;
+  }
+
+  private int constant(String key, int tag, int... references) {
+    Integer index = constants.get(key);
+    if (index == null) {
+      constantPool.write(tag);
+      for (int reference : references) {
+        writeShort(reference);
+      }
+      index = add(key);
+    }
+    return index;
+  }
+
+  private int add(String key) {
+    constants.put(key, constantCount);
+    return constantCount++;
+  }
+
+  private void writeShort(int value) {
+    constantPool.write(value >>> 8);
+    constantPool.write(value);
+  }
+
+  private void writeInt(int value) {
+    writeShort(value >>> 16);
+    writeShort(value & 0xffff);
+  }
+
+  /**
+   * Bytecode of one method, with helpers for pushing constants and patching branch offsets
+   */
+  class Code {
+
+    private byte[] bytes = new byte[256];
+    private int size;
+
+    void op(int opcode) {
+      if (size == bytes.length) {
+        bytes = Arrays.copyOf(bytes, size * 2);
+      }
+      bytes[size++] = (byte) opcode;
+    }
+
+    void u2(int value) {
+      op(value >>> 8);
+      op(value);
+    }
+
+    void u4(int value) {
+      u2(value >>> 16);
+      u2(value);
+    }
+
+    /**
+     * Pushes an int with the shortest instruction that holds it
+     */
+    void pushInt(int value) {
+      if (value >= -1 && value <= 5) {
+        op(ICONST_0 + value);
+      } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+        op(BIPUSH);
+        op(value);
+      } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+        op(SIPUSH);
+        u2(value);
+      } else {
+        op(LDC_W);
+        u2(intConstant(value));
+      }
+    }
+
+    void invokeVirtual(String owner, String name, String descriptor) {
+      op(INVOKEVIRTUAL);
+      u2(methodConstant(owner, name, descriptor));
+    }
+
+    /**
+     * Writes a branch instruction with an offset to be filled in by jumpHere
+     *
+     * @return position of the branch instruction
+     */
+    int branch(int opcode) {
+      int position = size;
+      op(opcode);
+      u2(0);
+      return position;
+    }
+
+    /**
+     * Points the branch instruction at the given position to the next instruction written
+     */
+    void jumpHere(int branch) {
+      int offset = size - branch;
+      bytes[branch + 1] = (byte) (offset >>> 8);
+      bytes[branch + 2] = (byte) offset;
+    }
+
+    void patchInt(int position, int value) {
+      for (int i = 0; i < 4; i++) {
+        bytes[position + i] = (byte) (value >>> (24 - 8 * i));
+      }
+    }
+
+    int size() {
+      return size;
+    }
+
+    private void writeTo(DataOutputStream out) throws IOException {
+      out.write(bytes, 0, size);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package ooga.model.compiler;
+
+import java.util.Arrays;
+
+/**
+ * Immutable result of compiling a list of command blocks: a flat int[] of fixed width
+ * instructions (see Opcodes) plus an error message for each line that could not be compiled and
+ * the length of the superinstruction that starts at each line.
+ * One CompiledProgram can be shared by any number of interpreters and threads.
+ */
+public class CompiledProgram {
+
+  private final ProgramKey programKey;
+  private final int[] code;
+  private final String[] errors;
+  private final int[] fusedLengths;
+
+  /**
+   * Creates a compiled program. Only ProgramCompiler builds these.
+   *
+   * @param programKey   structural key of the source program
+   * @param code         instructions, INSTRUCTION_WIDTH ints per line
+   * @param errors       error message for each INVALID line, null for the other lines
+   * @param fusedLengths number of lines fused into the superinstruction starting at each line
+   */
+  CompiledProgram(ProgramKey programKey, int[] code, String[] errors, int[] fusedLengths) {
+    this.programKey = programKey;
+    this.code = code;
+    this.errors = errors;
+    this.fusedLengths = fusedLengths;
+  }
+
+  /**
+   * Returns the structural key of the program this was compiled from
+   *
+   * @return key of the source program
+   */
+  public ProgramKey getProgramKey() {
+    return programKey;
+  }
+
+  /**
+   * Returns the number of lines in the program
+   *
+   * @return number of lines
+   */
+  public int size() {
+    return errors.length;
+  }
+
+  /**
+   * Returns the opcode of the given line
+   *
+   * @param line line number (starts at 1, like the program counter)
+   * @return opcode of the line
+   */
+  public int getOpcode(int line) {
+    return code[(line - 1) * Opcodes.INSTRUCTION_WIDTH];
+  }
+
+  /**
+   * Returns an operand of the given line
+   *
+   * @param line  line number (starts at 1, like the program counter)
+   * @param index index of the operand (starts at 0)
+   * @return value of the operand
+   */
+  public int getOperand(int line, int index) {
+    return code[(line - 1) * Opcodes.INSTRUCTION_WIDTH + 1 + index];
+  }
+
+  /**
+   * Returns why the given line could not be compiled
+   *
+   * @param line line number (starts at 1, like the program counter)
+   * @return error message, or null if the line compiled
+   */
+  public String getError(int line) {
+    return errors[line - 1];
+  }
+
+  /**
+   * Checks whether some line of the program compiled to the given opcode
+   *
+   * @param opcode opcode to look for (see Opcodes)
+   * @return true if a line has the opcode
+   */
+  public boolean hasOpcode(int opcode) {
+    for (int offset = 0; offset < code.length; offset += Opcodes.INSTRUCTION_WIDTH) {
+      if (code[offset] == opcode) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of lines of the superinstruction that starts at the given line. Running
+   * it executes these lines in order, except where an if inside it skips its body or its last
+   * line jumps back into it, and stops as soon as the program counter leaves them.
+   *
+   * @param line line number (starts at 1, like the program counter)
+   * @return number of lines, 1 if the line is not fused with the lines after it
+   */
+  public int getFusedLength(int line) {
+    return fusedLengths[line - 1];
+  }
+
+  /**
+   * Returns a copy of the instruction stream
+   *
+   * @return instructions, INSTRUCTION_WIDTH ints per line
+   */
+  public int[] getCode() {
+    return Arrays.copyOf(code, code.length);
+  }
+
+  // the interpreter reads the array directly; it never writes to it
+  int[] code() {
+    return code;
+  }
+}
@@ -0,0 +1,305 @@
+package ooga.model.compiler;
+
+import java.util.function.BooleanSupplier;
+import ooga.model.Direction;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.Structure;
+import ooga.model.grid.Tile;
+import ooga.model.player.Avatar;
+import ooga.model.player.Block;
+import ooga.model.player.Player;
+import ooga.model.simulation.ProgramRunner;
+
+/**
+ * Executes a CompiledProgram on a world with a single switch over the opcodes. The behaviour of
+ * every opcode follows the matching class in ooga.model.commands, which stays the reference for
+ * what a command does, but no parameters are parsed and nothing is allocated while executing.
+ * Updates are not sent to the frontend, so this is meant for headless runs.
+ *
+ * <p>An interpreter is bound to one world; use one interpreter per world when running in
+ * parallel. The compiled program itself can be shared.
+ */
+public class Interpreter implements ProgramRunner {
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final CompiledProgram program;
+  private final int[] code;
+  private final ElementInformationBundle world;
+  private final Block[] blocks;
+
+  /**
+   * Binds the compiled program to the world it is executed on
+   *
+   * @param program compiled program
+   * @param world   world the program is executed on
+   */
+  public Interpreter(CompiledProgram program, ElementInformationBundle world) {
+    this.program = program;
+    this.code = program.code();
+    this.world = world;
+    this.blocks = world.getBlockList().toArray(new Block[0]);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return program.size();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void execute(Player player) {
+    Avatar avatar = (Avatar) player;
+    int line = avatar.getProgramCounter();
+    int offset = (line - 1) * Opcodes.INSTRUCTION_WIDTH;
+    switch (code[offset]) {
+      case Opcodes.STEP -> step(avatar, code[offset + 1], code[offset + 2]);
+      case Opcodes.PICK_UP -> pickUp(avatar);
+      case Opcodes.DROP -> drop(avatar);
+      case Opcodes.THROW -> throwBlock(avatar, code[offset + 1], code[offset + 2]);
+      case Opcodes.THROW_OVER -> throwOver(avatar, code[offset + 1], code[offset + 2]);
+      case Opcodes.ADD, Opcodes.SUBTRACT, Opcodes.MULTIPLY -> calculate(avatar, code[offset]);
+      case Opcodes.INCREMENT, Opcodes.DECREMENT, Opcodes.SET_ZERO -> setDataCube(avatar,
+          code[offset]);
+      case Opcodes.NEAREST -> nearest(avatar);
+      case Opcodes.IF -> {
+        Tile tile = world.getTile(avatar.getXCoord() + code[offset + 1],
+            avatar.getYCoord() + code[offset + 2]);
+        boolean equalsOrNot = code[offset + 4] == 0;
+        branch(avatar, checkTarget(tile, code[offset + 3]) ^ equalsOrNot, code[offset + 5]);
+        return;
+      }
+      case Opcodes.END_IF -> {
+      }
+      case Opcodes.JUMP -> {
+        avatar.setProgramCounter(code[offset + 1]);
+        return;
+      }
+      case Opcodes.TELL -> {
+        branch(avatar, avatar.getId() == code[offset + 1], code[offset + 2]);
+        return;
+      }
+      default -> throw new ExceptionHandler(program.getError(line));
+    }
+    avatar.setProgramCounter(line + 1);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean canThrow() {
+    return program.hasOpcode(Opcodes.THROW) || program.hasOpcode(Opcodes.THROW_OVER);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void executeFused(Player avatar, BooleanSupplier afterCommand) {
+    int start = avatar.getProgramCounter();
+    int end = start + program.getFusedLength(start);
+    int line;
+    do {
+      execute(avatar);
+      line = avatar.getProgramCounter();
+    } while (!afterCommand.getAsBoolean() && line >= start && line < end);
+  }
+
+  private void branch(Avatar avatar, boolean condition, int falseTarget) {
+    if (condition) {
+      avatar.setProgramCounter(avatar.getProgramCounter() + 1);
+    } else if (falseTarget == Opcodes.NO_END_LINE) {
+      throw new ExceptionHandler(
+          "Line " + avatar.getProgramCounter() + " has no matching end line");
+    } else if (falseTarget != Opcodes.STAY_ON_LINE) {
+      avatar.setProgramCounter(falseTarget);
+    }
+  }
+
+  private boolean checkTarget(Tile tile, int target) {
+    return switch (target) {
+      case Opcodes.TARGET_NOTHING -> !tile.hasAvatar() && !tile.hasBlock()
+          && tile.getStructure() == Structure.FLOOR;
+      case Opcodes.TARGET_DATACUBE -> tile.hasBlock();
+      case Opcodes.TARGET_AVATAR -> tile.hasAvatar();
+      case Opcodes.TARGET_WALL -> tile.getStructure() == Structure.WALL;
+      default -> tile.getStructure() == Structure.HOLE;
+    };
+  }
+
+  private void step(Avatar avatar, int xDel, int yDel) {
+    int newX = avatar.getXCoord() + xDel;
+    int newY = avatar.getYCoord() + yDel;
+    Tile nextTile = world.getTile(newX, newY);
+    if (nextTile.canAddAvatar()) {
+      moveAvatar(avatar, nextTile, newX, newY);
+    }
+  }
+
+  private void moveAvatar(Avatar avatar, Tile nextTile, int newX, int newY) {
+    Tile prevTile = world.getTile(avatar.getXCoord(), avatar.getYCoord());
+    nextTile.add(avatar);
+    prevTile.removeAvatar();
+    avatar.setXY(newX, newY);
+    if (avatar.hasBlock()) {
+      avatar.getHeldItem().setXY(newX, newY);
+    }
+  }
+
+  private void pickUp(Avatar avatar) {
+    Tile tile = world.getTile(avatar.getXCoord(), avatar.getYCoord());
+    if (tile.hasBlock()) {
+      Block temp = avatar.drop();
+      if (temp != null) {
+        temp.drop();
+      }
+      Block block = tile.getBlock();
+      avatar.pickUp(block);
+      tile.removeBlock();
+      tile.add(temp);
+      block.pickUp();
+    }
+  }
+
+  private void drop(Avatar avatar) {
+    Tile tile = world.getTile(avatar.getXCoord(), avatar.getYCoord());
+    if (tile.canAddBlock()) {
+      Block block = avatar.drop();
+      if (block != null) {
+        block.drop();
+      }
+      tile.add(block);
+    }
+  }
+
+  private void throwBlock(Avatar avatar, int xDel, int yDel) {
+    int currX = avatar.getXCoord();
+    int currY = avatar.getYCoord();
+    int newX = currX + xDel;
+    int newY = currY + yDel;
+    Tile currTile = world.getTile(currX, currY);
+    Tile nextTile = world.getTile(newX, newY);
+    if (currTile.canAddBlock() || nextTile.canAddBlock()) {
+      Block block = avatar.drop();
+      if (block != null) {
+        block.drop();
+      }
+      while (block != null) {
+        if (nextTile == null || !nextTile.canAddBlock() || (xDel == 0 && yDel == 0)) {
+          currTile.add(block);
+          block.setXY(currX, currY);
+          break;
+        }
+        currTile = nextTile;
+        currX = newX;
+        currY = newY;
+        newX += xDel;
+        newY += yDel;
+        nextTile = world.getTile(newX, newY);
+      }
+    }
+  }
+
+  private void throwOver(Avatar avatar, int xDel, int yDel) {
+    int currX = avatar.getXCoord();
+    int currY = avatar.getYCoord();
+    int nextX = currX + xDel;
+    int nextY = currY + yDel;
+    int afterX = nextX + xDel;
+    int afterY = nextY + yDel;
+    Tile currTile = world.getTile(currX, currY);
+    Tile nextTile = world.getTile(nextX, nextY);
+    Tile afterTile = world.getTile(afterX, afterY);
+    if (!avatar.hasBlock()) {
+      return;
+    }
+    if (afterTile != null && afterTile.canAddBlock()) {
+      transferBlockToTile(avatar, afterTile, afterX, afterY);
+    } else if (nextTile != null && nextTile.canAddBlock()) {
+      transferBlockToTile(avatar, nextTile, nextX, nextY);
+    } else if (currTile.canAddBlock()) {
+      transferBlockToTile(avatar, currTile, currX, currY);
+    }
+  }
+
+  private void transferBlockToTile(Avatar avatar, Tile tile, int tileX, int tileY) {
+    Block block = avatar.drop();
+    block.drop();
+    tile.add(block);
+    block.setXY(tileX, tileY);
+  }
+
+  private void calculate(Avatar avatar, int opcode) {
+    Block tileBlock = world.getTile(avatar.getXCoord(), avatar.getYCoord()).getBlock();
+    Block avatarBlock = avatar.getHeldItem();
+    if (avatarBlock != null && tileBlock != null) {
+      int avatarCubeNum = avatarBlock.getDisplayNum();
+      int tileCubeNum = tileBlock.getDisplayNum();
+      avatarBlock.setDisplayNum(switch (opcode) {
+        case Opcodes.ADD -> avatarCubeNum + tileCubeNum;
+        case Opcodes.SUBTRACT -> avatarCubeNum - tileCubeNum;
+        default -> avatarCubeNum * tileCubeNum;
+      });
+    }
+  }
+
+  private void setDataCube(Avatar avatar, int opcode) {
+    Block block = avatar.getHeldItem();
+    if (block != null) {
+      int avatarBlockNum = block.getDisplayNum();
+      block.setDisplayNum(switch (opcode) {
+        case Opcodes.INCREMENT -> avatarBlockNum + 1;
+        case Opcodes.DECREMENT -> avatarBlockNum - 1;
+        default -> 0;
+      });
+    }
+  }
+
+  // same search as Nearest: closest block by manhattan distance, then the first open neighbour
+  // in Direction order that gets closest to it
+  private void nearest(Avatar avatar) {
+    int xAvatar = avatar.getXCoord();
+    int yAvatar = avatar.getYCoord();
+    int minDistance = Integer.MAX_VALUE;
+    Block closestBlock = null;
+    for (Block block : blocks) {
+      int manhattanDistance = Math.abs(xAvatar - block.getXCoord())
+          + Math.abs(yAvatar - block.getYCoord());
+      if (manhattanDistance < minDistance) {
+        minDistance = manhattanDistance;
+        closestBlock = block;
+      }
+    }
+    int xBlock = closestBlock.getXCoord();
+    int yBlock = closestBlock.getYCoord();
+    int newX = xAvatar;
+    int newY = yAvatar;
+    Tile nextTile = world.getTile(xAvatar, yAvatar);
+    if (!(xBlock == newX && yBlock == newY)) {
+      int initialManhattanDistance = Integer.MAX_VALUE;
+      for (Direction direction : DIRECTIONS) {
+        int dummyX = xAvatar + direction.getXDel();
+        int dummyY = yAvatar + direction.getYDel();
+        int manhattanDistance = Math.abs(dummyX - xBlock) + Math.abs(dummyY - yBlock);
+        Tile tile = world.getTile(dummyX, dummyY);
+        if (manhattanDistance < initialManhattanDistance && tile.canAddAvatar()
+            && direction != Direction.CURRENT) {
+          initialManhattanDistance = manhattanDistance;
+          newX = dummyX;
+          newY = dummyY;
+          nextTile = tile;
+        }
+      }
+    }
+    if (newX != xAvatar || newY != yAvatar) {
+      moveAvatar(avatar, nextTile, newX, newY);
+    }
+  }
+}
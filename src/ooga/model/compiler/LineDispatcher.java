@@ -0,0 +1,19 @@
+package ooga.model.compiler;
+
+/**
+ * Executes one line of a program that BytecodeCompiler turned into a generated class. The class
+ * has one case per line with the line's operands and the lines it continues at written in as
+ * constants, so running a line is a switch on the line number and a direct call.
+ */
+interface LineDispatcher {
+
+  /**
+   * Executes a line for an avatar
+   *
+   * @param interpreter interpreter holding the world the line is executed on
+   * @param avatar      index of the avatar in the world
+   * @param line        line to execute, the avatar's program counter
+   * @return the avatar's next program counter
+   */
+  int execute(PackedInterpreter interpreter, int avatar, int line);
+}
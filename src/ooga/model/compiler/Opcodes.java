@@ -0,0 +1,59 @@
+package ooga.model.compiler;
+
+/**
+ * Opcodes and operand encodings used by compiled programs. Every line of a program is lowered to
+ * a fixed width instruction of INSTRUCTION_WIDTH ints: the opcode followed by its operands, so the
+ * instruction for line n starts at (n - 1) * INSTRUCTION_WIDTH.
+ *
+ * <p>Operand layout per opcode:
+ * <ul>
+ *   <li>STEP, THROW, THROW_OVER: x delta, y delta</li>
+ *   <li>IF: x delta, y delta, target, 1 if the comparator is "equal" else 0, line to go to when
+ *   the condition fails</li>
+ *   <li>JUMP: destination line</li>
+ *   <li>TELL: avatar id, line to go to when the id does not match</li>
+ *   <li>INVALID: none, the line could not be compiled and fails when it is executed</li>
+ * </ul>
+ */
+public final class Opcodes {
+
+  public static final int INSTRUCTION_WIDTH = 6;
+
+  public static final int INVALID = 0;
+  public static final int STEP = 1;
+  public static final int PICK_UP = 2;
+  public static final int DROP = 3;
+  public static final int THROW = 4;
+  public static final int THROW_OVER = 5;
+  public static final int ADD = 6;
+  public static final int SUBTRACT = 7;
+  public static final int MULTIPLY = 8;
+  public static final int INCREMENT = 9;
+  public static final int DECREMENT = 10;
+  public static final int SET_ZERO = 11;
+  public static final int NEAREST = 12;
+  public static final int IF = 13;
+  public static final int END_IF = 14;
+  public static final int JUMP = 15;
+  public static final int TELL = 16;
+
+  public static final int TARGET_NOTHING = 0;
+  public static final int TARGET_DATACUBE = 1;
+  public static final int TARGET_AVATAR = 2;
+  public static final int TARGET_WALL = 3;
+  public static final int TARGET_HOLE = 4;
+
+  /**
+   * Branch target used when the program has no if/end if pairs at all; the Commands classes leave
+   * the program counter where it is in that case.
+   */
+  public static final int STAY_ON_LINE = 0;
+
+  /**
+   * Branch target used when the line has no matching end line; taking the branch is an error.
+   */
+  public static final int NO_END_LINE = -1;
+
+  private Opcodes() {
+  }
+}
@@ -0,0 +1,402 @@
+package ooga.model.compiler;
+
+import java.util.function.BooleanSupplier;
+import ooga.model.Direction;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.PackedWorld;
+import ooga.model.grid.Structure;
+import ooga.model.player.Player;
+import ooga.model.simulation.ProgramRunner;
+
+/**
+ * Executes a CompiledProgram on a PackedWorld. Same opcodes and the same behaviour as
+ * Interpreter, but avatars, blocks and tiles are addressed by index into the world's arrays, so
+ * a tick reads and writes primitives only and never touches an Avatar, Block or Tile object.
+ *
+ * <p>Where Interpreter would fail with a NullPointerException on a tile off the grid, moves and
+ * throws treat the tile as blocked and an if throws an ExceptionHandler.
+ */
+public class PackedInterpreter implements ProgramRunner {
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  static final int NO_TILE = -1;
+
+  private final CompiledProgram program;
+  private final int[] code;
+  private final PackedWorld world;
+
+  /**
+   * Binds the compiled program to the world it is executed on
+   *
+   * @param program compiled program
+   * @param world   world the program is executed on
+   */
+  public PackedInterpreter(CompiledProgram program, PackedWorld world) {
+    this.program = program;
+    this.code = program.code();
+    this.world = world;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return program.size();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void execute(Player player) {
+    execute(world.getAvatarIndex(player.getId()));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean canThrow() {
+    return program.hasOpcode(Opcodes.THROW) || program.hasOpcode(Opcodes.THROW_OVER);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void executeFused(Player player, BooleanSupplier afterCommand) {
+    int avatar = world.getAvatarIndex(player.getId());
+    int start = world.getProgramCounter(avatar);
+    int end = start + program.getFusedLength(start);
+    int line;
+    do {
+      execute(avatar);
+      line = world.getProgramCounter(avatar);
+    } while (!afterCommand.getAsBoolean() && line >= start && line < end);
+  }
+
+  /**
+   * Executes the line the avatar's program counter is on
+   *
+   * @param avatar index of the avatar in the world
+   */
+  public void execute(int avatar) {
+    int line = world.getProgramCounter(avatar);
+    int offset = (line - 1) * Opcodes.INSTRUCTION_WIDTH;
+    switch (code[offset]) {
+      case Opcodes.STEP -> step(avatar, code[offset + 1], code[offset + 2]);
+      case Opcodes.PICK_UP -> pickUp(avatar);
+      case Opcodes.DROP -> drop(avatar);
+      case Opcodes.THROW -> throwBlock(avatar, code[offset + 1], code[offset + 2]);
+      case Opcodes.THROW_OVER -> throwOver(avatar, code[offset + 1], code[offset + 2]);
+      case Opcodes.ADD, Opcodes.SUBTRACT, Opcodes.MULTIPLY -> calculate(avatar, code[offset]);
+      case Opcodes.INCREMENT, Opcodes.DECREMENT, Opcodes.SET_ZERO -> setDataCube(avatar,
+          code[offset]);
+      case Opcodes.NEAREST -> nearest(avatar);
+      case Opcodes.IF -> {
+        branch(avatar, checkCondition(avatar, line, code[offset + 1], code[offset + 2],
+            code[offset + 3], code[offset + 4]), code[offset + 5]);
+        return;
+      }
+      case Opcodes.END_IF -> {
+      }
+      case Opcodes.JUMP -> {
+        world.setProgramCounter(avatar, code[offset + 1]);
+        return;
+      }
+      case Opcodes.TELL -> {
+        branch(avatar, world.getAvatarId(avatar) == code[offset + 1], code[offset + 2]);
+        return;
+      }
+      default -> failLine(line);
+    }
+    world.setProgramCounter(avatar, line + 1);
+  }
+
+  /**
+   * Checks the condition of an if line
+   *
+   * @param avatar index of the avatar in the world
+   * @param line   line of the if, for the error message
+   * @param xDel   x delta of the tile to check
+   * @param yDel   y delta of the tile to check
+   * @param target what the tile is compared to (see Opcodes)
+   * @param equal  1 if the comparator is "equal" else 0
+   * @return true if the program continues inside the if
+   * @throws ExceptionHandler if the tile is outside of the grid
+   */
+  boolean checkCondition(int avatar, int line, int xDel, int yDel, int target, int equal) {
+    int x = world.getAvatarX(avatar) + xDel;
+    int y = world.getAvatarY(avatar) + yDel;
+    if (!world.isInside(x, y)) {
+      throw new ExceptionHandler("Line " + line + " checks a tile outside of the grid");
+    }
+    return checkTarget(x, y, target) ^ (equal == 0);
+  }
+
+  /**
+   * Fails the given line: an if or tell without a matching end line whose condition failed
+   *
+   * @param line line that failed
+   * @return never returns; declared as int so generated code can return its result
+   * @throws ExceptionHandler always
+   */
+  int failBranch(int line) {
+    throw new ExceptionHandler("Line " + line + " has no matching end line");
+  }
+
+  /**
+   * Fails the given line: it could not be compiled, or it is not a line of the program
+   *
+   * @param line line that failed
+   * @return never returns; declared as int so generated code can return its result
+   * @throws ExceptionHandler always
+   */
+  int failLine(int line) {
+    if (line < 1 || line > program.size()) {
+      throw new ExceptionHandler("Line " + line + " is not a line of the program");
+    }
+    throw new ExceptionHandler(program.getError(line));
+  }
+
+  int getAvatarId(int avatar) {
+    return world.getAvatarId(avatar);
+  }
+
+  private void branch(int avatar, boolean condition, int falseTarget) {
+    int line = world.getProgramCounter(avatar);
+    if (condition) {
+      world.setProgramCounter(avatar, line + 1);
+    } else if (falseTarget == Opcodes.NO_END_LINE) {
+      failBranch(line);
+    } else if (falseTarget != Opcodes.STAY_ON_LINE) {
+      world.setProgramCounter(avatar, falseTarget);
+    }
+  }
+
+  boolean checkTarget(int x, int y, int target) {
+    return switch (target) {
+      case Opcodes.TARGET_NOTHING -> world.getTileAvatar(x, y) == PackedWorld.NONE
+          && world.getTileBlock(x, y) == PackedWorld.NONE
+          && world.getStructure(x, y) == Structure.FLOOR;
+      case Opcodes.TARGET_DATACUBE -> world.getTileBlock(x, y) != PackedWorld.NONE;
+      case Opcodes.TARGET_AVATAR -> world.getTileAvatar(x, y) != PackedWorld.NONE;
+      case Opcodes.TARGET_WALL -> world.getStructure(x, y) == Structure.WALL;
+      default -> world.getStructure(x, y) == Structure.HOLE;
+    };
+  }
+
+  void step(int avatar, int xDel, int yDel) {
+    int newX = world.getAvatarX(avatar) + xDel;
+    int newY = world.getAvatarY(avatar) + yDel;
+    if (world.canAddAvatar(newX, newY)) {
+      moveAvatar(avatar, newX, newY);
+    }
+  }
+
+  void moveAvatar(int avatar, int newX, int newY) {
+    world.setTileAvatar(newX, newY, avatar);
+    world.setTileAvatar(world.getAvatarX(avatar), world.getAvatarY(avatar), PackedWorld.NONE);
+    world.setAvatarPosition(avatar, newX, newY);
+    int block = world.getHeldBlock(avatar);
+    if (block != PackedWorld.NONE) {
+      world.setBlockPosition(block, newX, newY);
+    }
+  }
+
+  // Tile.add only places a block on an open floor tile
+  private void addBlock(int x, int y, int block) {
+    if (world.canAddBlock(x, y)) {
+      world.setTileBlock(x, y, block);
+    }
+  }
+
+  int releaseHeldBlock(int avatar) {
+    int block = world.getHeldBlock(avatar);
+    world.setHeldBlock(avatar, PackedWorld.NONE);
+    if (block != PackedWorld.NONE) {
+      world.setBlockHeld(block, false);
+    }
+    return block;
+  }
+
+  void pickUp(int avatar) {
+    int x = world.getAvatarX(avatar);
+    int y = world.getAvatarY(avatar);
+    int block = world.getTileBlock(x, y);
+    if (block != PackedWorld.NONE) {
+      int temp = releaseHeldBlock(avatar);
+      world.setHeldBlock(avatar, block);
+      world.setTileBlock(x, y, PackedWorld.NONE);
+      addBlock(x, y, temp);
+      world.setBlockHeld(block, true);
+    }
+  }
+
+  void drop(int avatar) {
+    int x = world.getAvatarX(avatar);
+    int y = world.getAvatarY(avatar);
+    if (world.canAddBlock(x, y)) {
+      world.setTileBlock(x, y, releaseHeldBlock(avatar));
+    }
+  }
+
+  void throwBlock(int avatar, int xDel, int yDel) {
+    if (world.getHeldBlock(avatar) != PackedWorld.NONE) {
+      placeHeldBlock(avatar, throwLanding(avatar, xDel, yDel));
+    }
+  }
+
+  void throwOver(int avatar, int xDel, int yDel) {
+    if (world.getHeldBlock(avatar) != PackedWorld.NONE) {
+      placeHeldBlock(avatar, throwOverLanding(avatar, xDel, yDel));
+    }
+  }
+
+  /**
+   * Finds where a thrown block lands: it flies over open floor tiles until the next tile is
+   * blocked or off the grid
+   *
+   * @return tile the block lands on (see encodeTile), or NO_TILE if it cannot be thrown
+   */
+  int throwLanding(int avatar, int xDel, int yDel) {
+    int currX = world.getAvatarX(avatar);
+    int currY = world.getAvatarY(avatar);
+    int newX = currX + xDel;
+    int newY = currY + yDel;
+    if (!world.canAddBlock(currX, currY) && !world.canAddBlock(newX, newY)) {
+      return NO_TILE;
+    }
+    while (world.canAddBlock(newX, newY) && !(xDel == 0 && yDel == 0)) {
+      currX = newX;
+      currY = newY;
+      newX += xDel;
+      newY += yDel;
+    }
+    return world.canAddBlock(currX, currY) ? encodeTile(currX, currY) : NO_TILE;
+  }
+
+  /**
+   * Finds where a block thrown over the next tile lands: two tiles away if that is open, else the
+   * next tile, else the avatar's own tile
+   *
+   * @return tile the block lands on (see encodeTile), or NO_TILE if every tile is blocked
+   */
+  int throwOverLanding(int avatar, int xDel, int yDel) {
+    int currX = world.getAvatarX(avatar);
+    int currY = world.getAvatarY(avatar);
+    for (int distance = 2; distance >= 0; distance--) {
+      int x = currX + xDel * distance;
+      int y = currY + yDel * distance;
+      if (world.canAddBlock(x, y)) {
+        return encodeTile(x, y);
+      }
+    }
+    return NO_TILE;
+  }
+
+  /**
+   * Releases the avatar's block onto a tile; does nothing if the avatar has no block or the tile
+   * is NO_TILE
+   */
+  void placeHeldBlock(int avatar, int tile) {
+    if (tile == NO_TILE || world.getHeldBlock(avatar) == PackedWorld.NONE) {
+      return;
+    }
+    int x = decodeX(tile);
+    int y = decodeY(tile);
+    int block = releaseHeldBlock(avatar);
+    world.setTileBlock(x, y, block);
+    world.setBlockPosition(block, x, y);
+  }
+
+  void calculate(int avatar, int opcode) {
+    int tileBlock = world.getTileBlock(world.getAvatarX(avatar), world.getAvatarY(avatar));
+    int avatarBlock = world.getHeldBlock(avatar);
+    if (avatarBlock != PackedWorld.NONE && tileBlock != PackedWorld.NONE) {
+      int avatarCubeNum = world.getBlockNum(avatarBlock);
+      int tileCubeNum = world.getBlockNum(tileBlock);
+      world.setBlockNum(avatarBlock, switch (opcode) {
+        case Opcodes.ADD -> avatarCubeNum + tileCubeNum;
+        case Opcodes.SUBTRACT -> avatarCubeNum - tileCubeNum;
+        default -> avatarCubeNum * tileCubeNum;
+      });
+    }
+  }
+
+  void setDataCube(int avatar, int opcode) {
+    int block = world.getHeldBlock(avatar);
+    if (block != PackedWorld.NONE) {
+      int avatarBlockNum = world.getBlockNum(block);
+      world.setBlockNum(block, switch (opcode) {
+        case Opcodes.INCREMENT -> avatarBlockNum + 1;
+        case Opcodes.DECREMENT -> avatarBlockNum - 1;
+        default -> 0;
+      });
+    }
+  }
+
+  void nearest(int avatar) {
+    int tile = nearestStep(avatar);
+    if (tile != NO_TILE) {
+      moveAvatar(avatar, decodeX(tile), decodeY(tile));
+    }
+  }
+
+  /**
+   * Same search as Interpreter.nearest: closest block by manhattan distance, then the first open
+   * neighbour in Direction order that gets closest to it
+   *
+   * @return tile the avatar moves to (see encodeTile), or NO_TILE if it stays
+   */
+  int nearestStep(int avatar) {
+    int xAvatar = world.getAvatarX(avatar);
+    int yAvatar = world.getAvatarY(avatar);
+    int minDistance = Integer.MAX_VALUE;
+    int closestBlock = PackedWorld.NONE;
+    for (int block = 0; block < world.getBlockCount(); block++) {
+      int manhattanDistance = Math.abs(xAvatar - world.getBlockX(block))
+          + Math.abs(yAvatar - world.getBlockY(block));
+      if (manhattanDistance < minDistance) {
+        minDistance = manhattanDistance;
+        closestBlock = block;
+      }
+    }
+    if (closestBlock == PackedWorld.NONE) {
+      throw new ExceptionHandler("There is no data cube to move to");
+    }
+    int xBlock = world.getBlockX(closestBlock);
+    int yBlock = world.getBlockY(closestBlock);
+    if (xBlock == xAvatar && yBlock == yAvatar) {
+      return NO_TILE;
+    }
+    int tile = NO_TILE;
+    int initialManhattanDistance = Integer.MAX_VALUE;
+    for (Direction direction : DIRECTIONS) {
+      int dummyX = xAvatar + direction.getXDel();
+      int dummyY = yAvatar + direction.getYDel();
+      int manhattanDistance = Math.abs(dummyX - xBlock) + Math.abs(dummyY - yBlock);
+      if (manhattanDistance < initialManhattanDistance && world.canAddAvatar(dummyX, dummyY)
+          && direction != Direction.CURRENT) {
+        initialManhattanDistance = manhattanDistance;
+        tile = encodeTile(dummyX, dummyY);
+      }
+    }
+    return tile;
+  }
+
+  // tiles are passed around as one int so the planning methods can return a position
+  int encodeTile(int x, int y) {
+    return y * world.getWidth() + x;
+  }
+
+  int decodeX(int tile) {
+    return tile % world.getWidth();
+  }
+
+  int decodeY(int tile) {
+    return tile / world.getWidth();
+  }
+}
@@ -0,0 +1,396 @@
+package ooga.model.compiler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import ooga.model.Direction;
+import ooga.model.commands.CommandRegistry;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Static control flow analysis of a program, done before it runs. Every line is a node of a
+ * control flow graph with an edge to each line the program counter can move to after it runs,
+ * following the same rules as the Commands classes:
+ * <ul>
+ *   <li>an if continues on the next line or at its end if; with no if/end if pairs at all it
+ *   stays on its own line, and an if without an end if fails when its condition is false</li>
+ *   <li>a jump moves to its destination, past the last line ends the avatar's program, and a
+ *   destination below 1 fails</li>
+ *   <li>a tell only continues for the avatar it names; tell is never paired with an end, so any
+ *   other avatar fails on it</li>
+ *   <li>a line whose parameters cannot be read fails</li>
+ * </ul>
+ * Since tell depends on who runs it, the graph is walked once per avatar.
+ *
+ * <p>The analysis reports lines no avatar can reach, lines an avatar can reach but can never get
+ * out of (from there it loops forever), and blocks that are unmatched. For every avatar it gives
+ * the fewest and the most lines it can run before its program ends or fails (the most is only
+ * known when the avatar cannot loop), and the fewest lines it has to run before it can reach a
+ * command that changes the grid. If no avatar can change the grid before the level's apple
+ * budget is spent, the level cannot be solved by the program and it can be rejected without
+ * running it.
+ */
+public class ProgramAnalysis {
+
+  /**
+   * Bound of a number of lines that does not exist, because the avatar can loop forever or can
+   * never get there
+   */
+  public static final int UNBOUNDED = -1;
+
+  private static final int FAILED = 0;
+  private static final Set<String> DIRECTED_COMMANDS = Set.of("step", "throw", "throwover");
+  private static final Set<String> TARGETS = Set.of("nothing", "datacube", "avatar", "wall",
+      "hole");
+
+  private static final int EFFECT = 0;
+  private static final int IF = 1;
+  private static final int END_IF = 2;
+  private static final int JUMP = 3;
+  private static final int TELL = 4;
+  private static final int BROKEN = 5;
+
+  private final int size;
+  private final int exit;
+  private final int[] kinds;
+  private final int[] operands;
+  private final List<String> problems;
+  private final SortedSet<Integer> unmatchedLines;
+  private final SortedSet<Integer> unreachableLines;
+  private final SortedSet<Integer> loopOnlyLines;
+  private final Map<Integer, int[]> boundsByAvatar;
+
+  /**
+   * Analyzes a program for the avatars of a level
+   *
+   * @param commandBlocks list of command blocks from the frontend
+   * @param avatarIds     ids of the avatars that run the program
+   */
+  public ProgramAnalysis(List<CommandBlock> commandBlocks, Collection<Integer> avatarIds) {
+    size = commandBlocks.size();
+    exit = size + 1;
+    kinds = new int[exit];
+    operands = new int[exit];
+    problems = new ArrayList<>();
+    unmatchedLines = new TreeSet<>();
+    unreachableLines = new TreeSet<>();
+    loopOnlyLines = new TreeSet<>();
+    boundsByAvatar = new HashMap<>();
+    readLines(commandBlocks);
+    for (int line = 1; line <= size; line++) {
+      unreachableLines.add(line);
+    }
+    for (int avatarId : avatarIds) {
+      walk(avatarId);
+    }
+  }
+
+  private void readLines(List<CommandBlock> commandBlocks) {
+    Deque<Integer> openIfs = new ArrayDeque<>();
+    Map<Integer, Integer> endOfIf = new HashMap<>();
+    for (int line = 1; line <= size; line++) {
+      CommandBlock commandBlock = commandBlocks.get(line - 1);
+      String name = CommandRegistry.getName(commandBlock.getType());
+      try {
+        kinds[line] = readLine(name, commandBlock.getParameters(), line);
+      } catch (RuntimeException e) {
+        kinds[line] = BROKEN;
+        problems.add("Line " + line + " (" + commandBlock.getType() + ") cannot run");
+      }
+      if (name.equals("if")) {
+        openIfs.push(line);
+      } else if (name.equals("endif")) {
+        if (openIfs.isEmpty()) {
+          unmatch(line, "end if on line " + line + " has no if");
+        } else {
+          endOfIf.put(openIfs.pop(), line);
+        }
+      }
+    }
+    for (int line : openIfs) {
+      unmatch(line, "if on line " + line + " has no end if");
+    }
+    for (int line = 1; line <= size; line++) {
+      if (kinds[line] == IF) {
+        operands[line] = endOfIf.isEmpty() ? line : endOfIf.getOrDefault(line, FAILED);
+      }
+    }
+  }
+
+  private int readLine(String name, Map<String, String> parameters, int line) {
+    if (DIRECTED_COMMANDS.contains(name)) {
+      readDirection(parameters);
+    }
+    switch (name) {
+      case "if" -> {
+        readDirection(parameters);
+        if (!TARGETS.contains(parameters.get("target"))) {
+          throw new IllegalStateException("Unexpected value: " + parameters.get("target"));
+        }
+        return IF;
+      }
+      case "endif" -> {
+        return END_IF;
+      }
+      case "jump" -> {
+        operands[line] = Integer.parseInt(parameters.get("destination"));
+        return JUMP;
+      }
+      case "tell" -> {
+        operands[line] = Integer.parseInt(parameters.get("id"));
+        unmatch(line, "tell on line " + line + " has no end; every avatar but "
+            + operands[line] + " fails there");
+        return TELL;
+      }
+      default -> {
+        return EFFECT;
+      }
+    }
+  }
+
+  private void readDirection(Map<String, String> parameters) {
+    Direction.valueOf(parameters.get("direction").toUpperCase().replaceAll("-", "_"));
+  }
+
+  private void unmatch(int line, String problem) {
+    unmatchedLines.add(line);
+    problems.add(problem);
+  }
+
+  // lines the program counter can move to after a line runs; FAILED and exit end the program
+  private int[] successors(int line, int avatarId) {
+    return switch (kinds[line]) {
+      case IF -> new int[]{line + 1, operands[line]};
+      case JUMP -> new int[]{operands[line] < 1 ? FAILED : Math.min(operands[line], exit)};
+      case TELL -> new int[]{operands[line] == avatarId ? line + 1 : FAILED};
+      case BROKEN -> new int[]{FAILED};
+      default -> new int[]{line + 1};
+    };
+  }
+
+  private void walk(int avatarId) {
+    int[][] successors = new int[exit][];
+    List<List<Integer>> predecessors = new ArrayList<>();
+    for (int line = 0; line <= exit; line++) {
+      predecessors.add(new ArrayList<>());
+    }
+    for (int line = 1; line <= size; line++) {
+      successors[line] = successors(line, avatarId);
+      for (int next : successors[line]) {
+        predecessors.get(next).add(line);
+      }
+    }
+    boolean[] reachable = reachableFromStart(successors);
+    int[] toEnd = distancesBackFrom(predecessors, FAILED, exit);
+    int firstEffect = UNBOUNDED;
+    int[] toEffect = new int[exit + 1];
+    Arrays.fill(toEffect, UNBOUNDED);
+    Deque<Integer> queue = new ArrayDeque<>();
+    if (size > 0) {
+      toEffect[1] = 1;
+      queue.add(1);
+    }
+    while (!queue.isEmpty()) {
+      int line = queue.poll();
+      if (kinds[line] == EFFECT) {
+        firstEffect = toEffect[line];
+        break;
+      }
+      for (int next : successors[line]) {
+        if (next != FAILED && next != exit && toEffect[next] == UNBOUNDED) {
+          toEffect[next] = toEffect[line] + 1;
+          queue.add(next);
+        }
+      }
+    }
+    for (int line = 1; line <= size; line++) {
+      if (reachable[line]) {
+        unreachableLines.remove(line);
+        if (toEnd[line] == UNBOUNDED) {
+          loopOnlyLines.add(line);
+        }
+      }
+    }
+    int fewest = size == 0 ? 0 : toEnd[1];
+    boundsByAvatar.put(avatarId, new int[]{fewest, most(successors, reachable), firstEffect});
+  }
+
+  private boolean[] reachableFromStart(int[][] successors) {
+    boolean[] reachable = new boolean[exit + 1];
+    Deque<Integer> stack = new ArrayDeque<>();
+    if (size > 0) {
+      reachable[1] = true;
+      stack.push(1);
+    }
+    while (!stack.isEmpty()) {
+      for (int next : successors[stack.pop()]) {
+        if (next != FAILED && next != exit && !reachable[next]) {
+          reachable[next] = true;
+          stack.push(next);
+        }
+      }
+    }
+    return reachable;
+  }
+
+  // number of lines run from each line until the program ends or fails, counting the line itself
+  private int[] distancesBackFrom(List<List<Integer>> predecessors, int... ends) {
+    int[] distances = new int[exit + 1];
+    Arrays.fill(distances, UNBOUNDED);
+    Deque<Integer> queue = new ArrayDeque<>();
+    for (int end : ends) {
+      distances[end] = 0;
+      queue.add(end);
+    }
+    while (!queue.isEmpty()) {
+      int line = queue.poll();
+      for (int previous : predecessors.get(line)) {
+        if (distances[previous] == UNBOUNDED) {
+          distances[previous] = distances[line] + 1;
+          queue.add(previous);
+        }
+      }
+    }
+    return distances;
+  }
+
+  // longest run from line 1, or UNBOUNDED if a cycle can be reached; lines are visited in
+  // reverse topological order so each is finished after everything it can move to
+  private int most(int[][] successors, boolean[] reachable) {
+    if (size == 0) {
+      return 0;
+    }
+    int[] longest = new int[exit + 1];
+    int[] state = new int[exit + 1];
+    Deque<int[]> stack = new ArrayDeque<>();
+    stack.push(new int[]{1, 0});
+    state[1] = 1;
+    while (!stack.isEmpty()) {
+      int[] frame = stack.peek();
+      int line = frame[0];
+      if (frame[1] < successors[line].length) {
+        int next = successors[line][frame[1]++];
+        if (next == FAILED || next == exit || !reachable[next] || state[next] == 2) {
+          continue;
+        }
+        if (state[next] == 1) {
+          return UNBOUNDED;
+        }
+        state[next] = 1;
+        stack.push(new int[]{next, 0});
+      } else {
+        int best = 0;
+        for (int next : successors[line]) {
+          if (next != FAILED && next != exit) {
+            best = Math.max(best, longest[next]);
+          }
+        }
+        longest[line] = best + 1;
+        state[line] = 2;
+        stack.pop();
+      }
+    }
+    return longest[1];
+  }
+
+  /**
+   * Returns the lines that no avatar can reach from the first line
+   *
+   * @return unreachable line numbers in order
+   */
+  public SortedSet<Integer> getUnreachableLines() {
+    return Collections.unmodifiableSortedSet(unreachableLines);
+  }
+
+  /**
+   * Returns the lines that some avatar can reach but never leave, so from there it loops until
+   * the run is stopped
+   *
+   * @return line numbers in order
+   */
+  public SortedSet<Integer> getLoopOnlyLines() {
+    return Collections.unmodifiableSortedSet(loopOnlyLines);
+  }
+
+  /**
+   * Returns the lines of ifs without an end if, end ifs without an if and tells
+   *
+   * @return line numbers in order
+   */
+  public SortedSet<Integer> getUnmatchedLines() {
+    return Collections.unmodifiableSortedSet(unmatchedLines);
+  }
+
+  /**
+   * Describes the unmatched blocks and the lines that cannot run
+   *
+   * @return one sentence per problem, in the order they were found
+   */
+  public List<String> getProblems() {
+    return Collections.unmodifiableList(problems);
+  }
+
+  /**
+   * Returns the fewest lines an avatar can run before its program ends or fails
+   *
+   * @param avatarId id of the avatar
+   * @return lower bound, or UNBOUNDED if it can never end
+   */
+  public int getFewestCommands(int avatarId) {
+    return bounds(avatarId)[0];
+  }
+
+  /**
+   * Returns the most lines an avatar can run before its program ends or fails
+   *
+   * @param avatarId id of the avatar
+   * @return upper bound, or UNBOUNDED if the avatar can reach a loop
+   */
+  public int getMostCommands(int avatarId) {
+    return bounds(avatarId)[1];
+  }
+
+  /**
+   * Returns the fewest lines an avatar has to run, including that command, to run a command that
+   * can change the grid
+   *
+   * @param avatarId id of the avatar
+   * @return lower bound, or UNBOUNDED if it can never run one
+   */
+  public int getCommandsToFirstChange(int avatarId) {
+    return bounds(avatarId)[2];
+  }
+
+  private int[] bounds(int avatarId) {
+    return boundsByAvatar.getOrDefault(avatarId, new int[]{0, 0, UNBOUNDED});
+  }
+
+  /**
+   * Checks whether no avatar can change the grid before the apples run out, in which case the
+   * program cannot solve a level that is not solved already. The goal is checked before the
+   * apples, so a command that spends one apple more than there are can still win.
+   *
+   * @param apples number of lines the level lets the avatars run
+   * @return true if running the program is sure to lose
+   */
+  public boolean cannotChangeGridWithin(int apples) {
+    if (boundsByAvatar.isEmpty()) {
+      return false;
+    }
+    for (int[] bounds : boundsByAvatar.values()) {
+      if (bounds[2] != UNBOUNDED && bounds[2] <= apples + 1) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,217 @@
+package ooga.model.compiler;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+import java.util.TreeMap;
+import ooga.model.Direction;
+import ooga.model.commands.CommandRegistry;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Lowers a list of command blocks into a CompiledProgram. All of the string parameters that the
+ * Commands classes parse on every execution (directions, comparators, targets, jump destinations
+ * and tell ids) are resolved once here, and each if and tell gets the line it continues at when
+ * its condition fails, using the same if/end if pairing as CommandProgram.
+ *
+ * <p>Unknown commands and unmatched end ifs are errors at compile time, like in CommandProgram.
+ * A line whose parameters cannot be resolved is compiled to an INVALID instruction carrying the
+ * reason, so it only fails if it is actually executed, which is when the Commands classes would
+ * fail.
+ *
+ * <p>After lowering, lines that are usually run one after the other are fused into
+ * superinstructions: a run of commands that act on the world (step after step, pickUp, step,
+ * drop, ...), an if whose body is such a run together with its end if, and a jump that closes a
+ * run. The lines stay as they are; each line just records how many lines its superinstruction
+ * covers, so the interpreters can execute them in one call while still counting every line.
+ *
+ * <p>Compiled programs are cached by their structural ProgramKey, so pressing play again on the
+ * same program, or evaluating the same candidate twice, does not compile it again.
+ */
+public class ProgramCompiler {
+
+  private static final int CACHE_SIZE = 256;
+
+  private final Map<ProgramKey, CompiledProgram> cache;
+
+  /**
+   * Creates a compiler with an empty program cache
+   */
+  public ProgramCompiler() {
+    cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<ProgramKey, CompiledProgram> eldest) {
+        return size() > CACHE_SIZE;
+      }
+    };
+  }
+
+  /**
+   * Compiles the given program, or returns the cached result for a structurally equal program
+   *
+   * @param commandBlocks list of command blocks from the frontend
+   * @return compiled program
+   * @throws ExceptionHandler if the program has an unknown command or an unmatched end if
+   */
+  public CompiledProgram compile(List<CommandBlock> commandBlocks) {
+    ProgramKey programKey = new ProgramKey(commandBlocks);
+    synchronized (cache) {
+      CompiledProgram cached = cache.get(programKey);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    CompiledProgram compiledProgram = lower(programKey, commandBlocks);
+    synchronized (cache) {
+      cache.put(programKey, compiledProgram);
+    }
+    return compiledProgram;
+  }
+
+  private CompiledProgram lower(ProgramKey programKey, List<CommandBlock> commandBlocks) {
+    Map<Integer, Integer> mapOfCommandLines = findEndCommands(commandBlocks);
+    int[] code = new int[commandBlocks.size() * Opcodes.INSTRUCTION_WIDTH];
+    String[] errors = new String[commandBlocks.size()];
+    for (int i = 0; i < commandBlocks.size(); i++) {
+      CommandBlock commandBlock = commandBlocks.get(i);
+      String name = CommandRegistry.getName(commandBlock.getType());
+      try {
+        compileLine(name, commandBlock, mapOfCommandLines, code, i * Opcodes.INSTRUCTION_WIDTH);
+      } catch (RuntimeException e) {
+        code[i * Opcodes.INSTRUCTION_WIDTH] = Opcodes.INVALID;
+        errors[i] = "Line " + (i + 1) + " (" + commandBlock.getType() + "): " + e.getMessage();
+      }
+    }
+    return new CompiledProgram(programKey, code, errors, fuse(code, commandBlocks.size()));
+  }
+
+  // length of the superinstruction starting at each line, 1 where nothing can be fused
+  private int[] fuse(int[] code, int size) {
+    int[] fusedLengths = new int[size];
+    for (int start = 1; start <= size; start++) {
+      int line = start;
+      while (line <= size) {
+        int opcode = code[(line - 1) * Opcodes.INSTRUCTION_WIDTH];
+        if (isEffect(opcode) || opcode == Opcodes.END_IF) {
+          line++;
+        } else if (opcode == Opcodes.IF && isFusableBody(code, line, size)) {
+          line = code[(line - 1) * Opcodes.INSTRUCTION_WIDTH + 5] + 1;
+        } else {
+          if (opcode == Opcodes.JUMP) {
+            line++;
+          }
+          break;
+        }
+      }
+      fusedLengths[start - 1] = Math.max(line - start, 1);
+    }
+    return fusedLengths;
+  }
+
+  // the if's false branch goes to its end if and every line in between acts on the world
+  private boolean isFusableBody(int[] code, int ifLine, int size) {
+    int endIf = code[(ifLine - 1) * Opcodes.INSTRUCTION_WIDTH + 5];
+    if (endIf <= ifLine || endIf > size) {
+      return false;
+    }
+    for (int line = ifLine + 1; line < endIf; line++) {
+      if (!isEffect(code[(line - 1) * Opcodes.INSTRUCTION_WIDTH])) {
+        return false;
+      }
+    }
+    return code[(endIf - 1) * Opcodes.INSTRUCTION_WIDTH] == Opcodes.END_IF;
+  }
+
+  private boolean isEffect(int opcode) {
+    return opcode >= Opcodes.STEP && opcode <= Opcodes.NEAREST;
+  }
+
+  private Map<Integer, Integer> findEndCommands(List<CommandBlock> commandBlocks) {
+    Map<Integer, Integer> idToCommandLines = new TreeMap<>();
+    Stack<Integer> stackOfIfCommands = new Stack<>();
+    for (CommandBlock commandBlock : commandBlocks) {
+      if (commandBlock.getType().equals("if")) {
+        stackOfIfCommands.add(commandBlock.getIndex());
+      }
+      if (commandBlock.getType().equals("end if")) {
+        if (stackOfIfCommands.isEmpty()) {
+          throw new ExceptionHandler("end if on line " + commandBlock.getIndex() + " has no if");
+        }
+        idToCommandLines.put(stackOfIfCommands.pop(), commandBlock.getIndex());
+      }
+    }
+    return idToCommandLines;
+  }
+
+  private void compileLine(String name, CommandBlock commandBlock,
+      Map<Integer, Integer> mapOfCommandLines, int[] code, int offset) {
+    Map<String, String> parameters = commandBlock.getParameters();
+    switch (name) {
+      case "step" -> emitDirection(Opcodes.STEP, parameters, code, offset);
+      case "pickup" -> code[offset] = Opcodes.PICK_UP;
+      case "drop" -> code[offset] = Opcodes.DROP;
+      case "throw" -> emitDirection(Opcodes.THROW, parameters, code, offset);
+      case "throwover" -> emitDirection(Opcodes.THROW_OVER, parameters, code, offset);
+      case "add" -> code[offset] = Opcodes.ADD;
+      case "subtract" -> code[offset] = Opcodes.SUBTRACT;
+      case "multiply" -> code[offset] = Opcodes.MULTIPLY;
+      case "increment" -> code[offset] = Opcodes.INCREMENT;
+      case "decrement" -> code[offset] = Opcodes.DECREMENT;
+      case "setzero" -> code[offset] = Opcodes.SET_ZERO;
+      case "nearest" -> code[offset] = Opcodes.NEAREST;
+      case "if" -> {
+        emitDirection(Opcodes.IF, parameters, code, offset);
+        code[offset + 3] = parseTarget(parameters.get("target"));
+        code[offset + 4] = parseComparator(parameters.get("comparator"));
+        code[offset + 5] = findFalseTarget(commandBlock, mapOfCommandLines);
+      }
+      case "endif" -> code[offset] = Opcodes.END_IF;
+      case "jump" -> {
+        code[offset] = Opcodes.JUMP;
+        code[offset + 1] = Integer.parseInt(parameters.get("destination"));
+      }
+      case "tell" -> {
+        code[offset] = Opcodes.TELL;
+        code[offset + 1] = Integer.parseInt(parameters.get("id"));
+        // the reference Tell looks its line up in the if/end if map, where a tell never is, so
+        // every avatar it does not name fails
+        code[offset + 2] = Opcodes.NO_END_LINE;
+      }
+      default -> throw new IllegalStateException("Unexpected value: " + name);
+    }
+  }
+
+  private void emitDirection(int opcode, Map<String, String> parameters, int[] code,
+      int offset) {
+    Direction direction = Direction
+        .valueOf(parameters.get("direction").toUpperCase().replaceAll("-", "_"));
+    code[offset] = opcode;
+    code[offset + 1] = direction.getXDel();
+    code[offset + 2] = direction.getYDel();
+  }
+
+  private int parseTarget(String target) {
+    return switch (target) {
+      case "nothing" -> Opcodes.TARGET_NOTHING;
+      case "datacube" -> Opcodes.TARGET_DATACUBE;
+      case "avatar" -> Opcodes.TARGET_AVATAR;
+      case "wall" -> Opcodes.TARGET_WALL;
+      case "hole" -> Opcodes.TARGET_HOLE;
+      default -> throw new IllegalStateException("Unexpected value: " + target);
+    };
+  }
+
+  private int parseComparator(String comparator) {
+    return comparator.equals("equal") ? 1 : 0;
+  }
+
+  // mirrors If: with no if/end if pairs at all the program counter stays put
+  private int findFalseTarget(CommandBlock commandBlock, Map<Integer, Integer> mapOfCommandLines) {
+    if (mapOfCommandLines.isEmpty()) {
+      return Opcodes.STAY_ON_LINE;
+    }
+    return mapOfCommandLines.getOrDefault(commandBlock.getIndex(), Opcodes.NO_END_LINE);
+  }
+}
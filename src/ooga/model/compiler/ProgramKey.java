@@ -0,0 +1,83 @@
+package ooga.model.compiler;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import ooga.model.commands.CommandRegistry;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Structural identity of a program: two lists of command blocks have equal keys when they have
+ * the same commands, indices and parameter values, no matter which CommandBlock objects or
+ * parameter maps they were built from. The key also carries a 64 bit hash of that structure so
+ * it can be used to address caches.
+ */
+public final class ProgramKey {
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final String[] lines;
+  private final long hash;
+
+  /**
+   * Creates the key of a program
+   *
+   * @param commandBlocks list of command blocks from the frontend
+   */
+  public ProgramKey(List<CommandBlock> commandBlocks) {
+    lines = new String[commandBlocks.size()];
+    long runningHash = FNV_OFFSET_BASIS;
+    for (int i = 0; i < lines.length; i++) {
+      lines[i] = describe(commandBlocks.get(i));
+      for (int j = 0; j < lines[i].length(); j++) {
+        runningHash = (runningHash ^ lines[i].charAt(j)) * FNV_PRIME;
+      }
+      runningHash = (runningHash ^ '\n') * FNV_PRIME;
+    }
+    hash = runningHash;
+  }
+
+  private String describe(CommandBlock commandBlock) {
+    Map<String, String> sortedParameters = new TreeMap<>(commandBlock.getParameters());
+    return commandBlock.getIndex() + " " + CommandRegistry.normalize(commandBlock.getType()) + " "
+        + sortedParameters;
+  }
+
+  /**
+   * Returns the 64 bit structural hash of the program
+   *
+   * @return hash of the program
+   */
+  public long getHash() {
+    return hash;
+  }
+
+  /**
+   * Returns the number of lines in the program
+   *
+   * @return number of lines
+   */
+  public int size() {
+    return lines.length;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof ProgramKey programKey)) {
+      return false;
+    }
+    return hash == programKey.hash && Arrays.equals(lines, programKey.lines);
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(hash);
+  }
+
+  @Override
+  public String toString() {
+    return Long.toHexString(hash);
+  }
+}
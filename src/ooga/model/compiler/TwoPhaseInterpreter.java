@@ -0,0 +1,219 @@
+package ooga.model.compiler;
+
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.PackedWorld;
+
+/**
+ * Executes a CompiledProgram on a PackedWorld in two phases per tick, so that the avatars of a
+ * tick can be planned in parallel and the outcome does not depend on the order of the avatar
+ * list.
+ *
+ * <p>plan only reads the world. It decides from the state at the start of the tick what the
+ * avatar's line does: the tile it moves to, where its block lands, the new number of its block,
+ * and the line it continues at. Conditions of ifs are evaluated here, so every avatar sees the
+ * same pre-tick board. Plans of different avatars write to different slots, so any number of
+ * avatars can be planned at the same time.
+ *
+ * <p>commit applies one plan to the world and must be called from one thread, once per planned
+ * avatar, in a fixed order (ParallelSimulator uses ascending avatar id). A move or throw whose
+ * target tile was taken by an avatar committed earlier in the same tick is dropped, which makes
+ * the earlier avatar win the conflict. Errors found while planning are thrown by commit, so the
+ * first error in commit order is reported no matter which thread found it.
+ */
+public class TwoPhaseInterpreter {
+
+  private static final int ACTION_NONE = 0;
+  private static final int ACTION_MOVE = 1;
+  private static final int ACTION_PICK_UP = 2;
+  private static final int ACTION_DROP = 3;
+  private static final int ACTION_PLACE = 4;
+  private static final int ACTION_SET_NUM = 5;
+
+  private final CompiledProgram program;
+  private final int[] code;
+  private final PackedWorld world;
+  private final PackedInterpreter interpreter;
+  private final int[] actions;
+  private final int[] targets;
+  private final int[] nextLines;
+  private final String[] errors;
+
+  /**
+   * Binds the compiled program to the world it is executed on
+   *
+   * @param program compiled program
+   * @param world   world the program is executed on; avatars must not be added afterwards
+   */
+  public TwoPhaseInterpreter(CompiledProgram program, PackedWorld world) {
+    this.program = program;
+    this.code = program.code();
+    this.world = world;
+    interpreter = new PackedInterpreter(program, world);
+    actions = new int[world.getAvatarCount()];
+    targets = new int[world.getAvatarCount()];
+    nextLines = new int[world.getAvatarCount()];
+    errors = new String[world.getAvatarCount()];
+  }
+
+  /**
+   * Returns the number of lines in the program
+   *
+   * @return number of lines
+   */
+  public int size() {
+    return program.size();
+  }
+
+  /**
+   * Decides what the avatar does this tick without changing the world
+   *
+   * @param avatar index of the avatar in the world
+   */
+  public void plan(int avatar) {
+    int line = world.getProgramCounter(avatar);
+    actions[avatar] = ACTION_NONE;
+    nextLines[avatar] = line + 1;
+    errors[avatar] = null;
+    try {
+      planLine(avatar, line);
+    } catch (ExceptionHandler e) {
+      actions[avatar] = ACTION_NONE;
+      errors[avatar] = e.getMessage();
+    }
+  }
+
+  private void planLine(int avatar, int line) {
+    int offset = (line - 1) * Opcodes.INSTRUCTION_WIDTH;
+    int opcode = code[offset];
+    switch (opcode) {
+      case Opcodes.STEP -> {
+        int x = world.getAvatarX(avatar) + code[offset + 1];
+        int y = world.getAvatarY(avatar) + code[offset + 2];
+        if (world.canAddAvatar(x, y)) {
+          setAction(avatar, ACTION_MOVE, interpreter.encodeTile(x, y));
+        }
+      }
+      case Opcodes.NEAREST -> {
+        int tile = interpreter.nearestStep(avatar);
+        if (tile != PackedInterpreter.NO_TILE) {
+          setAction(avatar, ACTION_MOVE, tile);
+        }
+      }
+      case Opcodes.PICK_UP -> {
+        if (world.getTileBlock(world.getAvatarX(avatar), world.getAvatarY(avatar))
+            != PackedWorld.NONE) {
+          setAction(avatar, ACTION_PICK_UP, 0);
+        }
+      }
+      case Opcodes.DROP -> {
+        if (world.canAddBlock(world.getAvatarX(avatar), world.getAvatarY(avatar))) {
+          setAction(avatar, ACTION_DROP, 0);
+        }
+      }
+      case Opcodes.THROW, Opcodes.THROW_OVER -> {
+        if (world.getHeldBlock(avatar) != PackedWorld.NONE) {
+          int tile = opcode == Opcodes.THROW
+              ? interpreter.throwLanding(avatar, code[offset + 1], code[offset + 2])
+              : interpreter.throwOverLanding(avatar, code[offset + 1], code[offset + 2]);
+          if (tile != PackedInterpreter.NO_TILE) {
+            setAction(avatar, ACTION_PLACE, tile);
+          }
+        }
+      }
+      case Opcodes.ADD, Opcodes.SUBTRACT, Opcodes.MULTIPLY, Opcodes.INCREMENT,
+          Opcodes.DECREMENT, Opcodes.SET_ZERO -> planSetNum(avatar, opcode);
+      case Opcodes.IF -> {
+        int x = world.getAvatarX(avatar) + code[offset + 1];
+        int y = world.getAvatarY(avatar) + code[offset + 2];
+        if (!world.isInside(x, y)) {
+          throw new ExceptionHandler("Line " + line + " checks a tile outside of the grid");
+        }
+        boolean equalsOrNot = code[offset + 4] == 0;
+        planBranch(avatar, line,
+            interpreter.checkTarget(x, y, code[offset + 3]) ^ equalsOrNot, code[offset + 5]);
+      }
+      case Opcodes.END_IF -> {
+      }
+      case Opcodes.JUMP -> nextLines[avatar] = code[offset + 1];
+      case Opcodes.TELL -> planBranch(avatar, line,
+          world.getAvatarId(avatar) == code[offset + 1], code[offset + 2]);
+      default -> throw new ExceptionHandler(program.getError(line));
+    }
+  }
+
+  private void setAction(int avatar, int action, int target) {
+    actions[avatar] = action;
+    targets[avatar] = target;
+  }
+
+  private void planBranch(int avatar, int line, boolean condition, int falseTarget) {
+    if (condition) {
+      return;
+    }
+    if (falseTarget == Opcodes.NO_END_LINE) {
+      throw new ExceptionHandler("Line " + line + " has no matching end line");
+    }
+    nextLines[avatar] = falseTarget == Opcodes.STAY_ON_LINE ? line : falseTarget;
+  }
+
+  // the numbers involved can only be changed by the avatar holding the block, so the new number
+  // worked out from the pre-tick state is still right when it is committed
+  private void planSetNum(int avatar, int opcode) {
+    int block = world.getHeldBlock(avatar);
+    if (block == PackedWorld.NONE) {
+      return;
+    }
+    int num = world.getBlockNum(block);
+    int tileBlock = world.getTileBlock(world.getAvatarX(avatar), world.getAvatarY(avatar));
+    switch (opcode) {
+      case Opcodes.ADD, Opcodes.SUBTRACT, Opcodes.MULTIPLY -> {
+        if (tileBlock == PackedWorld.NONE) {
+          return;
+        }
+        int tileNum = world.getBlockNum(tileBlock);
+        num = switch (opcode) {
+          case Opcodes.ADD -> num + tileNum;
+          case Opcodes.SUBTRACT -> num - tileNum;
+          default -> num * tileNum;
+        };
+      }
+      case Opcodes.INCREMENT -> num++;
+      case Opcodes.DECREMENT -> num--;
+      default -> num = 0;
+    }
+    setAction(avatar, ACTION_SET_NUM, num);
+  }
+
+  /**
+   * Applies the avatar's plan to the world and moves its program counter
+   *
+   * @param avatar index of the avatar in the world
+   * @throws ExceptionHandler if planning the avatar's line failed
+   */
+  public void commit(int avatar) {
+    if (errors[avatar] != null) {
+      throw new ExceptionHandler(errors[avatar]);
+    }
+    int target = targets[avatar];
+    switch (actions[avatar]) {
+      case ACTION_MOVE -> {
+        int x = interpreter.decodeX(target);
+        int y = interpreter.decodeY(target);
+        if (world.canAddAvatar(x, y)) {
+          interpreter.moveAvatar(avatar, x, y);
+        }
+      }
+      case ACTION_PICK_UP -> interpreter.pickUp(avatar);
+      case ACTION_DROP -> interpreter.drop(avatar);
+      case ACTION_PLACE -> {
+        if (world.canAddBlock(interpreter.decodeX(target), interpreter.decodeY(target))) {
+          interpreter.placeHeldBlock(avatar, target);
+        }
+      }
+      case ACTION_SET_NUM -> world.setBlockNum(world.getHeldBlock(avatar), target);
+      default -> {
+      }
+    }
+    world.setProgramCounter(avatar, nextLines[avatar]);
+  }
+}
@@ -1,6 +1,7 @@
 package ooga.model.database.parser;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
 import java.io.FileReader;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -11,7 +12,9 @@ import ooga.model.commands.AvailableCommands;
 import ooga.model.database.FirebaseService;
 import ooga.model.exceptions.ExceptionHandler;
 import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.LevelTemplate;
 import ooga.model.grid.Structure;
+import ooga.model.grid.TestVectorSet;
 import ooga.model.grid.gridData.BlockData;
 import ooga.model.grid.gridData.GameGridData;
 import ooga.model.grid.gridData.GoalState;
@@ -33,6 +36,7 @@ public class InitialConfigurationParser {
   private final String rootURLPathForLevel;
   private static final String ROOT_URL_FOR_CONFIG_FILES =
       System.getProperty("user.dir") + "/data/gameProperties/";
+  private static final String TEST_VECTORS_FILE = "testVectors.json";
   private InitialState initialState;
   private GoalState goalState;
   private String description;
@@ -40,6 +44,8 @@ public class InitialConfigurationParser {
   private AvailableCommands availableCommandsOtherPlayer;
   private ElementInformationBundle elementInformationBundle;
   private GameGridData gameGridData;
+  private LevelTemplate levelTemplate;
+  private TestVectorSet testVectorSet;
   private final FirebaseService firebaseService;
   private final int playerID;
 
@@ -78,6 +84,12 @@ public class InitialConfigurationParser {
       this.description = (String) levelInfo.get("description");
       parseCommands(getMapFromFile("commands.json"), blocksForCurrentPlayer(levelInfo),
           blocksForOtherPlayer(levelInfo));
+      this.levelTemplate = new LevelTemplate(elementInformationBundle, initialState, goalState);
+      File testVectorsFile = new File(rootURLPathForLevel + TEST_VECTORS_FILE);
+      parseTestVectors(testVectorsFile.exists()
+          ? asObjectMap(getMapFromFile(TEST_VECTORS_FILE)) : null);
+    } catch (ExceptionHandler e) {
+      throw e;
     } catch (Exception e) {
       throw new ExceptionHandler("error occured while parsing single player data files");
     }
@@ -102,6 +114,11 @@ public class InitialConfigurationParser {
       this.description = (String) levelInfo.get("description");
       parseCommands((HashMap) result.get("commands"), blocksForCurrentPlayer(levelInfo),
           blocksForOtherPlayer(levelInfo));
+      this.levelTemplate = new LevelTemplate(elementInformationBundle, initialState, goalState);
+      Object testVectors = result.get("testVectors");
+      parseTestVectors(testVectors == null ? null : asObjectMap(testVectors));
+    } catch (ExceptionHandler e) {
+      throw e;
     } catch (Exception e) {
       throw new ExceptionHandler("error occurred while parsing files from DB");
     }
@@ -152,6 +169,76 @@ public class InitialConfigurationParser {
     }
   }
 
+  // the level itself is always a test vector; testVectors may add explicit and generated ones.
+  // The JSON is only read through asObjectMap and asList, which check what they are given.
+  private void parseTestVectors(Map<String, Object> testVectors) {
+    if (testVectors == null) {
+      this.testVectorSet = new TestVectorSet(levelTemplate, new HashMap<>());
+      return;
+    }
+    try {
+      Map<Integer, List<Integer>> goalSums = new HashMap<>();
+      Map<String, Object> sums = asObjectMap(testVectors.getOrDefault("goalSums", Map.of()));
+      for (String id : sums.keySet()) {
+        goalSums.put(Integer.parseInt(id), parseIds(asList(sums.get(id))));
+      }
+      this.testVectorSet = new TestVectorSet(levelTemplate, goalSums);
+      for (Object vectorObject : asList(testVectors.getOrDefault("vectors", List.of()))) {
+        Map<String, Object> vector = asObjectMap(vectorObject);
+        Map<Integer, Integer> blockNumbers = new HashMap<>();
+        Map<String, Object> blocks = asObjectMap(vector.get("blocks"));
+        for (String id : blocks.keySet()) {
+          blockNumbers.put(Integer.parseInt(id), ((Number) blocks.get(id)).intValue());
+        }
+        if (vector.containsKey("endState")) {
+          Map<String, Object> endState = asObjectMap(vector.get("endState"));
+          testVectorSet.addVector(blockNumbers, new GoalState(goalState.getAllAvatarLocations(),
+              parseBlockData(asObjectMap(endState.get("blocks")), false),
+              goalState.getNumOfCommands(), goalState.getIdealTime(),
+              goalState.getIdealLines()));
+        } else {
+          testVectorSet.addVector(blockNumbers);
+        }
+      }
+      if (testVectors.containsKey("generated")) {
+        Map<String, Object> generated = asObjectMap(testVectors.get("generated"));
+        testVectorSet.addGenerated(((Number) generated.get("count")).intValue(),
+            ((Number) generated.get("seed")).longValue(), parseIds(asList(generated.get("blocks"))),
+            ((Number) generated.get("min")).intValue(), ((Number) generated.get("max")).intValue());
+      }
+    } catch (ExceptionHandler e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ExceptionHandler("error parsing test vectors");
+    }
+  }
+
+  private static Map<String, Object> asObjectMap(Object value) {
+    if (!(value instanceof Map<?, ?> map)) {
+      throw new ExceptionHandler("error parsing test vectors: expected an object");
+    }
+    Map<String, Object> objectMap = new HashMap<>();
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      objectMap.put(String.valueOf(entry.getKey()), entry.getValue());
+    }
+    return objectMap;
+  }
+
+  private static List<?> asList(Object value) {
+    if (!(value instanceof List<?> list)) {
+      throw new ExceptionHandler("error parsing test vectors: expected a list");
+    }
+    return list;
+  }
+
+  private List<Integer> parseIds(List<?> ids) {
+    List<Integer> parsedIds = new ArrayList<>();
+    for (Object id : ids) {
+      parsedIds.add(Integer.parseInt(String.valueOf(id)));
+    }
+    return parsedIds;
+  }
+
   private Map<String, List<Integer>> parseAvatarLocations(Map<String, Object> peopleLocations,
       boolean addToGameGrid) {
     Map<String, List<Integer>> mapOfPeople = new HashMap<>();
@@ -294,6 +381,24 @@ public class InitialConfigurationParser {
     return this.availableCommandsOtherPlayer;
   }
 
+  /**
+   * Returns the immutable template of the level, taken right after parsing, so a fresh grid can
+   * be built for every run without parsing the level again
+   * @return levelTemplate instance
+   */
+  public LevelTemplate getLevelTemplate() {
+    return this.levelTemplate;
+  }
+
+  /**
+   * Returns the start states a program has to win the level from, the level itself first, after
+   * constructor is run
+   * @return testVectorSet instance
+   */
+  public TestVectorSet getTestVectorSet() {
+    return this.testVectorSet;
+  }
+
   /**
    * Get game grid data after constructor is run
    * @return gameGridData instance
@@ -0,0 +1,302 @@
+package ooga.model.grid;
+
+import java.util.Arrays;
+import ooga.model.grid.gridData.ContentHash;
+
+/**
+ * Tile storage of an ElementInformationBundle, split into 64x64 chunks so that memory grows with
+ * what is on the map instead of with its area.
+ *
+ * <p>A chunk whose tiles all have the same structure and that no command has touched yet is one
+ * of the shared, immutable uniform chunks, so a big map of floor or wall costs one reference per
+ * chunk. A chunk is copied into a private one the first time it is written to: its structures are
+ * only stored per tile once they stop being uniform, and a Tile object is only created when
+ * getTile is called for that position. Once created, a tile is kept, so getTile keeps returning
+ * the same object for a position like the Tile[][] it replaces. When setting structures makes a
+ * chunk uniform again and none of its tiles have been created, it goes back to the shared chunk.
+ *
+ * <p>A frozen grid is the structure layer of a level: all of its chunks are shared, the mixed
+ * ones included, and it is never written to. A grid copied from it references its chunks, so a
+ * run only pays for the chunks it writes to. Creating a tile in a frozen mixed chunk gives the
+ * run a private chunk that still reads the frozen structures, and they are only copied if the run
+ * changes one of them.
+ */
+class ChunkedGrid {
+
+  static final int CHUNK_SHIFT = 6;
+  static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final Structure[] STRUCTURES = Structure.values();
+  // code 0 is a tile whose structure was never set, code i + 1 is STRUCTURES[i]
+  private static final Chunk[] UNIFORM_CHUNKS = new Chunk[STRUCTURES.length + 1];
+
+  static {
+    for (int code = 0; code < UNIFORM_CHUNKS.length; code++) {
+      UNIFORM_CHUNKS[code] = new Chunk((byte) code, true);
+    }
+  }
+
+  private final int width;
+  private final int height;
+  private final int chunksX;
+  private final Chunk[] chunks;
+
+  /**
+   * Creates a grid of tiles without structures, like new Tile() for every position
+   *
+   * @param width  number of columns
+   * @param height number of rows
+   */
+  ChunkedGrid(int width, int height) {
+    this.width = width;
+    this.height = height;
+    chunksX = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+    int chunksY = (height + CHUNK_MASK) >> CHUNK_SHIFT;
+    chunks = new Chunk[chunksX * chunksY];
+    Arrays.fill(chunks, UNIFORM_CHUNKS[0]);
+  }
+
+  /**
+   * Creates a grid with the structures of another grid and no avatars or blocks. Uniform chunks
+   * and the chunks of a frozen grid stay shared, so copying a mostly uniform map or a structure
+   * layer is cheap.
+   *
+   * @param other grid to copy the structures of
+   */
+  ChunkedGrid(ChunkedGrid other) {
+    this(other, false);
+  }
+
+  private ChunkedGrid(ChunkedGrid other, boolean freeze) {
+    width = other.width;
+    height = other.height;
+    chunksX = other.chunksX;
+    chunks = new Chunk[other.chunks.length];
+    for (int i = 0; i < chunks.length; i++) {
+      Chunk chunk = other.chunks[i];
+      if (chunk.structures == null) {
+        chunks[i] = UNIFORM_CHUNKS[chunk.uniformCode];
+      } else if (chunk.shared) {
+        chunks[i] = chunk;
+      } else {
+        chunks[i] = new Chunk(chunk.uniformCode, freeze);
+        chunks[i].structures = chunk.structures.clone();
+        chunks[i].counts = chunk.counts.clone();
+      }
+    }
+  }
+
+  /**
+   * Returns a frozen copy of the structures of this grid, whose chunks are all shared
+   *
+   * @return grid that must not be written to
+   */
+  ChunkedGrid freeze() {
+    return new ChunkedGrid(this, true);
+  }
+
+  int getWidth() {
+    return width;
+  }
+
+  int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the number of chunks that are not a shared uniform chunk
+   *
+   * @return number of chunks with their own storage
+   */
+  int getPrivateChunkCount() {
+    int count = 0;
+    for (Chunk chunk : chunks) {
+      if (!chunk.shared) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Adds the structures to a content hash chunk by chunk. A uniform chunk is added as its code, so
+   * a map of floor or wall costs one value per chunk; a mixed chunk adds the codes of its tiles on
+   * the grid, eight to a value. Setting a chunk back to a single structure makes it uniform again,
+   * so equal grids hash the same however they were built. Codes follow the order of Structure, so
+   * reordering it changes every hash.
+   *
+   * @param hash hash to add to
+   */
+  void addTo(ContentHash hash) {
+    for (int chunkIndex = 0; chunkIndex < chunks.length; chunkIndex++) {
+      Chunk chunk = chunks[chunkIndex];
+      hash.add(chunk.structures == null);
+      if (chunk.structures == null) {
+        hash.add(chunk.uniformCode);
+        continue;
+      }
+      int chunkX = (chunkIndex % chunksX) << CHUNK_SHIFT;
+      int chunkY = (chunkIndex / chunksX) << CHUNK_SHIFT;
+      long packed = 0;
+      int packedCount = 0;
+      for (int y = 0; y < Math.min(CHUNK_SIZE, height - chunkY); y++) {
+        for (int x = 0; x < Math.min(CHUNK_SIZE, width - chunkX); x++) {
+          packed = packed << 8 | chunk.structures[(y << CHUNK_SHIFT) | x];
+          if (++packedCount == 8) {
+            hash.add(packed);
+            packed = 0;
+            packedCount = 0;
+          }
+        }
+      }
+      hash.add(packed);
+    }
+  }
+
+  boolean isInside(int x, int y) {
+    return x >= 0 && x < width && y >= 0 && y < height;
+  }
+
+  /**
+   * Returns the structure at the location
+   *
+   * @throws ArrayIndexOutOfBoundsException if the location is off the grid, like Tile[][]
+   */
+  Structure getStructure(int x, int y) {
+    checkBounds(x, y);
+    Chunk chunk = chunks[chunkIndex(x, y)];
+    int code = chunk.structures == null ? chunk.uniformCode : chunk.structures[cellIndex(x, y)];
+    return code == 0 ? null : STRUCTURES[code - 1];
+  }
+
+  /**
+   * Sets the structure at the location, and on its tile if the tile was already created
+   *
+   * @throws ArrayIndexOutOfBoundsException if the location is off the grid, like Tile[][]
+   */
+  void setStructure(int x, int y, Structure structure) {
+    checkBounds(x, y);
+    int chunkIndex = chunkIndex(x, y);
+    int cell = cellIndex(x, y);
+    byte code = (byte) (structure == null ? 0 : structure.ordinal() + 1);
+    Chunk chunk = chunks[chunkIndex];
+    if (chunk.structures == null && chunk.uniformCode == code) {
+      return;
+    }
+    chunk = writableChunk(chunkIndex);
+    if (chunk.structures == null) {
+      chunk.structures = new byte[CHUNK_SIZE * CHUNK_SIZE];
+      Arrays.fill(chunk.structures, chunk.uniformCode);
+      chunk.counts = new int[UNIFORM_CHUNKS.length];
+      chunk.counts[chunk.uniformCode] = cellsIn(chunkIndex);
+    } else if (chunk.borrowsStructures) {
+      chunk.structures = chunk.structures.clone();
+      chunk.counts = chunk.counts.clone();
+      chunk.borrowsStructures = false;
+    }
+    chunk.counts[chunk.structures[cell]]--;
+    chunk.counts[code]++;
+    chunk.structures[cell] = code;
+    if (chunk.tiles != null && chunk.tiles[cell] != null) {
+      chunk.tiles[cell].setStructure(structure);
+    }
+    if (chunk.counts[code] == cellsIn(chunkIndex)) {
+      chunk.structures = null;
+      chunk.counts = null;
+      chunk.borrowsStructures = false;
+      chunk.uniformCode = code;
+      if (chunk.tileCount == 0) {
+        chunks[chunkIndex] = UNIFORM_CHUNKS[code];
+      }
+    }
+  }
+
+  /**
+   * Returns the tile at the location, creating it on first use
+   *
+   * @return tile object, or null if the location is off the grid
+   */
+  Tile getTile(int x, int y) {
+    if (!isInside(x, y)) {
+      return null;
+    }
+    Tile tile = getExistingTile(x, y);
+    if (tile != null) {
+      return tile;
+    }
+    Chunk chunk = writableChunk(chunkIndex(x, y));
+    if (chunk.tiles == null) {
+      chunk.tiles = new Tile[CHUNK_SIZE * CHUNK_SIZE];
+    }
+    tile = new Tile();
+    tile.setStructure(getStructure(x, y));
+    chunk.tiles[cellIndex(x, y)] = tile;
+    chunk.tileCount++;
+    return tile;
+  }
+
+  /**
+   * Returns the tile at the location if it was created, without creating it
+   *
+   * @return tile object, or null if no tile was created there yet
+   * @throws ArrayIndexOutOfBoundsException if the location is off the grid, like Tile[][]
+   */
+  Tile getExistingTile(int x, int y) {
+    checkBounds(x, y);
+    Tile[] tiles = chunks[chunkIndex(x, y)].tiles;
+    return tiles == null ? null : tiles[cellIndex(x, y)];
+  }
+
+  // a frozen mixed chunk lends its structures to the private chunk until one of them is set
+  private Chunk writableChunk(int chunkIndex) {
+    Chunk chunk = chunks[chunkIndex];
+    if (chunk.shared) {
+      Chunk frozen = chunk;
+      chunk = new Chunk(frozen.uniformCode, false);
+      chunk.structures = frozen.structures;
+      chunk.counts = frozen.counts;
+      chunk.borrowsStructures = frozen.structures != null;
+      chunks[chunkIndex] = chunk;
+    }
+    return chunk;
+  }
+
+  private void checkBounds(int x, int y) {
+    if (!isInside(x, y)) {
+      throw new ArrayIndexOutOfBoundsException(
+          "Tile (" + x + ", " + y + ") is outside of the " + width + "x" + height + " grid");
+    }
+  }
+
+  private int chunkIndex(int x, int y) {
+    return (y >> CHUNK_SHIFT) * chunksX + (x >> CHUNK_SHIFT);
+  }
+
+  private int cellIndex(int x, int y) {
+    return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+  }
+
+  // chunks on the right and bottom edges are cut off by the grid
+  private int cellsIn(int chunkIndex) {
+    int chunkX = (chunkIndex % chunksX) << CHUNK_SHIFT;
+    int chunkY = (chunkIndex / chunksX) << CHUNK_SHIFT;
+    return Math.min(CHUNK_SIZE, width - chunkX) * Math.min(CHUNK_SIZE, height - chunkY);
+  }
+
+  private static class Chunk {
+
+    private final boolean shared;
+    private byte uniformCode;
+    private byte[] structures;
+    private int[] counts;
+    private boolean borrowsStructures;
+    private Tile[] tiles;
+    private int tileCount;
+
+    private Chunk(byte uniformCode, boolean shared) {
+      this.uniformCode = uniformCode;
+      this.shared = shared;
+    }
+  }
+}
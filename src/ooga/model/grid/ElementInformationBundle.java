@@ -1,6 +1,7 @@
 package ooga.model.grid;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -12,6 +13,7 @@ import ooga.model.grid.gridData.TileData;
 import ooga.model.player.Avatar;
 import ooga.model.player.Block;
 import ooga.model.player.Element;
+import ooga.model.player.ElementListener;
 import ooga.model.player.Player;
 
 /**
@@ -22,18 +24,59 @@ import ooga.model.player.Player;
  */
 public class ElementInformationBundle implements InformationBundle {
 
-  private Tile[][] grid;
+  private ChunkedGrid grid;
   private final List<Player> avatarList;
   private final List<Block> blockList;
   private final Map<Integer, Integer> lineUpdates;
   private BackEndExternalAPI modelController;
   private List<Integer> endCommandLines;
   private Map<Integer, Integer> mapOfCommandLines;
+  private ElementListener[] elementListeners;
+  private final ElementListener elementDispatcher;
 
   public ElementInformationBundle() {
     avatarList = new ArrayList<>();
     blockList = new ArrayList<>();
     lineUpdates = new HashMap<>();
+    elementListeners = new ElementListener[0];
+    elementDispatcher = new ElementListener() {
+      @Override
+      public void avatarUpdated(int id, int xCoord, int yCoord) {
+        for (ElementListener elementListener : elementListeners) {
+          elementListener.avatarUpdated(id, xCoord, yCoord);
+        }
+      }
+
+      @Override
+      public void blockUpdated(int id, int xCoord, int yCoord, boolean isHeld, int displayNum) {
+        for (ElementListener elementListener : elementListeners) {
+          elementListener.blockUpdated(id, xCoord, yCoord, isHeld, displayNum);
+        }
+      }
+    };
+  }
+
+  /**
+   * Registers a listener that is told about every change to the avatars and blocks of this grid,
+   * whichever command or simulator makes it
+   *
+   * @param elementListener listener to add
+   */
+  public void addElementListener(ElementListener elementListener) {
+    ElementListener[] newListeners = Arrays.copyOf(elementListeners, elementListeners.length + 1);
+    newListeners[elementListeners.length] = elementListener;
+    elementListeners = newListeners;
+  }
+
+  /**
+   * Removes a listener added with addElementListener
+   *
+   * @param elementListener listener to remove
+   */
+  public void removeElementListener(ElementListener elementListener) {
+    List<ElementListener> remaining = new ArrayList<>(Arrays.asList(elementListeners));
+    remaining.remove(elementListener);
+    elementListeners = remaining.toArray(new ElementListener[0]);
   }
 
   /**
@@ -67,6 +110,16 @@ public class ElementInformationBundle implements InformationBundle {
     return modelController;
   }
 
+  /**
+   * Returns the list of blocks so that the compiled interpreter can act on them directly instead
+   * of going through BlockData copies
+   *
+   * @return the list of Blocks
+   */
+  public List<Block> getBlockList() {
+    return Collections.unmodifiableList(blockList);
+  }
+
   /**
    * Returns the list of blockdata Assumption: block data is appropriately constructed in
    * InitialParser Exception: null exception if there are no blocks
@@ -82,18 +135,46 @@ public class ElementInformationBundle implements InformationBundle {
   }
 
   /**
-   * Sets the dimensions of the grid according to the template
+   * Sets the dimensions of the grid according to the template. Tiles are stored in chunks and
+   * only created when they are used, so this does not allocate a tile per position.
    *
    * @param x row size
    * @param y col size
    */
   public void setDimensions(int x, int y) {
-    grid = new Tile[x][y];
-    for (int i = 0; i < x; i++) {
-      for (int j = 0; j < y; j++) {
-        grid[i][j] = new Tile();
-      }
-    }
+    grid = new ChunkedGrid(x, y);
+  }
+
+  // LevelTemplate lays every new grid over the level's shared structure layer
+  void setStructures(StructureLayer structureLayer) {
+    grid = structureLayer.createOverlay();
+  }
+
+  ChunkedGrid copyStructures() {
+    return new ChunkedGrid(grid);
+  }
+
+  // chunks this grid stores itself rather than sharing, to check what a run costs
+  int getPrivateChunkCount() {
+    return grid.getPrivateChunkCount();
+  }
+
+  /**
+   * Returns the number of columns of the grid
+   *
+   * @return width of the grid
+   */
+  public int getWidth() {
+    return grid.getWidth();
+  }
+
+  /**
+   * Returns the number of rows of the grid
+   *
+   * @return height of the grid
+   */
+  public int getHeight() {
+    return grid.getHeight();
   }
 
   /**
@@ -104,7 +185,7 @@ public class ElementInformationBundle implements InformationBundle {
    * @return the structure at the grid location
    */
   public Structure getStructure(int x, int y) {
-    return grid[x][y].getStructure();
+    return grid.getStructure(x, y);
   }
 
   /**
@@ -116,7 +197,7 @@ public class ElementInformationBundle implements InformationBundle {
    * @param structure structure to be added to the location
    */
   public void setStructure(int x, int y, Structure structure) {
-    grid[x][y].setStructure(structure);
+    grid.setStructure(x, y, structure);
   }
 
   /**
@@ -127,8 +208,9 @@ public class ElementInformationBundle implements InformationBundle {
   public void addAvatar(Avatar avatar) {
     int xPos = avatar.getXCoord();
     int yPos = avatar.getYCoord();
-    grid[xPos][yPos].add(avatar);
+    grid.getTile(xPos, yPos).add(avatar);
     avatarList.add(avatar);
+    avatar.setElementListener(elementDispatcher);
   }
 
   /**
@@ -139,8 +221,9 @@ public class ElementInformationBundle implements InformationBundle {
   public void addBlock(Block block) {
     int xPos = block.getXCoord();
     int yPos = block.getYCoord();
-    grid[xPos][yPos].add(block);
+    grid.getTile(xPos, yPos).add(block);
     blockList.add(block);
+    block.setElementListener(elementDispatcher);
   }
 
   /**
@@ -181,7 +264,8 @@ public class ElementInformationBundle implements InformationBundle {
    * @return A TileData object containing information about the tile
    */
   public TileData getTileData(int x, int y) {
-    return new TileData(grid[x][y]);
+    Tile tile = grid.getExistingTile(x, y);
+    return tile == null ? new TileData(grid.getStructure(x, y)) : new TileData(tile);
   }
 
   /**
@@ -192,10 +276,7 @@ public class ElementInformationBundle implements InformationBundle {
    * @return tile object
    */
   public Tile getTile(int x, int y) {
-    if (x < 0 || x >= grid.length || y < 0 || y >= grid[0].length) {
-      return null;
-    }
-    return grid[x][y];
+    return grid.getTile(x, y);
   }
 
   /**
@@ -8,6 +8,7 @@ import ooga.model.grid.gridData.BlockData;
 import ooga.model.grid.gridData.TileData;
 import ooga.model.player.Avatar;
 import ooga.model.player.Block;
+import ooga.model.player.ElementListener;
 import ooga.model.player.Player;
 
 /**
@@ -148,4 +149,18 @@ public interface InformationBundle {
    * @return map of commandlines
    */
   Map<Integer, Integer> getMapOfCommandLines();
+
+  /**
+   * Registers a listener that is told about every change to the avatars and blocks
+   *
+   * @param elementListener listener to add
+   */
+  void addElementListener(ElementListener elementListener);
+
+  /**
+   * Removes a listener added with addElementListener
+   *
+   * @param elementListener listener to remove
+   */
+  void removeElementListener(ElementListener elementListener);
 }
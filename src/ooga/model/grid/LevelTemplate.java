@@ -0,0 +1,252 @@
+package ooga.model.grid;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import ooga.model.grid.gridData.BlockData;
+import ooga.model.grid.gridData.ContentHash;
+import ooga.model.grid.gridData.GoalState;
+import ooga.model.grid.gridData.InitialState;
+import ooga.model.player.Avatar;
+import ooga.model.player.Block;
+import ooga.model.player.DataCube;
+import ooga.model.player.Player;
+
+/**
+ * Immutable snapshot of a parsed level. The parser is run once per level, and every run of a
+ * program gets its own ElementInformationBundle built from this template in memory, so pressing
+ * play or step again never reads the level files or the database. The structures are frozen into
+ * one StructureLayer that every run's grid is laid over, so a run only stores its avatars and
+ * blocks and the tiles it changes.
+ *
+ * <p>Avatars and blocks are recreated in the same order as in the parsed grid, which keeps the
+ * order the avatars execute their commands in.
+ */
+public class LevelTemplate {
+
+  private final int width;
+  private final int height;
+  private final StructureLayer structures;
+  private final int[] avatarIds;
+  private final int[] avatarXs;
+  private final int[] avatarYs;
+  private final int[] blockIds;
+  private final int[] blockXs;
+  private final int[] blockYs;
+  private final int[] blockNums;
+  private final InitialState initialState;
+  private final GoalState goalState;
+  private long contentHash;
+  private boolean isHashed;
+
+  /**
+   * Takes a snapshot of a freshly parsed level. The grid must not have run any commands yet.
+   *
+   * @param elementInformationBundle grid built by the parser
+   * @param initialState             initial state of the level
+   * @param goalState                goal state of the level
+   */
+  public LevelTemplate(ElementInformationBundle elementInformationBundle,
+      InitialState initialState, GoalState goalState) {
+    this.initialState = initialState;
+    this.goalState = goalState;
+    width = elementInformationBundle.getWidth();
+    height = elementInformationBundle.getHeight();
+    structures = new StructureLayer(elementInformationBundle.copyStructures());
+    List<Player> avatars = elementInformationBundle.getAvatarList();
+    avatarIds = new int[avatars.size()];
+    avatarXs = new int[avatars.size()];
+    avatarYs = new int[avatars.size()];
+    for (int i = 0; i < avatars.size(); i++) {
+      avatarIds[i] = avatars.get(i).getId();
+      avatarXs[i] = avatars.get(i).getXCoord();
+      avatarYs[i] = avatars.get(i).getYCoord();
+    }
+    List<Block> blocks = elementInformationBundle.getBlockList();
+    blockIds = new int[blocks.size()];
+    blockXs = new int[blocks.size()];
+    blockYs = new int[blocks.size()];
+    blockNums = new int[blocks.size()];
+    for (int i = 0; i < blocks.size(); i++) {
+      blockIds[i] = blocks.get(i).getId();
+      blockXs[i] = blocks.get(i).getXCoord();
+      blockYs[i] = blocks.get(i).getYCoord();
+      blockNums[i] = blocks.get(i).getDisplayNum();
+    }
+  }
+
+  // same level with other block numbers and goal, for test vectors
+  private LevelTemplate(LevelTemplate level, int[] blockNums, GoalState goalState) {
+    width = level.width;
+    height = level.height;
+    structures = level.structures;
+    avatarIds = level.avatarIds;
+    avatarXs = level.avatarXs;
+    avatarYs = level.avatarYs;
+    blockIds = level.blockIds;
+    blockXs = level.blockXs;
+    blockYs = level.blockYs;
+    this.blockNums = blockNums;
+    initialState = level.initialState;
+    this.goalState = goalState;
+  }
+
+  /**
+   * Returns the same level with some blocks starting with other numbers and another goal. The
+   * structures and starting positions are shared with this template, so only the numbers are
+   * copied.
+   *
+   * @param blockNumbers starting number of every block that changes, by block id
+   * @param goalState    goal of the new level
+   * @return new template
+   */
+  public LevelTemplate withBlockNumbers(Map<Integer, Integer> blockNumbers,
+      GoalState goalState) {
+    int[] newBlockNums = blockNums.clone();
+    for (int i = 0; i < blockIds.length; i++) {
+      newBlockNums[i] = blockNumbers.getOrDefault(blockIds[i], blockNums[i]);
+    }
+    return new LevelTemplate(this, newBlockNums, goalState);
+  }
+
+  /**
+   * Returns the starting number of every block
+   *
+   * @return numbers by block id, in the order the blocks were parsed
+   */
+  public Map<Integer, Integer> getBlockNumbers() {
+    Map<Integer, Integer> blockNumbers = new LinkedHashMap<>();
+    for (int i = 0; i < blockIds.length; i++) {
+      blockNumbers.put(blockIds[i], blockNums[i]);
+    }
+    return blockNumbers;
+  }
+
+  /**
+   * Builds a new grid in the level's starting configuration
+   *
+   * @return new ElementInformationBundle that only shares the structure layer with other runs
+   */
+  public ElementInformationBundle createGameGrid() {
+    ElementInformationBundle elementInformationBundle = new ElementInformationBundle();
+    elementInformationBundle.setStructures(structures);
+    for (int i = 0; i < avatarIds.length; i++) {
+      elementInformationBundle.addAvatar(new Avatar(avatarIds[i], avatarXs[i], avatarYs[i]));
+    }
+    for (int i = 0; i < blockIds.length; i++) {
+      elementInformationBundle
+          .addBlock(new DataCube(blockIds[i], blockXs[i], blockYs[i], blockNums[i]));
+    }
+    return elementInformationBundle;
+  }
+
+  /**
+   * Builds a new packed world in the level's starting configuration, with the avatars and blocks
+   * at the same indices as in createGameGrid
+   *
+   * @return new PackedWorld that only shares the structure layer with other runs
+   */
+  public PackedWorld createPackedWorld() {
+    PackedWorld packedWorld = new PackedWorld();
+    packedWorld.setStructures(structures);
+    for (int i = 0; i < avatarIds.length; i++) {
+      packedWorld.addAvatar(new Avatar(avatarIds[i], avatarXs[i], avatarYs[i]));
+    }
+    for (int i = 0; i < blockIds.length; i++) {
+      packedWorld.addBlock(new DataCube(blockIds[i], blockXs[i], blockYs[i], blockNums[i]));
+    }
+    return packedWorld;
+  }
+
+  /**
+   * Returns the structures every run of the level is laid over
+   *
+   * @return shared structure layer
+   */
+  public StructureLayer getStructureLayer() {
+    return structures;
+  }
+
+  /**
+   * Returns the initial state of the level
+   *
+   * @return initial state
+   */
+  public InitialState getInitialState() {
+    return initialState;
+  }
+
+  /**
+   * Returns the goal state of the level
+   *
+   * @return goal state
+   */
+  public GoalState getGoalState() {
+    return goalState;
+  }
+
+  /**
+   * Returns a hash of everything that decides how a program runs on this level: the structures,
+   * the starting avatars and blocks, the goal and the level's apples, ideal lines, ideal time and
+   * time limit. Two levels with the same content have the same hash, whether they were read from
+   * the level files or the database. The hash is computed the first time it is asked for, from the
+   * chunks of the structure layer, so a large map of uniform chunks hashes in one value per chunk
+   * instead of one per tile.
+   *
+   * @return 64 bit content hash
+   */
+  public synchronized long getContentHash() {
+    if (!isHashed) {
+      contentHash = computeContentHash();
+      isHashed = true;
+    }
+    return contentHash;
+  }
+
+  private long computeContentHash() {
+    ContentHash hash = new ContentHash().add(width).add(height);
+    structures.addTo(hash);
+    for (int i = 0; i < avatarIds.length; i++) {
+      hash.add(avatarIds[i]).add(avatarXs[i]).add(avatarYs[i]);
+    }
+    hash.add(blockIds.length);
+    for (int i = 0; i < blockIds.length; i++) {
+      hash.add(blockIds[i]).add(blockXs[i]).add(blockYs[i]).add(blockNums[i]);
+    }
+    hash.add(initialState == null ? -1 : initialState.getTimeLimit());
+    hash.add(goalState.getNumOfCommands()).add(goalState.getIdealLines())
+        .add(goalState.getIdealTime());
+    for (Map.Entry<String, List<Integer>> avatar : new TreeMap<>(
+        goalState.getAllAvatarLocations()).entrySet()) {
+      hash.add(avatar.getKey()).add(avatar.getValue().size());
+      avatar.getValue().forEach(hash::add);
+    }
+    for (Map.Entry<String, BlockData> block : new TreeMap<>(goalState.getAllBlockData())
+        .entrySet()) {
+      BlockData blockData = block.getValue();
+      hash.add(block.getKey()).add(blockData.getId()).add(blockData.getBlockNumber())
+          .add(blockData.isPickedUp()).add(blockData.getLocation().size());
+      blockData.getLocation().forEach(hash::add);
+    }
+    return hash.getValue();
+  }
+
+  /**
+   * Returns the number of columns of the level
+   *
+   * @return width of the grid
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the number of rows of the level
+   *
+   * @return height of the grid
+   */
+  public int getHeight() {
+    return height;
+  }
+}
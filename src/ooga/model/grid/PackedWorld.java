@@ -0,0 +1,786 @@
+package ooga.model.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import ooga.controller.BackEndExternalAPI;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.gridData.BlockData;
+import ooga.model.grid.gridData.IntIntMap;
+import ooga.model.grid.gridData.TileData;
+import ooga.model.grid.gridData.TileOccupancy;
+import ooga.model.player.Avatar;
+import ooga.model.player.Block;
+import ooga.model.player.ElementListener;
+import ooga.model.player.Player;
+
+/**
+ * Struct-of-arrays backing store for a level. Avatars and blocks are rows in dense int arrays
+ * (position, program counter, held block, number, held flag) addressed by index, ids are mapped
+ * to indices through primitive tables, the structures are kept in 64x64 chunks of one byte per
+ * tile like an ElementInformationBundle's, and the avatar and block on each tile are kept in a
+ * TileOccupancy that only stores the parts of the map they get to. The primitive methods are what
+ * PackedInterpreter runs on, so a tick never follows object references or boxes an id.
+ *
+ * <p>A world built from a LevelTemplate reads the structures of the level's StructureLayer, which
+ * every run shares, and only copies the chunk a structure is set in. Apart from that a run costs
+ * its avatars and blocks, however big the map is.
+ *
+ * <p>The InformationBundle methods are a facade for code that works with Avatar, Block and Tile
+ * objects: they hand out views that read and write the arrays, so changes made through either
+ * side are visible to the other. Views are only created for the facade.
+ */
+public class PackedWorld implements InformationBundle {
+
+  public static final int NONE = -1;
+
+  private int width;
+  private int height;
+  private ChunkedGrid structures;
+  private TileOccupancy occupancy;
+
+  private int avatarCount;
+  private int[] avatarIds;
+  private int[] avatarXs;
+  private int[] avatarYs;
+  private int[] avatarPcs;
+  private int[] avatarHeldBlocks;
+  private final IntIntMap avatarIndices;
+  private final List<Player> avatarViews;
+
+  private int blockCount;
+  private int[] blockIds;
+  private int[] blockXs;
+  private int[] blockYs;
+  private int[] blockNums;
+  private boolean[] blocksHeld;
+  private final IntIntMap blockIndices;
+  private final List<Block> blockViews;
+
+  private ElementListener[] elementListeners;
+  private BackEndExternalAPI modelController;
+  private Map<Integer, Integer> mapOfCommandLines;
+
+  /**
+   * Creates an empty world; call setDimensions before adding anything
+   */
+  public PackedWorld() {
+    structures = new ChunkedGrid(0, 0);
+    occupancy = new TileOccupancy(0, 0);
+    avatarIds = new int[0];
+    avatarXs = new int[0];
+    avatarYs = new int[0];
+    avatarPcs = new int[0];
+    avatarHeldBlocks = new int[0];
+    avatarIndices = new IntIntMap();
+    avatarViews = new ArrayList<>();
+    blockIds = new int[0];
+    blockXs = new int[0];
+    blockYs = new int[0];
+    blockNums = new int[0];
+    blocksHeld = new boolean[0];
+    blockIndices = new IntIntMap();
+    blockViews = new ArrayList<>();
+    elementListeners = new ElementListener[0];
+  }
+
+  // ---- primitive API ----
+
+  /**
+   * Returns the number of columns of the grid
+   *
+   * @return width of the grid
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the number of rows of the grid
+   *
+   * @return height of the grid
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Checks whether the coordinates are on the grid
+   *
+   * @param x x coordinate
+   * @param y y coordinate
+   * @return true if there is a tile at the coordinates
+   */
+  public boolean isInside(int x, int y) {
+    return x >= 0 && x < width && y >= 0 && y < height;
+  }
+
+  /**
+   * Returns the index of the avatar standing on a tile
+   *
+   * @param x x coordinate
+   * @param y y coordinate
+   * @return avatar index, or NONE if the tile is empty or off the grid
+   */
+  public int getTileAvatar(int x, int y) {
+    if (!isInside(x, y)) {
+      return NONE;
+    }
+    return occupancy.getAvatar(x, y);
+  }
+
+  /**
+   * Returns the index of the block lying on a tile
+   *
+   * @param x x coordinate
+   * @param y y coordinate
+   * @return block index, or NONE if the tile is empty or off the grid
+   */
+  public int getTileBlock(int x, int y) {
+    if (!isInside(x, y)) {
+      return NONE;
+    }
+    return occupancy.getBlock(x, y);
+  }
+
+  /**
+   * Places an avatar on a tile, or clears the tile
+   *
+   * @param x      x coordinate
+   * @param y      y coordinate
+   * @param avatar avatar index, or NONE to clear
+   */
+  public void setTileAvatar(int x, int y, int avatar) {
+    occupancy.setAvatar(x, y, avatar);
+  }
+
+  /**
+   * Places a block on a tile, or clears the tile
+   *
+   * @param x     x coordinate
+   * @param y     y coordinate
+   * @param block block index, or NONE to clear
+   */
+  public void setTileBlock(int x, int y, int block) {
+    occupancy.setBlock(x, y, block);
+  }
+
+  /**
+   * Same check as Tile.canAddAvatar; tiles off the grid cannot take an avatar
+   *
+   * @param x x coordinate
+   * @param y y coordinate
+   * @return true if the tile is an empty floor tile
+   */
+  public boolean canAddAvatar(int x, int y) {
+    return isInside(x, y) && getStructure(x, y) == Structure.FLOOR
+        && getTileAvatar(x, y) == NONE;
+  }
+
+  /**
+   * Same check as Tile.canAddBlock; tiles off the grid cannot take a block
+   *
+   * @param x x coordinate
+   * @param y y coordinate
+   * @return true if the tile is a floor tile without a block
+   */
+  public boolean canAddBlock(int x, int y) {
+    return isInside(x, y) && getStructure(x, y) == Structure.FLOOR
+        && getTileBlock(x, y) == NONE;
+  }
+
+  /**
+   * Returns the number of avatars
+   *
+   * @return number of avatars
+   */
+  public int getAvatarCount() {
+    return avatarCount;
+  }
+
+  /**
+   * Returns the index of an avatar
+   *
+   * @param id ID of the avatar
+   * @return index of the avatar, or NONE
+   */
+  public int getAvatarIndex(int id) {
+    return avatarIndices.get(id, NONE);
+  }
+
+  public int getAvatarId(int avatar) {
+    return avatarIds[avatar];
+  }
+
+  public int getAvatarX(int avatar) {
+    return avatarXs[avatar];
+  }
+
+  public int getAvatarY(int avatar) {
+    return avatarYs[avatar];
+  }
+
+  public int getProgramCounter(int avatar) {
+    return avatarPcs[avatar];
+  }
+
+  public void setProgramCounter(int avatar, int programCounter) {
+    avatarPcs[avatar] = programCounter;
+  }
+
+  /**
+   * Returns the block an avatar holds
+   *
+   * @param avatar avatar index
+   * @return block index, or NONE
+   */
+  public int getHeldBlock(int avatar) {
+    return avatarHeldBlocks[avatar];
+  }
+
+  public void setHeldBlock(int avatar, int block) {
+    avatarHeldBlocks[avatar] = block;
+  }
+
+  /**
+   * Moves an avatar's coordinates; the tiles are updated separately, like Avatar.setXY
+   *
+   * @param avatar avatar index
+   * @param x      new x coordinate
+   * @param y      new y coordinate
+   */
+  public void setAvatarPosition(int avatar, int x, int y) {
+    avatarXs[avatar] = x;
+    avatarYs[avatar] = y;
+    for (ElementListener elementListener : elementListeners) {
+      elementListener.avatarUpdated(avatarIds[avatar], x, y);
+    }
+  }
+
+  /**
+   * Returns the number of blocks
+   *
+   * @return number of blocks
+   */
+  public int getBlockCount() {
+    return blockCount;
+  }
+
+  /**
+   * Returns the index of a block
+   *
+   * @param id ID of the block
+   * @return index of the block, or NONE
+   */
+  public int getBlockIndex(int id) {
+    return blockIndices.get(id, NONE);
+  }
+
+  public int getBlockId(int block) {
+    return blockIds[block];
+  }
+
+  public int getBlockX(int block) {
+    return blockXs[block];
+  }
+
+  public int getBlockY(int block) {
+    return blockYs[block];
+  }
+
+  public int getBlockNum(int block) {
+    return blockNums[block];
+  }
+
+  public boolean isBlockHeld(int block) {
+    return blocksHeld[block];
+  }
+
+  public void setBlockPosition(int block, int x, int y) {
+    blockXs[block] = x;
+    blockYs[block] = y;
+    notifyBlock(block);
+  }
+
+  public void setBlockNum(int block, int displayNum) {
+    blockNums[block] = displayNum;
+    notifyBlock(block);
+  }
+
+  public void setBlockHeld(int block, boolean isHeld) {
+    blocksHeld[block] = isHeld;
+    notifyBlock(block);
+  }
+
+  private void notifyBlock(int block) {
+    for (ElementListener elementListener : elementListeners) {
+      elementListener.blockUpdated(blockIds[block], blockXs[block], blockYs[block],
+          blocksHeld[block], blockNums[block]);
+    }
+  }
+
+  // ---- InformationBundle facade ----
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<Player> getAvatarList() {
+    return Collections.unmodifiableList(avatarViews);
+  }
+
+  /**
+   * Returns views of the blocks, in the order they were added
+   *
+   * @return the list of Blocks
+   */
+  public List<Block> getBlockList() {
+    return Collections.unmodifiableList(blockViews);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setModelController(BackEndExternalAPI modelController) {
+    this.modelController = modelController;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public BackEndExternalAPI getModelController() {
+    return modelController;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<BlockData> getBlockData() {
+    List<BlockData> blockData = new ArrayList<>();
+    for (Block block : blockViews) {
+      blockData.add(new BlockData(block));
+    }
+    return blockData;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setDimensions(int x, int y) {
+    width = x;
+    height = y;
+    structures = new ChunkedGrid(x, y);
+    occupancy = new TileOccupancy(x, y);
+  }
+
+  // LevelTemplate lays every new world over the level's shared structure layer
+  void setStructures(StructureLayer structureLayer) {
+    setDimensions(structureLayer.getWidth(), structureLayer.getHeight());
+    structures = structureLayer.createOverlay();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Structure getStructure(int x, int y) {
+    Structure structure = structures.getStructure(x, y);
+    // tiles that were never given a structure are floor
+    return structure == null ? Structure.FLOOR : structure;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setStructure(int x, int y, Structure structure) {
+    structures.setStructure(x, y, structure);
+  }
+
+  /**
+   * Copies the avatar into the arrays; the world then hands out its own view of it
+   *
+   * @param avatar Avatar to be added to the tile
+   */
+  @Override
+  public void addAvatar(Avatar avatar) {
+    int index = avatarCount++;
+    if (index == avatarIds.length) {
+      int capacity = Math.max(8, index * 2);
+      avatarIds = Arrays.copyOf(avatarIds, capacity);
+      avatarXs = Arrays.copyOf(avatarXs, capacity);
+      avatarYs = Arrays.copyOf(avatarYs, capacity);
+      avatarPcs = Arrays.copyOf(avatarPcs, capacity);
+      avatarHeldBlocks = Arrays.copyOf(avatarHeldBlocks, capacity);
+    }
+    avatarIds[index] = avatar.getId();
+    avatarXs[index] = avatar.getXCoord();
+    avatarYs[index] = avatar.getYCoord();
+    avatarPcs[index] = avatar.getProgramCounter();
+    avatarHeldBlocks[index] = NONE;
+    avatarIndices.put(avatar.getId(), index);
+    avatarViews.add(new AvatarView(index));
+    if (canAddAvatar(avatar.getXCoord(), avatar.getYCoord())) {
+      setTileAvatar(avatar.getXCoord(), avatar.getYCoord(), index);
+    }
+  }
+
+  /**
+   * Copies the block into the arrays; the world then hands out its own view of it
+   *
+   * @param block block to be added to the location
+   */
+  @Override
+  public void addBlock(Block block) {
+    int index = blockCount++;
+    if (index == blockIds.length) {
+      int capacity = Math.max(8, index * 2);
+      blockIds = Arrays.copyOf(blockIds, capacity);
+      blockXs = Arrays.copyOf(blockXs, capacity);
+      blockYs = Arrays.copyOf(blockYs, capacity);
+      blockNums = Arrays.copyOf(blockNums, capacity);
+      blocksHeld = Arrays.copyOf(blocksHeld, capacity);
+    }
+    blockIds[index] = block.getId();
+    blockXs[index] = block.getXCoord();
+    blockYs[index] = block.getYCoord();
+    blockNums[index] = block.getDisplayNum();
+    blocksHeld[index] = block.isHeld();
+    blockIndices.put(block.getId(), index);
+    blockViews.add(new BlockView(index));
+    if (canAddBlock(block.getXCoord(), block.getYCoord())) {
+      setTileBlock(block.getXCoord(), block.getYCoord(), index);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Player getAvatarById(int id) {
+    int avatar = getAvatarIndex(id);
+    return avatar == NONE ? null : avatarViews.get(avatar);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Collection<Integer> getAvatarIds() {
+    List<Integer> ids = new ArrayList<>();
+    for (int i = 0; i < avatarCount; i++) {
+      ids.add(avatarIds[i]);
+    }
+    Collections.sort(ids);
+    return ids;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public TileData getTileData(int x, int y) {
+    return new TileData(getTile(x, y));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setEndCommandLines(List<Integer> endCommandLines) {
+  }
+
+  /**
+   * Returns a view of the tile; changes made through it go straight to the packed arrays
+   *
+   * @param x The x-coordinate of the tile
+   * @param y The y-coordinate of the tile
+   * @return tile view, or null off the grid
+   */
+  @Override
+  public Tile getTile(int x, int y) {
+    return isInside(x, y) ? new TileView(x, y) : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setMapOfCommandLines(Map<Integer, Integer> mapOfCommandLines) {
+    this.mapOfCommandLines = mapOfCommandLines;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Map<Integer, Integer> getMapOfCommandLines() {
+    return mapOfCommandLines;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void addElementListener(ElementListener elementListener) {
+    ElementListener[] newListeners = Arrays.copyOf(elementListeners, elementListeners.length + 1);
+    newListeners[elementListeners.length] = elementListener;
+    elementListeners = newListeners;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void removeElementListener(ElementListener elementListener) {
+    List<ElementListener> remaining = new ArrayList<>(Arrays.asList(elementListeners));
+    remaining.remove(elementListener);
+    elementListeners = remaining.toArray(new ElementListener[0]);
+  }
+
+  private int indexOf(Avatar avatar) {
+    if (avatar instanceof AvatarView avatarView && avatarView.world() == this) {
+      return avatarView.index;
+    }
+    int index = getAvatarIndex(avatar.getId());
+    if (index == NONE) {
+      throw new ExceptionHandler("Avatar " + avatar.getId() + " is not part of this world");
+    }
+    return index;
+  }
+
+  private int indexOf(Block block) {
+    if (block == null) {
+      return NONE;
+    }
+    if (block instanceof BlockView blockView && blockView.world() == this) {
+      return blockView.index;
+    }
+    int index = getBlockIndex(block.getId());
+    if (index == NONE) {
+      throw new ExceptionHandler("Block " + block.getId() + " is not part of this world");
+    }
+    return index;
+  }
+
+  private Block blockView(int block) {
+    return block == NONE ? null : blockViews.get(block);
+  }
+
+  private class AvatarView extends Avatar {
+
+    private final int index;
+
+    private AvatarView(int index) {
+      super(avatarIds[index], avatarXs[index], avatarYs[index]);
+      this.index = index;
+    }
+
+    private PackedWorld world() {
+      return PackedWorld.this;
+    }
+
+    @Override
+    public int getId() {
+      return avatarIds[index];
+    }
+
+    @Override
+    public int getXCoord() {
+      return avatarXs[index];
+    }
+
+    @Override
+    public int getYCoord() {
+      return avatarYs[index];
+    }
+
+    @Override
+    public void setXY(int xCoord, int yCoord) {
+      setAvatarPosition(index, xCoord, yCoord);
+    }
+
+    @Override
+    public void pickUp(Block block) {
+      avatarHeldBlocks[index] = indexOf(block);
+    }
+
+    @Override
+    public Block drop() {
+      Block block = blockView(avatarHeldBlocks[index]);
+      avatarHeldBlocks[index] = NONE;
+      return block;
+    }
+
+    @Override
+    public boolean hasBlock() {
+      return avatarHeldBlocks[index] != NONE;
+    }
+
+    @Override
+    public Block getHeldItem() {
+      return blockView(avatarHeldBlocks[index]);
+    }
+
+    @Override
+    public void setElementListener(ElementListener elementListener) {
+      // the world notifies its own listeners
+    }
+
+    @Override
+    public int getProgramCounter() {
+      return avatarPcs[index];
+    }
+
+    @Override
+    public void setProgramCounter(int programCounter) {
+      avatarPcs[index] = programCounter;
+    }
+  }
+
+  private class BlockView extends Block {
+
+    private final int index;
+
+    private BlockView(int index) {
+      this.index = index;
+    }
+
+    private PackedWorld world() {
+      return PackedWorld.this;
+    }
+
+    @Override
+    public int getId() {
+      return blockIds[index];
+    }
+
+    @Override
+    public int getXCoord() {
+      return blockXs[index];
+    }
+
+    @Override
+    public int getYCoord() {
+      return blockYs[index];
+    }
+
+    @Override
+    public void setXY(int xCoord, int yCoord) {
+      setBlockPosition(index, xCoord, yCoord);
+    }
+
+    @Override
+    public int getDisplayNum() {
+      return blockNums[index];
+    }
+
+    @Override
+    public void setDisplayNum(int displayNum) {
+      setBlockNum(index, displayNum);
+    }
+
+    @Override
+    public void drop() {
+      setBlockHeld(index, false);
+    }
+
+    @Override
+    public void pickUp() {
+      setBlockHeld(index, true);
+    }
+
+    @Override
+    public boolean isHeld() {
+      return blocksHeld[index];
+    }
+
+    @Override
+    public void setElementListener(ElementListener elementListener) {
+      // the world notifies its own listeners
+    }
+  }
+
+  private class TileView extends Tile {
+
+    private final int x;
+    private final int y;
+
+    private TileView(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+
+    @Override
+    public void setStructure(Structure structure) {
+      PackedWorld.this.setStructure(x, y, structure);
+    }
+
+    @Override
+    public void add(Avatar avatar) {
+      if (canAddAvatar()) {
+        setTileAvatar(x, y, indexOf(avatar));
+      }
+    }
+
+    @Override
+    public void add(Block block) {
+      if (canAddBlock()) {
+        setTileBlock(x, y, indexOf(block));
+      }
+    }
+
+    @Override
+    public boolean canAddAvatar() {
+      return PackedWorld.this.canAddAvatar(x, y);
+    }
+
+    @Override
+    public boolean canAddBlock() {
+      return PackedWorld.this.canAddBlock(x, y);
+    }
+
+    @Override
+    public Structure getStructure() {
+      return PackedWorld.this.getStructure(x, y);
+    }
+
+    @Override
+    public Avatar getAvatar() {
+      int avatar = getTileAvatar(x, y);
+      return avatar == NONE ? null : (Avatar) avatarViews.get(avatar);
+    }
+
+    @Override
+    public Block getBlock() {
+      return blockView(getTileBlock(x, y));
+    }
+
+    @Override
+    public void removeAvatar() {
+      setTileAvatar(x, y, NONE);
+    }
+
+    @Override
+    public void removeBlock() {
+      setTileBlock(x, y, NONE);
+    }
+
+    @Override
+    public boolean hasBlock() {
+      return getTileBlock(x, y) != NONE;
+    }
+
+    @Override
+    public boolean hasAvatar() {
+      return getTileAvatar(x, y) != NONE;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package ooga.model.grid;
+
+import ooga.model.grid.gridData.ContentHash;
+
+/**
+ * Immutable walls, floors and holes of a level, built once per LevelTemplate and shared by every
+ * run of it. A run's grid is an overlay on the layer that only stores what the run changes: an
+ * ElementInformationBundle references the layer's chunks and only gets its own chunks where it
+ * creates tiles for avatars and blocks, and a PackedWorld lays its structures over the layer's
+ * chunks the same way and keeps only the occupied tiles. So searches, grading and test vectors
+ * running the same level at the same time pay memory for their avatars and blocks rather than for
+ * a copy of the map, and building a layer copies one reference per chunk.
+ *
+ * <p>A run can still set structures; the part of the layer it writes to is copied into the run
+ * first, so the layer and the other runs never see the change.
+ */
+public class StructureLayer {
+
+  private final ChunkedGrid structures;
+
+  /**
+   * Freezes the structures of a grid
+   *
+   * @param structures structures to share; later changes to the grid do not reach the layer
+   */
+  StructureLayer(ChunkedGrid structures) {
+    this.structures = structures.freeze();
+  }
+
+  /**
+   * Returns the number of columns of the layer
+   *
+   * @return width of the grid
+   */
+  public int getWidth() {
+    return structures.getWidth();
+  }
+
+  /**
+   * Returns the number of rows of the layer
+   *
+   * @return height of the grid
+   */
+  public int getHeight() {
+    return structures.getHeight();
+  }
+
+  /**
+   * Returns the structure at the location
+   *
+   * @param x x coordinate
+   * @param y y coordinate
+   * @return structure, or null if the parser never set one
+   * @throws ArrayIndexOutOfBoundsException if the location is off the grid
+   */
+  public Structure getStructure(int x, int y) {
+    return structures.getStructure(x, y);
+  }
+
+  // one value per uniform chunk, so hashing a level does not grow with its area
+  void addTo(ContentHash hash) {
+    structures.addTo(hash);
+  }
+
+  // grid for one run that shares every chunk with the layer until it is written to
+  ChunkedGrid createOverlay() {
+    return new ChunkedGrid(structures);
+  }
+}
@@ -0,0 +1,154 @@
+package ooga.model.grid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.gridData.BlockData;
+import ooga.model.grid.gridData.GoalState;
+
+/**
+ * The start states a program has to win a level from, so that a program written for the numbers
+ * on the level's data cubes cannot pass by only working for them. The first test vector is the
+ * level itself; every other one starts with the same grid, avatars and blocks, but with other
+ * numbers on some of the blocks. Vectors are either listed explicitly or generated from a seed,
+ * with every chosen block getting a number drawn evenly from a range.
+ *
+ * <p>Unless a vector comes with its own goal, its goal is derived from the level's goal: the
+ * goal locations stay the same, and the goal number of each block moves by as much as its start
+ * number did, so blocks that keep their number keep doing so. A block can instead be given a goal
+ * sum, in which case its goal number is the sum of the goal numbers of the listed blocks, e.g.
+ * for a level that writes the Fibonacci numbers starting from the numbers on two blocks.
+ */
+public class TestVectorSet {
+
+  private final LevelTemplate level;
+  private final Map<Integer, List<Integer>> goalSums;
+  private final List<LevelTemplate> levels;
+
+  /**
+   * Creates a set with only the level itself
+   *
+   * @param level    template of the level as it is played
+   * @param goalSums for the blocks whose goal number is a sum, the ids of the blocks summed;
+   *                 may be empty
+   * @throws ExceptionHandler if a goal sum depends on itself
+   */
+  public TestVectorSet(LevelTemplate level, Map<Integer, List<Integer>> goalSums) {
+    this.level = level;
+    this.goalSums = new HashMap<>(goalSums);
+    levels = new ArrayList<>();
+    levels.add(level);
+    deriveGoal(level.getBlockNumbers());
+  }
+
+  /**
+   * Adds a vector whose goal is derived from the level's goal
+   *
+   * @param blockNumbers starting number of every block that changes, by block id
+   */
+  public void addVector(Map<Integer, Integer> blockNumbers) {
+    Map<Integer, Integer> startNumbers = level.getBlockNumbers();
+    startNumbers.putAll(blockNumbers);
+    levels.add(level.withBlockNumbers(startNumbers, deriveGoal(startNumbers)));
+  }
+
+  /**
+   * Adds a vector with its own goal
+   *
+   * @param blockNumbers starting number of every block that changes, by block id
+   * @param goalState    goal of the vector
+   */
+  public void addVector(Map<Integer, Integer> blockNumbers, GoalState goalState) {
+    levels.add(level.withBlockNumbers(blockNumbers, goalState));
+  }
+
+  /**
+   * Adds vectors with random numbers on the given blocks. The same seed always adds the same
+   * vectors.
+   *
+   * @param count    number of vectors to add
+   * @param seed     seed of the random numbers
+   * @param blockIds blocks that get random numbers
+   * @param min      smallest number drawn
+   * @param max      largest number drawn
+   */
+  public void addGenerated(int count, long seed, List<Integer> blockIds, int min, int max) {
+    if (max < min) {
+      throw new ExceptionHandler("test vector numbers range from " + min + " to " + max);
+    }
+    Random random = new Random(seed);
+    for (int i = 0; i < count; i++) {
+      Map<Integer, Integer> blockNumbers = new LinkedHashMap<>();
+      for (int blockId : blockIds) {
+        blockNumbers.put(blockId, min + random.nextInt(max - min + 1));
+      }
+      addVector(blockNumbers);
+    }
+  }
+
+  /**
+   * Returns the start states to run a program from, the level itself first
+   *
+   * @return levels of the test vectors
+   */
+  public List<LevelTemplate> getLevels() {
+    return List.copyOf(levels);
+  }
+
+  /**
+   * Returns the number of test vectors, including the level itself
+   *
+   * @return number of vectors
+   */
+  public int size() {
+    return levels.size();
+  }
+
+  private GoalState deriveGoal(Map<Integer, Integer> startNumbers) {
+    GoalState goalState = level.getGoalState();
+    Map<Integer, Integer> levelNumbers = level.getBlockNumbers();
+    Map<Integer, Integer> goalNumbers = new HashMap<>();
+    for (Map.Entry<String, BlockData> goalBlock : goalState.getAllBlockData().entrySet()) {
+      int id = Integer.parseInt(goalBlock.getKey());
+      goalNumbers.put(id, goalBlock.getValue().getBlockNumber()
+          + startNumbers.getOrDefault(id, 0) - levelNumbers.getOrDefault(id, 0));
+    }
+    Set<Integer> summed = new HashSet<>();
+    for (int id : goalSums.keySet()) {
+      sum(id, goalNumbers, summed, new HashSet<>());
+    }
+    Map<String, BlockData> goalBlocks = new HashMap<>();
+    for (Map.Entry<String, BlockData> goalBlock : goalState.getAllBlockData().entrySet()) {
+      BlockData blockData = goalBlock.getValue();
+      int id = Integer.parseInt(goalBlock.getKey());
+      goalBlocks.put(goalBlock.getKey(), new BlockData(blockData.getLocation(),
+          goalNumbers.get(id), blockData.isPickedUp(), id));
+    }
+    return new GoalState(goalState.getAllAvatarLocations(), goalBlocks,
+        goalState.getNumOfCommands(), goalState.getIdealTime(), goalState.getIdealLines());
+  }
+
+  // goal number of a block after its goal sum, working out the blocks it sums first
+  private int sum(int id, Map<Integer, Integer> goalNumbers, Set<Integer> summed,
+      Set<Integer> summing) {
+    if (!goalSums.containsKey(id) || summed.contains(id)) {
+      return goalNumbers.getOrDefault(id, 0);
+    }
+    if (!summing.add(id)) {
+      throw new ExceptionHandler("the goal sum of block " + id + " depends on itself");
+    }
+    int total = 0;
+    for (int term : goalSums.get(id)) {
+      total += sum(term, goalNumbers, summed, summing);
+    }
+    goalNumbers.put(id, total);
+    summed.add(id);
+    return total;
+  }
+}
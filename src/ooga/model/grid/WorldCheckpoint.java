@@ -0,0 +1,115 @@
+package ooga.model.grid;
+
+import java.util.List;
+import ooga.model.player.Avatar;
+import ooga.model.player.Block;
+import ooga.model.player.Player;
+
+/**
+ * Lightweight snapshot of everything commands can change on a grid: where each avatar stands,
+ * its program counter and the block it holds, and where each block is, its number and whether it
+ * is held. Structures never change during a run, so they are not copied; a checkpoint is a few
+ * ints per avatar and block however big the level is.
+ *
+ * <p>A checkpoint is restored into a fresh grid of the same level, one that was built from the
+ * LevelTemplate and has not run anything yet, so the grid keeps its own avatar and block objects
+ * (and the commands bound to it keep working) and only their state is changed.
+ */
+public class WorldCheckpoint {
+
+  private static final int NO_BLOCK = -1;
+
+  private final int[] avatarIds;
+  private final int[] avatarXs;
+  private final int[] avatarYs;
+  private final int[] programCounters;
+  private final int[] heldBlockIds;
+  private final int[] blockIds;
+  private final int[] blockXs;
+  private final int[] blockYs;
+  private final int[] blockNums;
+  private final boolean[] blocksHeld;
+
+  /**
+   * Takes a snapshot of the current state of a grid
+   *
+   * @param elementInformationBundle grid to take the snapshot of
+   */
+  public WorldCheckpoint(ElementInformationBundle elementInformationBundle) {
+    List<Player> avatars = elementInformationBundle.getAvatarList();
+    avatarIds = new int[avatars.size()];
+    avatarXs = new int[avatars.size()];
+    avatarYs = new int[avatars.size()];
+    programCounters = new int[avatars.size()];
+    heldBlockIds = new int[avatars.size()];
+    for (int i = 0; i < avatars.size(); i++) {
+      Avatar avatar = (Avatar) avatars.get(i);
+      avatarIds[i] = avatar.getId();
+      avatarXs[i] = avatar.getXCoord();
+      avatarYs[i] = avatar.getYCoord();
+      programCounters[i] = avatar.getProgramCounter();
+      heldBlockIds[i] = avatar.hasBlock() ? avatar.getHeldItem().getId() : NO_BLOCK;
+    }
+    List<Block> blocks = elementInformationBundle.getBlockList();
+    blockIds = new int[blocks.size()];
+    blockXs = new int[blocks.size()];
+    blockYs = new int[blocks.size()];
+    blockNums = new int[blocks.size()];
+    blocksHeld = new boolean[blocks.size()];
+    for (int i = 0; i < blocks.size(); i++) {
+      Block block = blocks.get(i);
+      blockIds[i] = block.getId();
+      blockXs[i] = block.getXCoord();
+      blockYs[i] = block.getYCoord();
+      blockNums[i] = block.getDisplayNum();
+      blocksHeld[i] = block.isHeld();
+    }
+  }
+
+  /**
+   * Puts a fresh grid of the same level in the state of this checkpoint. Listeners of the grid
+   * are told about every element that is changed.
+   *
+   * @param elementInformationBundle fresh grid built from the level's template
+   */
+  public void restoreInto(ElementInformationBundle elementInformationBundle) {
+    for (Player player : elementInformationBundle.getAvatarList()) {
+      elementInformationBundle.getTile(player.getXCoord(), player.getYCoord()).removeAvatar();
+    }
+    for (Block block : elementInformationBundle.getBlockList()) {
+      if (!block.isHeld()) {
+        elementInformationBundle.getTile(block.getXCoord(), block.getYCoord()).removeBlock();
+      }
+    }
+    for (int i = 0; i < blockIds.length; i++) {
+      Block block = findBlock(elementInformationBundle, blockIds[i]);
+      block.setXY(blockXs[i], blockYs[i]);
+      block.setDisplayNum(blockNums[i]);
+      if (blocksHeld[i]) {
+        block.pickUp();
+      } else {
+        block.drop();
+        elementInformationBundle.getTile(blockXs[i], blockYs[i]).add(block);
+      }
+    }
+    for (int i = 0; i < avatarIds.length; i++) {
+      Avatar avatar = (Avatar) elementInformationBundle.getAvatarById(avatarIds[i]);
+      avatar.setXY(avatarXs[i], avatarYs[i]);
+      avatar.setProgramCounter(programCounters[i]);
+      avatar.drop();
+      if (heldBlockIds[i] != NO_BLOCK) {
+        avatar.pickUp(findBlock(elementInformationBundle, heldBlockIds[i]));
+      }
+      elementInformationBundle.getTile(avatarXs[i], avatarYs[i]).add(avatar);
+    }
+  }
+
+  private static Block findBlock(ElementInformationBundle elementInformationBundle, int id) {
+    for (Block block : elementInformationBundle.getBlockList()) {
+      if (block.getId() == id) {
+        return block;
+      }
+    }
+    return null; // the grid is of the same level, so every block is there
+  }
+}
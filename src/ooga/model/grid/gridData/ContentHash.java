@@ -0,0 +1,80 @@
+package ooga.model.grid.gridData;
+
+/**
+ * Builds a 64 bit hash of a sequence of values, used to name levels and programs by their
+ * content. Every value is mixed with the SplitMix64 finalizer before it is folded in, and the fold
+ * depends on the order, so two sequences only share a hash if they are the same values in the
+ * same order (up to a negligible chance of collision). The hash only depends on the values, so it
+ * is the same from one session to the next and can be stored in files.
+ */
+public class ContentHash {
+
+  private static final long SEED = 0x6A09E667F3BCC908L;
+
+  private long hash;
+  private int length;
+
+  /**
+   * Creates the hash of an empty sequence
+   */
+  public ContentHash() {
+    hash = SEED;
+  }
+
+  /**
+   * Adds a number to the sequence
+   *
+   * @param value number to add
+   * @return this hash, so calls can be chained
+   */
+  public ContentHash add(long value) {
+    hash = Long.rotateLeft(hash ^ mix(value + length), 23) * 0x9E3779B97F4A7C15L;
+    length++;
+    return this;
+  }
+
+  /**
+   * Adds a flag to the sequence
+   *
+   * @param value flag to add
+   * @return this hash, so calls can be chained
+   */
+  public ContentHash add(boolean value) {
+    return add(value ? 1 : 0);
+  }
+
+  /**
+   * Adds a string to the sequence. Its length is added first, so "ab" then "c" and "a" then "bc"
+   * hash differently. A null string is told apart from every other string.
+   *
+   * @param value string to add, may be null
+   * @return this hash, so calls can be chained
+   */
+  public ContentHash add(String value) {
+    if (value == null) {
+      return add(-1);
+    }
+    add(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      add(value.charAt(i));
+    }
+    return this;
+  }
+
+  /**
+   * Returns the hash of everything added so far
+   *
+   * @return 64 bit hash
+   */
+  public long getValue() {
+    return mix(hash ^ length);
+  }
+
+  // SplitMix64 finalizer
+  private static long mix(long value) {
+    long z = value + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
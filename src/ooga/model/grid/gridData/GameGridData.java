@@ -11,7 +11,6 @@ import ooga.model.grid.Structure;
  */
 public class GameGridData {
 
-  private final Structure[][] structures;
   private final ElementInformationBundle elementInformationBundle;
   private final int rows;
   private final int columns;
@@ -26,25 +25,33 @@ public class GameGridData {
     this.elementInformationBundle = elementInformationBundle;
     this.rows = y;
     this.columns = x;
-    structures = new Structure[x][y];
-    setStructures();
   }
 
-  private void setStructures() {
+  /**
+   * Same array size as the grid size.
+   * Return two 2D array of structures. The array is built on each call, since structures never
+   * change after parsing and big maps should not hold a copy of every tile; use getStructure for
+   * single tiles.
+   * @return 2D structure array.
+   */
+  public Structure[][] getStructures() {
+    Structure[][] structures = new Structure[columns][rows];
     for (int i = 0; i < columns; i++) {
       for (int j = 0; j < rows; j++) {
         structures[i][j] = elementInformationBundle.getStructure(i, j);
       }
     }
+    return structures;
   }
 
   /**
-   * Same array size as the grid size.
-   * Return two 2D array of structures.
-   * @return 2D structure array.
+   * Returns the structure of one tile without copying the grid.
+   * @param x column of the tile
+   * @param y row of the tile
+   * @return structure of the tile.
    */
-  public Structure[][] getStructures() {
-    return structures;
+  public Structure getStructure(int x, int y) {
+    return elementInformationBundle.getStructure(x, y);
   }
 
   /**
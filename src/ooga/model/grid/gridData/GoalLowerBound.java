@@ -0,0 +1,183 @@
+package ooga.model.grid.gridData;
+
+import java.util.List;
+import java.util.Map;
+import ooga.model.grid.InformationBundle;
+import ooga.model.player.ElementListener;
+import ooga.model.player.Player;
+
+/**
+ * Lower bound on the number of commands a run still needs before a grid reaches a GoalState, so
+ * a run that cannot reach the goal with the apples it has left can be stopped early. Like
+ * GoalTracker it is computed once when it is created and then kept up to date through the grid's
+ * ElementListener, so reading it is a single field access.
+ *
+ * <p>A command moves at most one avatar one tile (diagonals included, so distances are the
+ * larger of the x and y differences), picks up at most one block and puts down at most one (a
+ * pick up puts the held block down in the same command), or changes the number of one block.
+ * The bound adds up what no command can do at the same time:
+ * <ul>
+ *   <li>the steps the goal avatars need to get to their goal tiles, or the tiles the blocks
+ *   have to be carried, whichever is more; when the program can throw, blocks fly any distance
+ *   in one command and only the avatars' steps count</li>
+ *   <li>the blocks that have to be picked up or the blocks that have to be put down, whichever
+ *   is more; a block has to be picked up to be moved</li>
+ *   <li>one command for every block whose number is wrong</li>
+ * </ul>
+ * Apples are spent per command whichever avatar runs it, so the bound is for all avatars
+ * together. A block without a goal can never be satisfied, so it makes the goal UNREACHABLE.
+ */
+public class GoalLowerBound implements ElementListener {
+
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private static final int NOT_TRACKED = -1;
+
+  private final InformationBundle informationBundle;
+  private final boolean canThrow;
+  private final IntIntMap avatarGoals;
+  private final int[] avatarGoalXs;
+  private final int[] avatarGoalYs;
+  private final int[] avatarSteps;
+  private final IntIntMap blockGoals;
+  private final int[] blockGoalXs;
+  private final int[] blockGoalYs;
+  private final boolean[] blockGoalHeld;
+  private final int[] blockGoalNums;
+  private final int[] blockCarrySteps;
+  private final int[] blockPickUps;
+  private final int[] blockPutDowns;
+  private final int[] blockNumberChanges;
+  private int blocksWithoutGoal;
+  private int totalAvatarSteps;
+  private int totalCarrySteps;
+  private int totalPickUps;
+  private int totalPutDowns;
+  private int totalNumberChanges;
+
+  /**
+   * Indexes the goal conditions, measures the current grid and starts listening to the grid.
+   * Blocks added to the grid afterwards are not tracked.
+   *
+   * @param goalState         goal state of the level
+   * @param informationBundle grid to measure
+   * @param canThrow          whether the program has a throw or throwOver line
+   */
+  public GoalLowerBound(GoalState goalState, InformationBundle informationBundle,
+      boolean canThrow) {
+    this.informationBundle = informationBundle;
+    this.canThrow = canThrow;
+    Map<String, List<Integer>> avatarLocations = goalState.getAllAvatarLocations();
+    avatarGoals = new IntIntMap();
+    avatarGoalXs = new int[avatarLocations.size()];
+    avatarGoalYs = new int[avatarLocations.size()];
+    avatarSteps = new int[avatarLocations.size()];
+    for (String id : avatarLocations.keySet()) {
+      int goal = avatarGoals.size();
+      avatarGoals.put(Integer.parseInt(id), goal);
+      avatarGoalXs[goal] = avatarLocations.get(id).get(0);
+      avatarGoalYs[goal] = avatarLocations.get(id).get(1);
+    }
+    for (Player avatar : informationBundle.getAvatarList()) {
+      avatarUpdated(avatar.getId(), avatar.getXCoord(), avatar.getYCoord());
+    }
+
+    List<BlockData> blocks = informationBundle.getBlockData();
+    blockGoals = new IntIntMap();
+    blockGoalXs = new int[blocks.size()];
+    blockGoalYs = new int[blocks.size()];
+    blockGoalHeld = new boolean[blocks.size()];
+    blockGoalNums = new int[blocks.size()];
+    blockCarrySteps = new int[blocks.size()];
+    blockPickUps = new int[blocks.size()];
+    blockPutDowns = new int[blocks.size()];
+    blockNumberChanges = new int[blocks.size()];
+    for (int i = 0; i < blocks.size(); i++) {
+      BlockData block = blocks.get(i);
+      BlockData goal = goalState.getAllBlockData().get("" + block.getId());
+      if (goal == null) {
+        blocksWithoutGoal++;
+        continue;
+      }
+      blockGoals.put(block.getId(), i);
+      blockGoalXs[i] = goal.getLocation().get(0);
+      blockGoalYs[i] = goal.getLocation().get(1);
+      blockGoalHeld[i] = goal.isPickedUp();
+      blockGoalNums[i] = goal.getBlockNumber();
+      blockUpdated(block.getId(), block.getLocation().get(0), block.getLocation().get(1),
+          block.isPickedUp(), block.getBlockNumber());
+    }
+    informationBundle.addElementListener(this);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void avatarUpdated(int id, int xCoord, int yCoord) {
+    int goal = avatarGoals.get(id, NOT_TRACKED);
+    if (goal != NOT_TRACKED) {
+      int steps = steps(xCoord, yCoord, avatarGoalXs[goal], avatarGoalYs[goal]);
+      totalAvatarSteps += steps - avatarSteps[goal];
+      avatarSteps[goal] = steps;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void blockUpdated(int id, int xCoord, int yCoord, boolean isHeld, int displayNum) {
+    int block = blockGoals.get(id, NOT_TRACKED);
+    if (block == NOT_TRACKED) {
+      return;
+    }
+    int carrySteps = steps(xCoord, yCoord, blockGoalXs[block], blockGoalYs[block]);
+    boolean moves = carrySteps > 0;
+    int pickUps = !isHeld && (moves || blockGoalHeld[block]) ? 1 : 0;
+    int putDowns = !blockGoalHeld[block] && (isHeld || moves) ? 1 : 0;
+    int numberChanges = displayNum != blockGoalNums[block] ? 1 : 0;
+    totalCarrySteps += carrySteps - blockCarrySteps[block];
+    totalPickUps += pickUps - blockPickUps[block];
+    totalPutDowns += putDowns - blockPutDowns[block];
+    totalNumberChanges += numberChanges - blockNumberChanges[block];
+    blockCarrySteps[block] = carrySteps;
+    blockPickUps[block] = pickUps;
+    blockPutDowns[block] = putDowns;
+    blockNumberChanges[block] = numberChanges;
+  }
+
+  private static int steps(int fromX, int fromY, int toX, int toY) {
+    return Math.max(Math.abs(fromX - toX), Math.abs(fromY - toY));
+  }
+
+  /**
+   * Returns the fewest commands that can still reach the goal
+   *
+   * @return lower bound on the commands needed, UNREACHABLE if no commands can reach the goal
+   */
+  public int getCommandsNeeded() {
+    if (blocksWithoutGoal > 0) {
+      return UNREACHABLE;
+    }
+    int moves = canThrow ? totalAvatarSteps : Math.max(totalAvatarSteps, totalCarrySteps);
+    return moves + Math.max(totalPickUps, totalPutDowns) + totalNumberChanges;
+  }
+
+  /**
+   * Checks whether the goal is out of reach
+   *
+   * @param commandsLeft most commands the run can still execute
+   * @return true if more commands than that are needed
+   */
+  public boolean cannotFinishWithin(int commandsLeft) {
+    return getCommandsNeeded() > commandsLeft;
+  }
+
+  /**
+   * Stops listening to the grid
+   */
+  public void detach() {
+    informationBundle.removeElementListener(this);
+  }
+}
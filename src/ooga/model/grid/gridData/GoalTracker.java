@@ -0,0 +1,154 @@
+package ooga.model.grid.gridData;
+
+import java.util.List;
+import java.util.Map;
+import ooga.model.grid.InformationBundle;
+import ooga.model.player.ElementListener;
+
+/**
+ * Keeps track of how many conditions of a GoalState are not met yet on a grid, so checking for a
+ * win is a single comparison instead of the full scan in GoalState.checkGameEnded. The goal
+ * conditions are indexed by avatar and block id when the tracker is created, and every change
+ * to an avatar or block on the grid (moves, pick ups, drops and number changes) updates the
+ * count through the grid's ElementListener.
+ *
+ * <p>The conditions are the same as checkGameEnded: every goal avatar must stand on its goal
+ * tile, and every block on the grid must have a goal and match its location, held state and
+ * number. A block without a goal can never be satisfied.
+ */
+public class GoalTracker implements ElementListener {
+
+  private static final int NOT_TRACKED = -1;
+
+  private final InformationBundle informationBundle;
+  private final IntIntMap avatarGoals;
+  private final int[] avatarGoalXs;
+  private final int[] avatarGoalYs;
+  private final boolean[] avatarSatisfied;
+  private final IntIntMap blockGoals;
+  private final boolean[] blockHasGoal;
+  private final int[] blockGoalXs;
+  private final int[] blockGoalYs;
+  private final boolean[] blockGoalHeld;
+  private final int[] blockGoalNums;
+  private final boolean[] blockSatisfied;
+  private int unsatisfiedConditions;
+
+  /**
+   * Indexes the goal conditions, checks them against the current grid and starts listening to
+   * the grid. Blocks added to the grid afterwards are not tracked.
+   *
+   * @param goalState         goal state of the level
+   * @param informationBundle grid to track
+   */
+  public GoalTracker(GoalState goalState, InformationBundle informationBundle) {
+    this.informationBundle = informationBundle;
+    Map<String, List<Integer>> avatarLocations = goalState.getAllAvatarLocations();
+    avatarGoals = new IntIntMap();
+    avatarGoalXs = new int[avatarLocations.size()];
+    avatarGoalYs = new int[avatarLocations.size()];
+    avatarSatisfied = new boolean[avatarLocations.size()];
+    for (String id : avatarLocations.keySet()) {
+      int goal = avatarGoals.size();
+      avatarGoals.put(Integer.parseInt(id), goal);
+      avatarGoalXs[goal] = avatarLocations.get(id).get(0);
+      avatarGoalYs[goal] = avatarLocations.get(id).get(1);
+      avatarSatisfied[goal] = informationBundle.getTileData(avatarGoalXs[goal], avatarGoalYs[goal])
+          .getAvatarId() == Integer.parseInt(id);
+      countCondition(avatarSatisfied[goal]);
+    }
+
+    List<BlockData> blocks = informationBundle.getBlockData();
+    blockGoals = new IntIntMap();
+    blockHasGoal = new boolean[blocks.size()];
+    blockGoalXs = new int[blocks.size()];
+    blockGoalYs = new int[blocks.size()];
+    blockGoalHeld = new boolean[blocks.size()];
+    blockGoalNums = new int[blocks.size()];
+    blockSatisfied = new boolean[blocks.size()];
+    for (int i = 0; i < blocks.size(); i++) {
+      BlockData block = blocks.get(i);
+      blockGoals.put(block.getId(), i);
+      BlockData goal = goalState.getAllBlockData().get("" + block.getId());
+      if (goal != null) {
+        blockHasGoal[i] = true;
+        blockGoalXs[i] = goal.getLocation().get(0);
+        blockGoalYs[i] = goal.getLocation().get(1);
+        blockGoalHeld[i] = goal.isPickedUp();
+        blockGoalNums[i] = goal.getBlockNumber();
+      }
+      blockSatisfied[i] = matchesGoal(i, block.getLocation().get(0), block.getLocation().get(1),
+          block.isPickedUp(), block.getBlockNumber());
+      countCondition(blockSatisfied[i]);
+    }
+    informationBundle.addElementListener(this);
+  }
+
+  private void countCondition(boolean satisfied) {
+    if (!satisfied) {
+      unsatisfiedConditions++;
+    }
+  }
+
+  private boolean matchesGoal(int block, int xCoord, int yCoord, boolean isHeld,
+      int displayNum) {
+    return blockHasGoal[block] && blockGoalXs[block] == xCoord && blockGoalYs[block] == yCoord
+        && blockGoalHeld[block] == isHeld && blockGoalNums[block] == displayNum;
+  }
+
+  private void updateCondition(boolean[] satisfied, int index, boolean nowSatisfied) {
+    if (satisfied[index] != nowSatisfied) {
+      satisfied[index] = nowSatisfied;
+      unsatisfiedConditions += nowSatisfied ? -1 : 1;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void avatarUpdated(int id, int xCoord, int yCoord) {
+    int goal = avatarGoals.get(id, NOT_TRACKED);
+    if (goal != NOT_TRACKED) {
+      updateCondition(avatarSatisfied, goal,
+          avatarGoalXs[goal] == xCoord && avatarGoalYs[goal] == yCoord);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void blockUpdated(int id, int xCoord, int yCoord, boolean isHeld, int displayNum) {
+    int block = blockGoals.get(id, NOT_TRACKED);
+    if (block != NOT_TRACKED) {
+      updateCondition(blockSatisfied, block,
+          matchesGoal(block, xCoord, yCoord, isHeld, displayNum));
+    }
+  }
+
+  /**
+   * Checks whether every goal condition is met
+   *
+   * @return true if the level is won
+   */
+  public boolean isGoalReached() {
+    return unsatisfiedConditions == 0;
+  }
+
+  /**
+   * Returns the number of goal conditions that are not met yet
+   *
+   * @return number of unmet conditions
+   */
+  public int getUnsatisfiedConditions() {
+    return unsatisfiedConditions;
+  }
+
+  /**
+   * Stops listening to the grid
+   */
+  public void detach() {
+    informationBundle.removeElementListener(this);
+  }
+}
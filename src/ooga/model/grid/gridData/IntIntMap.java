@@ -0,0 +1,107 @@
+package ooga.model.grid.gridData;
+
+import java.util.Arrays;
+
+/**
+ * Small open addressing map from int to int. Element ids are looked up on every change to the
+ * grid, and a HashMap of Integer would box every id above 127 on each lookup.
+ */
+public class IntIntMap {
+
+  private int[] keys;
+  private int[] values;
+  private boolean[] used;
+  private int size;
+
+  /**
+   * Creates an empty map
+   */
+  public IntIntMap() {
+    keys = new int[16];
+    values = new int[16];
+    used = new boolean[16];
+  }
+
+  /**
+   * Maps the key to the value, replacing any previous value
+   *
+   * @param key   key
+   * @param value value
+   */
+  public void put(int key, int value) {
+    if ((size + 1) * 2 > keys.length) {
+      resize();
+    }
+    int slot = findSlot(key);
+    if (!used[slot]) {
+      used[slot] = true;
+      keys[slot] = key;
+      size++;
+    }
+    values[slot] = value;
+  }
+
+  /**
+   * Returns the value of the key
+   *
+   * @param key          key
+   * @param defaultValue value returned when the key is not in the map
+   * @return value of the key, or defaultValue
+   */
+  public int get(int key, int defaultValue) {
+    int slot = findSlot(key);
+    return used[slot] ? values[slot] : defaultValue;
+  }
+
+  /**
+   * Checks whether the key is in the map
+   *
+   * @param key key
+   * @return true if the key has a value
+   */
+  public boolean containsKey(int key) {
+    return used[findSlot(key)];
+  }
+
+  /**
+   * Returns the number of keys in the map
+   *
+   * @return number of keys
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Removes every key, keeping the capacity so the map can be refilled without allocating
+   */
+  public void clear() {
+    Arrays.fill(used, false);
+    size = 0;
+  }
+
+  private int findSlot(int key) {
+    int mask = keys.length - 1;
+    int hash = key * 0x9E3779B9;
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    while (used[slot] && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void resize() {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    boolean[] oldUsed = used;
+    keys = new int[oldKeys.length * 2];
+    values = new int[oldKeys.length * 2];
+    used = new boolean[oldKeys.length * 2];
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldUsed[i]) {
+        put(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+}
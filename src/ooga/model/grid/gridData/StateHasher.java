@@ -0,0 +1,156 @@
+package ooga.model.grid.gridData;
+
+import java.util.Arrays;
+import java.util.List;
+import ooga.model.grid.InformationBundle;
+import ooga.model.player.ElementListener;
+import ooga.model.player.Player;
+
+/**
+ * Keeps a Zobrist-style 64 bit hash of everything that decides how a run continues: where each
+ * avatar stands, where each block is, whether it is held and its number, and the program counter
+ * of each avatar. The hash is the XOR of one key per element, and the key is a mix of the
+ * element's id and state, so when an element changes only its old key is XORed out and its new
+ * key XORed in. Element changes arrive through the grid's ElementListener, like for GoalTracker,
+ * so every command that changes the grid keeps the hash up to date. Program counters are not
+ * part of the grid, so the game loop reports them with setProgramCounter.
+ *
+ * <p>Two states with the same hash are taken to be the same state. With 64 bits the chance of two
+ * different states of one run colliding is negligible.
+ */
+public class StateHasher implements ElementListener {
+
+  private static final long AVATAR_KEY = 0x5851F42D4C957F2DL;
+  private static final long BLOCK_KEY = 0x14057B7EF767814FL;
+  private static final long PROGRAM_COUNTER_KEY = 0x2545F4914F6CDD1DL;
+
+  private final InformationBundle informationBundle;
+  private final IntIntMap avatarSlots;
+  private long[] avatarKeys;
+  private long[] programCounterKeys;
+  private final IntIntMap blockSlots;
+  private long[] blockKeys;
+  private long hash;
+
+  /**
+   * Hashes the current state of the grid and its avatars' program counters and starts listening
+   * to the grid
+   *
+   * @param informationBundle grid to hash
+   */
+  public StateHasher(InformationBundle informationBundle) {
+    this.informationBundle = informationBundle;
+    List<Player> avatars = informationBundle.getAvatarList();
+    avatarSlots = new IntIntMap();
+    avatarKeys = new long[avatars.size()];
+    programCounterKeys = new long[avatars.size()];
+    for (Player avatar : avatars) {
+      int slot = avatarSlots.size();
+      avatarSlots.put(avatar.getId(), slot);
+      avatarKeys[slot] = avatarKey(avatar.getId(), avatar.getXCoord(), avatar.getYCoord());
+      programCounterKeys[slot] = programCounterKey(avatar.getId(), avatar.getProgramCounter());
+      hash ^= avatarKeys[slot] ^ programCounterKeys[slot];
+    }
+    List<BlockData> blocks = informationBundle.getBlockData();
+    blockSlots = new IntIntMap();
+    blockKeys = new long[blocks.size()];
+    for (BlockData block : blocks) {
+      int slot = blockSlots.size();
+      blockSlots.put(block.getId(), slot);
+      blockKeys[slot] = blockKey(block.getId(), block.getLocation().get(0),
+          block.getLocation().get(1), block.isPickedUp(), block.getBlockNumber());
+      hash ^= blockKeys[slot];
+    }
+    informationBundle.addElementListener(this);
+  }
+
+  /**
+   * Returns the hash of the current state
+   *
+   * @return 64 bit hash
+   */
+  public long getHash() {
+    return hash;
+  }
+
+  /**
+   * Updates the hash after the program counter of an avatar changed
+   *
+   * @param id             ID of the avatar
+   * @param programCounter new program counter
+   */
+  public void setProgramCounter(int id, int programCounter) {
+    int slot = avatarSlot(id);
+    long key = programCounterKey(id, programCounter);
+    hash ^= programCounterKeys[slot] ^ key;
+    programCounterKeys[slot] = key;
+  }
+
+  /**
+   * Stops listening to the grid
+   */
+  public void detach() {
+    informationBundle.removeElementListener(this);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void avatarUpdated(int id, int xCoord, int yCoord) {
+    int slot = avatarSlot(id);
+    long key = avatarKey(id, xCoord, yCoord);
+    hash ^= avatarKeys[slot] ^ key;
+    avatarKeys[slot] = key;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void blockUpdated(int id, int xCoord, int yCoord, boolean isHeld, int displayNum) {
+    int slot = blockSlots.get(id, -1);
+    if (slot == -1) {
+      slot = blockSlots.size();
+      blockSlots.put(id, slot);
+      blockKeys = Arrays.copyOf(blockKeys, slot + 1);
+    }
+    long key = blockKey(id, xCoord, yCoord, isHeld, displayNum);
+    hash ^= blockKeys[slot] ^ key;
+    blockKeys[slot] = key;
+  }
+
+  // avatars that were not on the grid when the hasher was made start out with no keys
+  private int avatarSlot(int id) {
+    int slot = avatarSlots.get(id, -1);
+    if (slot == -1) {
+      slot = avatarSlots.size();
+      avatarSlots.put(id, slot);
+      avatarKeys = Arrays.copyOf(avatarKeys, slot + 1);
+      programCounterKeys = Arrays.copyOf(programCounterKeys, slot + 1);
+    }
+    return slot;
+  }
+
+  private static long avatarKey(int id, int xCoord, int yCoord) {
+    return mix(AVATAR_KEY ^ mix(id + ((long) xCoord << 32)) ^ mix(~(long) yCoord));
+  }
+
+  private static long programCounterKey(int id, int programCounter) {
+    return mix(PROGRAM_COUNTER_KEY ^ mix(id + ((long) programCounter << 32)));
+  }
+
+  private static long blockKey(int id, int xCoord, int yCoord, boolean isHeld, int displayNum) {
+    long position = mix(id + ((long) xCoord << 32)) ^ mix(~(long) yCoord);
+    long state = mix(((long) displayNum << 1 | (isHeld ? 1 : 0)) + BLOCK_KEY);
+    return mix(BLOCK_KEY ^ position ^ Long.rotateLeft(state, 17));
+  }
+
+  // SplitMix64 finalizer: turns each distinct element state into an unrelated 64 bit key
+  private static long mix(long value) {
+    long z = value + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,356 @@
+package ooga.model.grid.gridData;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Everything the frontend needs to redraw after one tick: the avatars and blocks that changed,
+ * the line each running avatar is on, and the score. Changes are kept in int arrays that are
+ * reused from tick to tick, and an element that changes several times in a tick is listed once
+ * with its latest values, so a tick is sent to the frontend in a single call however many
+ * avatars and fields it touched.
+ *
+ * <p>A TickDelta is reused by its producer, so consumers should read it during the call it is
+ * delivered in and not keep it.
+ */
+public class TickDelta {
+
+  public static final int POSITION_CHANGED = 1;
+  public static final int HELD_CHANGED = 2;
+  public static final int NUMBER_CHANGED = 4;
+
+  private static final int NO_SCORE = Integer.MIN_VALUE;
+
+  private final IntIntMap avatarSlots;
+  private int avatarCount;
+  private int[] avatarIds;
+  private int[] avatarXs;
+  private int[] avatarYs;
+
+  private final IntIntMap blockSlots;
+  private int blockCount;
+  private int[] blockIds;
+  private int[] blockXs;
+  private int[] blockYs;
+  private int[] blockNums;
+  private boolean[] blocksHeld;
+  private int[] blockChanges;
+
+  private boolean hasLineIndicators;
+  private int lineIndicatorCount;
+  private int[] lineAvatarIds;
+  private int[] lineNumbers;
+
+  private int score;
+
+  /**
+   * The single update methods the external APIs had before TickDelta, which both the backend and
+   * the frontend API still have
+   */
+  public interface SingleUpdates {
+
+    void updateAvatarPosition(int id, int xCoord, int yCoord);
+
+    void updateBlockPosition(int id, int xCoord, int yCoord);
+
+    void updateBlock(int id, boolean b);
+
+    void setBlockNumber(int id, int newDisplayNum);
+
+    void setLineIndicators(Map<Integer, Integer> lineUpdates);
+
+    void setScore(int score);
+  }
+
+  /**
+   * Creates an empty delta
+   */
+  public TickDelta() {
+    avatarSlots = new IntIntMap();
+    avatarIds = new int[8];
+    avatarXs = new int[8];
+    avatarYs = new int[8];
+    blockSlots = new IntIntMap();
+    blockIds = new int[8];
+    blockXs = new int[8];
+    blockYs = new int[8];
+    blockNums = new int[8];
+    blocksHeld = new boolean[8];
+    blockChanges = new int[8];
+    lineAvatarIds = new int[8];
+    lineNumbers = new int[8];
+    score = NO_SCORE;
+  }
+
+  /**
+   * Empties the delta so it can be filled for the next tick
+   */
+  public void clear() {
+    avatarSlots.clear();
+    avatarCount = 0;
+    blockSlots.clear();
+    blockCount = 0;
+    hasLineIndicators = false;
+    lineIndicatorCount = 0;
+    score = NO_SCORE;
+  }
+
+  /**
+   * Replaces the contents of this delta with a copy of another one, reusing this delta's arrays
+   *
+   * @param other delta to copy
+   */
+  public void copyFrom(TickDelta other) {
+    clear();
+    mergeFrom(other);
+  }
+
+  /**
+   * Adds the changes of a later tick to this delta, as if both ticks had been recorded into it.
+   * Elements keep their latest values, block change flags add up, and the line indicators and
+   * score of the later tick replace the earlier ones.
+   *
+   * @param other delta of a later tick
+   */
+  public void mergeFrom(TickDelta other) {
+    for (int i = 0; i < other.avatarCount; i++) {
+      setAvatarPosition(other.avatarIds[i], other.avatarXs[i], other.avatarYs[i]);
+    }
+    for (int i = 0; i < other.blockCount; i++) {
+      setBlock(other.blockIds[i], other.blockXs[i], other.blockYs[i], other.blocksHeld[i],
+          other.blockNums[i], other.blockChanges[i]);
+    }
+    if (other.hasLineIndicators) {
+      startLineIndicators();
+      for (int i = 0; i < other.lineIndicatorCount; i++) {
+        addLineIndicator(other.lineAvatarIds[i], other.lineNumbers[i]);
+      }
+    }
+    if (other.hasScore()) {
+      score = other.score;
+    }
+  }
+
+  /**
+   * Checks whether anything was recorded since the last clear
+   *
+   * @return true if there is nothing to send
+   */
+  public boolean isEmpty() {
+    return avatarCount == 0 && blockCount == 0 && !hasLineIndicators && !hasScore();
+  }
+
+  /**
+   * Records the new position of an avatar
+   *
+   * @param id     ID of the avatar
+   * @param xCoord new x coordinate
+   * @param yCoord new y coordinate
+   */
+  public void setAvatarPosition(int id, int xCoord, int yCoord) {
+    int slot = avatarSlots.get(id, -1);
+    if (slot == -1) {
+      slot = avatarCount++;
+      if (slot == avatarIds.length) {
+        avatarIds = Arrays.copyOf(avatarIds, slot * 2);
+        avatarXs = Arrays.copyOf(avatarXs, slot * 2);
+        avatarYs = Arrays.copyOf(avatarYs, slot * 2);
+      }
+      avatarSlots.put(id, slot);
+      avatarIds[slot] = id;
+    }
+    avatarXs[slot] = xCoord;
+    avatarYs[slot] = yCoord;
+  }
+
+  /**
+   * Records the new state of a block
+   *
+   * @param id         ID of the block
+   * @param xCoord     x coordinate
+   * @param yCoord     y coordinate
+   * @param isHeld     whether an avatar holds the block
+   * @param displayNum number on the block
+   * @param changes    which fields changed, a combination of the *_CHANGED flags
+   */
+  public void setBlock(int id, int xCoord, int yCoord, boolean isHeld, int displayNum,
+      int changes) {
+    int slot = blockSlots.get(id, -1);
+    if (slot == -1) {
+      slot = blockCount++;
+      if (slot == blockIds.length) {
+        blockIds = Arrays.copyOf(blockIds, slot * 2);
+        blockXs = Arrays.copyOf(blockXs, slot * 2);
+        blockYs = Arrays.copyOf(blockYs, slot * 2);
+        blockNums = Arrays.copyOf(blockNums, slot * 2);
+        blocksHeld = Arrays.copyOf(blocksHeld, slot * 2);
+        blockChanges = Arrays.copyOf(blockChanges, slot * 2);
+      }
+      blockSlots.put(id, slot);
+      blockIds[slot] = id;
+      blockChanges[slot] = 0;
+    }
+    blockXs[slot] = xCoord;
+    blockYs[slot] = yCoord;
+    blocksHeld[slot] = isHeld;
+    blockNums[slot] = displayNum;
+    blockChanges[slot] |= changes;
+  }
+
+  /**
+   * Marks that this tick carries the complete set of line indicators, even if no avatar ran a
+   * line, in which case the frontend clears them
+   */
+  public void startLineIndicators() {
+    hasLineIndicators = true;
+    lineIndicatorCount = 0;
+  }
+
+  /**
+   * Records the line an avatar runs this tick
+   *
+   * @param avatarId   ID of the avatar
+   * @param lineNumber line number, starting at 1
+   */
+  public void addLineIndicator(int avatarId, int lineNumber) {
+    hasLineIndicators = true;
+    if (lineIndicatorCount == lineAvatarIds.length) {
+      lineAvatarIds = Arrays.copyOf(lineAvatarIds, lineIndicatorCount * 2);
+      lineNumbers = Arrays.copyOf(lineNumbers, lineIndicatorCount * 2);
+    }
+    lineAvatarIds[lineIndicatorCount] = avatarId;
+    lineNumbers[lineIndicatorCount] = lineNumber;
+    lineIndicatorCount++;
+  }
+
+  /**
+   * Records the score shown after the tick
+   *
+   * @param score number of apples left
+   */
+  public void setScore(int score) {
+    this.score = score;
+  }
+
+  public int getAvatarCount() {
+    return avatarCount;
+  }
+
+  public int getAvatarId(int index) {
+    return avatarIds[index];
+  }
+
+  public int getAvatarX(int index) {
+    return avatarXs[index];
+  }
+
+  public int getAvatarY(int index) {
+    return avatarYs[index];
+  }
+
+  public int getBlockCount() {
+    return blockCount;
+  }
+
+  public int getBlockId(int index) {
+    return blockIds[index];
+  }
+
+  public int getBlockX(int index) {
+    return blockXs[index];
+  }
+
+  public int getBlockY(int index) {
+    return blockYs[index];
+  }
+
+  public boolean isBlockHeld(int index) {
+    return blocksHeld[index];
+  }
+
+  public int getBlockNum(int index) {
+    return blockNums[index];
+  }
+
+  /**
+   * Returns which fields of a block changed
+   *
+   * @param index index of the block in this delta
+   * @return combination of the *_CHANGED flags
+   */
+  public int getBlockChanges(int index) {
+    return blockChanges[index];
+  }
+
+  public boolean hasLineIndicators() {
+    return hasLineIndicators;
+  }
+
+  public int getLineIndicatorCount() {
+    return lineIndicatorCount;
+  }
+
+  public int getLineIndicatorAvatarId(int index) {
+    return lineAvatarIds[index];
+  }
+
+  public int getLineIndicatorLine(int index) {
+    return lineNumbers[index];
+  }
+
+  /**
+   * Returns the line indicators as the map setLineIndicators takes, for consumers that still use
+   * it
+   *
+   * @return map from avatar id to line number
+   */
+  public Map<Integer, Integer> getLineIndicators() {
+    Map<Integer, Integer> lineIndicators = new HashMap<>();
+    for (int i = 0; i < lineIndicatorCount; i++) {
+      lineIndicators.put(lineAvatarIds[i], lineNumbers[i]);
+    }
+    return lineIndicators;
+  }
+
+  public boolean hasScore() {
+    return score != NO_SCORE;
+  }
+
+  public int getScore() {
+    return score;
+  }
+
+  /**
+   * Passes every change of a tick on to the matching single update method, for the API
+   * implementations that cannot take the whole tick at once
+   *
+   * @param tickDelta changes of the tick
+   * @param updates   API to make the single updates on
+   */
+  public static void applyAsSingleUpdates(TickDelta tickDelta, SingleUpdates updates) {
+    for (int i = 0; i < tickDelta.getAvatarCount(); i++) {
+      updates.updateAvatarPosition(tickDelta.getAvatarId(i), tickDelta.getAvatarX(i),
+          tickDelta.getAvatarY(i));
+    }
+    for (int i = 0; i < tickDelta.getBlockCount(); i++) {
+      int changes = tickDelta.getBlockChanges(i);
+      if ((changes & POSITION_CHANGED) != 0) {
+        updates.updateBlockPosition(tickDelta.getBlockId(i), tickDelta.getBlockX(i),
+            tickDelta.getBlockY(i));
+      }
+      if ((changes & HELD_CHANGED) != 0) {
+        updates.updateBlock(tickDelta.getBlockId(i), tickDelta.isBlockHeld(i));
+      }
+      if ((changes & NUMBER_CHANGED) != 0) {
+        updates.setBlockNumber(tickDelta.getBlockId(i), tickDelta.getBlockNum(i));
+      }
+    }
+    if (tickDelta.hasLineIndicators()) {
+      updates.setLineIndicators(tickDelta.getLineIndicators());
+    }
+    if (tickDelta.hasScore()) {
+      updates.setScore(tickDelta.getScore());
+    }
+  }
+}
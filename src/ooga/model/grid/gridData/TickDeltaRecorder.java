@@ -0,0 +1,113 @@
+package ooga.model.grid.gridData;
+
+import java.util.Arrays;
+import java.util.List;
+import ooga.model.grid.InformationBundle;
+import ooga.model.player.ElementListener;
+
+/**
+ * Fills a TickDelta from the changes made to a grid. It listens to the grid like GoalTracker, so
+ * every change is recorded whichever command makes it, and it remembers the last state of every
+ * block so that only the fields that actually changed are marked for the frontend.
+ */
+public class TickDeltaRecorder implements ElementListener {
+
+  private final InformationBundle informationBundle;
+  private final TickDelta tickDelta;
+  private final IntIntMap blockSlots;
+  private int[] blockXs;
+  private int[] blockYs;
+  private int[] blockNums;
+  private boolean[] blocksHeld;
+
+  /**
+   * Starts recording the changes made to the grid into the delta
+   *
+   * @param informationBundle grid to record
+   * @param tickDelta         delta to record into
+   */
+  public TickDeltaRecorder(InformationBundle informationBundle, TickDelta tickDelta) {
+    this.informationBundle = informationBundle;
+    this.tickDelta = tickDelta;
+    blockSlots = new IntIntMap();
+    List<BlockData> blocks = informationBundle.getBlockData();
+    blockXs = new int[blocks.size()];
+    blockYs = new int[blocks.size()];
+    blockNums = new int[blocks.size()];
+    blocksHeld = new boolean[blocks.size()];
+    for (int i = 0; i < blocks.size(); i++) {
+      BlockData block = blocks.get(i);
+      blockSlots.put(block.getId(), i);
+      blockXs[i] = block.getLocation().get(0);
+      blockYs[i] = block.getLocation().get(1);
+      blockNums[i] = block.getBlockNumber();
+      blocksHeld[i] = block.isPickedUp();
+    }
+    informationBundle.addElementListener(this);
+  }
+
+  /**
+   * Returns the delta the changes are recorded into
+   *
+   * @return tick delta
+   */
+  public TickDelta getTickDelta() {
+    return tickDelta;
+  }
+
+  /**
+   * Stops recording
+   */
+  public void detach() {
+    informationBundle.removeElementListener(this);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void avatarUpdated(int id, int xCoord, int yCoord) {
+    tickDelta.setAvatarPosition(id, xCoord, yCoord);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void blockUpdated(int id, int xCoord, int yCoord, boolean isHeld, int displayNum) {
+    int slot = blockSlots.get(id, -1);
+    if (slot == -1) {
+      slot = addBlock(id);
+      tickDelta.setBlock(id, xCoord, yCoord, isHeld, displayNum,
+          TickDelta.POSITION_CHANGED | TickDelta.HELD_CHANGED | TickDelta.NUMBER_CHANGED);
+    } else {
+      int changes = 0;
+      if (blockXs[slot] != xCoord || blockYs[slot] != yCoord) {
+        changes |= TickDelta.POSITION_CHANGED;
+      }
+      if (blocksHeld[slot] != isHeld) {
+        changes |= TickDelta.HELD_CHANGED;
+      }
+      if (blockNums[slot] != displayNum) {
+        changes |= TickDelta.NUMBER_CHANGED;
+      }
+      if (changes != 0) {
+        tickDelta.setBlock(id, xCoord, yCoord, isHeld, displayNum, changes);
+      }
+    }
+    blockXs[slot] = xCoord;
+    blockYs[slot] = yCoord;
+    blocksHeld[slot] = isHeld;
+    blockNums[slot] = displayNum;
+  }
+
+  private int addBlock(int id) {
+    int slot = blockSlots.size();
+    blockXs = Arrays.copyOf(blockXs, slot + 1);
+    blockYs = Arrays.copyOf(blockYs, slot + 1);
+    blockNums = Arrays.copyOf(blockNums, slot + 1);
+    blocksHeld = Arrays.copyOf(blocksHeld, slot + 1);
+    blockSlots.put(id, slot);
+    return slot;
+  }
+}
@@ -20,6 +20,10 @@ public class TileData {
     }
   }
 
+  public TileData(Structure structure) {
+    this.structure = structure;
+  }
+
   public Structure getStructure() {
     return structure;
   }
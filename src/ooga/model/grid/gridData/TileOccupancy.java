@@ -0,0 +1,131 @@
+package ooga.model.grid.gridData;
+
+/**
+ * The avatar and the block on every tile of a PackedWorld, stored in 64x64 chunks that are only
+ * allocated once an avatar or a block is placed in them, so a run's memory grows with the part of
+ * the map its avatars and blocks get to rather than with the whole map. Like the long a tile used
+ * to be, a cell keeps the avatar and the block next to each other, and reading a tile is a chunk
+ * lookup and an array read with no hashing or probing; a chunk that was never allocated reads as
+ * NONE. Chunks on the right and bottom edges are cut to the map, so a small level is a single
+ * chunk the size of the level.
+ */
+public class TileOccupancy {
+
+  public static final int NONE = -1;
+
+  private static final int CHUNK_SHIFT = 6;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  // a cell is avatar + 1 then block + 1, so 0 is an empty tile
+  private static final int BLOCK = 1;
+
+  private final int width;
+  private final int height;
+  private final int chunksX;
+  private final int[][] chunks;
+
+  /**
+   * Creates a map with nothing on it
+   *
+   * @param width  number of columns
+   * @param height number of rows
+   */
+  public TileOccupancy(int width, int height) {
+    this.width = width;
+    this.height = height;
+    chunksX = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+    chunks = new int[chunksX * ((height + CHUNK_MASK) >> CHUNK_SHIFT)][];
+  }
+
+  /**
+   * Returns the avatar on a tile
+   *
+   * @param x x coordinate on the map
+   * @param y y coordinate on the map
+   * @return avatar index, or NONE
+   */
+  public int getAvatar(int x, int y) {
+    return get(x, y, 0);
+  }
+
+  /**
+   * Returns the block on a tile
+   *
+   * @param x x coordinate on the map
+   * @param y y coordinate on the map
+   * @return block index, or NONE
+   */
+  public int getBlock(int x, int y) {
+    return get(x, y, BLOCK);
+  }
+
+  /**
+   * Places an avatar on a tile, or clears it
+   *
+   * @param x      x coordinate on the map
+   * @param y      y coordinate on the map
+   * @param avatar avatar index, or NONE
+   */
+  public void setAvatar(int x, int y, int avatar) {
+    set(x, y, 0, avatar);
+  }
+
+  /**
+   * Places a block on a tile, or clears it
+   *
+   * @param x     x coordinate on the map
+   * @param y     y coordinate on the map
+   * @param block block index, or NONE
+   */
+  public void setBlock(int x, int y, int block) {
+    set(x, y, BLOCK, block);
+  }
+
+  /**
+   * Returns the number of chunks allocated so far
+   *
+   * @return number of chunks with storage
+   */
+  public int getChunkCount() {
+    int count = 0;
+    for (int[] chunk : chunks) {
+      if (chunk != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private int get(int x, int y, int field) {
+    int[] chunk = chunks[chunkIndex(x, y)];
+    return chunk == null ? NONE : chunk[cellIndex(x, y) + field] - 1;
+  }
+
+  private void set(int x, int y, int field, int element) {
+    int chunkIndex = chunkIndex(x, y);
+    int[] chunk = chunks[chunkIndex];
+    if (chunk == null) {
+      if (element == NONE) {
+        return;
+      }
+      int chunkX = x & ~CHUNK_MASK;
+      int chunkY = y & ~CHUNK_MASK;
+      chunk = new int[2 * chunkWidth(chunkX) * Math.min(CHUNK_SIZE, height - chunkY)];
+      chunks[chunkIndex] = chunk;
+    }
+    chunk[cellIndex(x, y) + field] = element + 1;
+  }
+
+  private int chunkIndex(int x, int y) {
+    return (y >> CHUNK_SHIFT) * chunksX + (x >> CHUNK_SHIFT);
+  }
+
+  // rows of a chunk are as wide as the chunk, which is narrower on the right edge
+  private int cellIndex(int x, int y) {
+    return 2 * ((y & CHUNK_MASK) * chunkWidth(x & ~CHUNK_MASK) + (x & CHUNK_MASK));
+  }
+
+  private int chunkWidth(int chunkX) {
+    return Math.min(CHUNK_SIZE, width - chunkX);
+  }
+}
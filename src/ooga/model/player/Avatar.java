@@ -12,6 +12,7 @@ public class Avatar extends Player {
   private Block heldItem;
   private int xCoord;
   private int yCoord;
+  private ElementListener elementListener;
 
   /**
    * Default constructor
@@ -63,6 +64,9 @@ public class Avatar extends Player {
   public void setXY(int xCoord, int yCoord) {
     this.xCoord = xCoord;
     this.yCoord = yCoord;
+    if (elementListener != null) {
+      elementListener.avatarUpdated(id, xCoord, yCoord);
+    }
   }
 
   /**
@@ -104,4 +108,13 @@ public class Avatar extends Player {
   public Block getHeldItem() {
     return heldItem;
   }
-}
\ No newline at end of file
+
+  /**
+   * Sets the listener that is told about every move of the avatar.
+   *
+   * @param elementListener The listener, or null for none
+   */
+  public void setElementListener(ElementListener elementListener) {
+    this.elementListener = elementListener;
+  }
+}
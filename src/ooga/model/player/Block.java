@@ -9,6 +9,7 @@ package ooga.model.player;
 public abstract class Block implements Element {
 
   private boolean isHeld;
+  private ElementListener elementListener;
 
   /**
    * Default constructor of Block. Initialized to be not held.
@@ -36,6 +37,7 @@ public abstract class Block implements Element {
    */
   public void drop() {
     isHeld = false;
+    notifyElementListener();
   }
 
   /**
@@ -43,6 +45,7 @@ public abstract class Block implements Element {
    */
   public void pickUp() {
     isHeld = true;
+    notifyElementListener();
   }
 
   /**
@@ -54,4 +57,23 @@ public abstract class Block implements Element {
     return isHeld;
   }
 
+  /**
+   * Sets the listener that is told about every change of the block.
+   *
+   * @param elementListener The listener, or null for none
+   */
+  public void setElementListener(ElementListener elementListener) {
+    this.elementListener = elementListener;
+  }
+
+  /**
+   * Tells the listener about the current state of the block. To be called by the extending
+   * classes whenever their position or number changes.
+   */
+  protected void notifyElementListener() {
+    if (elementListener != null) {
+      elementListener.blockUpdated(getId(), getXCoord(), getYCoord(), isHeld, getDisplayNum());
+    }
+  }
+
 }
\ No newline at end of file
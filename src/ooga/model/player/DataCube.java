@@ -68,6 +68,7 @@ public class DataCube extends Block {
   public void setXY(int xCoord, int yCoord) {
     this.xCoord = xCoord;
     this.yCoord = yCoord;
+    notifyElementListener();
   }
 
   /**
@@ -88,6 +89,7 @@ public class DataCube extends Block {
   @Override
   public void setDisplayNum(int displayNum) {
     this.displayNum = displayNum;
+    notifyElementListener();
   }
 
 
@@ -0,0 +1,29 @@
+package ooga.model.player;
+
+/**
+ * Listens to changes of the elements on the grid. Every change is reported with the full new
+ * state of the element as primitives, so listeners can keep their own indexes up to date without
+ * looking anything up or allocating.
+ */
+public interface ElementListener {
+
+  /**
+   * Called after an avatar has moved
+   *
+   * @param id     ID of the avatar
+   * @param xCoord new x-coordinate of the avatar
+   * @param yCoord new y-coordinate of the avatar
+   */
+  void avatarUpdated(int id, int xCoord, int yCoord);
+
+  /**
+   * Called after a block has moved, been picked up or dropped, or had its number changed
+   *
+   * @param id         ID of the block
+   * @param xCoord     x-coordinate of the block
+   * @param yCoord     y-coordinate of the block
+   * @param isHeld     whether the block is held by an avatar
+   * @param displayNum number on the block
+   */
+  void blockUpdated(int id, int xCoord, int yCoord, boolean isHeld, int displayNum);
+}
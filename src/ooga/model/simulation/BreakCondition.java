@@ -0,0 +1,137 @@
+package ooga.model.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.player.Avatar;
+import ooga.model.player.Player;
+
+/**
+ * A conditional breakpoint: a comparison that is checked after every tick, such as
+ * "tick >= 500" or "avatar 2 holds a cube > 10". The left side is one of
+ * <ul>
+ *   <li>tick: number of ticks that have run</li>
+ *   <li>avatar N holds: number on the block avatar N holds (never met if it holds nothing);
+ *   "holds a cube" reads the same</li>
+ *   <li>avatar N line: line avatar N runs next</li>
+ *   <li>avatar N x, avatar N y: coordinates of avatar N</li>
+ * </ul>
+ * and the comparison is one of =, !=, &lt;, &lt;=, &gt;, &gt;= (&le;, &ge; and &ne; work too) against a
+ * whole number.
+ */
+public class BreakCondition {
+
+  private static final Pattern CONDITION = Pattern.compile(
+      "(tick|avatar\\s+(\\d+)\\s+(holds(?:\\s+an?\\s+\\w+)?|line|x|y))\\s*(==|=|!=|<=|>=|<|>)"
+          + "\\s*(-?\\d+)");
+  private static final String SEPARATOR = ";";
+
+  private static final int TICK = 0;
+  private static final int HELD_NUMBER = 1;
+  private static final int LINE = 2;
+  private static final int X = 3;
+  private static final int Y = 4;
+
+  private final String text;
+  private final int subject;
+  private final int avatarId;
+  private final String comparator;
+  private final int value;
+
+  private BreakCondition(String text, int subject, int avatarId, String comparator, int value) {
+    this.text = text;
+    this.subject = subject;
+    this.avatarId = avatarId;
+    this.comparator = comparator;
+    this.value = value;
+  }
+
+  /**
+   * Reads a condition
+   *
+   * @param text condition such as "avatar 2 holds > 10"
+   * @return the condition
+   * @throws ExceptionHandler if the text is not a condition
+   */
+  public static BreakCondition parse(String text) {
+    String normalized = text.trim().toLowerCase().replace("\u2265", ">=")
+        .replace("\u2264", "<=").replace("\u2260", "!=");
+    Matcher matcher = CONDITION.matcher(normalized);
+    if (!matcher.matches()) {
+      throw new ExceptionHandler("bad breakpoint condition: " + text);
+    }
+    int subject = TICK;
+    int avatarId = 0;
+    if (matcher.group(2) != null) {
+      avatarId = Integer.parseInt(matcher.group(2));
+      String field = matcher.group(3);
+      subject = field.startsWith("holds") ? HELD_NUMBER
+          : field.equals("line") ? LINE : field.equals("x") ? X : Y;
+    }
+    String comparator = matcher.group(4).equals("==") ? "=" : matcher.group(4);
+    return new BreakCondition(text.trim(), subject, avatarId, comparator,
+        Integer.parseInt(matcher.group(5)));
+  }
+
+  /**
+   * Reads a list of conditions separated by semicolons. Blank entries are skipped.
+   *
+   * @param text conditions such as "tick >= 500; avatar 1 line = 3"
+   * @return the conditions, empty if there are none
+   * @throws ExceptionHandler if one of the entries is not a condition
+   */
+  public static List<BreakCondition> parseAll(String text) {
+    List<BreakCondition> conditions = new ArrayList<>();
+    if (text != null) {
+      for (String condition : text.split(SEPARATOR)) {
+        if (!condition.isBlank()) {
+          conditions.add(parse(condition));
+        }
+      }
+    }
+    return conditions;
+  }
+
+  /**
+   * Checks the condition against the state after a tick
+   *
+   * @param tick                     number of ticks that have run
+   * @param elementInformationBundle grid of the run
+   * @return true if the run should stop
+   */
+  public boolean isMet(int tick, ElementInformationBundle elementInformationBundle) {
+    if (subject == TICK) {
+      return compare(tick);
+    }
+    Player player = elementInformationBundle.getAvatarById(avatarId);
+    if (player == null) {
+      return false;
+    }
+    return switch (subject) {
+      case HELD_NUMBER -> player instanceof Avatar avatar && avatar.hasBlock()
+          && compare(avatar.getHeldItem().getDisplayNum());
+      case LINE -> compare(player.getProgramCounter());
+      case X -> compare(player.getXCoord());
+      default -> compare(player.getYCoord());
+    };
+  }
+
+  private boolean compare(int actual) {
+    return switch (comparator) {
+      case "=" -> actual == value;
+      case "!=" -> actual != value;
+      case "<" -> actual < value;
+      case "<=" -> actual <= value;
+      case ">" -> actual > value;
+      default -> actual >= value;
+    };
+  }
+
+  @Override
+  public String toString() {
+    return text;
+  }
+}
@@ -0,0 +1,81 @@
+package ooga.model.simulation;
+
+import java.util.Collection;
+import java.util.List;
+import ooga.model.grid.ElementInformationBundle;
+
+/**
+ * The breakpoints of a run: lines of the program and conditions on the state of the grid. A run
+ * stops after a tick in which an avatar ran a line with a breakpoint or after which one of the
+ * conditions is met. The lines are kept as a lookup table so the executor can check every line it
+ * dispatches without slowing down. Breakpoints are never changed once made; new ones replace them.
+ */
+public class Breakpoints {
+
+  private final boolean[] lines;
+  private final BreakCondition[] conditions;
+
+  /**
+   * Creates the breakpoints of a run
+   *
+   * @param lines      line numbers with a breakpoint, starting at 1
+   * @param conditions conditions that stop the run when they are met
+   */
+  public Breakpoints(Collection<Integer> lines, List<BreakCondition> conditions) {
+    int lastLine = 0;
+    for (int line : lines) {
+      lastLine = Math.max(lastLine, line);
+    }
+    this.lines = new boolean[lastLine + 1];
+    for (int line : lines) {
+      if (line > 0) {
+        this.lines[line] = true;
+      }
+    }
+    this.conditions = conditions.toArray(new BreakCondition[0]);
+  }
+
+  /**
+   * Checks whether there is nothing to stop at
+   *
+   * @return true if there are no line breakpoints and no conditions
+   */
+  public boolean isEmpty() {
+    for (boolean line : lines) {
+      if (line) {
+        return false;
+      }
+    }
+    return conditions.length == 0;
+  }
+
+  /**
+   * Checks whether a line has a breakpoint
+   *
+   * @param line line number, starting at 1
+   * @return true if the run should stop after the tick the line runs in
+   */
+  public boolean isLine(int line) {
+    return line > 0 && line < lines.length && lines[line];
+  }
+
+  public boolean hasConditions() {
+    return conditions.length > 0;
+  }
+
+  /**
+   * Checks the conditions against the state after a tick
+   *
+   * @param tick                     number of ticks that have run
+   * @param elementInformationBundle grid of the run
+   * @return true if any condition is met
+   */
+  public boolean isConditionMet(int tick, ElementInformationBundle elementInformationBundle) {
+    for (BreakCondition condition : conditions) {
+      if (condition.isMet(tick, elementInformationBundle)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,48 @@
+package ooga.model.simulation;
+
+import java.util.List;
+import ooga.model.compiler.BytecodeCompiler;
+import ooga.model.compiler.PackedInterpreter;
+import ooga.model.compiler.ProgramCompiler;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.PackedWorld;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * PackedSimulator that runs hot programs through classes generated by a BytecodeCompiler, for
+ * headless evaluation that runs the same programs many times. Results are the same as the
+ * PackedSimulator's. The BytecodeCompiler can be shared by the simulators of several threads so
+ * a program only gets one class.
+ */
+public class BytecodeSimulator extends PackedSimulator {
+
+  private final ProgramCompiler programCompiler;
+  private final BytecodeCompiler bytecodeCompiler;
+
+  /**
+   * Creates a simulator with its own compilers
+   */
+  public BytecodeSimulator() {
+    this(new BytecodeCompiler());
+  }
+
+  /**
+   * Creates a simulator that shares a bytecode compiler
+   *
+   * @param bytecodeCompiler compiler that generates and caches the program classes
+   */
+  public BytecodeSimulator(BytecodeCompiler bytecodeCompiler) {
+    programCompiler = new ProgramCompiler();
+    this.bytecodeCompiler = bytecodeCompiler;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SimulationResult run(LevelTemplate level, List<CommandBlock> program) {
+    PackedWorld world = level.createPackedWorld();
+    PackedInterpreter interpreter = bytecodeCompiler.load(programCompiler.compile(program), world);
+    return simulate(world, level.getGoalState(), interpreter, program.size());
+  }
+}
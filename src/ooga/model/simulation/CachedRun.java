@@ -0,0 +1,63 @@
+package ooga.model.simulation;
+
+/**
+ * What a ResultCache knows about a finished run of a program on a level: how it ended, the apples
+ * that were left, how many ticks it took and, if it was small enough to keep, the trace needed to
+ * show the run again without executing it.
+ */
+public class CachedRun {
+
+  private final Outcome outcome;
+  private final int applesLeft;
+  private final int ticks;
+  private final RunTrace trace;
+
+  /**
+   * Creates the record of a finished run
+   *
+   * @param outcome    how the run ended
+   * @param applesLeft apples left at the end of the run
+   * @param ticks      number of ticks the run took
+   * @param trace      trace of the run, or null if it is not kept
+   */
+  public CachedRun(Outcome outcome, int applesLeft, int ticks, RunTrace trace) {
+    this.outcome = outcome;
+    this.applesLeft = applesLeft;
+    this.ticks = ticks;
+    this.trace = trace;
+  }
+
+  /**
+   * Returns a copy of this record without the trace
+   *
+   * @return record with the same outcome, apples and ticks
+   */
+  public CachedRun withoutTrace() {
+    return new CachedRun(outcome, applesLeft, ticks, null);
+  }
+
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  public int getApplesLeft() {
+    return applesLeft;
+  }
+
+  public int getTicks() {
+    return ticks;
+  }
+
+  public boolean hasTrace() {
+    return trace != null;
+  }
+
+  /**
+   * Returns the trace of the run
+   *
+   * @return trace, or null if it was not kept
+   */
+  public RunTrace getTrace() {
+    return trace;
+  }
+}
@@ -0,0 +1,111 @@
+package ooga.model.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import ooga.model.commands.AvailableCommands;
+import ooga.model.commands.CommandRegistry;
+
+/**
+ * The lines a program search may use on a level: every command the level allows with every
+ * combination of its parameter options. Ifs are kept apart since they have to be closed by an end
+ * if, and jumps are not listed since their destination depends on where they are placed.
+ */
+class CommandAlphabet {
+
+  private static final Set<String> FLOW_COMMANDS = Set.of("if", "endif", "jump", "tell");
+
+  private final List<ProgramLine> lines;
+  private final List<ProgramLine> ifLines;
+  private final List<ProgramLine> straightLines;
+  private final boolean canJump;
+
+  /**
+   * Lists the lines of a level
+   *
+   * @param availableCommands commands the player can use on the level
+   */
+  CommandAlphabet(AvailableCommands availableCommands) {
+    lines = new ArrayList<>();
+    ifLines = new ArrayList<>();
+    straightLines = new ArrayList<>();
+    boolean jumpAvailable = false;
+    for (String command : availableCommands.getCommandNames()) {
+      String name = CommandRegistry.getName(command);
+      if (name.equals("jump")) {
+        jumpAvailable = true;
+        continue;
+      }
+      for (Map<String, String> parameters : combinations(availableCommands, command)) {
+        ProgramLine line = new ProgramLine(command, parameters);
+        if (name.equals("if")) {
+          ifLines.add(line);
+        } else {
+          lines.add(line);
+          if (!FLOW_COMMANDS.contains(name)) {
+            straightLines.add(line);
+          }
+        }
+      }
+    }
+    canJump = jumpAvailable;
+  }
+
+  // every way of choosing one option for each parameter of a command
+  private List<Map<String, String>> combinations(AvailableCommands availableCommands,
+      String command) {
+    List<Map<String, String>> combinations = new ArrayList<>();
+    combinations.add(new LinkedHashMap<>());
+    for (String parameter : availableCommands.getParameters(command)) {
+      List<Map<String, String>> extended = new ArrayList<>();
+      for (Map<String, String> combination : combinations) {
+        for (String option : availableCommands.getParameterOptions(command, parameter)) {
+          Map<String, String> parameters = new LinkedHashMap<>(combination);
+          parameters.put(parameter, option);
+          extended.add(parameters);
+        }
+      }
+      combinations = extended;
+    }
+    return combinations;
+  }
+
+  /**
+   * Returns the lines other than ifs, end ifs and jumps
+   *
+   * @return lines in no particular order
+   */
+  List<ProgramLine> getLines() {
+    return Collections.unmodifiableList(lines);
+  }
+
+  /**
+   * Returns every if the level allows
+   *
+   * @return if lines
+   */
+  List<ProgramLine> getIfLines() {
+    return Collections.unmodifiableList(ifLines);
+  }
+
+  /**
+   * Returns the lines that act on the grid, which are all a straight-line program needs
+   *
+   * @return lines without any control flow
+   */
+  List<ProgramLine> getStraightLines() {
+    return Collections.unmodifiableList(straightLines);
+  }
+
+  /**
+   * Checks whether the level allows jumps
+   *
+   * @return true if jump is one of the level's commands
+   */
+  boolean canJump() {
+    return canJump;
+  }
+}
@@ -0,0 +1,32 @@
+package ooga.model.simulation;
+
+import java.util.List;
+import ooga.model.compiler.Interpreter;
+import ooga.model.compiler.ProgramCompiler;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Simulator that compiles the program into an opcode stream and runs it on the Interpreter
+ * instead of the Commands objects. Ticks, win and lose checks are the same as HeadlessSimulator,
+ * which remains the reference to compare against.
+ */
+public class CompiledSimulator extends HeadlessSimulator {
+
+  private final ProgramCompiler programCompiler;
+
+  /**
+   * Creates a simulator with its own program compiler
+   */
+  public CompiledSimulator() {
+    programCompiler = new ProgramCompiler();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected ProgramRunner load(List<CommandBlock> program, ElementInformationBundle world) {
+    return new Interpreter(programCompiler.compile(program), world);
+  }
+}
@@ -0,0 +1,90 @@
+package ooga.model.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the state hash of every tick of a run, so a run that comes back to a state it was
+ * already in can be stopped: the game is deterministic, so from then on it repeats the same
+ * ticks forever and can never reach the goal. Hashes are kept in an open addressing table of
+ * longs together with the tick they were first seen at, which gives the length of the cycle.
+ */
+public class CycleDetector {
+
+  private static final long EMPTY = 0;
+
+  private long[] hashes;
+  private int[] ticks;
+  private int size;
+  private boolean hasZero;
+  private int zeroTick;
+
+  /**
+   * Creates a detector that has not seen any state
+   */
+  public CycleDetector() {
+    hashes = new long[64];
+    ticks = new int[64];
+  }
+
+  /**
+   * Records the state of the world after a tick
+   *
+   * @param hash hash of the state
+   * @param tick number of the tick the state was reached after
+   * @return number of ticks since the state was last seen, or 0 if it is new
+   */
+  public int visit(long hash, int tick) {
+    if (hash == EMPTY) {
+      if (hasZero) {
+        return tick - zeroTick;
+      }
+      hasZero = true;
+      zeroTick = tick;
+      return 0;
+    }
+    int slot = findSlot(hashes, hash);
+    if (hashes[slot] == hash) {
+      return tick - ticks[slot];
+    }
+    if ((size + 1) * 2 > hashes.length) {
+      resize();
+      slot = findSlot(hashes, hash);
+    }
+    hashes[slot] = hash;
+    ticks[slot] = tick;
+    size++;
+    return 0;
+  }
+
+  /**
+   * Forgets every state, keeping the capacity
+   */
+  public void clear() {
+    Arrays.fill(hashes, EMPTY);
+    size = 0;
+    hasZero = false;
+  }
+
+  private static int findSlot(long[] table, long hash) {
+    int mask = table.length - 1;
+    int slot = (int) (hash ^ (hash >>> 32)) & mask;
+    while (table[slot] != EMPTY && table[slot] != hash) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void resize() {
+    long[] oldHashes = hashes;
+    int[] oldTicks = ticks;
+    hashes = new long[oldHashes.length * 2];
+    ticks = new int[oldHashes.length * 2];
+    for (int i = 0; i < oldHashes.length; i++) {
+      if (oldHashes[i] != EMPTY) {
+        int slot = findSlot(hashes, oldHashes[i]);
+        hashes[slot] = oldHashes[i];
+        ticks[slot] = oldTicks[i];
+      }
+    }
+  }
+}
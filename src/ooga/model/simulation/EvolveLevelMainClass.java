@@ -0,0 +1,73 @@
+package ooga.model.simulation;
+
+import java.util.concurrent.ForkJoinPool;
+import ooga.controller.ModelController;
+import ooga.model.database.parser.InitialConfigurationParser;
+
+/**
+ * Command line tool that runs the ProgramEvolver on one single player level from
+ * data/gameProperties and prints the best program found and the number of programs run per
+ * second as the generations go by. Run it from the project root.
+ *
+ * <p>Usage: EvolveLevelMainClass [--population N] [--generations N] [--lines N] [--threads N]
+ * [--seed N] level. The defaults are a population of 500 bred for 200 generations, programs of
+ * at most 15 lines, one thread per core and seed 0. The search stops early once the best program
+ * wins and has not improved for a tenth of the generations.
+ */
+public class EvolveLevelMainClass {
+
+  private static final int REPORT_EVERY = 10;
+
+  public static void main(String[] args) {
+    int population = 500;
+    int generations = 200;
+    int maxLines = 15;
+    int threads = Runtime.getRuntime().availableProcessors();
+    long seed = 0;
+    int level = 1;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--population" -> population = Integer.parseInt(args[++i]);
+        case "--generations" -> generations = Integer.parseInt(args[++i]);
+        case "--lines" -> maxLines = Integer.parseInt(args[++i]);
+        case "--threads" -> threads = Integer.parseInt(args[++i]);
+        case "--seed" -> seed = Long.parseLong(args[++i]);
+        default -> level = Integer.parseInt(args[i]);
+      }
+    }
+    InitialConfigurationParser parser = new InitialConfigurationParser(level, null,
+        ModelController.SINGLE_PLAYER);
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      ProgramEvolver programEvolver = new ProgramEvolver(parser.getLevelTemplate(),
+          parser.getAvailableCommands(), pool, population, maxLines, seed);
+      int patience = Math.max(generations / 10, 1);
+      int lastImprovement = 0;
+      String best = "";
+      while (programEvolver.getGeneration() < generations
+          && (!programEvolver.isBestWinning()
+          || programEvolver.getGeneration() - lastImprovement < patience)) {
+        programEvolver.evolve(1, null);
+        String program = Solution.describe(programEvolver.getBestProgram());
+        if (!program.equals(best)) {
+          best = program;
+          lastImprovement = programEvolver.getGeneration();
+          print(programEvolver);
+        } else if (programEvolver.getGeneration() % REPORT_EVERY == 0) {
+          print(programEvolver);
+        }
+      }
+      System.out.println("best: " + best);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static void print(ProgramEvolver programEvolver) {
+    System.out.printf("generation %d: %s, %d lines, %.0f programs/s%n",
+        programEvolver.getGeneration(), programEvolver.isBestWinning()
+            ? "wins with " + programEvolver.getBestCommandsExecuted() + " commands"
+            : "distance " + programEvolver.getBestDistance(),
+        programEvolver.getBestProgram().size(), programEvolver.getEvaluationsPerSecond());
+  }
+}
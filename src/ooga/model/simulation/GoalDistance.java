@@ -0,0 +1,89 @@
+package ooga.model.simulation;
+
+import java.util.List;
+import java.util.Map;
+import ooga.model.grid.InformationBundle;
+import ooga.model.grid.gridData.BlockData;
+import ooga.model.grid.gridData.GoalState;
+import ooga.model.player.Player;
+
+/**
+ * Measures how far a world is from a level's goal state, for searches that need to tell apart
+ * programs that did not win. Distances are counted in steps, and avatars step diagonally, so the
+ * distance between two tiles is the larger of the x and y differences. The distance is the sum of
+ * <ul>
+ *   <li>for every avatar with a goal, its distance to its goal tile</li>
+ *   <li>for every block with a goal, its distance to its goal tile, 1 if it is held when it should
+ *   not be or the other way around, and the difference to its goal number (at most
+ *   MAX_NUMBER_DISTANCE)</li>
+ *   <li>for every block that still has to be picked up, the distance from the closest avatar to
+ *   it</li>
+ * </ul>
+ * A world that reaches the goal has distance 0. Blocks without a goal are left out.
+ */
+public class GoalDistance {
+
+  private static final int MAX_NUMBER_DISTANCE = 10;
+
+  private final GoalState goalState;
+
+  /**
+   * Creates a measure for the goal of a level
+   *
+   * @param goalState goal state of the level
+   */
+  public GoalDistance(GoalState goalState) {
+    this.goalState = goalState;
+  }
+
+  /**
+   * Measures a world
+   *
+   * @param world world to measure, such as the final world of a run
+   * @return distance to the goal state, 0 if it is reached
+   */
+  public int measure(InformationBundle world) {
+    List<Player> avatars = world.getAvatarList();
+    int distance = 0;
+    Map<String, List<Integer>> avatarGoals = goalState.getAllAvatarLocations();
+    for (Player avatar : avatars) {
+      List<Integer> goal = avatarGoals.get(Integer.toString(avatar.getId()));
+      if (goal != null) {
+        distance += steps(avatar.getXCoord(), avatar.getYCoord(), goal.get(0), goal.get(1));
+      }
+    }
+    for (BlockData block : world.getBlockData()) {
+      BlockData goal = goalState.getAllBlockData().get(Integer.toString(block.getId()));
+      if (goal == null) {
+        continue;
+      }
+      int x = block.getLocation().get(0);
+      int y = block.getLocation().get(1);
+      int toGoal = steps(x, y, goal.getLocation().get(0), goal.getLocation().get(1));
+      distance += toGoal;
+      if (block.isPickedUp() != goal.isPickedUp()) {
+        distance++;
+      }
+      distance += Math.min(Math.abs(block.getBlockNumber() - goal.getBlockNumber()),
+          MAX_NUMBER_DISTANCE);
+      if (!block.isPickedUp() && (toGoal > 0 || goal.isPickedUp())) {
+        distance += closestAvatar(avatars, x, y);
+      }
+    }
+    return distance;
+  }
+
+  private int closestAvatar(List<Player> avatars, int x, int y) {
+    int closest = 0;
+    for (int i = 0; i < avatars.size(); i++) {
+      Player avatar = avatars.get(i);
+      int steps = steps(avatar.getXCoord(), avatar.getYCoord(), x, y);
+      closest = i == 0 ? steps : Math.min(closest, steps);
+    }
+    return closest;
+  }
+
+  private static int steps(int fromX, int fromY, int toX, int toY) {
+    return Math.max(Math.abs(fromX - toX), Math.abs(fromY - toY));
+  }
+}
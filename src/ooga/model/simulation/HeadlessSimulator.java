@@ -0,0 +1,298 @@
+package ooga.model.simulation;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import ooga.model.CommandProgram;
+import ooga.model.commands.CommandRegistry;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.InformationBundle;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.gridData.GoalLowerBound;
+import ooga.model.grid.gridData.GoalState;
+import ooga.model.grid.gridData.GoalTracker;
+import ooga.model.grid.gridData.StateHasher;
+import ooga.model.player.Player;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Runs a program in a tight loop, by default on the same Commands classes as CommandExecutor.
+ * Every tick gives each avatar one command, in the same order and with the same win and lose
+ * checks as the game, but nothing is reported to the frontend and no time limit applies.
+ *
+ * <p>By default the state of the world and the program counters is hashed after every tick, and
+ * a run that comes back to a state it was already in ends right away with LOOPS_FOREVER instead
+ * of using up the rest of its apples. A run whose GoalLowerBound shows the goal needs more
+ * commands than the apples left allow ends with CANNOT_FINISH as soon as that is the case.
+ */
+public class HeadlessSimulator implements Simulator {
+
+  private boolean detectCycles = true;
+  private boolean stopUnreachable = true;
+
+  /**
+   * Turns the detection of runs that loop forever on or off. Without it such runs go on until
+   * they end with OUT_OF_APPLES, like in the game before.
+   *
+   * @param detectCycles true to end runs that repeat a state with LOOPS_FOREVER
+   */
+  public void setDetectCycles(boolean detectCycles) {
+    this.detectCycles = detectCycles;
+  }
+
+  /**
+   * Checks whether runs that repeat a state are ended with LOOPS_FOREVER
+   *
+   * @return true if cycles are detected
+   */
+  public boolean detectsCycles() {
+    return detectCycles;
+  }
+
+  /**
+   * Turns the early end of runs that cannot reach the goal with the apples they have left on or
+   * off. Without it such runs go on until they end with OUT_OF_APPLES.
+   *
+   * @param stopUnreachable true to end runs that cannot finish with CANNOT_FINISH
+   */
+  public void setStopUnreachable(boolean stopUnreachable) {
+    this.stopUnreachable = stopUnreachable;
+  }
+
+  /**
+   * Checks whether runs that cannot reach the goal are ended with CANNOT_FINISH
+   *
+   * @return true if such runs are stopped early
+   */
+  public boolean stopsUnreachable() {
+    return stopUnreachable;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SimulationResult run(InitialConfigurationParser level, List<CommandBlock> program) {
+    return run(level.getGameGrid(), level.getGoalState(), program);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SimulationResult run(LevelTemplate level, List<CommandBlock> program) {
+    return run(level.createGameGrid(), level.getGoalState(), program);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SimulationResult run(ElementInformationBundle world, GoalState goalState,
+      List<CommandBlock> program) {
+    world.setModelController(null);
+    return simulate(world, goalState, load(program, world), program.size());
+  }
+
+  /**
+   * Runs a loaded program until the level is won, lost or the apples run out. This is the game
+   * loop shared by all simulators, whatever world representation they run on.
+   *
+   * @param world         starting world of the run, modified by the run
+   * @param goalState     goal state of the level
+   * @param programRunner program loaded onto the world
+   * @param programLines  number of lines in the program, for the score
+   * @return result of the run
+   */
+  protected SimulationResult simulate(InformationBundle world, GoalState goalState,
+      ProgramRunner programRunner, int programLines) {
+    GoalTracker goalTracker = new GoalTracker(goalState, world);
+    StateHasher stateHasher = detectCycles ? new StateHasher(world) : null;
+    GoalLowerBound goalLowerBound = stopUnreachable
+        ? new GoalLowerBound(goalState, world, programRunner.canThrow()) : null;
+    try {
+      Tally tally = new Tally(goalState.getNumOfCommands(), goalTracker, stateHasher,
+          goalLowerBound);
+      return simulate(world, goalState, tally, programRunner, programLines);
+    } finally {
+      goalTracker.detach();
+      if (stateHasher != null) {
+        stateHasher.detach();
+      }
+      if (goalLowerBound != null) {
+        goalLowerBound.detach();
+      }
+    }
+  }
+
+  private SimulationResult simulate(InformationBundle world, GoalState goalState, Tally tally,
+      ProgramRunner programRunner, int programLines) {
+    Player[] avatars = world.getAvatarList().toArray(new Player[0]);
+    GoalTracker goalTracker = tally.goalTracker;
+    StateHasher stateHasher = tally.stateHasher;
+    if (stateHasher != null) {
+      tally.cycleDetector.visit(stateHasher.getHash(), tally.ticks);
+    }
+    while (true) {
+      tally.avatar = findOnlyRunningAvatar(avatars, programRunner.size());
+      if (tally.avatar != null) {
+        programRunner.executeFused(tally.avatar, tally);
+        if (goalTracker.isGoalReached()) {
+          return makeResult(Outcome.WON, world, goalState, tally, programLines);
+        }
+        if (tally.isOutOfApples()) {
+          return makeResult(Outcome.OUT_OF_APPLES, world, goalState, tally, programLines);
+        }
+        if (tally.cannotFinish()) {
+          return makeResult(Outcome.CANNOT_FINISH, world, goalState, tally, programLines);
+        }
+        if (tally.cycleLength > 0) {
+          return makeLoopsForever(world, goalState, tally, programLines);
+        }
+        continue;
+      }
+      boolean executedCommand = false;
+      for (Player avatar : avatars) {
+        if (avatar.getProgramCounter() < programRunner.size() + 1) {
+          if (!executedCommand) {
+            executedCommand = true;
+            tally.ticks++;
+          }
+          programRunner.execute(avatar);
+          tally.commandsExecuted++;
+          if (stateHasher != null) {
+            stateHasher.setProgramCounter(avatar.getId(), avatar.getProgramCounter());
+          }
+        }
+        if (goalTracker.isGoalReached()) {
+          return makeResult(Outcome.WON, world, goalState, tally, programLines);
+        }
+        if (tally.isOutOfApples()) {
+          return makeResult(Outcome.OUT_OF_APPLES, world, goalState, tally, programLines);
+        }
+        if (tally.cannotFinish()) {
+          return makeResult(Outcome.CANNOT_FINISH, world, goalState, tally, programLines);
+        }
+      }
+      if (!executedCommand) {
+        return makeResult(Outcome.LOST, world, goalState, tally, programLines);
+      }
+      if (stateHasher != null) {
+        tally.cycleLength = tally.cycleDetector.visit(stateHasher.getHash(), tally.ticks);
+        if (tally.cycleLength > 0) {
+          return makeLoopsForever(world, goalState, tally, programLines);
+        }
+      }
+    }
+  }
+
+  // while only one avatar has commands left every tick is one of its commands, so its
+  // superinstructions can be run in one go
+  private Player findOnlyRunningAvatar(Player[] avatars, int programSize) {
+    Player running = null;
+    for (Player avatar : avatars) {
+      if (avatar.getProgramCounter() < programSize + 1) {
+        if (running != null) {
+          return null;
+        }
+        running = avatar;
+      }
+    }
+    return running;
+  }
+
+  /**
+   * Loads the program onto the world. Subclasses override this to execute the program some other
+   * way; the default builds the same Commands objects that CommandExecutor uses.
+   *
+   * @param program list of command blocks to load
+   * @param world   world the program is executed on
+   * @return program ready to be executed
+   */
+  protected ProgramRunner load(List<CommandBlock> program, ElementInformationBundle world) {
+    CommandProgram commandProgram = new CommandProgram(program, world);
+    return new ProgramRunner() {
+      @Override
+      public int size() {
+        return commandProgram.size();
+      }
+
+      @Override
+      public boolean canThrow() {
+        return CommandRegistry.uses(program, "throw", "throwover");
+      }
+
+      @Override
+      public void execute(Player avatar) {
+        commandProgram.getCommand(avatar.getProgramCounter()).execute(avatar.getId());
+      }
+    };
+  }
+
+  private SimulationResult makeResult(Outcome outcome, InformationBundle world,
+      GoalState goalState, Tally tally, int programLines) {
+    return new SimulationResult(outcome, world, tally.ticks, tally.commandsExecuted,
+        goalState.getNumOfCommands(), goalState.getIdealLines(), programLines);
+  }
+
+  private SimulationResult makeLoopsForever(InformationBundle world, GoalState goalState,
+      Tally tally, int programLines) {
+    return new SimulationResult(Outcome.LOOPS_FOREVER, world, tally.ticks,
+        tally.commandsExecuted, goalState.getNumOfCommands(), goalState.getIdealLines(),
+        programLines, tally.cycleLength);
+  }
+
+  /**
+   * Counters of a run. It is also the bookkeeping after each command of a superinstruction,
+   * which is the same as after a tick in which only that avatar executed a command: it stops the
+   * superinstruction when the goal is reached, the apples run out, the goal is out of reach or
+   * a state repeats.
+   */
+  private static class Tally implements BooleanSupplier {
+
+    private final int numOfCommands;
+    private final GoalTracker goalTracker;
+    private final StateHasher stateHasher;
+    private final GoalLowerBound goalLowerBound;
+    private final CycleDetector cycleDetector;
+    private Player avatar;
+    private int ticks;
+    private int commandsExecuted;
+    private int cycleLength;
+
+    private Tally(int numOfCommands, GoalTracker goalTracker, StateHasher stateHasher,
+        GoalLowerBound goalLowerBound) {
+      this.numOfCommands = numOfCommands;
+      this.goalTracker = goalTracker;
+      this.stateHasher = stateHasher;
+      this.goalLowerBound = goalLowerBound;
+      cycleDetector = new CycleDetector();
+    }
+
+    private boolean isOutOfApples() {
+      return numOfCommands - commandsExecuted < 0;
+    }
+
+    // the goal is checked before the apples, so one command more than the apples left can win
+    private boolean cannotFinish() {
+      return goalLowerBound != null
+          && goalLowerBound.cannotFinishWithin(numOfCommands - commandsExecuted + 1);
+    }
+
+    @Override
+    public boolean getAsBoolean() {
+      ticks++;
+      commandsExecuted++;
+      if (stateHasher != null) {
+        stateHasher.setProgramCounter(avatar.getId(), avatar.getProgramCounter());
+      }
+      if (goalTracker.isGoalReached() || isOutOfApples() || cannotFinish()) {
+        return true;
+      }
+      if (stateHasher != null) {
+        cycleLength = cycleDetector.visit(stateHasher.getHash(), ticks);
+      }
+      return cycleLength > 0;
+    }
+  }
+}
@@ -0,0 +1,300 @@
+package ooga.model.simulation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import ooga.model.commands.AvailableCommands;
+import ooga.model.compiler.ProgramAnalysis;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.InformationBundle;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.gridData.StateHasher;
+import ooga.model.player.Player;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Searches the programs a level allows for the ones that reach its goal, to check the ideal
+ * number of lines and commands level authors put in the level files. Every candidate is run with
+ * the PackedSimulator, so the answer is what the game would do with the program. Two searches
+ * are made:
+ * <ul>
+ *   <li>Fewest lines: iterative deepening on the number of lines. All programs of one length are
+ *   run before any longer one, so the first length with a winning program is the shortest. Lines
+ *   are the level's commands with every combination of their parameter options, backward jumps
+ *   (the only ones the code area offers) and if/end if blocks. Programs with a line no avatar can
+ *   reach are skipped, since removing the line gives a shorter program that does the same, and so
+ *   are programs the ProgramAnalysis shows cannot move anything before the apples run out.</li>
+ *   <li>Fewest commands: breadth first search over straight-line programs, one line per level of
+ *   the search, where every avatar runs the same line each tick. The world after a program is
+ *   hashed with a StateHasher and kept in a transposition table, so a program that ends in a world
+ *   a shorter or equal program already reached is not extended. The first depth with a win holds
+ *   the straight-line program with the fewest commands; a program from the first search that
+ *   executes fewer commands (avatars can take different branches of an if) is taken instead.</li>
+ * </ul>
+ * Both searches run their candidates as tasks on a fork join pool, one task per first line in
+ * the first search and per group of programs in the second, each with its own simulator.
+ */
+public class LevelSolver {
+
+  private static final int MAX_SHORTEST_PROGRAMS = 16;
+  private static final int PROGRAMS_PER_TASK = 32;
+
+  private final LevelTemplate level;
+  private final ForkJoinPool pool;
+  private final Collection<Integer> avatarIds;
+  private final int avatarCount;
+  private final CommandAlphabet commandAlphabet;
+  private final LongAdder programsTried;
+
+  /**
+   * Creates a solver that runs on the common fork join pool
+   *
+   * @param level             template of the level to solve
+   * @param availableCommands commands the player can use on the level
+   */
+  public LevelSolver(LevelTemplate level, AvailableCommands availableCommands) {
+    this(level, availableCommands, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a solver that runs on the given pool
+   *
+   * @param level             template of the level to solve
+   * @param availableCommands commands the player can use on the level
+   * @param pool              pool to run the candidate programs on
+   */
+  public LevelSolver(LevelTemplate level, AvailableCommands availableCommands,
+      ForkJoinPool pool) {
+    this.level = level;
+    this.pool = pool;
+    avatarIds = level.createGameGrid().getAvatarIds();
+    avatarCount = avatarIds.size();
+    commandAlphabet = new CommandAlphabet(availableCommands);
+    programsTried = new LongAdder();
+  }
+
+  /**
+   * Searches for the shortest programs and the program with the fewest commands
+   *
+   * @param maxLines  longest program the first search tries
+   * @param maxStates most worlds the second search keeps in its transposition table
+   * @return what was found
+   */
+  public Solution solve(int maxLines, int maxStates) {
+    List<Run> shortest = findShortestPrograms(maxLines);
+    Run fewest = findFewestCommands(maxStates);
+    for (Run run : shortest) {
+      if (fewest == null || run.commandsExecuted < fewest.commandsExecuted) {
+        fewest = run;
+      }
+    }
+    List<List<CommandBlock>> shortestPrograms = new ArrayList<>();
+    shortest.forEach(run -> shortestPrograms.add(ProgramLine.toProgram(run.program)));
+    return new Solution(shortestPrograms,
+        fewest == null ? null : ProgramLine.toProgram(fewest.program),
+        fewest == null ? Solution.NOT_FOUND : fewest.commandsExecuted, programsTried.sum());
+  }
+
+  /**
+   * Returns how many programs this solver has run so far
+   *
+   * @return number of programs run
+   */
+  public long getProgramsTried() {
+    return programsTried.sum();
+  }
+
+  private List<Run> findShortestPrograms(int maxLines) {
+    List<Run> found = new ArrayList<>();
+    for (int length = 1; length <= maxLines && found.isEmpty(); length++) {
+      int programLength = length;
+      List<Callable<List<Run>>> tasks = new ArrayList<>();
+      for (ProgramLine first : firstLines(programLength)) {
+        tasks.add(() -> {
+          List<Run> wins = new ArrayList<>();
+          ProgramLine[] program = new ProgramLine[programLength];
+          program[0] = first;
+          extend(program, 1, first.isIf() ? 1 : 0, new PackedSimulator(), wins);
+          return wins;
+        });
+      }
+      for (List<Run> wins : runAll(tasks)) {
+        for (Run run : wins) {
+          if (found.size() < MAX_SHORTEST_PROGRAMS) {
+            found.add(run);
+          }
+        }
+      }
+    }
+    return found;
+  }
+
+  private List<ProgramLine> firstLines(int length) {
+    List<ProgramLine> firstLines = new ArrayList<>(commandAlphabet.getLines());
+    if (length >= 3) {
+      firstLines.addAll(commandAlphabet.getIfLines());
+    }
+    return firstLines;
+  }
+
+  // fills the program from the given line on with every line that keeps its if/end if blocks
+  // closable, and runs it once it is full
+  private void extend(ProgramLine[] program, int index, int openIfs, Simulator simulator,
+      List<Run> wins) {
+    if (index == program.length) {
+      if (openIfs == 0) {
+        evaluate(program, simulator, wins);
+      }
+      return;
+    }
+    int remaining = program.length - index;
+    ProgramLine previous = program[index - 1];
+    if (openIfs + 1 <= remaining) {
+      for (ProgramLine line : commandAlphabet.getLines()) {
+        program[index] = line;
+        extend(program, index + 1, openIfs, simulator, wins);
+      }
+    }
+    if (openIfs + 3 <= remaining) {
+      for (ProgramLine line : commandAlphabet.getIfLines()) {
+        program[index] = line;
+        extend(program, index + 1, openIfs + 1, simulator, wins);
+      }
+    }
+    if (openIfs > 0 && !previous.isIf()) {
+      program[index] = ProgramLine.END_IF;
+      extend(program, index + 1, openIfs - 1, simulator, wins);
+    }
+    if (commandAlphabet.canJump() && openIfs + 1 <= remaining && !previous.isJump()) {
+      for (int destination = 1; destination <= index; destination++) {
+        program[index] = ProgramLine.jump(destination);
+        extend(program, index + 1, openIfs, simulator, wins);
+      }
+    }
+  }
+
+  private void evaluate(ProgramLine[] program, Simulator simulator, List<Run> wins) {
+    List<CommandBlock> commandBlocks = ProgramLine.toProgram(program);
+    ProgramAnalysis programAnalysis = new ProgramAnalysis(commandBlocks, avatarIds);
+    if (!programAnalysis.getUnreachableLines().isEmpty() || programAnalysis
+        .cannotChangeGridWithin(level.getGoalState().getNumOfCommands())) {
+      return;
+    }
+    SimulationResult result = run(simulator, commandBlocks);
+    if (result != null && result.isWon()) {
+      wins.add(new Run(program.clone(), result.getCommandsExecuted()));
+    }
+  }
+
+  private Run findFewestCommands(int maxStates) {
+    Set<Long> seen = ConcurrentHashMap.newKeySet();
+    seen.add(worldHash(level.createPackedWorld()));
+    List<ProgramLine[]> frontier = new ArrayList<>();
+    frontier.add(new ProgramLine[0]);
+    int maxDepth = avatarCount == 0 ? 0
+        : level.getGoalState().getNumOfCommands() / avatarCount + 1;
+    for (int depth = 1; depth <= maxDepth && !frontier.isEmpty() && seen.size() <= maxStates;
+        depth++) {
+      List<Callable<List<Run>>> tasks = new ArrayList<>();
+      for (int from = 0; from < frontier.size(); from += PROGRAMS_PER_TASK) {
+        List<ProgramLine[]> group = frontier.subList(from,
+            Math.min(from + PROGRAMS_PER_TASK, frontier.size()));
+        tasks.add(() -> expand(group, seen));
+      }
+      List<ProgramLine[]> next = new ArrayList<>();
+      Run best = null;
+      for (List<Run> runs : runAll(tasks)) {
+        for (Run run : runs) {
+          if (run.commandsExecuted == Solution.NOT_FOUND) {
+            next.add(run.program);
+          } else if (best == null || run.commandsExecuted < best.commandsExecuted) {
+            best = run;
+          }
+        }
+      }
+      if (best != null) {
+        return best;
+      }
+      frontier = next;
+    }
+    return null;
+  }
+
+  // runs every straight-line program one line longer than the given ones; wins are returned with
+  // their number of commands, and programs that end in a world nobody reached yet with NOT_FOUND
+  private List<Run> expand(List<ProgramLine[]> group, Set<Long> seen) {
+    Simulator simulator = new PackedSimulator();
+    List<Run> runs = new ArrayList<>();
+    for (ProgramLine[] prefix : group) {
+      for (ProgramLine line : commandAlphabet.getStraightLines()) {
+        ProgramLine[] program = new ProgramLine[prefix.length + 1];
+        System.arraycopy(prefix, 0, program, 0, prefix.length);
+        program[prefix.length] = line;
+        SimulationResult result = run(simulator, ProgramLine.toProgram(program));
+        if (result == null || result.getOutcome() == Outcome.OUT_OF_APPLES
+            || result.getOutcome() == Outcome.CANNOT_FINISH) {
+          continue;
+        }
+        if (result.isWon()) {
+          runs.add(new Run(program, result.getCommandsExecuted()));
+        } else if (seen.add(worldHash(result.getFinalWorld()))) {
+          runs.add(new Run(program, Solution.NOT_FOUND));
+        }
+      }
+    }
+    return runs;
+  }
+
+  // hash of the grid only: program counters are set to the same value for every world
+  private long worldHash(InformationBundle world) {
+    StateHasher stateHasher = new StateHasher(world);
+    for (Player avatar : world.getAvatarList()) {
+      stateHasher.setProgramCounter(avatar.getId(), 0);
+    }
+    stateHasher.detach();
+    return stateHasher.getHash();
+  }
+
+  // a program whose line fails is not a solution
+  private SimulationResult run(Simulator simulator, List<CommandBlock> program) {
+    programsTried.increment();
+    try {
+      return simulator.run(level, program);
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  private <T> List<T> runAll(List<Callable<T>> tasks) {
+    List<T> results = new ArrayList<>();
+    for (Future<T> future : pool.invokeAll(tasks)) {
+      try {
+        results.add(future.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ExceptionHandler("the search was interrupted");
+      } catch (ExecutionException e) {
+        throw new ExceptionHandler("the search failed: " + e.getCause().getMessage());
+      }
+    }
+    return results;
+  }
+
+  private static class Run {
+
+    private final ProgramLine[] program;
+    private final int commandsExecuted;
+
+    private Run(ProgramLine[] program, int commandsExecuted) {
+      this.program = program;
+      this.commandsExecuted = commandsExecuted;
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package ooga.model.simulation;
+
+/**
+ * The ways a headless run of a program can end.
+ */
+public enum Outcome {
+  /**
+   * The goal state was reached
+   */
+  WON,
+  /**
+   * Every avatar ran past the last line of the program without reaching the goal state
+   */
+  LOST,
+  /**
+   * More commands were executed than the level has apples for
+   */
+  OUT_OF_APPLES,
+  /**
+   * The run came back to a state it had already been in, so it would repeat the same ticks until
+   * the apples run out
+   */
+  LOOPS_FOREVER,
+  /**
+   * The goal state needs more commands than the apples left allow, according to the
+   * GoalLowerBound, so the run could not have been won
+   */
+  CANNOT_FINISH
+}
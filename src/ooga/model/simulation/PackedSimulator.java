@@ -0,0 +1,49 @@
+package ooga.model.simulation;
+
+import java.util.List;
+import ooga.model.compiler.PackedInterpreter;
+import ooga.model.compiler.ProgramCompiler;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.PackedWorld;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Simulator that runs compiled programs on a PackedWorld built from the level template, so the
+ * hot loop works on flat arrays instead of Tile, Avatar and Block objects. Runs on an existing
+ * ElementInformationBundle fall back to CompiledSimulator, since that world is what the caller
+ * gets back as the final world.
+ */
+public class PackedSimulator extends CompiledSimulator {
+
+  private final ProgramCompiler programCompiler;
+
+  /**
+   * Creates a simulator with its own program compiler
+   */
+  public PackedSimulator() {
+    programCompiler = new ProgramCompiler();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SimulationResult run(InitialConfigurationParser level, List<CommandBlock> program) {
+    return run(level.getLevelTemplate(), program);
+  }
+
+  /**
+   * Runs the program on a new PackedWorld; the result's final world is that PackedWorld
+   *
+   * @param level   template of the level to run the program on
+   * @param program list of command blocks to run
+   * @return result of the run
+   */
+  @Override
+  public SimulationResult run(LevelTemplate level, List<CommandBlock> program) {
+    PackedWorld world = level.createPackedWorld();
+    PackedInterpreter interpreter = new PackedInterpreter(programCompiler.compile(program), world);
+    return simulate(world, level.getGoalState(), interpreter, program.size());
+  }
+}
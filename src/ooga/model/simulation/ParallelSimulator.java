@@ -0,0 +1,222 @@
+package ooga.model.simulation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import ooga.model.commands.CommandRegistry;
+import ooga.model.compiler.ProgramCompiler;
+import ooga.model.compiler.TwoPhaseInterpreter;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.PackedWorld;
+import ooga.model.grid.gridData.GoalLowerBound;
+import ooga.model.grid.gridData.GoalState;
+import ooga.model.grid.gridData.GoalTracker;
+import ooga.model.grid.gridData.StateHasher;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Simulator for levels with many avatars. Every tick runs in two phases on a PackedWorld: all
+ * avatars that still have a line to run plan it in parallel against the board as it was at the
+ * start of the tick, then the plans are committed one by one in ascending avatar id, where a move
+ * or throw into a tile taken earlier in the same tick does nothing (see TwoPhaseInterpreter).
+ * The result only depends on the level and the program, never on the order of the avatar list
+ * or on how many threads were used.
+ *
+ * <p>Because every avatar acts on the pre-tick board, programs where avatars interact within a
+ * tick can end differently than in the game, which runs the avatars one after another. The win
+ * and lose checks are made once per tick instead of after each avatar.
+ */
+public class ParallelSimulator extends PackedSimulator {
+
+  private static final int AVATARS_PER_TASK = 64;
+
+  private final ForkJoinPool pool;
+  private final ProgramCompiler programCompiler;
+
+  /**
+   * Creates a simulator that plans on the common fork join pool
+   */
+  public ParallelSimulator() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a simulator that plans on its own pool with the given number of threads
+   *
+   * @param parallelism number of threads to plan avatars on
+   */
+  public ParallelSimulator(int parallelism) {
+    this(new ForkJoinPool(parallelism));
+  }
+
+  /**
+   * Creates a simulator that plans on the given pool
+   *
+   * @param pool pool to plan avatars on
+   */
+  public ParallelSimulator(ForkJoinPool pool) {
+    this.pool = pool;
+    programCompiler = new ProgramCompiler();
+  }
+
+  /**
+   * Returns the number of threads avatars are planned on
+   *
+   * @return parallelism of the pool
+   */
+  public int getParallelism() {
+    return pool.getParallelism();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SimulationResult run(InitialConfigurationParser level, List<CommandBlock> program) {
+    return run(level.getLevelTemplate(), program);
+  }
+
+  /**
+   * Runs the program on a new PackedWorld with two phase ticks; the result's final world is that
+   * PackedWorld
+   *
+   * @param level   template of the level to run the program on
+   * @param program list of command blocks to run
+   * @return result of the run
+   */
+  @Override
+  public SimulationResult run(LevelTemplate level, List<CommandBlock> program) {
+    PackedWorld world = level.createPackedWorld();
+    TwoPhaseInterpreter interpreter = new TwoPhaseInterpreter(programCompiler.compile(program),
+        world);
+    GoalTracker goalTracker = new GoalTracker(level.getGoalState(), world);
+    StateHasher stateHasher = detectsCycles() ? new StateHasher(world) : null;
+    GoalLowerBound goalLowerBound = stopsUnreachable() ? new GoalLowerBound(level.getGoalState(),
+        world, CommandRegistry.uses(program, "throw", "throwover")) : null;
+    try {
+      return simulate(world, level.getGoalState(), goalTracker, stateHasher, goalLowerBound,
+          interpreter, program.size());
+    } finally {
+      goalTracker.detach();
+      if (stateHasher != null) {
+        stateHasher.detach();
+      }
+      if (goalLowerBound != null) {
+        goalLowerBound.detach();
+      }
+    }
+  }
+
+  private SimulationResult simulate(PackedWorld world, GoalState goalState,
+      GoalTracker goalTracker, StateHasher stateHasher, GoalLowerBound goalLowerBound,
+      TwoPhaseInterpreter interpreter, int programLines) {
+    int[] commitOrder = sortById(world);
+    int[] active = new int[commitOrder.length];
+    CycleDetector cycleDetector = new CycleDetector();
+    int numOfCommands = goalState.getNumOfCommands();
+    int commandsExecuted = 0;
+    int ticks = 0;
+    if (stateHasher != null) {
+      cycleDetector.visit(stateHasher.getHash(), ticks);
+    }
+    while (true) {
+      int activeCount = 0;
+      for (int avatar : commitOrder) {
+        if (world.getProgramCounter(avatar) < interpreter.size() + 1) {
+          active[activeCount++] = avatar;
+        }
+      }
+      if (activeCount == 0) {
+        return new SimulationResult(Outcome.LOST, world, ticks, commandsExecuted, numOfCommands,
+            goalState.getIdealLines(), programLines);
+      }
+      ticks++;
+      plan(interpreter, active, activeCount);
+      for (int i = 0; i < activeCount; i++) {
+        interpreter.commit(active[i]);
+        if (stateHasher != null) {
+          stateHasher.setProgramCounter(world.getAvatarId(active[i]),
+              world.getProgramCounter(active[i]));
+        }
+      }
+      commandsExecuted += activeCount;
+      Outcome outcome = null;
+      if (goalTracker.isGoalReached()) {
+        outcome = Outcome.WON;
+      } else if (numOfCommands - commandsExecuted < 0) {
+        outcome = Outcome.OUT_OF_APPLES;
+      } else if (goalLowerBound != null && goalLowerBound
+          .cannotFinishWithin(numOfCommands - commandsExecuted + commitOrder.length)) {
+        // every avatar can still run its command in the tick that goes over the apples
+        outcome = Outcome.CANNOT_FINISH;
+      }
+      if (outcome != null) {
+        return new SimulationResult(outcome, world, ticks, commandsExecuted, numOfCommands,
+            goalState.getIdealLines(), programLines);
+      }
+      if (stateHasher != null) {
+        int cycleLength = cycleDetector.visit(stateHasher.getHash(), ticks);
+        if (cycleLength > 0) {
+          return new SimulationResult(Outcome.LOOPS_FOREVER, world, ticks, commandsExecuted,
+              numOfCommands, goalState.getIdealLines(), programLines, cycleLength);
+        }
+      }
+    }
+  }
+
+  private int[] sortById(PackedWorld world) {
+    long[] keyed = new long[world.getAvatarCount()];
+    for (int avatar = 0; avatar < keyed.length; avatar++) {
+      keyed[avatar] = (long) world.getAvatarId(avatar) << 32 | avatar;
+    }
+    Arrays.sort(keyed);
+    int[] order = new int[keyed.length];
+    for (int i = 0; i < keyed.length; i++) {
+      order[i] = (int) keyed[i];
+    }
+    return order;
+  }
+
+  // small ticks are cheaper to plan on the calling thread than to hand to the pool
+  private void plan(TwoPhaseInterpreter interpreter, int[] avatars, int count) {
+    if (count <= AVATARS_PER_TASK) {
+      for (int i = 0; i < count; i++) {
+        interpreter.plan(avatars[i]);
+      }
+    } else {
+      pool.invoke(new PlanTask(interpreter, avatars, 0, count));
+    }
+  }
+
+  private static class PlanTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final TwoPhaseInterpreter interpreter;
+    private final int[] avatars;
+    private final int from;
+    private final int to;
+
+    private PlanTask(TwoPhaseInterpreter interpreter, int[] avatars, int from, int to) {
+      this.interpreter = interpreter;
+      this.avatars = avatars;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= AVATARS_PER_TASK) {
+        for (int i = from; i < to; i++) {
+          interpreter.plan(avatars[i]);
+        }
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(new PlanTask(interpreter, avatars, from, middle),
+            new PlanTask(interpreter, avatars, middle, to));
+      }
+    }
+  }
+}
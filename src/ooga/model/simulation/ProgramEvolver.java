@@ -0,0 +1,390 @@
+package ooga.model.simulation;
+
+import com.google.common.base.Stopwatch;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import ooga.model.commands.AvailableCommands;
+import ooga.model.compiler.ProgramAnalysis;
+import ooga.model.grid.LevelTemplate;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Genetic programming search for levels too big for the LevelSolver. A population of programs
+ * made of the level's commands is bred for a number of generations: the best programs are kept
+ * as they are, and the rest of each generation are children of parents picked by tournament,
+ * made by joining the start of one parent to the end of the other and then mutating (replacing,
+ * inserting, deleting or swapping lines, adding a backward jump or wrapping lines in an if).
+ * Children are repaired so that every if has its end if, every jump goes backwards and no
+ * program is longer than the line limit.
+ *
+ * <p>Every program is run with the PackedSimulator, and the whole population is evaluated in
+ * parallel on a fork join pool. Programs are ranked by whether they win, then by the GoalDistance
+ * of their final world, then by their number of lines and, for winners, the number of commands
+ * they executed. Programs the ProgramAnalysis shows cannot change the grid are not run and get
+ * the distance of the starting world. Breeding uses one seeded Random on the calling thread, so a
+ * seed always gives the same search whatever the number of threads.
+ */
+public class ProgramEvolver {
+
+  private static final int TOURNAMENT_SIZE = 3;
+  private static final int ELITES = 2;
+  private static final int CANDIDATES_PER_TASK = 8;
+  private static final double CROSSOVER_RATE = 0.7;
+  private static final int MUTATIONS = 6;
+
+  private final LevelTemplate level;
+  private final ForkJoinPool pool;
+  private final CommandAlphabet commandAlphabet;
+  private final Collection<Integer> avatarIds;
+  private final GoalDistance goalDistance;
+  private final int startDistance;
+  private final int maxLines;
+  private final Random random;
+  private final ThreadLocal<Simulator> simulators;
+  private final LongAdder evaluations;
+  private final Stopwatch stopwatch;
+  private Candidate[] population;
+  private Candidate best;
+  private int generation;
+
+  /**
+   * Creates a search with a random first generation
+   *
+   * @param level             template of the level to solve
+   * @param availableCommands commands the player can use on the level
+   * @param pool              pool to evaluate the programs on
+   * @param populationSize    number of programs in a generation
+   * @param maxLines          longest program allowed
+   * @param seed              seed of the random choices
+   */
+  public ProgramEvolver(LevelTemplate level, AvailableCommands availableCommands,
+      ForkJoinPool pool, int populationSize, int maxLines, long seed) {
+    this.level = level;
+    this.pool = pool;
+    this.maxLines = Math.max(maxLines, 1);
+    commandAlphabet = new CommandAlphabet(availableCommands);
+    avatarIds = level.createGameGrid().getAvatarIds();
+    goalDistance = new GoalDistance(level.getGoalState());
+    startDistance = goalDistance.measure(level.createGameGrid());
+    random = new Random(seed);
+    simulators = ThreadLocal.withInitial(PackedSimulator::new);
+    evaluations = new LongAdder();
+    stopwatch = Stopwatch.createUnstarted();
+    population = new Candidate[Math.max(populationSize, ELITES + 1)];
+    for (int i = 0; i < population.length; i++) {
+      List<ProgramLine> lines = new ArrayList<>();
+      int length = 1 + random.nextInt(this.maxLines);
+      while (lines.size() < length) {
+        lines.add(randomLine());
+      }
+      mutate(lines);
+      population[i] = new Candidate(repair(lines));
+    }
+  }
+
+  /**
+   * Runs generations of the search. The first call evaluates the first generation before
+   * breeding from it
+   *
+   * @param generations     number of generations to breed
+   * @param afterGeneration called after every generation has been evaluated, e.g. to report
+   *                        progress; may be null
+   */
+  public void evolve(int generations, Consumer<ProgramEvolver> afterGeneration) {
+    stopwatch.start();
+    try {
+      if (best == null) {
+        evaluate();
+        report(afterGeneration);
+      }
+      for (int i = 0; i < generations; i++) {
+        breed();
+        generation++;
+        evaluate();
+        report(afterGeneration);
+      }
+    } finally {
+      stopwatch.stop();
+    }
+  }
+
+  private void report(Consumer<ProgramEvolver> afterGeneration) {
+    if (afterGeneration != null) {
+      afterGeneration.accept(this);
+    }
+  }
+
+  private void evaluate() {
+    pool.invoke(new EvaluateTask(this::evaluate, population, 0, population.length));
+    Arrays.sort(population);
+    if (best == null || population[0].compareTo(best) < 0) {
+      best = population[0];
+    }
+  }
+
+  private void evaluate(Candidate candidate) {
+    List<CommandBlock> program = candidate.toProgram();
+    candidate.distance = startDistance;
+    if (new ProgramAnalysis(program, avatarIds)
+        .cannotChangeGridWithin(level.getGoalState().getNumOfCommands())) {
+      return;
+    }
+    evaluations.increment();
+    try {
+      SimulationResult result = simulators.get().run(level, program);
+      candidate.won = result.isWon();
+      candidate.distance = candidate.won ? 0 : goalDistance.measure(result.getFinalWorld());
+      candidate.commandsExecuted = result.getCommandsExecuted();
+    } catch (RuntimeException e) {
+      // a run that fails gives no final world, so the program counts as having done nothing
+      candidate.distance = startDistance;
+    }
+  }
+
+  private void breed() {
+    Candidate[] next = new Candidate[population.length];
+    System.arraycopy(population, 0, next, 0, ELITES);
+    for (int i = ELITES; i < next.length; i++) {
+      List<ProgramLine> child = new ArrayList<>(select().lineList);
+      if (random.nextDouble() < CROSSOVER_RATE) {
+        List<ProgramLine> other = select().lineList;
+        child = new ArrayList<>(child.subList(0, random.nextInt(child.size() + 1)));
+        child.addAll(other.subList(random.nextInt(other.size() + 1), other.size()));
+      }
+      mutate(child);
+      next[i] = new Candidate(repair(child));
+    }
+    population = next;
+  }
+
+  private Candidate select() {
+    Candidate winner = population[random.nextInt(population.length)];
+    for (int i = 1; i < TOURNAMENT_SIZE; i++) {
+      Candidate challenger = population[random.nextInt(population.length)];
+      if (challenger.compareTo(winner) < 0) {
+        winner = challenger;
+      }
+    }
+    return winner;
+  }
+
+  private void mutate(List<ProgramLine> lines) {
+    int mutations = 1 + random.nextInt(2);
+    for (int i = 0; i < mutations; i++) {
+      int at = random.nextInt(lines.size() + 1);
+      switch (random.nextInt(MUTATIONS)) {
+        case 0 -> {
+          if (at < lines.size()) {
+            lines.set(at, randomLine());
+          }
+        }
+        case 1 -> lines.add(at, randomLine());
+        case 2 -> {
+          if (at < lines.size() && lines.size() > 1) {
+            lines.remove(at);
+          }
+        }
+        case 3 -> {
+          if (commandAlphabet.canJump()) {
+            lines.add(at, ProgramLine.jump(1 + random.nextInt(at + 1)));
+          }
+        }
+        case 4 -> {
+          if (!commandAlphabet.getIfLines().isEmpty() && at < lines.size()) {
+            List<ProgramLine> ifLines = commandAlphabet.getIfLines();
+            lines.add(at + 1 + random.nextInt(lines.size() - at), ProgramLine.END_IF);
+            lines.add(at, ifLines.get(random.nextInt(ifLines.size())));
+          }
+        }
+        default -> {
+          if (lines.size() > 1) {
+            int other = random.nextInt(lines.size());
+            at = Math.min(at, lines.size() - 1);
+            ProgramLine line = lines.get(at);
+            lines.set(at, lines.get(other));
+            lines.set(other, line);
+          }
+        }
+      }
+    }
+  }
+
+  private ProgramLine randomLine() {
+    List<ProgramLine> lines = commandAlphabet.getLines();
+    return lines.get(random.nextInt(lines.size()));
+  }
+
+  // cuts the program to the line limit, drops ifs and end ifs that lost their partner and points
+  // every jump at an earlier line
+  private ProgramLine[] repair(List<ProgramLine> lines) {
+    List<ProgramLine> kept = new ArrayList<>(lines.subList(0, Math.min(lines.size(), maxLines)));
+    boolean[] unmatched = new boolean[kept.size()];
+    List<Integer> openIfs = new ArrayList<>();
+    for (int i = 0; i < kept.size(); i++) {
+      if (kept.get(i).isIf()) {
+        openIfs.add(i);
+      } else if (kept.get(i).isEndIf()) {
+        if (openIfs.isEmpty()) {
+          unmatched[i] = true;
+        } else {
+          openIfs.remove(openIfs.size() - 1);
+        }
+      }
+    }
+    openIfs.forEach(i -> unmatched[i] = true);
+    List<ProgramLine> repaired = new ArrayList<>();
+    for (int i = 0; i < kept.size(); i++) {
+      if (!unmatched[i]) {
+        ProgramLine line = kept.get(i);
+        if (line.isJump() && line.getDestination() > repaired.size() + 1) {
+          line = ProgramLine.jump(repaired.size() + 1);
+        }
+        repaired.add(line);
+      }
+    }
+    if (repaired.isEmpty()) {
+      repaired.add(randomLine());
+    }
+    return repaired.toArray(new ProgramLine[0]);
+  }
+
+  /**
+   * Returns the number of generations bred so far
+   *
+   * @return generation of the current population, 0 for the first one
+   */
+  public int getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Returns the best program found so far
+   *
+   * @return program, or null before the first generation is evaluated
+   */
+  public List<CommandBlock> getBestProgram() {
+    return best == null ? null : best.toProgram();
+  }
+
+  /**
+   * Returns the goal distance of the best program's final world
+   *
+   * @return distance, 0 if it wins
+   */
+  public int getBestDistance() {
+    return best == null ? startDistance : best.distance;
+  }
+
+  /**
+   * Checks whether the best program found so far wins the level
+   *
+   * @return true if a winning program was found
+   */
+  public boolean isBestWinning() {
+    return best != null && best.won;
+  }
+
+  /**
+   * Returns the number of commands the best program executes, for a winning program
+   *
+   * @return number of commands executed over all avatars
+   */
+  public int getBestCommandsExecuted() {
+    return best == null ? 0 : best.commandsExecuted;
+  }
+
+  /**
+   * Returns the number of programs run so far
+   *
+   * @return number of runs
+   */
+  public long getEvaluations() {
+    return evaluations.sum();
+  }
+
+  /**
+   * Returns the number of programs run per second while evolving
+   *
+   * @return throughput of the search
+   */
+  public double getEvaluationsPerSecond() {
+    long micros = stopwatch.elapsed(TimeUnit.MICROSECONDS);
+    return micros == 0 ? 0 : evaluations.sum() * 1e6 / micros;
+  }
+
+  private class Candidate implements Comparable<Candidate> {
+
+    private final ProgramLine[] lines;
+    private final List<ProgramLine> lineList;
+    private boolean evaluated;
+    private boolean won;
+    private int distance;
+    private int commandsExecuted;
+
+    private Candidate(ProgramLine[] lines) {
+      this.lines = lines;
+      lineList = List.of(lines);
+    }
+
+    private List<CommandBlock> toProgram() {
+      return ProgramLine.toProgram(lines);
+    }
+
+    @Override
+    public int compareTo(Candidate other) {
+      if (won != other.won) {
+        return won ? -1 : 1;
+      }
+      if (distance != other.distance) {
+        return Integer.compare(distance, other.distance);
+      }
+      if (lines.length != other.lines.length) {
+        return Integer.compare(lines.length, other.lines.length);
+      }
+      return Integer.compare(commandsExecuted, other.commandsExecuted);
+    }
+  }
+
+  // static so that a task only holds the evaluation it runs, not the whole search
+  private static class EvaluateTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Consumer<Candidate> evaluation;
+    private final Candidate[] candidates;
+    private final int from;
+    private final int to;
+
+    private EvaluateTask(Consumer<Candidate> evaluation, Candidate[] candidates, int from,
+        int to) {
+      this.evaluation = evaluation;
+      this.candidates = candidates;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= CANDIDATES_PER_TASK) {
+        for (int i = from; i < to; i++) {
+          if (!candidates[i].evaluated) {
+            evaluation.accept(candidates[i]);
+            candidates[i].evaluated = true;
+          }
+        }
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(new EvaluateTask(evaluation, candidates, from, middle),
+            new EvaluateTask(evaluation, candidates, middle, to));
+      }
+    }
+  }
+}
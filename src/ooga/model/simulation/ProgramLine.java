@@ -0,0 +1,60 @@
+package ooga.model.simulation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * One line of a program being searched for: a command type with its parameters, without a line
+ * number. Lines never change, so the same line can sit in any number of candidate programs, and
+ * command blocks are only made for the programs that are run.
+ */
+class ProgramLine {
+
+  static final ProgramLine END_IF = new ProgramLine("end if", Map.of());
+
+  private final String type;
+  private final Map<String, String> parameters;
+
+  ProgramLine(String type, Map<String, String> parameters) {
+    this.type = type;
+    this.parameters = parameters;
+  }
+
+  static ProgramLine jump(int destination) {
+    return new ProgramLine("jump", Map.of("destination", Integer.toString(destination)));
+  }
+
+  boolean isIf() {
+    return type.equals("if");
+  }
+
+  boolean isEndIf() {
+    return this == END_IF;
+  }
+
+  boolean isJump() {
+    return type.equals("jump");
+  }
+
+  int getDestination() {
+    return Integer.parseInt(parameters.get("destination"));
+  }
+
+  /**
+   * Makes the command blocks of a program, numbered from 1
+   *
+   * @param program lines of the program
+   * @return command blocks the simulators run
+   */
+  static List<CommandBlock> toProgram(ProgramLine[] program) {
+    List<CommandBlock> commandBlocks = new ArrayList<>();
+    for (ProgramLine line : program) {
+      commandBlocks.add(new CommandBlock(commandBlocks.size() + 1, line.type,
+          new LinkedHashMap<>(line.parameters)));
+    }
+    return commandBlocks;
+  }
+}
@@ -0,0 +1,360 @@
+package ooga.model.simulation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import ooga.model.Direction;
+import ooga.model.commands.AvailableCommands;
+import ooga.model.commands.CommandRegistry;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.gridData.GoalState;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Shrinks a program that wins a level into a smaller one that still wins, to bring it down to
+ * the level's idealLines and to fewer executed commands. The program is improved in rounds; each
+ * round lists the smaller programs that can be made from the current one, biggest change first:
+ * <ul>
+ *   <li>removing a block of lines, from half the program down to two lines, like delta
+ *   debugging</li>
+ *   <li>removing one line, an if block, or an if together with its end if while keeping the
+ *   lines between them</li>
+ *   <li>merging two steps that add up to one step, e.g. right then down into down-right</li>
+ *   <li>pointing a jump at another line, which keeps the number of lines but can cut the number
+ *   of commands executed</li>
+ * </ul>
+ * Jumps into or past removed lines are moved along so they point at the same code. The first
+ * candidate in the list that wins with fewer lines, or with the same lines and fewer commands,
+ * becomes the current program, and minimizing stops when a round finds none.
+ *
+ * <p>The candidates of a round are run at the same time on a fork join pool with the
+ * PackedSimulator. As soon as one wins, the candidates after it are cancelled, since only the
+ * first winner of the list is taken; candidates before it still run, so the result does not
+ * depend on the number of threads. Candidates that have to win with fewer commands run with an
+ * apple budget cut to that number, so a run that fails is stopped as soon as it uses too many
+ * commands instead of running to the level's full budget.
+ */
+public class ProgramMinimizer {
+
+  private static final int NOT_FOUND = Integer.MAX_VALUE;
+
+  private final LevelTemplate level;
+  private final AvailableCommands availableCommands;
+  private final ForkJoinPool pool;
+  private final ThreadLocal<Simulator> simulators;
+  private final LongAdder candidatesRun;
+  private final LongAdder candidatesCancelled;
+  private int commandsExecuted;
+
+  /**
+   * Creates a minimizer that may use any command
+   *
+   * @param level template of the level the program wins
+   * @param pool  pool to run the candidates on
+   */
+  public ProgramMinimizer(LevelTemplate level, ForkJoinPool pool) {
+    this(level, null, pool);
+  }
+
+  /**
+   * Creates a minimizer whose programs only use the level's commands and parameter options
+   *
+   * @param level             template of the level the program wins
+   * @param availableCommands commands the player can use on the level, or null for any command
+   * @param pool              pool to run the candidates on
+   */
+  public ProgramMinimizer(LevelTemplate level, AvailableCommands availableCommands,
+      ForkJoinPool pool) {
+    this.level = level;
+    this.availableCommands = availableCommands;
+    this.pool = pool;
+    simulators = ThreadLocal.withInitial(PackedSimulator::new);
+    candidatesRun = new LongAdder();
+    candidatesCancelled = new LongAdder();
+  }
+
+  /**
+   * Shrinks a program
+   *
+   * @param program program that wins the level
+   * @return smallest winning program found, which may be the program itself
+   * @throws ExceptionHandler if the program does not win the level
+   */
+  public List<CommandBlock> minimize(List<CommandBlock> program) {
+    SimulationResult result = simulators.get().run(level, program);
+    if (!result.isWon()) {
+      throw new ExceptionHandler("the program does not win the level");
+    }
+    List<CommandBlock> current = copy(program);
+    commandsExecuted = result.getCommandsExecuted();
+    while (true) {
+      List<List<CommandBlock>> candidates = new ArrayList<>();
+      List<List<CommandBlock>> sameLength = new ArrayList<>();
+      listShorter(current, candidates);
+      listSameLength(current, sameLength);
+      int fewerLines = firstWinner(candidates, level);
+      if (fewerLines != NOT_FOUND) {
+        current = candidates.get(fewerLines);
+        commandsExecuted = simulators.get().run(level, current).getCommandsExecuted();
+        continue;
+      }
+      if (commandsExecuted < 2) {
+        return current;
+      }
+      int fewerCommands = firstWinner(sameLength, withBudget(commandsExecuted - 2));
+      if (fewerCommands == NOT_FOUND) {
+        return current;
+      }
+      current = sameLength.get(fewerCommands);
+      commandsExecuted = simulators.get().run(level, current).getCommandsExecuted();
+    }
+  }
+
+  private void listShorter(List<CommandBlock> program, List<List<CommandBlock>> candidates) {
+    for (int size = program.size() / 2; size >= 2; size /= 2) {
+      for (int from = 0; from + size <= program.size(); from += size) {
+        addIfValid(candidates, remove(program, from, from + size));
+      }
+    }
+    for (int line = 0; line < program.size(); line++) {
+      if (isType(program.get(line), "if")) {
+        int endIf = findEndIf(program, line);
+        if (endIf != -1) {
+          addIfValid(candidates, remove(program, line, endIf + 1));
+          addIfValid(candidates, remove(remove(program, endIf, endIf + 1), line, line + 1));
+        }
+      } else {
+        addIfValid(candidates, remove(program, line, line + 1));
+      }
+    }
+    for (int line = 0; line + 1 < program.size(); line++) {
+      List<CommandBlock> merged = mergeSteps(program, line);
+      if (merged != null) {
+        addIfValid(candidates, merged);
+      }
+    }
+  }
+
+  private void listSameLength(List<CommandBlock> program, List<List<CommandBlock>> candidates) {
+    for (int line = 0; line < program.size(); line++) {
+      if (isType(program.get(line), "jump")) {
+        int destination = destination(program.get(line));
+        for (int other = 1; other <= line + 1; other++) {
+          if (other != destination) {
+            List<CommandBlock> retargeted = copy(program);
+            retargeted.get(line).setParameter("destination", Integer.toString(other));
+            addIfValid(candidates, retargeted);
+          }
+        }
+      }
+    }
+  }
+
+  // index of the first candidate that wins, running them all at once and cancelling the ones
+  // after a winner
+  private int firstWinner(List<List<CommandBlock>> candidates, LevelTemplate runLevel) {
+    AtomicInteger winner = new AtomicInteger(NOT_FOUND);
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int i = 0; i < candidates.size(); i++) {
+      int index = i;
+      tasks.add(() -> {
+        if (index > winner.get()) {
+          candidatesCancelled.increment();
+          return null;
+        }
+        candidatesRun.increment();
+        if (wins(candidates.get(index), runLevel)) {
+          winner.accumulateAndGet(index, Math::min);
+        }
+        return null;
+      });
+    }
+    for (Future<Void> future : pool.invokeAll(tasks)) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ExceptionHandler("minimizing was interrupted");
+      } catch (ExecutionException e) {
+        throw new ExceptionHandler("minimizing failed: " + e.getCause().getMessage());
+      }
+    }
+    return winner.get();
+  }
+
+  private boolean wins(List<CommandBlock> program, LevelTemplate runLevel) {
+    try {
+      return simulators.get().run(runLevel, program).isWon();
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  // the level with fewer apples, so runs that cannot beat the current program stop early
+  private LevelTemplate withBudget(int apples) {
+    GoalState goalState = level.getGoalState();
+    return new LevelTemplate(level.createGameGrid(), level.getInitialState(),
+        new GoalState(goalState.getAllAvatarLocations(), goalState.getAllBlockData(), apples,
+            goalState.getIdealTime(), goalState.getIdealLines()));
+  }
+
+  private void addIfValid(List<List<CommandBlock>> candidates, List<CommandBlock> program) {
+    if (program.isEmpty() || !isBalanced(program)) {
+      return;
+    }
+    if (availableCommands != null) {
+      try {
+        CommandRegistry.validate(program, availableCommands);
+      } catch (ExceptionHandler e) {
+        return;
+      }
+    }
+    candidates.add(program);
+  }
+
+  // copy of the program without lines from (inclusive) to to (exclusive), counted from 0; jumps
+  // past the removed lines move back with the code, and jumps into them go to the line after
+  private List<CommandBlock> remove(List<CommandBlock> program, int from, int to) {
+    List<CommandBlock> shorter = new ArrayList<>();
+    for (int line = 0; line < program.size(); line++) {
+      if (line >= from && line < to) {
+        continue;
+      }
+      CommandBlock commandBlock = copy(program.get(line), shorter.size() + 1);
+      if (isType(commandBlock, "jump")) {
+        int destination = destination(commandBlock);
+        if (destination > to) {
+          destination -= to - from;
+        } else if (destination > from) {
+          destination = from + 1;
+        }
+        commandBlock.setParameter("destination", Integer.toString(destination));
+      }
+      shorter.add(commandBlock);
+    }
+    return shorter;
+  }
+
+  // one step in place of two consecutive steps whose moves add up to a single step, or null
+  private List<CommandBlock> mergeSteps(List<CommandBlock> program, int line) {
+    CommandBlock first = program.get(line);
+    CommandBlock second = program.get(line + 1);
+    if (!isType(first, "step") || !isType(second, "step") || isJumpTarget(program, line + 2)) {
+      return null;
+    }
+    try {
+      Direction a = toDirection(first.getParameters().get("direction"));
+      Direction b = toDirection(second.getParameters().get("direction"));
+      for (Direction direction : Direction.values()) {
+        if (direction != Direction.CURRENT
+            && direction.getXDel() == a.getXDel() + b.getXDel()
+            && direction.getYDel() == a.getYDel() + b.getYDel()) {
+          List<CommandBlock> merged = remove(program, line + 1, line + 2);
+          merged.get(line).setParameter("direction",
+              direction.name().toLowerCase().replace('_', '-'));
+          return merged;
+        }
+      }
+    } catch (RuntimeException e) {
+      // a step with a direction that cannot be read is not merged
+    }
+    return null;
+  }
+
+  private Direction toDirection(String direction) {
+    return Direction.valueOf(direction.toUpperCase().replaceAll("-", "_"));
+  }
+
+  private boolean isJumpTarget(List<CommandBlock> program, int line) {
+    for (CommandBlock commandBlock : program) {
+      if (isType(commandBlock, "jump") && destination(commandBlock) == line) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int findEndIf(List<CommandBlock> program, int ifLine) {
+    int depth = 0;
+    for (int line = ifLine; line < program.size(); line++) {
+      if (isType(program.get(line), "if")) {
+        depth++;
+      } else if (isType(program.get(line), "end if") && --depth == 0) {
+        return line;
+      }
+    }
+    return -1;
+  }
+
+  private boolean isBalanced(List<CommandBlock> program) {
+    int depth = 0;
+    for (CommandBlock commandBlock : program) {
+      if (isType(commandBlock, "if")) {
+        depth++;
+      } else if (isType(commandBlock, "end if") && --depth < 0) {
+        return false;
+      }
+    }
+    return depth == 0;
+  }
+
+  private boolean isType(CommandBlock commandBlock, String type) {
+    return CommandRegistry.normalize(commandBlock.getType())
+        .equals(CommandRegistry.normalize(type));
+  }
+
+  private int destination(CommandBlock commandBlock) {
+    try {
+      return Integer.parseInt(commandBlock.getParameters().get("destination"));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private List<CommandBlock> copy(List<CommandBlock> program) {
+    List<CommandBlock> copy = new ArrayList<>();
+    for (CommandBlock commandBlock : program) {
+      copy.add(copy(commandBlock, copy.size() + 1));
+    }
+    return copy;
+  }
+
+  private CommandBlock copy(CommandBlock commandBlock, int index) {
+    return new CommandBlock(index, commandBlock.getType(),
+        new LinkedHashMap<>(commandBlock.getParameters()));
+  }
+
+  /**
+   * Returns the number of commands the last minimized program executes over all avatars
+   *
+   * @return number of commands executed
+   */
+  public int getCommandsExecuted() {
+    return commandsExecuted;
+  }
+
+  /**
+   * Returns the number of candidates that were run
+   *
+   * @return number of runs
+   */
+  public long getCandidatesRun() {
+    return candidatesRun.sum();
+  }
+
+  /**
+   * Returns the number of candidates that were not run because an earlier candidate won
+   *
+   * @return number of cancelled candidates
+   */
+  public long getCandidatesCancelled() {
+    return candidatesCancelled.sum();
+  }
+}
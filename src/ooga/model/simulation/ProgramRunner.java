@@ -0,0 +1,51 @@
+package ooga.model.simulation;
+
+import java.util.function.BooleanSupplier;
+import ooga.model.player.Player;
+
+/**
+ * A program that has been loaded onto a world and is ready to be executed one command at a time.
+ * The simulators only talk to the program through this interface, so the reference Commands
+ * objects and the compiled interpreter can be swapped freely.
+ */
+public interface ProgramRunner {
+
+  /**
+   * Returns the number of lines in the program
+   *
+   * @return number of lines
+   */
+  int size();
+
+  /**
+   * Executes the command at the avatar's program counter and updates the program counter
+   *
+   * @param avatar avatar executing the command
+   */
+  void execute(Player avatar);
+
+  /**
+   * Checks whether the program has a line that throws a block, which can move a block further
+   * than one tile in one command. By default it is assumed that it can.
+   *
+   * @return false only if no line of the program throws
+   */
+  default boolean canThrow() {
+    return true;
+  }
+
+  /**
+   * Executes the superinstruction at the avatar's program counter: the command there and the
+   * ones the compiler fused with it, one at a time. afterCommand is called after every command
+   * and the superinstruction stops as soon as it returns true or the program counter leaves its
+   * lines. The simulators only use this while one avatar has commands left, so each command is a
+   * tick of its own. By default no commands are fused and exactly one command is executed.
+   *
+   * @param avatar       avatar executing the commands
+   * @param afterCommand the caller's bookkeeping after each command; returns true to stop
+   */
+  default void executeFused(Player avatar, BooleanSupplier afterCommand) {
+    execute(avatar);
+    afterCommand.getAsBoolean();
+  }
+}
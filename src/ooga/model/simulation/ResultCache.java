@@ -0,0 +1,223 @@
+package ooga.model.simulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers how recent runs ended, keyed by the content of their level and program, so a program
+ * that is run again unchanged does not have to be executed again. Entries are kept in least
+ * recently used order, and the oldest ones are dropped when there are more than the given number
+ * of entries or their traces together take more than the given number of ints. A trace that is
+ * too big to fit on its own is dropped and only the outcome of its run is kept.
+ *
+ * <p>If the cache is given a file, it starts with the entries stored in it, and save writes all
+ * of its entries back, so results survive between sessions. Adding a run never writes the file;
+ * the owner saves the cache when it is done with a level or closes, away from the simulation
+ * thread. The file records the ResultKey.ENGINE_VERSION it was written by, and a file from
+ * another engine version is ignored, so runs whose outcome a later change to the game would
+ * alter are never replayed. A missing, stale or unreadable file just gives an empty cache, and a
+ * file that cannot be written is skipped; the cache only ever saves work. The methods are
+ * synchronized, since runs finish on the simulation thread and are looked up on the JavaFX
+ * Application Thread.
+ */
+public class ResultCache {
+
+  private static final int FILE_MAGIC = 0x50494B43;
+  private static final int FILE_VERSION = 2;
+
+  private final int maxEntries;
+  private final int maxTraceSize;
+  private final Path file;
+  private final LinkedHashMap<ResultKey, CachedRun> entries;
+  private final Object fileLock;
+  private boolean unsaved;
+  private long traceSize;
+  private int hits;
+  private int misses;
+
+  /**
+   * Creates an empty cache that only lives in memory
+   *
+   * @param maxEntries   largest number of runs kept
+   * @param maxTraceSize largest number of ints all kept traces may take together
+   */
+  public ResultCache(int maxEntries, int maxTraceSize) {
+    this(maxEntries, maxTraceSize, null);
+  }
+
+  /**
+   * Creates a cache that is stored in a file
+   *
+   * @param maxEntries   largest number of runs kept
+   * @param maxTraceSize largest number of ints all kept traces may take together
+   * @param file         file the entries are loaded from and saved to, or null for none
+   */
+  public ResultCache(int maxEntries, int maxTraceSize, Path file) {
+    this.maxEntries = maxEntries;
+    this.maxTraceSize = maxTraceSize;
+    this.file = file;
+    entries = new LinkedHashMap<>(16, 0.75f, true);
+    fileLock = new Object();
+    if (file != null && Files.exists(file)) {
+      load();
+    }
+  }
+
+  /**
+   * Looks up a run and marks it as the most recently used
+   *
+   * @param key key of the run
+   * @return the cached run, or null if it is not known
+   */
+  public synchronized CachedRun get(ResultKey key) {
+    CachedRun cachedRun = entries.get(key);
+    if (cachedRun == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return cachedRun;
+  }
+
+  /**
+   * Adds a finished run, replacing what was known about the same key. The file is only written
+   * by save.
+   *
+   * @param key       key of the run
+   * @param cachedRun how the run ended
+   */
+  public synchronized void put(ResultKey key, CachedRun cachedRun) {
+    add(key, cachedRun);
+    unsaved = true;
+  }
+
+  /**
+   * Writes the entries to the cache's file if runs were added since it was last saved. The
+   * entries are copied under the cache's lock and written outside it, so runs can keep being
+   * added and looked up while the file is written.
+   */
+  public void save() {
+    Map<ResultKey, CachedRun> snapshot;
+    synchronized (this) {
+      if (file == null || !unsaved) {
+        return;
+      }
+      snapshot = new LinkedHashMap<>(entries);
+      unsaved = false;
+    }
+    synchronized (fileLock) {
+      write(snapshot);
+    }
+  }
+
+  /**
+   * Returns the number of runs kept
+   *
+   * @return number of entries
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized int getHits() {
+    return hits;
+  }
+
+  public synchronized int getMisses() {
+    return misses;
+  }
+
+  private void add(ResultKey key, CachedRun cachedRun) {
+    if (cachedRun.hasTrace() && cachedRun.getTrace().getSize() > maxTraceSize) {
+      cachedRun = cachedRun.withoutTrace();
+    }
+    CachedRun replaced = entries.remove(key);
+    if (replaced != null) {
+      traceSize -= sizeOf(replaced);
+    }
+    entries.put(key, cachedRun);
+    traceSize += sizeOf(cachedRun);
+    Iterator<CachedRun> oldestFirst = entries.values().iterator();
+    while (entries.size() > maxEntries || traceSize > maxTraceSize) {
+      traceSize -= sizeOf(oldestFirst.next());
+      oldestFirst.remove();
+    }
+  }
+
+  private static long sizeOf(CachedRun cachedRun) {
+    return cachedRun.hasTrace() ? cachedRun.getTrace().getSize() : 0;
+  }
+
+  // entries are written oldest first, so loading them in order restores the LRU order
+  private void write(Map<ResultKey, CachedRun> snapshot) {
+    try {
+      Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        out.writeInt(FILE_MAGIC);
+        out.writeInt(FILE_VERSION);
+        out.writeInt(ResultKey.ENGINE_VERSION);
+        out.writeInt(snapshot.size());
+        for (Map.Entry<ResultKey, CachedRun> entry : snapshot.entrySet()) {
+          writeEntry(out, entry.getKey(), entry.getValue());
+        }
+      }
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      // the results are still cached in memory for this session
+    }
+  }
+
+  private static void writeEntry(DataOutputStream out, ResultKey key, CachedRun cachedRun)
+      throws IOException {
+    out.writeLong(key.getLevelHash());
+    out.writeLong(key.getProgramHash());
+    out.writeUTF(cachedRun.getOutcome().name());
+    out.writeInt(cachedRun.getApplesLeft());
+    out.writeInt(cachedRun.getTicks());
+    int[] trace = cachedRun.hasTrace() ? cachedRun.getTrace().toArray() : new int[0];
+    out.writeInt(trace.length);
+    for (int value : trace) {
+      out.writeInt(value);
+    }
+  }
+
+  private void load() {
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION
+          || in.readInt() != ResultKey.ENGINE_VERSION) {
+        return;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        ResultKey key = new ResultKey(in.readLong(), in.readLong());
+        Outcome outcome = Outcome.valueOf(in.readUTF());
+        int applesLeft = in.readInt();
+        int ticks = in.readInt();
+        int traceLength = in.readInt();
+        if (traceLength < 0 || traceLength > maxTraceSize) {
+          throw new IOException("corrupt result cache");
+        }
+        int[] trace = new int[traceLength];
+        for (int j = 0; j < trace.length; j++) {
+          trace[j] = in.readInt();
+        }
+        add(key, new CachedRun(outcome, applesLeft, ticks,
+            trace.length == 0 ? null : new RunTrace(trace)));
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      entries.clear();
+      traceSize = 0;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package ooga.model.simulation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.gridData.ContentHash;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Names a run by its content: the hash of the level it runs on and the hash of its program. The
+ * game is deterministic, so every run with the same key ends the same way.
+ *
+ * <p>Programs are put in a canonical form before they are hashed. Only the order of the commands
+ * matters, not the indices the code area gave them, and the parameters of a command are hashed
+ * sorted by name, so the same program built in a different way gets the same key.
+ */
+public class ResultKey {
+
+  /**
+   * Version of the rules that decide how a run ends. Keys only name a level and a program, so
+   * this has to be raised whenever a change to the commands, the simulators or how runs are
+   * stopped can change the outcome or the ticks of a run; results saved by another version are
+   * then not replayed.
+   */
+  public static final int ENGINE_VERSION = 1;
+
+  private final long levelHash;
+  private final long programHash;
+
+  /**
+   * Creates a key from its two hashes
+   *
+   * @param levelHash   content hash of the level
+   * @param programHash hash of the canonical program
+   */
+  public ResultKey(long levelHash, long programHash) {
+    this.levelHash = levelHash;
+    this.programHash = programHash;
+  }
+
+  /**
+   * Creates the key of a run of a program on a level
+   *
+   * @param levelTemplate level the program runs on
+   * @param program       command blocks of the program
+   * @return key of the run
+   */
+  public static ResultKey of(LevelTemplate levelTemplate, List<CommandBlock> program) {
+    return new ResultKey(levelTemplate.getContentHash(), hashProgram(program));
+  }
+
+  /**
+   * Hashes the canonical form of a program
+   *
+   * @param program command blocks of the program
+   * @return 64 bit hash
+   */
+  public static long hashProgram(List<CommandBlock> program) {
+    ContentHash hash = new ContentHash().add(program.size());
+    for (CommandBlock commandBlock : program) {
+      hash.add(commandBlock.getType());
+      Map<String, String> parameters = commandBlock.getParameters() == null ? new TreeMap<>()
+          : new TreeMap<>(commandBlock.getParameters());
+      hash.add(parameters.size());
+      for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+        hash.add(parameter.getKey()).add(parameter.getValue());
+      }
+    }
+    return hash.getValue();
+  }
+
+  public long getLevelHash() {
+    return levelHash;
+  }
+
+  public long getProgramHash() {
+    return programHash;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof ResultKey resultKey) {
+      return levelHash == resultKey.levelHash && programHash == resultKey.programHash;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(levelHash * 31 + programHash);
+  }
+}
@@ -0,0 +1,323 @@
+package ooga.model.simulation;
+
+import java.util.Arrays;
+import java.util.List;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.gridData.IntIntMap;
+import ooga.model.grid.gridData.TickDelta;
+import ooga.model.player.Block;
+import ooga.model.player.Player;
+
+/**
+ * Everything the frontend was shown during a run, so the run can be stepped backwards and
+ * scrubbed through without running the program again. It is fed the ticks the frontend receives
+ * and keeps what they showed as one small int array: the position and line of every avatar, the
+ * position, held flag and number of every block, and the score.
+ *
+ * <p>Each tick is logged as the fields it changed, with their old and new values, so moving one
+ * tick in either direction only touches those fields. A full copy of the state is also kept every
+ * snapshotInterval ticks, and seeking starts from the current tick or from the nearest snapshot,
+ * whichever is closer, so a seek costs at most half a snapshot interval of ticks once the cursor
+ * is far from the target. Only the last maxSnapshots snapshots are kept: when the ring is full the
+ * oldest snapshot and the ticks logged before the next one are dropped, so a long run uses a
+ * bounded amount of memory and can only be rewound to its oldest snapshot.
+ *
+ * <p>Ticks are counted as the frontend received them, so in turbo mode one tick of the timeline
+ * covers all the ticks that were merged into it.
+ */
+public class RunTimeline {
+
+  private static final int AVATAR_FIELDS = 3;
+  private static final int BLOCK_FIELDS = 4;
+  private static final int X = 0;
+  private static final int Y = 1;
+  private static final int LINE = 2;
+  private static final int HELD = 2;
+  private static final int NUM = 3;
+  private static final int NO_LINE = 0;
+
+  private final int snapshotInterval;
+  private final IntIntMap avatarSlots;
+  private final IntIntMap blockSlots;
+  private int[] avatarIds;
+  private int[] blockIds;
+  private int blockOffset;
+  private int scoreSlot;
+
+  private int[] state;
+  private int[] shown;
+  private final int[][] snapshots;
+  private final int[][] ticks;
+  private int firstTick;
+  private int lastTick;
+  private int currentTick;
+  private int[] log;
+  private int logSize;
+
+  /**
+   * Creates an empty timeline
+   *
+   * @param snapshotInterval number of ticks between two full snapshots
+   * @param maxSnapshots     number of snapshots kept, which bounds how far back a run can go
+   */
+  public RunTimeline(int snapshotInterval, int maxSnapshots) {
+    this.snapshotInterval = Math.max(snapshotInterval, 1);
+    avatarSlots = new IntIntMap();
+    blockSlots = new IntIntMap();
+    snapshots = new int[Math.max(maxSnapshots, 1)][];
+    ticks = new int[snapshots.length * this.snapshotInterval][];
+    log = new int[48];
+    start(new ElementInformationBundle(), 0);
+  }
+
+  /**
+   * Forgets the previous run and starts a new one from the level's initial state
+   *
+   * @param elementInformationBundle grid of the level that has not run anything yet
+   * @param score                    score shown before the first tick
+   */
+  public void start(ElementInformationBundle elementInformationBundle, int score) {
+    List<Player> avatars = elementInformationBundle.getAvatarList();
+    List<Block> blocks = elementInformationBundle.getBlockList();
+    avatarSlots.clear();
+    blockSlots.clear();
+    avatarIds = new int[avatars.size()];
+    blockIds = new int[blocks.size()];
+    blockOffset = avatars.size() * AVATAR_FIELDS;
+    scoreSlot = blockOffset + blocks.size() * BLOCK_FIELDS;
+    state = new int[scoreSlot + 1];
+    for (int i = 0; i < avatars.size(); i++) {
+      Player avatar = avatars.get(i);
+      avatarIds[i] = avatar.getId();
+      avatarSlots.put(avatar.getId(), i * AVATAR_FIELDS);
+      state[i * AVATAR_FIELDS + X] = avatar.getXCoord();
+      state[i * AVATAR_FIELDS + Y] = avatar.getYCoord();
+      state[i * AVATAR_FIELDS + LINE] = NO_LINE;
+    }
+    for (int i = 0; i < blocks.size(); i++) {
+      Block block = blocks.get(i);
+      int slot = blockOffset + i * BLOCK_FIELDS;
+      blockIds[i] = block.getId();
+      blockSlots.put(block.getId(), slot);
+      state[slot + X] = block.getXCoord();
+      state[slot + Y] = block.getYCoord();
+      state[slot + HELD] = block.isHeld() ? 1 : 0;
+      state[slot + NUM] = block.getDisplayNum();
+    }
+    state[scoreSlot] = score;
+    shown = state.clone();
+    Arrays.fill(snapshots, null);
+    Arrays.fill(ticks, null);
+    snapshots[0] = state.clone();
+    firstTick = 0;
+    lastTick = 0;
+    currentTick = 0;
+  }
+
+  /**
+   * Adds the next tick of the run. The frontend only receives new ticks when it is showing the
+   * last one, so if the timeline was moved back it is moved to the end first.
+   *
+   * @param tickDelta tick the frontend received
+   */
+  public void record(TickDelta tickDelta) {
+    seek(lastTick, null);
+    logSize = 0;
+    for (int i = 0; i < tickDelta.getAvatarCount(); i++) {
+      int slot = avatarSlots.get(tickDelta.getAvatarId(i), -1);
+      if (slot != -1) {
+        change(slot + X, tickDelta.getAvatarX(i));
+        change(slot + Y, tickDelta.getAvatarY(i));
+      }
+    }
+    for (int i = 0; i < tickDelta.getBlockCount(); i++) {
+      int slot = blockSlots.get(tickDelta.getBlockId(i), -1);
+      if (slot != -1) {
+        change(slot + X, tickDelta.getBlockX(i));
+        change(slot + Y, tickDelta.getBlockY(i));
+        change(slot + HELD, tickDelta.isBlockHeld(i) ? 1 : 0);
+        change(slot + NUM, tickDelta.getBlockNum(i));
+      }
+    }
+    if (tickDelta.hasLineIndicators()) {
+      int[] lines = new int[avatarIds.length];
+      for (int i = 0; i < tickDelta.getLineIndicatorCount(); i++) {
+        int slot = avatarSlots.get(tickDelta.getLineIndicatorAvatarId(i), -1);
+        if (slot != -1) {
+          lines[slot / AVATAR_FIELDS] = tickDelta.getLineIndicatorLine(i);
+        }
+      }
+      for (int i = 0; i < lines.length; i++) {
+        change(i * AVATAR_FIELDS + LINE, lines[i]);
+      }
+    }
+    if (tickDelta.hasScore()) {
+      change(scoreSlot, tickDelta.getScore());
+    }
+    lastTick++;
+    ticks[(lastTick - 1) % ticks.length] = Arrays.copyOf(log, logSize);
+    currentTick = lastTick;
+    shown = state.clone();
+    if (lastTick % snapshotInterval == 0) {
+      addSnapshot();
+    }
+  }
+
+  // logs a field as slot, old value, new value if the tick changes it
+  private void change(int slot, int value) {
+    if (state[slot] != value) {
+      if (logSize + 3 > log.length) {
+        log = Arrays.copyOf(log, log.length * 2);
+      }
+      log[logSize++] = slot;
+      log[logSize++] = state[slot];
+      log[logSize++] = value;
+      state[slot] = value;
+    }
+  }
+
+  // the new snapshot takes the place of the oldest one once the ring is full, and the ticks
+  // logged before the snapshot that is oldest now are given up with it
+  private void addSnapshot() {
+    snapshots[(lastTick / snapshotInterval) % snapshots.length] = state.clone();
+    if (lastTick - firstTick >= snapshots.length * snapshotInterval) {
+      firstTick += snapshotInterval;
+    }
+  }
+
+  /**
+   * Moves to a tick of the run and fills a delta with what has to change on the screen to show
+   * it. Ticks that are no longer kept are clamped to the oldest one.
+   *
+   * @param tick      number of ticks into the run
+   * @param tickDelta delta to fill, or null if nothing is shown
+   * @return true if the timeline moved
+   */
+  public boolean seek(int tick, TickDelta tickDelta) {
+    int target = Math.max(firstTick, Math.min(tick, lastTick));
+    if (target == currentTick) {
+      return false;
+    }
+    int snapshotTick = nearestSnapshotTick(target);
+    if (Math.abs(target - snapshotTick) < Math.abs(target - currentTick)) {
+      System.arraycopy(snapshotAt(snapshotTick), 0, state, 0, state.length);
+      currentTick = snapshotTick;
+    }
+    while (currentTick < target) {
+      int[] changes = tickAt(currentTick + 1);
+      for (int i = 0; i < changes.length; i += 3) {
+        state[changes[i]] = changes[i + 2];
+      }
+      currentTick++;
+    }
+    while (currentTick > target) {
+      int[] changes = tickAt(currentTick);
+      for (int i = changes.length - 3; i >= 0; i -= 3) {
+        state[changes[i]] = changes[i + 1];
+      }
+      currentTick--;
+    }
+    if (tickDelta != null) {
+      fillDelta(tickDelta);
+    }
+    shown = state.clone();
+    return true;
+  }
+
+  // the kept snapshot closest to a tick, on either side of it
+  private int nearestSnapshotTick(int tick) {
+    int before = tick - tick % snapshotInterval;
+    int after = before + snapshotInterval;
+    return after <= lastTick && after - tick < tick - before ? after : before;
+  }
+
+  private int[] snapshotAt(int tick) {
+    return snapshots[(tick / snapshotInterval) % snapshots.length];
+  }
+
+  // changes made by a tick, starting at 1
+  private int[] tickAt(int tick) {
+    return ticks[(tick - 1) % ticks.length];
+  }
+
+  // everything that differs from what the frontend was showing before the seek
+  private void fillDelta(TickDelta tickDelta) {
+    tickDelta.clear();
+    for (int i = 0; i < avatarIds.length; i++) {
+      int slot = i * AVATAR_FIELDS;
+      if (state[slot + X] != shown[slot + X] || state[slot + Y] != shown[slot + Y]) {
+        tickDelta.setAvatarPosition(avatarIds[i], state[slot + X], state[slot + Y]);
+      }
+    }
+    for (int i = 0; i < blockIds.length; i++) {
+      int slot = blockOffset + i * BLOCK_FIELDS;
+      int blockChanges = 0;
+      if (state[slot + X] != shown[slot + X] || state[slot + Y] != shown[slot + Y]) {
+        blockChanges |= TickDelta.POSITION_CHANGED;
+      }
+      if (state[slot + HELD] != shown[slot + HELD]) {
+        blockChanges |= TickDelta.HELD_CHANGED;
+      }
+      if (state[slot + NUM] != shown[slot + NUM]) {
+        blockChanges |= TickDelta.NUMBER_CHANGED;
+      }
+      if (blockChanges != 0) {
+        tickDelta.setBlock(blockIds[i], state[slot + X], state[slot + Y], state[slot + HELD] == 1,
+            state[slot + NUM], blockChanges);
+      }
+    }
+    tickDelta.startLineIndicators();
+    for (int i = 0; i < avatarIds.length; i++) {
+      int line = state[i * AVATAR_FIELDS + LINE];
+      if (line != NO_LINE) {
+        tickDelta.addLineIndicator(avatarIds[i], line);
+      }
+    }
+    tickDelta.setScore(state[scoreSlot]);
+  }
+
+  /**
+   * Returns the oldest tick the run can be moved back to
+   *
+   * @return first kept tick
+   */
+  public int getFirstTick() {
+    return firstTick;
+  }
+
+  /**
+   * Returns the tick being shown
+   *
+   * @return current tick
+   */
+  public int getCurrentTick() {
+    return currentTick;
+  }
+
+  /**
+   * Returns the last tick the frontend received
+   *
+   * @return last tick
+   */
+  public int getLastTick() {
+    return lastTick;
+  }
+
+  /**
+   * Checks whether the timeline was moved back from the last tick
+   *
+   * @return true if there are recorded ticks ahead of the current one
+   */
+  public boolean isBehind() {
+    return currentTick < lastTick;
+  }
+
+  /**
+   * Returns the state being shown as one array of fields, for tests
+   *
+   * @return copy of the state
+   */
+  int[] getState() {
+    return state.clone();
+  }
+}
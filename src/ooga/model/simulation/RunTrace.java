@@ -0,0 +1,294 @@
+package ooga.model.simulation;
+
+import java.util.Arrays;
+import ooga.controller.BackEndExternalAPI;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.gridData.TickDelta;
+
+/**
+ * Compact record of everything a CommandExecutor told the ModelController during a run, tick by
+ * tick: the TickDelta of each tick and how the run ended. Events are packed into a single int
+ * array, a TickDelta being its counts followed by the fields of each avatar, block and line
+ * indicator, so a trace of a long run is a few ints per changed element rather than an object
+ * per tick.
+ *
+ * <p>Replaying a tick makes the same calls on a BackEndExternalAPI as the executor made, so the
+ * frontend cannot tell a replayed run from a computed one. The only exception is the time bonus
+ * of a win, which depends on when the level was won and is passed in by the replayer.
+ */
+public class RunTrace {
+
+  private static final int TICK_DELTA = 0;
+  private static final int WIN = 1;
+  private static final int LOSE = 2;
+  private static final int END_OF_RUN = 3;
+  private static final int LOOPS_FOREVER = 4;
+  private static final int CANNOT_FINISH = 5;
+
+  private static final int NO_SCORE = Integer.MIN_VALUE;
+
+  private int[] data;
+  private int size;
+  private int[] tickStarts;
+  private int tickCount;
+
+  /**
+   * Creates an empty trace to record a run into
+   */
+  public RunTrace() {
+    data = new int[64];
+    tickStarts = new int[16];
+  }
+
+  /**
+   * Rebuilds a trace from the array returned by toArray. The array is checked event by event, so
+   * a trace read back from a damaged file is rejected here rather than failing while it is
+   * replayed.
+   *
+   * @param packed trace packed by toArray
+   * @throws IllegalArgumentException if the array is not a packed trace
+   */
+  RunTrace(int[] packed) {
+    if (packed.length == 0 || packed[0] < 0 || packed[0] > packed.length - 1) {
+      throw new IllegalArgumentException("corrupt run trace");
+    }
+    tickCount = packed[0];
+    tickStarts = Arrays.copyOfRange(packed, 1, 1 + tickCount);
+    data = Arrays.copyOfRange(packed, 1 + tickCount, packed.length);
+    size = data.length;
+    for (int tick = 0; tick < tickCount; tick++) {
+      int end = tick + 1 < tickCount ? tickStarts[tick + 1] : size;
+      if (tickStarts[tick] < 0 || tickStarts[tick] > end || end > size
+          || skipEvents(tickStarts[tick], end) != end) {
+        throw new IllegalArgumentException("corrupt run trace");
+      }
+    }
+  }
+
+  // index after the events from start, or -1 if they run past end or an event is unknown
+  private int skipEvents(int start, int end) {
+    int index = start;
+    while (index >= 0 && index < end) {
+      switch (data[index++]) {
+        case TICK_DELTA -> index = skipTickDelta(index, end);
+        case WIN -> index += 2;
+        case LOSE, END_OF_RUN -> {
+        }
+        case LOOPS_FOREVER, CANNOT_FINISH -> index++;
+        default -> index = -1;
+      }
+    }
+    return index;
+  }
+
+  private int skipTickDelta(int index, int end) {
+    int[] fieldsPerElement = {3, 6, 2};
+    for (int fields : fieldsPerElement) {
+      if (index >= end) {
+        return -1;
+      }
+      long count = data[index++];
+      if (count < -1 || (fields != 2 && count < 0) || index + count * fields > end) {
+        return -1;
+      }
+      index += (int) Math.max(count, 0) * fields;
+    }
+    return index + 1;
+  }
+
+  /**
+   * Returns a copy of the first ticks of this trace
+   *
+   * @param ticks number of ticks to copy
+   * @return new trace holding the given ticks, which can be recorded into further
+   */
+  public RunTrace prefix(int ticks) {
+    RunTrace prefix = new RunTrace();
+    int end = ticks < tickCount ? tickStarts[ticks] : size;
+    prefix.data = Arrays.copyOf(data, Math.max(end, 64));
+    prefix.size = end;
+    prefix.tickStarts = Arrays.copyOf(tickStarts, Math.max(ticks, 16));
+    prefix.tickCount = ticks;
+    return prefix;
+  }
+
+  /**
+   * Marks the start of the next tick; events recorded from now on belong to it
+   */
+  public void startTick() {
+    if (tickCount == tickStarts.length) {
+      tickStarts = Arrays.copyOf(tickStarts, tickCount * 2);
+    }
+    tickStarts[tickCount++] = size;
+  }
+
+  /**
+   * Records a TickDelta sent during the current tick
+   *
+   * @param tickDelta changes sent to the frontend
+   */
+  public void addTickDelta(TickDelta tickDelta) {
+    add(TICK_DELTA);
+    add(tickDelta.getAvatarCount());
+    for (int i = 0; i < tickDelta.getAvatarCount(); i++) {
+      add(tickDelta.getAvatarId(i));
+      add(tickDelta.getAvatarX(i));
+      add(tickDelta.getAvatarY(i));
+    }
+    add(tickDelta.getBlockCount());
+    for (int i = 0; i < tickDelta.getBlockCount(); i++) {
+      add(tickDelta.getBlockId(i));
+      add(tickDelta.getBlockX(i));
+      add(tickDelta.getBlockY(i));
+      add(tickDelta.isBlockHeld(i) ? 1 : 0);
+      add(tickDelta.getBlockNum(i));
+      add(tickDelta.getBlockChanges(i));
+    }
+    add(tickDelta.hasLineIndicators() ? tickDelta.getLineIndicatorCount() : -1);
+    for (int i = 0; i < tickDelta.getLineIndicatorCount(); i++) {
+      add(tickDelta.getLineIndicatorAvatarId(i));
+      add(tickDelta.getLineIndicatorLine(i));
+    }
+    add(tickDelta.hasScore() ? tickDelta.getScore() : NO_SCORE);
+  }
+
+  /**
+   * Records that the level was won during the current tick
+   *
+   * @param executionScore            score corresponding to how many lines were run
+   * @param bonusFromNumberOfCommands score corresponding to how many commands were used
+   */
+  public void addWin(int executionScore, int bonusFromNumberOfCommands) {
+    add(WIN);
+    add(executionScore);
+    add(bonusFromNumberOfCommands);
+  }
+
+  /**
+   * Records that the level was lost during the current tick
+   */
+  public void addLose() {
+    add(LOSE);
+  }
+
+  /**
+   * Records that every avatar finished during the current tick
+   */
+  public void addEndOfRun() {
+    add(END_OF_RUN);
+  }
+
+  /**
+   * Records that the run was found to loop forever during the current tick
+   *
+   * @param cycleLength number of ticks the program repeats
+   */
+  public void addLoopsForever(int cycleLength) {
+    add(LOOPS_FOREVER);
+    add(cycleLength);
+  }
+
+  /**
+   * Records that the run was found unable to reach the goal during the current tick
+   *
+   * @param commandsNeeded fewest commands the goal still needed
+   */
+  public void addCannotFinish(int commandsNeeded) {
+    add(CANNOT_FINISH);
+    add(commandsNeeded);
+  }
+
+  /**
+   * Returns the number of ticks recorded
+   *
+   * @return number of ticks
+   */
+  public int getTickCount() {
+    return tickCount;
+  }
+
+  /**
+   * Returns how many ints the trace takes, used to bound the memory of a ResultCache
+   *
+   * @return size of the packed trace
+   */
+  public int getSize() {
+    return 1 + tickCount + size;
+  }
+
+  /**
+   * Makes the calls recorded for a tick on the given API
+   *
+   * @param tick               index of the tick, starting at 0
+   * @param modelController    API to make the calls on
+   * @param tickDelta          delta to fill with the recorded changes; it is reused
+   * @param bonusFromTimeTaken time bonus to send if the level is won in this tick
+   */
+  public void replayTick(int tick, BackEndExternalAPI modelController, TickDelta tickDelta,
+      int bonusFromTimeTaken) {
+    int end = tick + 1 < tickCount ? tickStarts[tick + 1] : size;
+    int index = tickStarts[tick];
+    while (index < end) {
+      switch (data[index++]) {
+        case TICK_DELTA -> {
+          index = readTickDelta(index, tickDelta);
+          modelController.applyTickDelta(tickDelta);
+        }
+        case WIN -> {
+          modelController.winLevel(data[index], data[index + 1], bonusFromTimeTaken);
+          index += 2;
+        }
+        case LOSE -> modelController.loseLevel();
+        case END_OF_RUN -> modelController.declareEndOfRun();
+        case LOOPS_FOREVER -> modelController.loopsForever(data[index++]);
+        case CANNOT_FINISH -> modelController.cannotFinish(data[index++]);
+        default -> throw new ExceptionHandler("corrupt run trace");
+      }
+    }
+  }
+
+  /**
+   * Packs the trace into a single array, for storing it in a file
+   *
+   * @return packed trace
+   */
+  int[] toArray() {
+    int[] packed = new int[getSize()];
+    packed[0] = tickCount;
+    System.arraycopy(tickStarts, 0, packed, 1, tickCount);
+    System.arraycopy(data, 0, packed, 1 + tickCount, size);
+    return packed;
+  }
+
+  private int readTickDelta(int index, TickDelta tickDelta) {
+    tickDelta.clear();
+    int avatarCount = data[index++];
+    for (int i = 0; i < avatarCount; i++, index += 3) {
+      tickDelta.setAvatarPosition(data[index], data[index + 1], data[index + 2]);
+    }
+    int blockCount = data[index++];
+    for (int i = 0; i < blockCount; i++, index += 6) {
+      tickDelta.setBlock(data[index], data[index + 1], data[index + 2], data[index + 3] == 1,
+          data[index + 4], data[index + 5]);
+    }
+    int lineIndicatorCount = data[index++];
+    if (lineIndicatorCount >= 0) {
+      tickDelta.startLineIndicators();
+    }
+    for (int i = 0; i < lineIndicatorCount; i++, index += 2) {
+      tickDelta.addLineIndicator(data[index], data[index + 1]);
+    }
+    int score = data[index++];
+    if (score != NO_SCORE) {
+      tickDelta.setScore(score);
+    }
+    return index;
+  }
+
+  private void add(int value) {
+    if (size == data.length) {
+      data = Arrays.copyOf(data, size * 2);
+    }
+    data[size++] = value;
+  }
+}
@@ -0,0 +1,56 @@
+package ooga.model.simulation;
+
+import ooga.model.Executor;
+
+/**
+ * A request from the frontend to the SimulationThread. Commands are queued and handled by the
+ * simulation thread between ticks, in the order they were sent.
+ */
+class SimulationCommand {
+
+  static final int RESET = 0;
+  static final int PLAY = 1;
+  static final int PAUSE = 2;
+  static final int STEP = 3;
+  static final int SHUTDOWN = 4;
+
+  private final int type;
+  private final Executor executor;
+  private final int generation;
+  private final int ticksPerBatch;
+
+  SimulationCommand(int type) {
+    this(type, null, 0, 1);
+  }
+
+  SimulationCommand(int type, int ticksPerBatch) {
+    this(type, null, 0, ticksPerBatch);
+  }
+
+  SimulationCommand(int type, Executor executor, int generation) {
+    this(type, executor, generation, 1);
+  }
+
+  private SimulationCommand(int type, Executor executor, int generation, int ticksPerBatch) {
+    this.type = type;
+    this.executor = executor;
+    this.generation = generation;
+    this.ticksPerBatch = ticksPerBatch;
+  }
+
+  int getType() {
+    return type;
+  }
+
+  Executor getExecutor() {
+    return executor;
+  }
+
+  int getGeneration() {
+    return generation;
+  }
+
+  int getTicksPerBatch() {
+    return ticksPerBatch;
+  }
+}
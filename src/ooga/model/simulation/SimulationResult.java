@@ -0,0 +1,146 @@
+package ooga.model.simulation;
+
+import ooga.model.grid.InformationBundle;
+
+/**
+ * Holds everything that is known about a finished headless run: how it ended, the world it ended
+ * in, how many ticks and commands it took and the score it would have earned in the game.
+ */
+public class SimulationResult {
+
+  private static final int SCORING_FACTOR = 10;
+
+  private final Outcome outcome;
+  private final InformationBundle finalWorld;
+  private final int ticks;
+  private final int commandsExecuted;
+  private final int applesLeft;
+  private final int lineBonus;
+  private final int cycleLength;
+
+  /**
+   * Creates the result of a run
+   *
+   * @param outcome          how the run ended
+   * @param finalWorld       world at the end of the run
+   * @param ticks            number of ticks (rounds over all avatars) that executed a command
+   * @param commandsExecuted number of commands executed over all avatars
+   * @param numOfCommands    apple budget of the level
+   * @param idealLines       ideal number of lines of the level
+   * @param programLines     number of lines of the program
+   */
+  public SimulationResult(Outcome outcome, InformationBundle finalWorld, int ticks,
+      int commandsExecuted, int numOfCommands, int idealLines, int programLines) {
+    this(outcome, finalWorld, ticks, commandsExecuted, numOfCommands, idealLines, programLines,
+        0);
+  }
+
+  /**
+   * Creates the result of a run
+   *
+   * @param outcome          how the run ended
+   * @param finalWorld       world at the end of the run
+   * @param ticks            number of ticks (rounds over all avatars) that executed a command
+   * @param commandsExecuted number of commands executed over all avatars
+   * @param numOfCommands    apple budget of the level
+   * @param idealLines       ideal number of lines of the level
+   * @param programLines     number of lines of the program
+   * @param cycleLength      number of ticks the run repeats for a LOOPS_FOREVER outcome, else 0
+   */
+  public SimulationResult(Outcome outcome, InformationBundle finalWorld, int ticks,
+      int commandsExecuted, int numOfCommands, int idealLines, int programLines,
+      int cycleLength) {
+    this.cycleLength = cycleLength;
+    this.outcome = outcome;
+    this.finalWorld = finalWorld;
+    this.ticks = ticks;
+    this.commandsExecuted = commandsExecuted;
+    this.applesLeft = Math.max(0, numOfCommands - commandsExecuted);
+    this.lineBonus = (idealLines - programLines) * SCORING_FACTOR;
+  }
+
+  /**
+   * Returns how the run ended
+   *
+   * @return outcome of the run
+   */
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * Returns whether the goal state was reached
+   *
+   * @return true if the run was won
+   */
+  public boolean isWon() {
+    return outcome == Outcome.WON;
+  }
+
+  /**
+   * Returns the world as it was when the run ended
+   *
+   * @return final world
+   */
+  public InformationBundle getFinalWorld() {
+    return finalWorld;
+  }
+
+  /**
+   * Returns the number of ticks that executed at least one command
+   *
+   * @return number of ticks
+   */
+  public int getTicks() {
+    return ticks;
+  }
+
+  /**
+   * Returns the number of commands executed over all avatars
+   *
+   * @return number of commands executed
+   */
+  public int getCommandsExecuted() {
+    return commandsExecuted;
+  }
+
+  /**
+   * Returns the apples left at the end of the run (the execution score of a won level)
+   *
+   * @return apples left
+   */
+  public int getApplesLeft() {
+    return applesLeft;
+  }
+
+  /**
+   * Returns the bonus for using fewer lines than the ideal number of lines
+   *
+   * @return bonus from the number of lines
+   */
+  public int getLineBonus() {
+    return lineBonus;
+  }
+
+  /**
+   * Returns the number of ticks after which a run that loops forever repeats itself
+   *
+   * @return length of the cycle, or 0 if the run did not end with LOOPS_FOREVER
+   */
+  public int getCycleLength() {
+    return cycleLength;
+  }
+
+  /**
+   * Returns the score the run would earn in the game, not counting the time bonus which has no
+   * meaning without a player. Lost runs score nothing
+   *
+   * @return score of the run
+   */
+  public int getScore() {
+    if (!isWon()) {
+      return 0;
+    }
+    return applesLeft + lineBonus;
+  }
+}
@@ -0,0 +1,387 @@
+package ooga.model.simulation;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import ooga.model.Executor;
+import ooga.model.grid.gridData.TickDelta;
+
+/**
+ * Runs the ticks of a program on its own daemon thread so that the JavaFX Application Thread only
+ * draws. The frontend controls the run by sending commands (reset, play, pause, step), and the
+ * thread answers with TickEvents in a TickEventRing that the frontend drains one tick at a time,
+ * at the pace of its animation.
+ *
+ * <p>While playing, the thread runs ahead of the frontend until the ring is nearly full. A paused
+ * thread only runs the ticks it is asked for with step. Nothing that is published is ever thrown
+ * away by the producer: every reset starts a new generation instead, and the consumer skips the
+ * events of older ones.
+ *
+ * <p>Playing can also hand the ticks over in batches: the changes of several ticks are merged
+ * into one TickDelta and published as a single tick, so the frontend can skip the animation in
+ * between. Turbo uses a fixed number of ticks per batch, and run to end one batch for the whole
+ * run, which is cut short only by another command.
+ *
+ * <p>While playing, the thread pauses itself after a tick that stopped at a breakpoint of the
+ * Executor and tells the frontend with a BREAKPOINT event after the changes of the batch, so a
+ * run to the end stops there with the board shown once. Steps sent before the pause are dropped,
+ * and steps never stop at breakpoints.
+ *
+ * <p>The publish methods belong to the simulation thread and are meant to be called by the
+ * Executor while it runs a tick; reset, play, pause, step and pollTick belong to the frontend.
+ */
+public class SimulationThread {
+
+  private static final int RING_CAPACITY = 256;
+  private static final int TICK_HEADROOM = 16;
+  private static final long WAIT_MILLIS = 1;
+
+  /**
+   * Ticks per batch that makes play run the program to the end in a single batch
+   */
+  public static final int RUN_TO_END = 0;
+
+  private final TickEventRing ring;
+  private final int tickHeadroom;
+  private final BlockingQueue<SimulationCommand> commands;
+  private final Thread thread;
+  private volatile int latestGeneration;
+  private volatile boolean shutDown;
+
+  // frontend side
+  private int generation;
+  private boolean tickRequested;
+
+  // simulation thread side
+  private Executor executor;
+  private int runGeneration;
+  private boolean playing;
+  private int ticksPerBatch;
+  private int stepsRequested;
+  private boolean runEnded;
+  private final TickDelta batchDelta;
+
+  /**
+   * Starts the simulation thread with nothing to run
+   */
+  public SimulationThread() {
+    this(RING_CAPACITY);
+  }
+
+  /**
+   * Starts the simulation thread with nothing to run
+   *
+   * @param ringCapacity number of events that can wait for the frontend, a power of two
+   */
+  public SimulationThread(int ringCapacity) {
+    ring = new TickEventRing(ringCapacity);
+    tickHeadroom = Math.min(TICK_HEADROOM, ringCapacity / 2);
+    commands = new LinkedBlockingQueue<>();
+    batchDelta = new TickDelta();
+    thread = new Thread(this::runLoop, "simulation");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Replaces the program being run. The new executor is only used by the simulation thread from
+   * now on, and events of the previous run that the frontend has not drained yet are skipped.
+   *
+   * @param executor executor of the new run, starting paused
+   */
+  public void reset(Executor executor) {
+    generation++;
+    latestGeneration = generation;
+    tickRequested = false;
+    commands.add(new SimulationCommand(SimulationCommand.RESET, executor, generation));
+  }
+
+  /**
+   * Lets the simulation thread run ahead of the frontend, one tick at a time
+   */
+  public void play() {
+    play(1);
+  }
+
+  /**
+   * Lets the simulation thread run ahead of the frontend, publishing the given number of ticks as
+   * one
+   *
+   * @param ticksPerBatch ticks merged into each published tick, or RUN_TO_END
+   */
+  public void play(int ticksPerBatch) {
+    commands.add(new SimulationCommand(SimulationCommand.PLAY, ticksPerBatch));
+  }
+
+  /**
+   * Stops the simulation thread after the tick it is running
+   */
+  public void pause() {
+    commands.add(new SimulationCommand(SimulationCommand.PAUSE));
+  }
+
+  /**
+   * Asks for one more tick. Does nothing if a tick is already on its way, and the simulation
+   * thread ignores it while playing, since the tick will come anyway.
+   */
+  public void step() {
+    if (!tickRequested) {
+      tickRequested = true;
+      commands.add(new SimulationCommand(SimulationCommand.STEP));
+    }
+  }
+
+  /**
+   * Stops the simulation thread for good
+   */
+  public void shutdown() {
+    shutDown = true;
+    commands.add(new SimulationCommand(SimulationCommand.SHUTDOWN));
+  }
+
+  /**
+   * Frontend side. Hands the events of the next finished tick to the handler, in the order the
+   * executor sent them. Events of earlier runs are skipped.
+   *
+   * @param handler called on the calling thread with each event of the tick
+   * @return true if a whole tick was handled, false if the next tick is not ready yet
+   */
+  public boolean pollTick(Consumer<TickEvent> handler) {
+    for (TickEvent event = ring.peek(); event != null; event = ring.peek()) {
+      boolean current = event.getGeneration() == generation;
+      boolean tickEnd = event.getKind() == TickEvent.TICK_END;
+      try {
+        if (current && !tickEnd) {
+          handler.accept(event);
+        }
+      } finally {
+        ring.release();
+      }
+      if (current && tickEnd) {
+        tickRequested = false;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Simulation thread side. Adds the changes of the tick to the batch being built; they are
+   * copied into the ring when the batch ends or something else is sent to the frontend.
+   *
+   * @param tickDelta changes made so far in the tick
+   */
+  public void publishTickDelta(TickDelta tickDelta) {
+    batchDelta.mergeFrom(tickDelta);
+  }
+
+  /**
+   * Simulation thread side. Tells the frontend the level was won and stops the run.
+   *
+   * @param executionScore            score corresponding to how many lines were run
+   * @param bonusFromNumberOfCommands score corresponding to how many commands were used
+   * @param bonusFromTimeTaken        score corresponding to how much time was taken
+   */
+  public void publishWin(int executionScore, int bonusFromNumberOfCommands,
+      int bonusFromTimeTaken) {
+    runEnded = true;
+    flushBatchDelta();
+    TickEvent event = claim(TickEvent.WIN);
+    if (event != null) {
+      event.setScores(executionScore, bonusFromNumberOfCommands, bonusFromTimeTaken);
+    }
+  }
+
+  /**
+   * Simulation thread side. Tells the frontend the level was lost and stops the run.
+   */
+  public void publishLose() {
+    runEnded = true;
+    flushBatchDelta();
+    claim(TickEvent.LOSE);
+  }
+
+  /**
+   * Simulation thread side. Tells the frontend the program came back to an earlier state and
+   * stops the run.
+   *
+   * @param cycleLength number of ticks the program repeats
+   */
+  public void publishLoopsForever(int cycleLength) {
+    runEnded = true;
+    flushBatchDelta();
+    TickEvent event = claim(TickEvent.LOOPS_FOREVER);
+    if (event != null) {
+      event.setCycleLength(cycleLength);
+    }
+  }
+
+  /**
+   * Simulation thread side. Tells the frontend the program cannot reach the goal with the apples
+   * it has left and stops the run.
+   *
+   * @param commandsNeeded fewest commands the goal still needs
+   */
+  public void publishCannotFinish(int commandsNeeded) {
+    runEnded = true;
+    flushBatchDelta();
+    TickEvent event = claim(TickEvent.CANNOT_FINISH);
+    if (event != null) {
+      event.setCommandsNeeded(commandsNeeded);
+    }
+  }
+
+  /**
+   * Simulation thread side. Tells the frontend the program won the level's start state but not
+   * one of its other test vectors, and stops the run.
+   *
+   * @param testVector index of the first start state the program does not win
+   */
+  public void publishFailsTestVector(int testVector) {
+    runEnded = true;
+    flushBatchDelta();
+    TickEvent event = claim(TickEvent.FAILS_TEST_VECTOR);
+    if (event != null) {
+      event.setTestVector(testVector);
+    }
+  }
+
+  /**
+   * Simulation thread side. Tells the frontend every avatar has finished and stops the run.
+   */
+  public void publishEndOfRun() {
+    runEnded = true;
+    flushBatchDelta();
+    claim(TickEvent.END_OF_RUN);
+  }
+
+  private void runLoop() {
+    try {
+      while (!shutDown) {
+        SimulationCommand command;
+        if (!canRunTick()) {
+          command = commands.take();
+        } else if (playing && stepsRequested == 0 && ring.getFreeSlots() < tickHeadroom) {
+          command = commands.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+          if (command == null) {
+            continue;
+          }
+        } else {
+          command = commands.poll();
+        }
+        if (command != null) {
+          handleCommand(command);
+        } else {
+          runBatch();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private boolean canRunTick() {
+    return executor != null && !runEnded && (playing || stepsRequested > 0);
+  }
+
+  private void handleCommand(SimulationCommand command) {
+    switch (command.getType()) {
+      case SimulationCommand.RESET -> {
+        executor = command.getExecutor();
+        runGeneration = command.getGeneration();
+        playing = false;
+        stepsRequested = 0;
+        runEnded = false;
+        batchDelta.clear();
+      }
+      case SimulationCommand.PLAY -> {
+        playing = true;
+        ticksPerBatch = command.getTicksPerBatch();
+        stepsRequested = 0;
+      }
+      case SimulationCommand.PAUSE -> playing = false;
+      case SimulationCommand.STEP -> {
+        if (!playing) {
+          stepsRequested++;
+        }
+      }
+      default -> shutDown = true;
+    }
+  }
+
+  // a step is always a single tick; a batch stops early when the run ends or when the frontend
+  // sends a command other than step, so pause and reset are not held up by a long batch
+  private void runBatch() {
+    int batchSize = 1;
+    boolean stepping = stepsRequested > 0;
+    if (stepping) {
+      stepsRequested--;
+    } else {
+      batchSize = ticksPerBatch;
+    }
+    for (int ticks = 0; batchSize == RUN_TO_END || ticks < batchSize; ticks++) {
+      try {
+        executor.runNextCommand();
+      } catch (RuntimeException e) {
+        runEnded = true;
+        flushBatchDelta();
+        TickEvent event = claim(TickEvent.ERROR);
+        if (event != null) {
+          event.setError(e);
+        }
+      }
+      if (runEnded || isInterrupted()) {
+        break;
+      }
+      if (!stepping && executor.isAtBreakpoint()) {
+        // steps still queued were asked for while playing, before the frontend could see the
+        // breakpoint, so they must not run the tick after it
+        playing = false;
+        commands.removeIf(command -> command.getType() == SimulationCommand.STEP);
+        flushBatchDelta();
+        claim(TickEvent.BREAKPOINT);
+        break;
+      }
+    }
+    flushBatchDelta();
+    claim(TickEvent.TICK_END);
+    ring.publish();
+  }
+
+  private boolean isInterrupted() {
+    SimulationCommand next = commands.peek();
+    return shutDown || (next != null && next.getType() != SimulationCommand.STEP);
+  }
+
+  private void flushBatchDelta() {
+    if (!batchDelta.isEmpty()) {
+      TickEvent event = claim(TickEvent.TICK_DELTA);
+      if (event != null) {
+        event.getTickDelta().copyFrom(batchDelta);
+      }
+      batchDelta.clear();
+    }
+  }
+
+  // a full ring is flushed so the frontend can drain it; the event is dropped only if the run
+  // it belongs to was reset in the meantime, in which case nobody would handle it
+  private TickEvent claim(int kind) {
+    TickEvent event = ring.claim();
+    while (event == null) {
+      ring.publish();
+      if (shutDown || latestGeneration != runGeneration) {
+        return null;
+      }
+      try {
+        Thread.sleep(WAIT_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+      event = ring.claim();
+    }
+    event.set(kind, runGeneration);
+    return event;
+  }
+}
@@ -0,0 +1,49 @@
+package ooga.model.simulation;
+
+import java.util.List;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.gridData.GoalState;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Runs a program on a level from start to finish without any frontend. Nothing is sent to a
+ * BackEndExternalAPI and nothing needs to run on the JavaFX thread, so a program can be checked
+ * against a level as fast as the model can execute it (e.g. for grading or tooling).
+ */
+public interface Simulator {
+
+  /**
+   * Runs the program on the level parsed by the given parser until the level is won, lost or the
+   * apples run out. Assumption: the parser's game grid has not been run on yet; it becomes the
+   * final world of the run
+   *
+   * @param level   parsed level to run the program on
+   * @param program list of command blocks making up the program
+   * @return result of the run
+   */
+  SimulationResult run(InitialConfigurationParser level, List<CommandBlock> program);
+
+  /**
+   * Runs the program on a fresh grid built from the level template. The template is not
+   * modified, so the same template can be used for any number of runs
+   *
+   * @param level   template of the level to run the program on
+   * @param program list of command blocks making up the program
+   * @return result of the run
+   */
+  SimulationResult run(LevelTemplate level, List<CommandBlock> program);
+
+  /**
+   * Runs the program on the given world until the goal state is reached, the program ends or the
+   * apples run out. The world is modified by the run and becomes the final world of the result
+   *
+   * @param world     starting world of the run
+   * @param goalState goal state and apple budget of the level
+   * @param program   list of command blocks making up the program
+   * @return result of the run
+   */
+  SimulationResult run(ElementInformationBundle world, GoalState goalState,
+      List<CommandBlock> program);
+}
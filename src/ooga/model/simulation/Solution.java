@@ -0,0 +1,109 @@
+package ooga.model.simulation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * What the LevelSolver found for a level: the programs with the fewest lines that reach the goal,
+ * and the program that reaches it with the fewest commands executed. These are what a level's
+ * idealLines and idealNumOfCommands can be checked against.
+ */
+public class Solution {
+
+  /**
+   * Number of lines or commands of a search that found nothing
+   */
+  public static final int NOT_FOUND = -1;
+
+  private final List<List<CommandBlock>> shortestPrograms;
+  private final List<CommandBlock> fewestCommandsProgram;
+  private final int fewestCommands;
+  private final long programsTried;
+
+  /**
+   * Creates the result of a search
+   *
+   * @param shortestPrograms      winning programs with the fewest lines, all of the same length
+   * @param fewestCommandsProgram winning program with the fewest commands executed, or null
+   * @param fewestCommands        number of commands it executes, or NOT_FOUND
+   * @param programsTried         number of programs that were run during the search
+   */
+  public Solution(List<List<CommandBlock>> shortestPrograms,
+      List<CommandBlock> fewestCommandsProgram, int fewestCommands, long programsTried) {
+    this.shortestPrograms = shortestPrograms;
+    this.fewestCommandsProgram = fewestCommandsProgram;
+    this.fewestCommands = fewestCommands;
+    this.programsTried = programsTried;
+  }
+
+  /**
+   * Checks whether any program that reaches the goal was found
+   *
+   * @return true if the level was solved
+   */
+  public boolean isSolved() {
+    return !shortestPrograms.isEmpty() || fewestCommandsProgram != null;
+  }
+
+  /**
+   * Returns the number of lines of the shortest winning programs
+   *
+   * @return number of lines, or NOT_FOUND
+   */
+  public int getShortestLines() {
+    return shortestPrograms.isEmpty() ? NOT_FOUND : shortestPrograms.get(0).size();
+  }
+
+  /**
+   * Returns the winning programs with the fewest lines. Only some of them are kept when there
+   * are many
+   *
+   * @return shortest programs
+   */
+  public List<List<CommandBlock>> getShortestPrograms() {
+    return Collections.unmodifiableList(shortestPrograms);
+  }
+
+  /**
+   * Returns the winning program that executes the fewest commands
+   *
+   * @return program, or null if none was found
+   */
+  public List<CommandBlock> getFewestCommandsProgram() {
+    return fewestCommandsProgram;
+  }
+
+  /**
+   * Returns the number of commands the fewest commands program executes over all avatars
+   *
+   * @return number of commands, or NOT_FOUND
+   */
+  public int getFewestCommands() {
+    return fewestCommands;
+  }
+
+  /**
+   * Returns how many programs were run to find the solution
+   *
+   * @return number of programs run
+   */
+  public long getProgramsTried() {
+    return programsTried;
+  }
+
+  /**
+   * Writes a program on one line, such as "step down | pickUp | jump 1"
+   *
+   * @param program list of command blocks
+   * @return the lines of the program separated by bars
+   */
+  public static String describe(List<CommandBlock> program) {
+    return program.stream().map(commandBlock -> {
+      StringBuilder line = new StringBuilder(commandBlock.getType());
+      commandBlock.getParameters().values().forEach(value -> line.append(' ').append(value));
+      return line.toString();
+    }).collect(Collectors.joining(" | "));
+  }
+}
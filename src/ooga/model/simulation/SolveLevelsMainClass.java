@@ -0,0 +1,96 @@
+package ooga.model.simulation;
+
+import com.google.common.base.Stopwatch;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import ooga.controller.ModelController;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.grid.gridData.GoalState;
+
+/**
+ * Command line tool that runs the LevelSolver on the single player levels in data/gameProperties
+ * and prints, for each level, the fewest lines and commands a winning program needs next to the
+ * idealLines and idealNumOfCommands in its files, so the targets can be checked and recalibrated.
+ * Run it from the project root.
+ *
+ * <p>Usage: SolveLevelsMainClass [--lines N] [--states N] [--threads N] [level ...]. Without
+ * levels every level directory is solved. --lines is the longest program tried (default 6),
+ * --states the size of the transposition table of the fewest commands search (default 200000)
+ * and --threads the number of threads (default: one per core). A dash is printed for what was
+ * not found within those limits.
+ */
+public class SolveLevelsMainClass {
+
+  private static final String ROOT_URL_FOR_CONFIG_FILES =
+      System.getProperty("user.dir") + "/data/gameProperties/";
+  private static final String LEVEL_DIRECTORY = "level";
+
+  public static void main(String[] args) {
+    int maxLines = 6;
+    int maxStates = 200000;
+    int threads = Runtime.getRuntime().availableProcessors();
+    List<Integer> levels = new ArrayList<>();
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--lines" -> maxLines = Integer.parseInt(args[++i]);
+        case "--states" -> maxStates = Integer.parseInt(args[++i]);
+        case "--threads" -> threads = Integer.parseInt(args[++i]);
+        default -> levels.add(Integer.parseInt(args[i]));
+      }
+    }
+    if (levels.isEmpty()) {
+      levels = findLevels();
+    }
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      for (int level : levels) {
+        solve(level, maxLines, maxStates, pool);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static List<Integer> findLevels() {
+    List<Integer> levels = new ArrayList<>();
+    File[] directories = new File(ROOT_URL_FOR_CONFIG_FILES).listFiles(File::isDirectory);
+    if (directories != null) {
+      for (File directory : directories) {
+        String name = directory.getName();
+        if (name.matches(LEVEL_DIRECTORY + "\\d+")) {
+          levels.add(Integer.parseInt(name.substring(LEVEL_DIRECTORY.length())));
+        }
+      }
+    }
+    levels.sort(Integer::compare);
+    return levels;
+  }
+
+  private static void solve(int level, int maxLines, int maxStates, ForkJoinPool pool) {
+    InitialConfigurationParser parser = new InitialConfigurationParser(level, null,
+        ModelController.SINGLE_PLAYER);
+    GoalState goalState = parser.getGoalState();
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    Solution solution = new LevelSolver(parser.getLevelTemplate(), parser.getAvailableCommands(),
+        pool).solve(maxLines, maxStates);
+    long millis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+    System.out.printf("level %d: %s lines (ideal %d), %s commands (budget %d), "
+            + "%d programs in %d ms%n", level, found(solution.getShortestLines()),
+        goalState.getIdealLines(), found(solution.getFewestCommands()),
+        goalState.getNumOfCommands(), solution.getProgramsTried(), millis);
+    if (!solution.getShortestPrograms().isEmpty()) {
+      System.out.println("  shortest: "
+          + Solution.describe(solution.getShortestPrograms().get(0)));
+    }
+    if (solution.getFewestCommandsProgram() != null) {
+      System.out.println("  fewest:   " + Solution.describe(solution.getFewestCommandsProgram()));
+    }
+  }
+
+  private static String found(int count) {
+    return count == Solution.NOT_FOUND ? "-" : Integer.toString(count);
+  }
+}
@@ -0,0 +1,126 @@
+package ooga.model.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.TestVectorSet;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Checks a program against every test vector of a level, passing it only if it wins from every
+ * start state. The vectors are run at the same time on a fork join pool with the
+ * PackedSimulator, one simulator per thread. Once a vector is lost, the vectors after it that
+ * have not started yet are skipped; the ones before it still run, so the failing vector reported
+ * is always the first one, whatever the number of threads.
+ */
+public class TestVectorEvaluator {
+
+  public static final int ALL_PASSED = -1;
+
+  private static final int NOT_FOUND = Integer.MAX_VALUE;
+
+  private final List<LevelTemplate> levels;
+  private final ForkJoinPool pool;
+  private final ThreadLocal<Simulator> simulators;
+  private final LongAdder vectorsSkipped;
+
+  /**
+   * Creates an evaluator that runs on the common pool
+   *
+   * @param testVectorSet test vectors of the level
+   */
+  public TestVectorEvaluator(TestVectorSet testVectorSet) {
+    this(testVectorSet, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates an evaluator
+   *
+   * @param testVectorSet test vectors of the level
+   * @param pool          pool to run the vectors on
+   */
+  public TestVectorEvaluator(TestVectorSet testVectorSet, ForkJoinPool pool) {
+    levels = testVectorSet.getLevels();
+    this.pool = pool;
+    simulators = ThreadLocal.withInitial(PackedSimulator::new);
+    vectorsSkipped = new LongAdder();
+  }
+
+  /**
+   * Runs a program from every start state
+   *
+   * @param program program to check
+   * @return index of the first vector the program does not win, 0 being the level itself, or
+   * ALL_PASSED
+   */
+  public int findFailingVector(List<CommandBlock> program) {
+    AtomicInteger failing = new AtomicInteger(NOT_FOUND);
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int i = 0; i < levels.size(); i++) {
+      int index = i;
+      tasks.add(() -> {
+        if (index > failing.get()) {
+          vectorsSkipped.increment();
+        } else if (!wins(program, levels.get(index))) {
+          failing.accumulateAndGet(index, Math::min);
+        }
+        return null;
+      });
+    }
+    for (Future<Void> future : pool.invokeAll(tasks)) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ExceptionHandler("checking the test vectors was interrupted");
+      } catch (ExecutionException e) {
+        throw new ExceptionHandler("checking the test vectors failed: "
+            + e.getCause().getMessage());
+      }
+    }
+    return failing.get() == NOT_FOUND ? ALL_PASSED : failing.get();
+  }
+
+  /**
+   * Checks whether a program wins from every start state
+   *
+   * @param program program to check
+   * @return true if every vector is won
+   */
+  public boolean passes(List<CommandBlock> program) {
+    return findFailingVector(program) == ALL_PASSED;
+  }
+
+  private boolean wins(List<CommandBlock> program, LevelTemplate level) {
+    try {
+      return simulators.get().run(level, program).isWon();
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the number of test vectors, including the level itself
+   *
+   * @return number of vectors
+   */
+  public int getVectorCount() {
+    return levels.size();
+  }
+
+  /**
+   * Returns the number of vectors that were not run because an earlier vector was lost
+   *
+   * @return number of skipped runs
+   */
+  public long getVectorsSkipped() {
+    return vectorsSkipped.sum();
+  }
+}
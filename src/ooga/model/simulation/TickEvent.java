@@ -0,0 +1,145 @@
+package ooga.model.simulation;
+
+import ooga.model.grid.gridData.TickDelta;
+
+/**
+ * One slot of the TickEventRing: something the simulation thread tells the frontend, such as the
+ * changes of a tick or that the level was won. Slots are allocated once with the ring and
+ * overwritten by the simulation thread, so the TickDelta inside is reused as well and must only
+ * be read while the event is being handled.
+ */
+public class TickEvent {
+
+  public static final int TICK_DELTA = 0;
+  public static final int WIN = 1;
+  public static final int LOSE = 2;
+  public static final int END_OF_RUN = 3;
+  public static final int ERROR = 4;
+  public static final int TICK_END = 5;
+  public static final int LOOPS_FOREVER = 6;
+  public static final int BREAKPOINT = 7;
+  public static final int CANNOT_FINISH = 8;
+  public static final int FAILS_TEST_VECTOR = 9;
+
+  private final TickDelta tickDelta;
+  private int kind;
+  private int generation;
+  private int executionScore;
+  private int bonusFromNumberOfCommands;
+  private int bonusFromTimeTaken;
+  private int cycleLength;
+  private int commandsNeeded;
+  private int testVector;
+  private RuntimeException error;
+
+  /**
+   * Creates an empty slot
+   */
+  public TickEvent() {
+    tickDelta = new TickDelta();
+  }
+
+  void set(int kind, int generation) {
+    this.kind = kind;
+    this.generation = generation;
+    error = null;
+  }
+
+  void setScores(int executionScore, int bonusFromNumberOfCommands, int bonusFromTimeTaken) {
+    this.executionScore = executionScore;
+    this.bonusFromNumberOfCommands = bonusFromNumberOfCommands;
+    this.bonusFromTimeTaken = bonusFromTimeTaken;
+  }
+
+  void setCycleLength(int cycleLength) {
+    this.cycleLength = cycleLength;
+  }
+
+  void setCommandsNeeded(int commandsNeeded) {
+    this.commandsNeeded = commandsNeeded;
+  }
+
+  void setTestVector(int testVector) {
+    this.testVector = testVector;
+  }
+
+  void setError(RuntimeException error) {
+    this.error = error;
+  }
+
+  /**
+   * Returns what the event is about
+   *
+   * @return one of the kind constants of this class
+   */
+  public int getKind() {
+    return kind;
+  }
+
+  /**
+   * Returns the run the event belongs to. Every reset starts a new run, so events of older runs
+   * that are still in the ring can be told apart and skipped.
+   *
+   * @return run number
+   */
+  public int getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Returns the changes of the tick for TICK_DELTA events
+   *
+   * @return tick delta, only valid while the event is handled
+   */
+  public TickDelta getTickDelta() {
+    return tickDelta;
+  }
+
+  public int getExecutionScore() {
+    return executionScore;
+  }
+
+  public int getBonusFromNumberOfCommands() {
+    return bonusFromNumberOfCommands;
+  }
+
+  public int getBonusFromTimeTaken() {
+    return bonusFromTimeTaken;
+  }
+
+  /**
+   * Returns the number of ticks the program repeats for LOOPS_FOREVER events
+   *
+   * @return length of the cycle in ticks
+   */
+  public int getCycleLength() {
+    return cycleLength;
+  }
+
+  /**
+   * Returns the fewest commands the goal still needed for CANNOT_FINISH events
+   *
+   * @return lower bound on the commands needed
+   */
+  public int getCommandsNeeded() {
+    return commandsNeeded;
+  }
+
+  /**
+   * Returns the first start state the program does not win for FAILS_TEST_VECTOR events
+   *
+   * @return index of the test vector
+   */
+  public int getTestVector() {
+    return testVector;
+  }
+
+  /**
+   * Returns the exception a command threw for ERROR events
+   *
+   * @return exception thrown on the simulation thread
+   */
+  public RuntimeException getError() {
+    return error;
+  }
+}
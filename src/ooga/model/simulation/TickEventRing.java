@@ -0,0 +1,108 @@
+package ooga.model.simulation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import ooga.model.exceptions.ExceptionHandler;
+
+/**
+ * Fixed size single-producer/single-consumer queue of TickEvents between the simulation thread
+ * and the JavaFX Application Thread. All slots are allocated up front and reused, and the two
+ * threads only share two counters, so publishing and draining a tick neither locks nor allocates.
+ *
+ * <p>The producer claims slots, fills them and makes everything claimed so far visible with
+ * publish, which lets it hand over a whole tick at once. The consumer peeks at the oldest
+ * published event and releases it once it is done with it.
+ */
+public class TickEventRing {
+
+  private final TickEvent[] events;
+  private final int mask;
+  private final AtomicLong published;
+  private final AtomicLong released;
+  private long claimed;
+  private long releasedCache;
+  private long consumed;
+  private long publishedCache;
+
+  /**
+   * Creates a ring with all of its slots
+   *
+   * @param capacity number of slots, a power of two
+   */
+  public TickEventRing(int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new ExceptionHandler("ring capacity must be a power of two: " + capacity);
+    }
+    events = new TickEvent[capacity];
+    for (int i = 0; i < capacity; i++) {
+      events[i] = new TickEvent();
+    }
+    mask = capacity - 1;
+    published = new AtomicLong();
+    released = new AtomicLong();
+  }
+
+  /**
+   * Returns the number of slots
+   *
+   * @return capacity of the ring
+   */
+  public int getCapacity() {
+    return events.length;
+  }
+
+  /**
+   * Producer side. Returns the next free slot to fill, which the consumer does not see until the
+   * next publish.
+   *
+   * @return free slot, or null if the ring is full
+   */
+  public TickEvent claim() {
+    if (claimed - releasedCache == events.length) {
+      releasedCache = released.get();
+      if (claimed - releasedCache == events.length) {
+        return null;
+      }
+    }
+    return events[(int) (claimed++ & mask)];
+  }
+
+  /**
+   * Producer side. Makes every claimed slot visible to the consumer.
+   */
+  public void publish() {
+    published.lazySet(claimed);
+  }
+
+  /**
+   * Producer side. Returns how many slots can be claimed without waiting for the consumer.
+   *
+   * @return number of free slots
+   */
+  public int getFreeSlots() {
+    releasedCache = released.get();
+    return (int) (events.length - (claimed - releasedCache));
+  }
+
+  /**
+   * Consumer side. Returns the oldest published event without removing it.
+   *
+   * @return oldest event, or null if nothing is published
+   */
+  public TickEvent peek() {
+    if (consumed == publishedCache) {
+      publishedCache = published.get();
+      if (consumed == publishedCache) {
+        return null;
+      }
+    }
+    return events[(int) (consumed & mask)];
+  }
+
+  /**
+   * Consumer side. Hands the slot returned by peek back to the producer.
+   */
+  public void release() {
+    consumed++;
+    released.lazySet(consumed);
+  }
+}
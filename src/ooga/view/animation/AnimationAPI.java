@@ -18,6 +18,18 @@ public interface AnimationAPI {
    */
   void play();
 
+  /**
+   * plays the program without animating the moves, running the given number of ticks for every
+   * frame drawn
+   * @param ticksPerFrame number of ticks per frame
+   */
+  void turbo(int ticksPerFrame);
+
+  /**
+   * runs the program to the end at full speed and then shows where everything ended up
+   */
+  void runToEnd();
+
   /**
    * resets the animation
    */
@@ -28,6 +40,23 @@ public interface AnimationAPI {
    */
   void step();
 
+  /**
+   * goes back one tick of the run without running it again
+   */
+  void stepBack();
+
+  /**
+   * shows the run as it was after the given tick without running it again
+   * @param tick number of ticks into the run
+   */
+  void seek(int tick);
+
+  /**
+   * stops at a breakpoint: the board already shows the tick the run stopped after, and from here
+   * the moves are animated again
+   */
+  void breakpointHit();
+
   /**
    * declares end of animation for the coding block
    */
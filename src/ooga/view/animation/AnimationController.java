@@ -15,6 +15,14 @@ import ooga.view.level.codearea.CodeArea;
  * A frontend internal API that gets executed when the user interacts with the animation buttons.
  * Methods in this class are called in LevelView so that LevelView can update the state of the animation
  * according to what AnimationController is telling it.
+ * The program itself runs on the simulation thread: play and pause are passed on to it as
+ * commands, and every frame only picks up a tick the simulation has already computed.
+ * In turbo and run to end the simulation merges many ticks into one, and every frame shows the
+ * next merged tick without animating the moves.
+ * Stepping back and the scrubber move through the ticks the frontend was already shown, which the
+ * model keeps, so the moves are not animated and the simulation is not asked for anything.
+ * With breakpoints set, play runs the program at full speed without animating it until a
+ * breakpoint is hit, shows the board once, and pauses with the animation back on.
  * @author Ji Yun Hyo
  */
 public class AnimationController implements AnimationAPI{
@@ -25,6 +33,8 @@ public class AnimationController implements AnimationAPI{
   private boolean step;
   private double isInitialStep;
   private boolean isPaused;
+  private boolean skipAnimation;
+  private boolean hasRun;
 
   private final LevelView levelView;
   private final FrontEndExternalAPI viewController;
@@ -51,7 +61,9 @@ public class AnimationController implements AnimationAPI{
   private void initializeAnimationTimeline() {
     timeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> {
       if(!isPaused){
-        if (queueFinished) {
+        if (skipAnimation) {
+          viewController.runNextCommand();
+        } else if (queueFinished) {
           if (step && isInitialStep != 1) {
             isPaused = true;
             step = false;
@@ -73,6 +85,7 @@ public class AnimationController implements AnimationAPI{
    */
   public void pause() {
     isPaused = true;
+    viewController.pauseSimulation();
   }
 
   /**
@@ -80,6 +93,35 @@ public class AnimationController implements AnimationAPI{
    */
   public void play() {
 //    timeline.play();
+    if (codeArea.getBreakpointLines().isEmpty() && codeArea.getBreakConditions().isBlank()) {
+      startRun(true);
+      viewController.playSimulation(1);
+    } else {
+      startRun(false);
+      viewController.runSimulationToEnd();
+    }
+  }
+
+  /**
+   * plays the program without animating the moves, running the given number of ticks for every
+   * frame drawn
+   * @param ticksPerFrame number of ticks per frame
+   */
+  public void turbo(int ticksPerFrame) {
+    startRun(false);
+    viewController.playSimulation(ticksPerFrame);
+  }
+
+  /**
+   * runs the program to the end at full speed and then shows where everything ended up
+   */
+  public void runToEnd() {
+    startRun(false);
+    viewController.runSimulationToEnd();
+  }
+
+  private void startRun(boolean animated) {
+    sendBreakpoints();
     isPaused = false;
     step = false;
     if (!codeIsRunning) {
@@ -87,19 +129,25 @@ public class AnimationController implements AnimationAPI{
       isPaused = false;
       viewController.parseCommands(codeArea.getProgram());
       codeIsRunning = true;
+      hasRun = true;
     }
+    skipAnimation = !animated;
+    board.setAnimated(animated);
   }
 
   /**
    * resets the animation
    */
   public void reset() {
+    viewController.pauseSimulation();
     codeIsRunning = false;
+    hasRun = false;
     board.reset();
     isPaused = true;
     isInitialStep = 1;
     codeArea.setLineIndicators(new HashMap<>());
     levelView.resetScore();
+    controlPanel.setTimeline(0, 0, 0);
   }
 
   /**
@@ -107,12 +155,17 @@ public class AnimationController implements AnimationAPI{
    */
   public void step() {
     isPaused = false;
+    skipAnimation = false;
+    board.setAnimated(true);
+    viewController.pauseSimulation();
+    sendBreakpoints();
     if (!codeIsRunning) {
       reset();
       isPaused = false;
       viewController.parseCommands(codeArea.getProgram());
       queueFinished = false;
       codeIsRunning = true;
+      hasRun = true;
     }
     step = true;
     if (queueFinished) {
@@ -123,6 +176,55 @@ public class AnimationController implements AnimationAPI{
     }
   }
 
+  /**
+   * goes back one tick of the run without running it again
+   */
+  public void stepBack() {
+    if (stopForSeek()) {
+      viewController.stepBack();
+    }
+  }
+
+  /**
+   * shows the run as it was after the given tick without running it again
+   * @param tick number of ticks into the run
+   */
+  public void seek(int tick) {
+    if (stopForSeek()) {
+      viewController.seekTick(tick);
+    }
+  }
+
+  // pauses and finishes the queued moves; a run that ended can be stepped forward again from here
+  private boolean stopForSeek() {
+    if (!hasRun) {
+      return false;
+    }
+    isPaused = true;
+    step = false;
+    viewController.pauseSimulation();
+    board.setAnimated(false);
+    queueFinished = true;
+    codeIsRunning = true;
+    return true;
+  }
+
+  /**
+   * stops at a breakpoint: the board already shows the tick the run stopped after, and from here
+   * the moves are animated again
+   */
+  public void breakpointHit() {
+    isPaused = true;
+    step = false;
+    skipAnimation = false;
+    board.setAnimated(true);
+    queueFinished = true;
+  }
+
+  private void sendBreakpoints() {
+    viewController.setBreakpoints(codeArea.getBreakpointLines(), codeArea.getBreakConditions());
+  }
+
   /**
    * declares end of animation for the coding block
    */
@@ -151,6 +253,7 @@ public class AnimationController implements AnimationAPI{
    */
   public void stopAnimation() {
     isPaused = true;
+    viewController.pauseSimulation();
     timeline.stop();
   }
 }
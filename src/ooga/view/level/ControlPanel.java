@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.function.IntConsumer;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.scene.control.Button;
@@ -15,7 +16,8 @@ import ooga.view.ScreenCreator;
 
 /**
  * Creates pane that contains all the necessary buttons to control the game.
- * Includes play, pause, step, and reset buttons.
+ * Includes play, pause, step, reset, turbo, run to end and step back buttons, the speed slider
+ * and a scrubber for moving through the ticks of the run.
  * @author Kathleen Chen
  * @author David Li
  * @author Ji Yun Hyo
@@ -28,6 +30,8 @@ public class ControlPanel extends GridPane {
   private ResourceBundle controlPanelResources;
   private int col = 0;
   private Slider slider;
+  private Slider scrubber;
+  private boolean movingScrubber;
 
   /**
    * Main constructor.
@@ -42,6 +46,7 @@ public class ControlPanel extends GridPane {
     buttons = new HashMap<>();
     makeButtons(buttonNames);
     makeSlider();
+    makeScrubber();
   }
 
   /**
@@ -52,6 +57,14 @@ public class ControlPanel extends GridPane {
     return slider.getValue();
   }
 
+  /**
+   * Returns how many ticks turbo mode runs for every frame it draws.
+   * @return int number of ticks per frame
+   */
+  public int getTurboTicksPerFrame() {
+    return Integer.parseInt(controlPanelResources.getString("turboTicksPerFrame"));
+  }
+
   /**
    * Set's a particular button's action based on the EventHandler.
    * @param buttonName String of the name of the button
@@ -61,6 +74,41 @@ public class ControlPanel extends GridPane {
     buttons.get(buttonName).setOnAction(eventHandler);
   }
 
+  /**
+   * Sets what happens when the user drags the scrubber to a tick.
+   * @param action IntConsumer that is given the tick the scrubber was moved to
+   */
+  public void setScrubberAction(IntConsumer action) {
+    scrubber.valueProperty().addListener((observable, oldValue, newValue) -> {
+      int tick = (int) Math.round(newValue.doubleValue());
+      if (!movingScrubber && tick != (int) Math.round(oldValue.doubleValue())) {
+        action.accept(tick);
+      }
+    });
+  }
+
+  /**
+   * Moves the scrubber to show which ticks of the run can be moved to and which one is shown,
+   * without telling the scrubber's action about it.
+   * @param firstTick int oldest tick that is kept
+   * @param currentTick int tick being shown
+   * @param lastTick int last tick that was run
+   */
+  public void setTimeline(int firstTick, int currentTick, int lastTick) {
+    movingScrubber = true;
+    scrubber.setMin(firstTick);
+    scrubber.setMax(Math.max(lastTick, firstTick));
+    scrubber.setValue(currentTick);
+    movingScrubber = false;
+  }
+
+  private void makeScrubber() {
+    scrubber = new Slider(0, 0, 0);
+    scrubber.setBlockIncrement(1);
+    scrubber.setId(ScreenCreator.idsForTests.getString("scrubber"));
+    this.add(scrubber, col + 1, 0);
+  }
+
   private void makeSlider() {
     slider = new Slider(10, 100,25);
     slider.setId(ScreenCreator.idsForTests.getString("slider"));
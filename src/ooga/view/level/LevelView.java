@@ -17,6 +17,7 @@ import ooga.controller.FrontEndExternalAPI;
 import ooga.model.commands.AvailableCommands;
 import ooga.model.grid.gridData.GameGridData;
 import ooga.model.grid.gridData.InitialState;
+import ooga.model.grid.gridData.TickDelta;
 import ooga.view.ScreenCreator;
 import ooga.view.animation.AnimationAPI;
 import ooga.view.animation.AnimationController;
@@ -168,6 +169,11 @@ public class LevelView extends BorderPane implements ProgramListener {
     controlPanel.setButtonAction("Button2_Play", e -> animationController.play());
     controlPanel.setButtonAction("Button3_Pause", e -> animationController.pause());
     controlPanel.setButtonAction("Button4_Step", e -> animationController.step());
+    controlPanel.setButtonAction("Button5_Turbo",
+        e -> animationController.turbo(controlPanel.getTurboTicksPerFrame()));
+    controlPanel.setButtonAction("Button6_RunToEnd", e -> animationController.runToEnd());
+    controlPanel.setButtonAction("Button7_StepBack", e -> animationController.stepBack());
+    controlPanel.setScrubberAction(tick -> animationController.seek(tick));
     this.setTop(menuBar);
     scoreDisplay = GUIFactory.makeLabel(levelResources, "scoreDisplay", "default-string", NO_NUM);
 
@@ -207,6 +213,53 @@ public class LevelView extends BorderPane implements ProgramListener {
     board.updateAvatarPosition(id, xCoord, yCoord);
   }
 
+  /**
+   * Applies all changes of one tick in a single pass: sprites, line indicators and score
+   * @param tickDelta Changes of the tick
+   */
+  public void applyTickDelta(TickDelta tickDelta) {
+    for (int i = 0; i < tickDelta.getAvatarCount(); i++) {
+      board.updateAvatarPosition(tickDelta.getAvatarId(i), tickDelta.getAvatarX(i),
+          tickDelta.getAvatarY(i));
+    }
+    for (int i = 0; i < tickDelta.getBlockCount(); i++) {
+      int id = tickDelta.getBlockId(i);
+      int changes = tickDelta.getBlockChanges(i);
+      if ((changes & TickDelta.POSITION_CHANGED) != 0) {
+        board.updateBlockPosition(id, tickDelta.getBlockX(i), tickDelta.getBlockY(i));
+      }
+      if ((changes & TickDelta.HELD_CHANGED) != 0) {
+        board.updateBlock(id, tickDelta.isBlockHeld(i));
+      }
+      if ((changes & TickDelta.NUMBER_CHANGED) != 0) {
+        board.setBlockNumber(id, tickDelta.getBlockNum(i));
+      }
+    }
+    if (tickDelta.hasLineIndicators()) {
+      codeArea.setLineIndicators(tickDelta);
+    }
+    if (tickDelta.hasScore()) {
+      setScore(tickDelta.getScore());
+    }
+  }
+
+  /**
+   * Shows which ticks of the run the scrubber can move to and which one is on the board
+   * @param firstTick Oldest tick that is kept
+   * @param currentTick Tick being shown
+   * @param lastTick Last tick that was run
+   */
+  public void updateTimeline(int firstTick, int currentTick, int lastTick) {
+    controlPanel.setTimeline(firstTick, currentTick, lastTick);
+  }
+
+  /**
+   * Pauses the animation at a breakpoint
+   */
+  public void breakpointHit() {
+    animationController.breakpointHit();
+  }
+
   /**
    * Declares end of animation for the coding block
    */
@@ -301,6 +354,48 @@ public class LevelView extends BorderPane implements ProgramListener {
     }));
   }
 
+  /**
+   * Clears the screen and displays the lose screen, telling the player the program was stopped
+   * because it repeats the same ticks forever
+   *
+   * @param cycleLength Number of ticks the program repeats
+   */
+  public void loopsForever(int cycleLength) {
+    animationController.reset();
+    clearScreen();
+    this.setCenter(new LoseScreen(e -> {
+      restoreScreen();
+    }, LoseScreen.LOOPS_FOREVER, cycleLength));
+  }
+
+  /**
+   * Clears the screen and displays the lose screen, telling the player the program was stopped
+   * because it needs more commands than it has apples left
+   *
+   * @param commandsNeeded Fewest commands the goal still needs
+   */
+  public void cannotFinish(int commandsNeeded) {
+    animationController.reset();
+    clearScreen();
+    this.setCenter(new LoseScreen(e -> {
+      restoreScreen();
+    }, LoseScreen.CANNOT_FINISH, commandsNeeded));
+  }
+
+  /**
+   * Clears the screen and displays the lose screen, telling the player the program only works
+   * for some of the level's start states
+   *
+   * @param testVector Index of the first start state the program does not win
+   */
+  public void failsTestVector(int testVector) {
+    animationController.reset();
+    clearScreen();
+    this.setCenter(new LoseScreen(e -> {
+      restoreScreen();
+    }, LoseScreen.FAILS_TEST_VECTOR, testVector));
+  }
+
   /**
    * Sets the score to its default value
    */
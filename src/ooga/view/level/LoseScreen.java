@@ -7,6 +7,7 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
 import ooga.view.ScreenCreator;
 
+import java.text.MessageFormat;
 import java.util.ResourceBundle;
 
 /**
@@ -17,15 +18,32 @@ import java.util.ResourceBundle;
  */
 public class LoseScreen extends VBox {
 
+  public static final String OUT_OF_APPLES = "lose";
+  public static final String LOOPS_FOREVER = "loopsForever";
+  public static final String CANNOT_FINISH = "cannotFinish";
+  public static final String FAILS_TEST_VECTOR = "failsTestVector";
+
   /**
    * Main constructor
    * @param tryAgainAction Action for trying the level again
    */
   public LoseScreen(EventHandler<ActionEvent> tryAgainAction) {
+    this(tryAgainAction, OUT_OF_APPLES);
+  }
+
+  /**
+   * Constructor for a specific reason of losing
+   * @param tryAgainAction Action for trying the level again
+   * @param messageKey Key of the message in ScreenStrings
+   * @param messageArguments Values filled into the message
+   */
+  public LoseScreen(EventHandler<ActionEvent> tryAgainAction, String messageKey,
+      Object... messageArguments) {
     ResourceBundle loseMessages = ResourceBundle
         .getBundle(ScreenCreator.RESOURCES + WinScreen.SCREEN_MESSAGES);
     this.getStyleClass().add("start-screen");
-    Label loseMessage = new Label(loseMessages.getString("lose"));
+    MessageFormat formatter = new MessageFormat(loseMessages.getString(messageKey));
+    Label loseMessage = new Label(formatter.format(messageArguments));
     loseMessage.getStyleClass().add("title");
     this.getChildren().add(loseMessage);
     Button tryAgainButton = new Button(loseMessages.getString("loseButton"));
@@ -142,6 +142,14 @@ public class Board extends StackPane {
     }
   }
 
+  /**
+   * Turns the movement animation of the sprites on or off.
+   * @param animated boolean indicating whether moves are animated
+   */
+  public void setAnimated(boolean animated) {
+    spriteLayer.setAnimated(animated);
+  }
+
   /**
    * Resets the animation queue.
    */
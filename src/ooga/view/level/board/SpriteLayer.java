@@ -27,6 +27,7 @@ public class SpriteLayer extends Pane {
   private Map<String, BlockData> initialBlockData;
   private final Animation animation;
   private Map<Integer, Deque<Double>> allElementInformation;
+  private boolean animated = true;
 
   /**
    * Sets the layer that is going to be used to display all the elements of the game. This was to
@@ -89,6 +90,11 @@ public class SpriteLayer extends Pane {
    */
   public void updateAvatarPosition(int id, int xCoord, int yCoord) {
     ViewAvatar viewAvatar = avatars.get(id);
+    if (!animated) {
+      animation.getAllElementInformation().remove(id);
+      viewAvatar.moveAvatar(xCoord, yCoord);
+      return;
+    }
     animation.queuePositionUpdates(id, viewAvatar.getInitialXCoordinate(),
         viewAvatar.getInitialYCoordinate(), xCoord, yCoord);
   }
@@ -101,6 +107,11 @@ public class SpriteLayer extends Pane {
    */
   public void updateBlockPosition(int id, int xCoord, int yCoord) {
     ViewBlock viewBlock = blocks.get(id);
+    if (!animated) {
+      animation.getAllElementInformation().remove(id);
+      viewBlock.moveBlock(xCoord, yCoord);
+      return;
+    }
     animation.queuePositionUpdates(id, viewBlock.getInitialXCoordinate(),
         viewBlock.getInitialYCoordinate(), xCoord, yCoord);
   }
@@ -128,6 +139,30 @@ public class SpriteLayer extends Pane {
     blocks.get(id).updateCubeNumber(newDisplayNum);
   }
 
+  /**
+   * Turns the movement animation on or off. Without it, elements jump straight to their new
+   * tile, which is what turbo and run to end use. Turning it off finishes the moves that are
+   * still queued first.
+   * @param animated boolean indicating whether moves are animated
+   */
+  public void setAnimated(boolean animated) {
+    if (!animated) {
+      animation.getAllElementInformation().forEach((id, positions) -> {
+        if (positions.size() >= 2) {
+          double lastY = positions.removeLast();
+          double lastX = positions.removeLast();
+          if (avatars.containsKey(id)) {
+            avatars.get(id).moveAvatar(lastX, lastY);
+          } else if (blocks.containsKey(id)) {
+            blocks.get(id).moveBlock(lastX, lastY);
+          }
+        }
+      });
+      animation.reset();
+    }
+    this.animated = animated;
+  }
+
   /**
    * Update the animation and tell the view to display the updated animation
    * @return boolean to indicate whether the updating animation has finished
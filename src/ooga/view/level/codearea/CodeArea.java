@@ -5,22 +5,29 @@ import java.util.Map;
 import java.util.ResourceBundle;
 import javafx.scene.Node;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.control.TextField;
 import javafx.scene.layout.GridPane;
 import ooga.model.commands.AvailableCommands;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.gridData.TickDelta;
+import ooga.model.simulation.BreakCondition;
 import ooga.view.ScreenCreator;
 import ooga.view.level.LevelView;
 
 /**
- * Area of the level view that displays the command bank and program stack.
+ * Area of the level view that displays the command bank and program stack, and a field for
+ * conditional breakpoints below them.
  *
  * @author David Li
  */
 public class CodeArea extends GridPane {
 
   private static final String CODEAREA_PROPERTIES = "CodeArea";
+  private static final String CONDITIONS_ERROR_STYLE = "break-conditions-error";
 
   private final CommandBank commandBank;
   private final ProgramStack programStack;
+  private final TextField breakConditions;
 
   /**
    * Main constructor
@@ -35,6 +42,12 @@ public class CodeArea extends GridPane {
     ResourceBundle sizeProperties = ResourceBundle
         .getBundle(ScreenCreator.RESOURCES + CODEAREA_PROPERTIES);
     double commandBankWidth = Double.parseDouble(sizeProperties.getString("CommandBankWidth"));
+    breakConditions = new TextField();
+    breakConditions.setPromptText(sizeProperties.getString("BreakConditionsPrompt"));
+    breakConditions.setId("break-conditions");
+    breakConditions.textProperty().addListener((observable, oldText, newText) ->
+        checkBreakConditions(newText));
+    this.add(breakConditions, 0, 1, 2, 1);
     sizeProperties = ResourceBundle.getBundle(ScreenCreator.RESOURCES + LevelView.LEVEL_PROPERTIES);
     double programWidth =
         Double.parseDouble(sizeProperties.getString("CodeAreaWidth")) - commandBankWidth;
@@ -51,10 +64,43 @@ public class CodeArea extends GridPane {
     programStack.setLineIndicators(lineNumbers);
   }
 
+  /**
+   * Sets which line each avatar is running from the line indicators of a tick
+   * @param tickDelta Changes of the tick
+   */
+  public void setLineIndicators(TickDelta tickDelta) {
+    programStack.setLineIndicators(tickDelta);
+  }
+
   public List<CommandBlock> getProgram() {
     return programStack.getProgram();
   }
 
+  /**
+   * Returns the lines that have a breakpoint
+   * @return Line numbers, starting at 1
+   */
+  public List<Integer> getBreakpointLines() {
+    return programStack.getBreakpointLines();
+  }
+
+  /**
+   * Returns the breakpoint conditions typed in by the player
+   * @return Conditions separated by semicolons
+   */
+  public String getBreakConditions() {
+    return breakConditions.getText();
+  }
+
+  private void checkBreakConditions(String text) {
+    breakConditions.getStyleClass().remove(CONDITIONS_ERROR_STYLE);
+    try {
+      BreakCondition.parseAll(text);
+    } catch (ExceptionHandler e) {
+      breakConditions.getStyleClass().add(CONDITIONS_ERROR_STYLE);
+    }
+  }
+
   /**
    * Adds the available commands to the command bank and sets the available commands for the program
    * @param availableCommands Available commands
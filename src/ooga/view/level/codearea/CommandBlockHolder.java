@@ -20,7 +20,7 @@ import javafx.scene.shape.Rectangle;
 
 /**
  * JavaFX element that displays a CommandBlock. Shows line number, command type, and parameter
- * dropdown menus.
+ * dropdown menus. Clicking the line number toggles a breakpoint on the line.
  *
  * @author David Li
  */
@@ -31,6 +31,7 @@ public class CommandBlockHolder extends GridPane {
   private static final double ITEM_HEIGHT = 30;
   private static final int MAX_INDICATORS = 3;
   private static final double PADDING = 4;
+  private static final String BREAKPOINT_STYLE = "command-index-breakpoint";
 
   private final ProgramStack programStack;
 
@@ -45,6 +46,7 @@ public class CommandBlockHolder extends GridPane {
 
   private int columns;
   private boolean isOtherPlayer = false;
+  private boolean hasBreakpoint = false;
 
   /**
    * Main constructor
@@ -95,6 +97,22 @@ public class CommandBlockHolder extends GridPane {
     indexLabel.setText(prefix + index);
   }
 
+  public boolean hasBreakpoint() {
+    return hasBreakpoint;
+  }
+
+  /**
+   * Turns the breakpoint on this line on or off
+   */
+  public void toggleBreakpoint() {
+    hasBreakpoint = !hasBreakpoint;
+    if (hasBreakpoint) {
+      indexLabel.getStyleClass().add(BREAKPOINT_STYLE);
+    } else {
+      indexLabel.getStyleClass().remove(BREAKPOINT_STYLE);
+    }
+  }
+
   /**
    * Adds each of the ids to the line indicator box
    * @param ids Ids to be added
@@ -210,6 +228,7 @@ public class CommandBlockHolder extends GridPane {
       List<Map<String, List<String>>> parameterOptions) {
     indexLabel = new Label();
     indexLabel.getStyleClass().add("command-index");
+    indexLabel.setOnMouseClicked(e -> toggleBreakpoint());
     addItem(indexLabel, INDEX_WIDTH);
     indexLabel.setAlignment(Pos.CENTER);
     Label command = new Label(type);
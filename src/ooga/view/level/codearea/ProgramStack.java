@@ -8,6 +8,7 @@ import java.util.Map;
 import javafx.application.Platform;
 import javafx.scene.layout.VBox;
 import ooga.model.commands.AvailableCommands;
+import ooga.model.grid.gridData.TickDelta;
 
 /**
  * Displays the player-created program comprised of command blocks.
@@ -88,6 +89,20 @@ public class ProgramStack extends VBox {
     return program;
   }
 
+  /**
+   * Returns the lines that have a breakpoint
+   * @return Line numbers, starting at 1
+   */
+  public List<Integer> getBreakpointLines() {
+    List<Integer> lines = new ArrayList<>();
+    for (int i = 0; i < programBlocks.size(); i++) {
+      if (programBlocks.get(i).hasBreakpoint()) {
+        lines.add(i + 1);
+      }
+    }
+    return lines;
+  }
+
   /**
    * Removes a command block from the progarm stack
    * @param index Index of command to be removed
@@ -140,6 +155,22 @@ public class ProgramStack extends VBox {
     }
   }
 
+  /**
+   * Sets which line each avatar is running, reading the line indicators of a tick directly
+   * @param tickDelta Changes of the tick
+   */
+  public void setLineIndicators(TickDelta tickDelta) {
+    List<List<Integer>> indicators = new ArrayList<>();
+    programBlocks.forEach(commandBlockHolder -> indicators.add(new ArrayList<>()));
+    for (int i = 0; i < tickDelta.getLineIndicatorCount(); i++) {
+      indicators.get(tickDelta.getLineIndicatorLine(i) - 1)
+          .add(tickDelta.getLineIndicatorAvatarId(i));
+    }
+    for (int i = 0; i < programBlocks.size(); i++) {
+      programBlocks.get(i).setLineIndicators(indicators.get(i));
+    }
+  }
+
   /**
    * Adds a program listener
    * @param programListener Program listener
@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -60,6 +61,36 @@ public class GridTest {
 
       }
 
+      @Override
+      public void playSimulation(int ticksPerFrame) {
+
+      }
+
+      @Override
+      public void runSimulationToEnd() {
+
+      }
+
+      @Override
+      public void stepBack() {
+
+      }
+
+      @Override
+      public void seekTick(int tick) {
+
+      }
+
+      @Override
+      public void setBreakpoints(Collection<Integer> lines, String conditions) {
+
+      }
+
+      @Override
+      public void pauseSimulation() {
+
+      }
+
       @Override
       public void declareEndOfRun() {
 
@@ -111,6 +142,16 @@ public class GridTest {
 
       }
 
+      @Override
+      public void loopsForever(int cycleLength) {
+
+      }
+
+      @Override
+      public void cannotFinish(int commandsNeeded) {
+
+      }
+
       @Override
       public void updateProgram(List<CommandBlock> program) {
 
@@ -10,6 +10,7 @@ import com.google.api.client.util.ArrayMap;
 import com.google.common.base.Stopwatch;
 import java.security.spec.ECField;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -66,6 +67,36 @@ public class InformationBundleTests {
 
       }
 
+      @Override
+      public void playSimulation(int ticksPerFrame) {
+
+      }
+
+      @Override
+      public void runSimulationToEnd() {
+
+      }
+
+      @Override
+      public void stepBack() {
+
+      }
+
+      @Override
+      public void seekTick(int tick) {
+
+      }
+
+      @Override
+      public void setBreakpoints(Collection<Integer> lines, String conditions) {
+
+      }
+
+      @Override
+      public void pauseSimulation() {
+
+      }
+
       @Override
       public void updateAvatarPosition(int id, int xCoord, int yCoord) {
 
@@ -112,6 +143,16 @@ public class InformationBundleTests {
 
       }
 
+      @Override
+      public void loopsForever(int cycleLength) {
+
+      }
+
+      @Override
+      public void cannotFinish(int commandsNeeded) {
+
+      }
+
       @Override
       public void updateProgram(List<CommandBlock> program) {
 
@@ -0,0 +1,163 @@
+package ooga.model;
+
+import static ooga.model.SimulationFixtures.recordingApi;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.base.Stopwatch;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.Structure;
+import ooga.model.grid.gridData.BlockData;
+import ooga.model.grid.gridData.GoalState;
+import ooga.model.grid.gridData.InitialState;
+import ooga.model.player.Avatar;
+import ooga.model.player.DataCube;
+import ooga.model.simulation.ResultCache;
+import ooga.model.simulation.ResultKey;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RunHistoryTest {
+
+  private LevelTemplate level;
+  private ResultCache resultCache;
+
+  @BeforeEach
+  public void setup() {
+    ElementInformationBundle grid = new ElementInformationBundle();
+    grid.setDimensions(30, 7);
+    for (int x = 0; x < 30; x++) {
+      for (int y = 0; y < 7; y++) {
+        grid.setStructure(x, y, Structure.FLOOR);
+      }
+    }
+    grid.addAvatar(new Avatar(1, 0, 2));
+    grid.addAvatar(new Avatar(2, 0, 4));
+    grid.addBlock(new DataCube(5, 3, 2, 4));
+    Map<String, BlockData> goalBlocks = new HashMap<>();
+    goalBlocks.put("1000000", new BlockData(List.of(0, 0), -1, true, 1000000));
+    // a goal for the block keeps the lower bound from stopping the runs; its number never changes
+    goalBlocks.put("5", new BlockData(List.of(3, 2), -1, false, 5));
+    InitialState initialState = new InitialState(new HashMap<>(), new HashMap<>(),
+        new ArrayList<>(), new HashMap<>(), "", 1, 1, 600, 1);
+    level = new LevelTemplate(grid, initialState,
+        new GoalState(new HashMap<>(), goalBlocks, 1000, 0, 1));
+    resultCache = new ResultCache(16, 100000);
+  }
+
+  private List<CommandBlock> program(String... typesAndDirections) {
+    List<CommandBlock> program = new ArrayList<>();
+    for (String command : typesAndDirections) {
+      String[] words = command.split(" ");
+      Map<String, String> parameters = new HashMap<>();
+      if (words[0].equals("step")) {
+        parameters.put("direction", words[1]);
+      } else if (words[0].equals("if")) {
+        parameters.put("direction", words[1]);
+        parameters.put("comparator", "equal");
+        parameters.put("target", "wall");
+      }
+      String type = words[0].equals("endif") ? "end if" : words[0];
+      program.add(new CommandBlock(program.size() + 1, type, parameters));
+    }
+    return program;
+  }
+
+  // sixteen steps to the right, picking up the block on the way, then the given lines
+  private List<CommandBlock> longProgram(String... ending) {
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 16; i++) {
+      lines.add(i == 3 ? "pickUp" : "step right");
+    }
+    lines.addAll(List.of(ending));
+    return program(lines.toArray(new String[0]));
+  }
+
+  private CommandExecutor newRun(List<CommandBlock> program, List<String> calls) {
+    CommandExecutor commandExecutor = new CommandExecutor(program, recordingApi(calls),
+        level.getInitialState(), level.createGameGrid(), level.getGoalState(),
+        Stopwatch.createUnstarted());
+    commandExecutor.recordInto(resultCache, ResultKey.of(level, program));
+    return commandExecutor;
+  }
+
+  private void runToEnd(CommandExecutor commandExecutor, List<String> calls) {
+    while (calls.isEmpty() || !isEnding(calls.get(calls.size() - 1))) {
+      commandExecutor.runNextCommand();
+    }
+  }
+
+  private boolean isEnding(String call) {
+    return call.startsWith("declareEndOfRun") || call.startsWith("loseLevel")
+        || call.startsWith("winLevel") || call.startsWith("loopsForever")
+        || call.startsWith("cannotFinish");
+  }
+
+  private CommandExecutor assertResumedRunMatchesFullRun(CommandExecutor previousRun,
+      List<CommandBlock> editedProgram, int expectedResumedTick) {
+    List<String> fullCalls = new ArrayList<>();
+    runToEnd(newRun(editedProgram, fullCalls), fullCalls);
+    List<String> resumedCalls = new ArrayList<>();
+    CommandExecutor resumedRun = newRun(editedProgram, resumedCalls);
+    resumedRun.resumeFrom(previousRun);
+    runToEnd(resumedRun, resumedCalls);
+    assertEquals(expectedResumedTick, resumedRun.getResumedTick());
+    assertEquals(fullCalls, resumedCalls);
+    return resumedRun;
+  }
+
+  @Test
+  public void testLateEditResumesFromACheckpoint() {
+    List<String> calls = new ArrayList<>();
+    CommandExecutor firstRun = newRun(longProgram("step down", "step up", "drop"), calls);
+    runToEnd(firstRun, calls);
+    CommandExecutor secondRun = assertResumedRunMatchesFullRun(firstRun,
+        longProgram("step down", "step down", "drop"), 16);
+    assertResumedRunMatchesFullRun(secondRun,
+        longProgram("step up", "step down", "drop", "step left"), 16);
+  }
+
+  @Test
+  public void testEarlyEditRunsFromTheStart() {
+    List<String> calls = new ArrayList<>();
+    CommandExecutor firstRun = newRun(longProgram("step down"), calls);
+    runToEnd(firstRun, calls);
+    List<CommandBlock> edited = longProgram("step down");
+    edited.set(1, program("step down").get(0));
+    assertResumedRunMatchesFullRun(firstRun, edited, 0);
+  }
+
+  @Test
+  public void testAddingLinesAtTheEndResumes() {
+    List<String> calls = new ArrayList<>();
+    CommandExecutor firstRun = newRun(longProgram(), calls);
+    runToEnd(firstRun, calls);
+    assertResumedRunMatchesFullRun(firstRun, longProgram("drop", "step left"), 16);
+  }
+
+  @Test
+  public void testChangedIfPairsRunFromTheStart() {
+    List<String> calls = new ArrayList<>();
+    CommandExecutor firstRun = newRun(longProgram("if down", "step down", "endif"), calls);
+    runToEnd(firstRun, calls);
+    assertResumedRunMatchesFullRun(firstRun, longProgram("if down", "endif", "step down"), 0);
+  }
+
+  @Test
+  public void testRunThatWasStoppedEarlyOnlyUsesTheTicksItRan() {
+    List<String> calls = new ArrayList<>();
+    CommandExecutor firstRun = newRun(longProgram("step down"), calls);
+    for (int tick = 0; tick < 12; tick++) {
+      firstRun.runNextCommand();
+    }
+    CommandExecutor resumedRun = assertResumedRunMatchesFullRun(firstRun,
+        longProgram("step up"), 8);
+    assertTrue(resumedRun.getResumedTick() <= 12);
+  }
+}
@@ -0,0 +1,203 @@
+package ooga.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ooga.controller.BackEndExternalAPI;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.InformationBundle;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.Structure;
+import ooga.model.grid.gridData.BlockData;
+import ooga.model.grid.gridData.GoalState;
+import ooga.model.grid.gridData.InitialState;
+import ooga.model.grid.gridData.TickDelta;
+import ooga.model.player.Avatar;
+import ooga.model.player.DataCube;
+import ooga.model.player.Player;
+import ooga.model.simulation.SimulationResult;
+import ooga.model.simulation.Simulator;
+import ooga.view.level.codearea.CommandBlock;
+
+/**
+ * Programs, levels and assertions shared by the tests of the simulators, the grids and the
+ * executors
+ */
+public final class SimulationFixtures {
+
+  private SimulationFixtures() {
+  }
+
+  /**
+   * Builds a command block
+   *
+   * @param index         index the code area gives the block, starting at 1
+   * @param type          type of the command
+   * @param keysAndValues parameter names each followed by its value
+   * @return the command block
+   */
+  public static CommandBlock command(int index, String type, String... keysAndValues) {
+    Map<String, String> parameters = new HashMap<>();
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      parameters.put(keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return new CommandBlock(index, type, parameters);
+  }
+
+  /**
+   * Adds a command block at the end of a program
+   *
+   * @param program       program to add to
+   * @param type          type of the command
+   * @param keysAndValues parameter names each followed by its value
+   */
+  public static void addCommand(List<CommandBlock> program, String type,
+      String... keysAndValues) {
+    program.add(command(program.size() + 1, type, keysAndValues));
+  }
+
+  /**
+   * One avatar at the left of a corridor that has to carry the cube at (2, 1) to (3, 1)
+   *
+   * @param apples apples of the level
+   * @return template of the level
+   */
+  public static LevelTemplate corridor(int apples) {
+    ElementInformationBundle grid = new ElementInformationBundle();
+    grid.setDimensions(6, 3);
+    for (int x = 0; x < 6; x++) {
+      for (int y = 0; y < 3; y++) {
+        grid.setStructure(x, y, y == 1 ? Structure.FLOOR : Structure.WALL);
+      }
+    }
+    grid.addAvatar(new Avatar(1, 0, 1));
+    grid.addBlock(new DataCube(5, 2, 1, 12));
+    Map<String, BlockData> goalBlocks = new HashMap<>();
+    goalBlocks.put("5", new BlockData(List.of(3, 1), 12, false, 5));
+    InitialState initialState = new InitialState(new HashMap<>(), new HashMap<>(),
+        new ArrayList<>(), new HashMap<>(), "", 1, 1, apples, 1);
+    return new LevelTemplate(grid, initialState,
+        new GoalState(new HashMap<>(), goalBlocks, apples, 0, 5));
+  }
+
+  /**
+   * Runs a program on a level of the data files with two simulators and checks that the runs
+   * are the same
+   *
+   * @param reference simulator giving the expected run
+   * @param simulator simulator under test
+   * @param level     number of the level
+   * @param program   program to run
+   */
+  public static void assertSameRun(Simulator reference, Simulator simulator, int level,
+      List<CommandBlock> program) {
+    assertSameResult(reference.run(new InitialConfigurationParser(level, null, 0), program),
+        simulator.run(new InitialConfigurationParser(level, null, 0), program));
+  }
+
+  /**
+   * Runs a program on a level of the data files with two simulators and checks that both fail.
+   * The reference Commands fail with whatever exception the grid throws, so only the failing is
+   * compared.
+   *
+   * @param reference simulator giving the expected run
+   * @param simulator simulator under test
+   * @param level     number of the level
+   * @param program   program to run
+   */
+  public static void assertBothFail(Simulator reference, Simulator simulator, int level,
+      List<CommandBlock> program) {
+    assertThrows(RuntimeException.class,
+        () -> reference.run(new InitialConfigurationParser(level, null, 0), program));
+    assertThrows(RuntimeException.class,
+        () -> simulator.run(new InitialConfigurationParser(level, null, 0), program));
+  }
+
+  /**
+   * Checks that two runs ended the same way with the same final world
+   *
+   * @param expected expected run
+   * @param actual   run under test
+   */
+  public static void assertSameResult(SimulationResult expected, SimulationResult actual) {
+    assertEquals(expected.getOutcome(), actual.getOutcome());
+    assertEquals(expected.getTicks(), actual.getTicks());
+    assertEquals(expected.getCommandsExecuted(), actual.getCommandsExecuted());
+    assertSameWorld(expected.getFinalWorld(), actual.getFinalWorld());
+  }
+
+  /**
+   * Checks that two worlds have the same avatars, program counters included, and blocks
+   *
+   * @param expected expected world
+   * @param actual   world under test
+   */
+  public static void assertSameWorld(InformationBundle expected, InformationBundle actual) {
+    assertEquals(expected.getAvatarIds(), actual.getAvatarIds());
+    for (int id : expected.getAvatarIds()) {
+      Player expectedAvatar = expected.getAvatarById(id);
+      Player actualAvatar = actual.getAvatarById(id);
+      assertEquals(expectedAvatar.getXCoord(), actualAvatar.getXCoord());
+      assertEquals(expectedAvatar.getYCoord(), actualAvatar.getYCoord());
+      assertEquals(expectedAvatar.getProgramCounter(), actualAvatar.getProgramCounter());
+    }
+    Map<Integer, BlockData> expectedBlocks = new HashMap<>();
+    for (BlockData blockData : expected.getBlockData()) {
+      expectedBlocks.put(blockData.getId(), blockData);
+    }
+    assertEquals(expectedBlocks.size(), actual.getBlockData().size());
+    for (BlockData blockData : actual.getBlockData()) {
+      assertEquals(expectedBlocks.get(blockData.getId()), blockData);
+    }
+  }
+
+  /**
+   * Returns an API that writes down every call made on it, with TickDeltas written out by
+   * describe
+   *
+   * @param calls list the calls are added to
+   * @return recording API
+   */
+  public static BackEndExternalAPI recordingApi(List<String> calls) {
+    return (BackEndExternalAPI) Proxy.newProxyInstance(SimulationFixtures.class.getClassLoader(),
+        new Class<?>[]{BackEndExternalAPI.class}, (proxy, method, args) -> {
+          StringBuilder call = new StringBuilder(method.getName());
+          if (args != null) {
+            for (Object arg : args) {
+              call.append(' ').append(arg instanceof TickDelta tickDelta ? describe(tickDelta)
+                  : String.valueOf(arg));
+            }
+          }
+          calls.add(call.toString());
+          return null;
+        });
+  }
+
+  /**
+   * Writes out everything a TickDelta carries
+   *
+   * @param tickDelta changes of a tick
+   * @return description that is equal for equal deltas
+   */
+  public static String describe(TickDelta tickDelta) {
+    StringBuilder description = new StringBuilder();
+    for (int i = 0; i < tickDelta.getAvatarCount(); i++) {
+      description.append("a").append(tickDelta.getAvatarId(i)).append('@')
+          .append(tickDelta.getAvatarX(i)).append(',').append(tickDelta.getAvatarY(i));
+    }
+    for (int i = 0; i < tickDelta.getBlockCount(); i++) {
+      description.append("b").append(tickDelta.getBlockId(i)).append('@')
+          .append(tickDelta.getBlockX(i)).append(',').append(tickDelta.getBlockY(i))
+          .append(tickDelta.isBlockHeld(i)).append(tickDelta.getBlockNum(i))
+          .append(tickDelta.getBlockChanges(i));
+    }
+    return description.append(tickDelta.getLineIndicators()).append(tickDelta.hasScore())
+        .append(tickDelta.getScore()).toString();
+  }
+}
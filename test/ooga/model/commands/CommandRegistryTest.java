@@ -0,0 +1,81 @@
+package ooga.model.commands;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ooga.model.CommandProgram;
+import ooga.model.compiler.ProgramCompiler;
+import ooga.model.compiler.ProgramKey;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.Test;
+
+public class CommandRegistryTest {
+
+  private CommandBlock makeBlock(int index, String type, String... keysAndValues) {
+    Map<String, String> parameters = new HashMap<>();
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      parameters.put(keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return new CommandBlock(index, type, parameters);
+  }
+
+  @Test
+  public void testCreatesCommandsByName() {
+    ElementInformationBundle elementInformationBundle = new ElementInformationBundle();
+    assertTrue(CommandRegistry.create(makeBlock(1, "pickUp"), elementInformationBundle)
+        instanceof PickUp);
+    assertTrue(CommandRegistry.create(makeBlock(1, "pick up"), elementInformationBundle)
+        instanceof PickUp);
+    assertTrue(CommandRegistry.create(makeBlock(1, "end if"), elementInformationBundle)
+        instanceof Endif);
+  }
+
+  @Test
+  public void testUnknownCommandFailsAtLoad() {
+    List<CommandBlock> program = List.of(makeBlock(1, "fly", "direction", "up"));
+    assertThrows(ExceptionHandler.class,
+        () -> new CommandProgram(program, new ElementInformationBundle()));
+    assertThrows(ExceptionHandler.class, () -> new ProgramCompiler().compile(program));
+  }
+
+  @Test
+  public void testValidateAgainstLevelSchema() {
+    InitialConfigurationParser parser = new InitialConfigurationParser(2, null, 0);
+    List<CommandBlock> program = new ArrayList<>();
+    program.add(makeBlock(1, "if", "direction", "down", "comparator", "equal", "target",
+        "datacube"));
+    program.add(makeBlock(2, "pickUp"));
+    program.add(makeBlock(3, "end if"));
+    program.add(makeBlock(4, "jump", "destination", "3"));
+    CommandRegistry.validate(program, parser.getAvailableCommands());
+
+    List<CommandBlock> badDirection = List.of(makeBlock(1, "step", "direction", "sideways"));
+    assertThrows(ExceptionHandler.class,
+        () -> CommandRegistry.validate(badDirection, parser.getAvailableCommands()));
+    List<CommandBlock> missingParameter = List.of(makeBlock(1, "step"));
+    assertThrows(ExceptionHandler.class,
+        () -> CommandRegistry.validate(missingParameter, parser.getAvailableCommands()));
+    List<CommandBlock> notInLevel = List.of(makeBlock(1, "add"));
+    assertThrows(ExceptionHandler.class,
+        () -> CommandRegistry.validate(notInLevel, parser.getAvailableCommands()));
+  }
+
+  @Test
+  public void testStructurallyEqualProgramsShareCompiledProgram() {
+    ProgramCompiler programCompiler = new ProgramCompiler();
+    List<CommandBlock> program = List.of(makeBlock(1, "step", "direction", "down"));
+    List<CommandBlock> sameProgram = List.of(makeBlock(1, "step", "direction", "down"));
+    List<CommandBlock> otherProgram = List.of(makeBlock(1, "step", "direction", "up"));
+    assertSame(programCompiler.compile(program), programCompiler.compile(sameProgram));
+    assertNotEquals(new ProgramKey(program), new ProgramKey(otherProgram));
+  }
+}
@@ -0,0 +1,121 @@
+package ooga.model.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.Test;
+
+public class ProgramAnalysisTest {
+
+  private List<CommandBlock> program;
+
+  // adds a line given as its type followed by parameter names and values
+  private void line(String type, String... parameters) {
+    Map<String, String> parameterMap = new HashMap<>();
+    for (int i = 0; i + 1 < parameters.length; i += 2) {
+      parameterMap.put(parameters[i], parameters[i + 1]);
+    }
+    program.add(new CommandBlock(program.size() + 1, type, parameterMap));
+  }
+
+  private void ifLine() {
+    line("if", "direction", "right", "target", "wall", "comparator", "equal");
+  }
+
+  private ProgramAnalysis analyze(Integer... avatarIds) {
+    return new ProgramAnalysis(program, List.of(avatarIds));
+  }
+
+  @Test
+  public void testBoundsOfAProgramWithoutLoops() {
+    program = new ArrayList<>();
+    ifLine();
+    line("step", "direction", "right");
+    line("end if");
+    line("pickUp");
+    ProgramAnalysis programAnalysis = analyze(1);
+    assertEquals(3, programAnalysis.getFewestCommands(1));
+    assertEquals(4, programAnalysis.getMostCommands(1));
+    assertEquals(2, programAnalysis.getCommandsToFirstChange(1));
+    assertTrue(programAnalysis.getProblems().isEmpty());
+    assertTrue(programAnalysis.getUnreachableLines().isEmpty());
+    assertTrue(programAnalysis.getLoopOnlyLines().isEmpty());
+    assertFalse(programAnalysis.cannotChangeGridWithin(1));
+  }
+
+  @Test
+  public void testUnmatchedBlocksAreReported() {
+    program = new ArrayList<>();
+    line("end if");
+    ifLine();
+    line("tell", "id", "1");
+    line("step", "direction", "sideways");
+    ifLine();
+    line("end if");
+    ProgramAnalysis programAnalysis = analyze(1, 2);
+    assertEquals(Set.of(1, 2, 3), programAnalysis.getUnmatchedLines());
+    assertEquals(Set.of(5, 6), programAnalysis.getUnreachableLines());
+    assertEquals(4, programAnalysis.getProblems().size());
+    assertEquals(2, programAnalysis.getFewestCommands(1));
+    assertEquals(4, programAnalysis.getMostCommands(1));
+    assertEquals(3, programAnalysis.getMostCommands(2));
+    assertEquals(ProgramAnalysis.UNBOUNDED, programAnalysis.getCommandsToFirstChange(1));
+  }
+
+  @Test
+  public void testLoopsAndUnreachableLines() {
+    program = new ArrayList<>();
+    line("jump", "destination", "3");
+    line("step", "direction", "right");
+    line("drop");
+    line("jump", "destination", "3");
+    ProgramAnalysis programAnalysis = analyze(1);
+    assertEquals(Set.of(2), programAnalysis.getUnreachableLines());
+    assertEquals(Set.of(1, 3, 4), programAnalysis.getLoopOnlyLines());
+    assertEquals(ProgramAnalysis.UNBOUNDED, programAnalysis.getFewestCommands(1));
+    assertEquals(ProgramAnalysis.UNBOUNDED, programAnalysis.getMostCommands(1));
+    assertEquals(2, programAnalysis.getCommandsToFirstChange(1));
+
+    program = new ArrayList<>();
+    ifLine();
+    line("step", "direction", "right");
+    ProgramAnalysis stuckOnIf = analyze(1);
+    assertEquals(2, stuckOnIf.getFewestCommands(1));
+    assertEquals(ProgramAnalysis.UNBOUNDED, stuckOnIf.getMostCommands(1));
+  }
+
+  @Test
+  public void testProgramsThatCannotChangeTheGrid() {
+    program = new ArrayList<>();
+    line("tell", "id", "2");
+    line("jump", "destination", "4");
+    line("step", "direction", "right");
+    line("jump", "destination", "0");
+    ProgramAnalysis programAnalysis = analyze(1, 2);
+    assertEquals(ProgramAnalysis.UNBOUNDED, programAnalysis.getCommandsToFirstChange(1));
+    assertEquals(ProgramAnalysis.UNBOUNDED, programAnalysis.getCommandsToFirstChange(2));
+    assertEquals(3, programAnalysis.getFewestCommands(2));
+    assertTrue(programAnalysis.cannotChangeGridWithin(1000));
+
+    program = new ArrayList<>();
+    line("tell", "id", "2");
+    line("jump", "destination", "1");
+    line("step", "direction", "right");
+    assertTrue(analyze(1, 2).cannotChangeGridWithin(1000));
+    program = new ArrayList<>();
+    line("tell", "id", "2");
+    line("step", "direction", "right");
+    assertTrue(analyze(1, 2).cannotChangeGridWithin(0));
+    assertFalse(analyze(1, 2).cannotChangeGridWithin(1));
+    assertFalse(analyze().cannotChangeGridWithin(0));
+    program = new ArrayList<>();
+    assertTrue(analyze(1).cannotChangeGridWithin(1000));
+  }
+}
@@ -0,0 +1,129 @@
+package ooga.model.grid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import ooga.model.grid.gridData.GoalState;
+import ooga.model.player.Avatar;
+import org.junit.jupiter.api.Test;
+
+public class ChunkedGridTest {
+
+  private ElementInformationBundle makeFloor(int width, int height) {
+    ElementInformationBundle grid = new ElementInformationBundle();
+    grid.setDimensions(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        grid.setStructure(x, y, Structure.FLOOR);
+      }
+    }
+    return grid;
+  }
+
+  @Test
+  public void testTilesKeepTheirIdentity() {
+    ElementInformationBundle grid = makeFloor(100, 70);
+    Tile tile = grid.getTile(99, 69);
+    assertSame(tile, grid.getTile(99, 69));
+    assertEquals(Structure.FLOOR, tile.getStructure());
+    grid.addAvatar(new Avatar(1, 99, 69));
+    assertTrue(grid.getTile(99, 69).hasAvatar());
+    assertEquals(1, grid.getTileData(99, 69).getAvatarId());
+    grid.setStructure(99, 69, Structure.WALL);
+    assertEquals(Structure.WALL, tile.getStructure());
+  }
+
+  @Test
+  public void testOutOfBoundsBehavesLikeArray() {
+    ElementInformationBundle grid = makeFloor(70, 70);
+    assertNull(grid.getTile(-1, 0));
+    assertNull(grid.getTile(70, 5));
+    assertThrows(ArrayIndexOutOfBoundsException.class, () -> grid.getStructure(0, 70));
+    assertThrows(ArrayIndexOutOfBoundsException.class, () -> grid.getTileData(-1, 3));
+  }
+
+  @Test
+  public void testStructuresBeforeBeingSetAreNull() {
+    ElementInformationBundle grid = new ElementInformationBundle();
+    grid.setDimensions(10, 10);
+    assertNull(grid.getStructure(3, 3));
+    assertNull(grid.getTile(3, 3).getStructure());
+  }
+
+  @Test
+  public void testUniformRegionsShareChunks() {
+    ElementInformationBundle grid = makeFloor(4000, 3000);
+    ChunkedGrid structures = grid.copyStructures();
+    assertEquals(0, structures.getPrivateChunkCount());
+    grid.setStructure(1000, 1000, Structure.WALL);
+    grid.setStructure(1001, 1000, Structure.HOLE);
+    assertEquals(1, grid.copyStructures().getPrivateChunkCount());
+    assertEquals(Structure.WALL, grid.getStructure(1000, 1000));
+    assertEquals(Structure.HOLE, grid.getStructure(1001, 1000));
+    assertEquals(Structure.FLOOR, grid.getStructure(1002, 1000));
+    grid.setStructure(1000, 1000, Structure.FLOOR);
+    grid.setStructure(1001, 1000, Structure.FLOOR);
+    assertEquals(0, grid.copyStructures().getPrivateChunkCount());
+  }
+
+  @Test
+  public void testTemplateGridsDoNotShareTiles() {
+    ElementInformationBundle parsed = makeFloor(200, 200);
+    parsed.addAvatar(new Avatar(1, 150, 150));
+    LevelTemplate template = new LevelTemplate(parsed, null, null);
+    ElementInformationBundle first = template.createGameGrid();
+    ElementInformationBundle second = template.createGameGrid();
+    first.setStructure(10, 10, Structure.WALL);
+    assertEquals(Structure.FLOOR, second.getStructure(10, 10));
+    assertNotSame(second.getTile(10, 10), first.getTile(10, 10));
+    assertTrue(second.getTile(150, 150).hasAvatar());
+  }
+
+  @Test
+  public void testRunsShareTheStructureLayer() {
+    ElementInformationBundle parsed = makeFloor(200, 200);
+    parsed.setStructure(100, 100, Structure.WALL);
+    parsed.addAvatar(new Avatar(1, 150, 150));
+    LevelTemplate template = new LevelTemplate(parsed, null, null);
+    parsed.setStructure(100, 100, Structure.HOLE);
+    assertEquals(Structure.WALL, template.getStructureLayer().getStructure(100, 100));
+
+    ElementInformationBundle first = template.createGameGrid();
+    ElementInformationBundle second = template.createGameGrid();
+    assertEquals(1, first.getPrivateChunkCount());
+    assertEquals(Structure.WALL, first.getTile(100, 100).getStructure());
+    assertEquals(2, first.getPrivateChunkCount());
+    first.setStructure(101, 100, Structure.HOLE);
+    assertEquals(Structure.HOLE, first.getStructure(101, 100));
+    assertEquals(Structure.FLOOR, second.getStructure(101, 100));
+    assertEquals(Structure.FLOOR, template.getStructureLayer().getStructure(101, 100));
+    assertEquals(Structure.WALL, second.getTile(100, 100).getStructure());
+    assertEquals(1, template.createGameGrid().getPrivateChunkCount());
+  }
+
+  private long contentHash(ElementInformationBundle grid) {
+    return new LevelTemplate(grid, null, new GoalState(new HashMap<>(), new HashMap<>(), 10, 0, 1))
+        .getContentHash();
+  }
+
+  @Test
+  public void testContentHashFollowsTheStructures() {
+    long floor = contentHash(makeFloor(2000, 1500));
+    assertEquals(floor, contentHash(makeFloor(2000, 1500)));
+    ElementInformationBundle wall = makeFloor(2000, 1500);
+    wall.setStructure(1999, 1499, Structure.WALL);
+    assertNotEquals(floor, contentHash(wall));
+    ElementInformationBundle hole = makeFloor(2000, 1500);
+    hole.setStructure(1999, 1499, Structure.HOLE);
+    assertNotEquals(contentHash(wall), contentHash(hole));
+    wall.setStructure(1999, 1499, Structure.FLOOR);
+    assertEquals(floor, contentHash(wall));
+    assertNotEquals(floor, contentHash(makeFloor(1500, 2000)));
+  }
+}
@@ -0,0 +1,96 @@
+package ooga.model.grid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.player.Avatar;
+import ooga.model.player.DataCube;
+import ooga.model.simulation.HeadlessSimulator;
+import ooga.model.simulation.SimulationResult;
+import ooga.model.simulation.Simulator;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LevelTemplateTest {
+
+  private InitialConfigurationParser parser;
+  private LevelTemplate levelTemplate;
+
+  @BeforeEach
+  public void setup() {
+    parser = new InitialConfigurationParser(1, null, 0);
+    levelTemplate = parser.getLevelTemplate();
+  }
+
+  @Test
+  public void testGridMatchesParsedLevel() {
+    ElementInformationBundle parsed = parser.getGameGrid();
+    ElementInformationBundle created = levelTemplate.createGameGrid();
+    assertEquals(parsed.getWidth(), created.getWidth());
+    assertEquals(parsed.getHeight(), created.getHeight());
+    for (int x = 0; x < parsed.getWidth(); x++) {
+      for (int y = 0; y < parsed.getHeight(); y++) {
+        assertEquals(parsed.getStructure(x, y), created.getStructure(x, y));
+        assertEquals(parsed.getTileData(x, y).getAvatarId(),
+            created.getTileData(x, y).getAvatarId());
+        assertEquals(parsed.getTileData(x, y).getBlockId(),
+            created.getTileData(x, y).getBlockId());
+      }
+    }
+    assertEquals(parsed.getAvatarIds(), created.getAvatarIds());
+    assertEquals(parsed.getBlockData().size(), created.getBlockData().size());
+    for (int i = 0; i < parsed.getAvatarList().size(); i++) {
+      assertEquals(parsed.getAvatarList().get(i).getId(), created.getAvatarList().get(i).getId());
+    }
+  }
+
+  @Test
+  public void testGridsAreIndependent() {
+    ElementInformationBundle first = levelTemplate.createGameGrid();
+    ElementInformationBundle second = levelTemplate.createGameGrid();
+    assertNotSame(first.getAvatarList().get(0), second.getAvatarList().get(0));
+    assertNotSame(first.getTile(1, 1), second.getTile(1, 1));
+  }
+
+  @Test
+  public void testRunsDoNotChangeTemplate() {
+    Map<String, String> parameters = new HashMap<>();
+    parameters.put("direction", "down");
+    List<CommandBlock> program = List.of(new CommandBlock(1, "step", parameters),
+        new CommandBlock(2, "pickUp", new HashMap<>()));
+    Simulator simulator = new HeadlessSimulator();
+    SimulationResult first = simulator.run(levelTemplate, program);
+    SimulationResult second = simulator.run(levelTemplate, program);
+    assertEquals(first.getOutcome(), second.getOutcome());
+    assertEquals(first.getCommandsExecuted(), second.getCommandsExecuted());
+    assertEquals(3, levelTemplate.createGameGrid().getAvatarList().get(0).getYCoord());
+  }
+
+  @Test
+  public void testLargeSparseLevelCostsItsChunks() {
+    ElementInformationBundle parsed = new ElementInformationBundle();
+    parsed.setDimensions(50000, 50000);
+    parsed.setStructure(49999, 49999, Structure.WALL);
+    parsed.addAvatar(new Avatar(1, 49998, 49999));
+    parsed.addBlock(new DataCube(2, 100, 100, 7));
+    LevelTemplate template = new LevelTemplate(parsed, null, null);
+    assertEquals(Structure.WALL, template.getStructureLayer().getStructure(49999, 49999));
+
+    PackedWorld packedWorld = template.createPackedWorld();
+    assertEquals(Structure.WALL, packedWorld.getStructure(49999, 49999));
+    assertEquals(Structure.FLOOR, packedWorld.getStructure(25000, 25000));
+    packedWorld.setStructure(25000, 25000, Structure.HOLE);
+    assertEquals(Structure.HOLE, packedWorld.getStructure(25000, 25000));
+    assertEquals(Structure.FLOOR, template.createPackedWorld().getStructure(25000, 25000));
+    assertEquals(49998, packedWorld.getAvatarList().get(0).getXCoord());
+
+    ElementInformationBundle gameGrid = template.createGameGrid();
+    assertEquals(Structure.WALL, gameGrid.getStructure(49999, 49999));
+    assertEquals(2, gameGrid.getPrivateChunkCount());
+  }
+}
@@ -0,0 +1,136 @@
+package ooga.model.grid;
+
+import static ooga.model.SimulationFixtures.addCommand;
+import static ooga.model.SimulationFixtures.assertSameRun;
+import static ooga.model.SimulationFixtures.assertSameWorld;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.player.Avatar;
+import ooga.model.player.Block;
+import ooga.model.simulation.HeadlessSimulator;
+import ooga.model.simulation.PackedSimulator;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PackedWorldTest {
+
+  private List<CommandBlock> program;
+
+  @BeforeEach
+  public void setup() {
+    program = new ArrayList<>();
+  }
+
+  @Test
+  public void testFacadeMatchesGameGrid() {
+    LevelTemplate levelTemplate = new InitialConfigurationParser(1, null, 0).getLevelTemplate();
+    ElementInformationBundle grid = levelTemplate.createGameGrid();
+    PackedWorld world = levelTemplate.createPackedWorld();
+    assertEquals(grid.getAvatarIds(), world.getAvatarIds());
+    for (int x = 0; x < grid.getWidth(); x++) {
+      for (int y = 0; y < grid.getHeight(); y++) {
+        assertEquals(grid.getStructure(x, y), world.getStructure(x, y));
+        assertEquals(grid.getTileData(x, y).getAvatarId(), world.getTileData(x, y).getAvatarId());
+        assertEquals(grid.getTileData(x, y).getBlockId(), world.getTileData(x, y).getBlockId());
+      }
+    }
+    assertSameWorld(grid, world);
+    assertNull(world.getTile(-1, 0));
+    assertEquals(PackedWorld.NONE, world.getTileAvatar(world.getWidth(), 0));
+  }
+
+  @Test
+  public void testViewsWriteThroughToArrays() {
+    PackedWorld world = new InitialConfigurationParser(1, null, 0).getLevelTemplate()
+        .createPackedWorld();
+    Avatar avatar = (Avatar) world.getAvatarById(7);
+    Tile tile = world.getTile(1, 4);
+    Block block = tile.getBlock();
+    avatar.pickUp(block);
+    block.pickUp();
+    tile.removeBlock();
+    assertSame(block, avatar.getHeldItem());
+    assertEquals(world.getBlockIndex(block.getId()), world.getHeldBlock(0));
+    assertTrue(world.isBlockHeld(world.getBlockIndex(block.getId())));
+    assertFalse(world.getTile(1, 4).hasBlock());
+    avatar.setXY(2, 3);
+    assertEquals(2, world.getAvatarX(0));
+    world.setProgramCounter(0, 5);
+    assertEquals(5, avatar.getProgramCounter());
+  }
+
+  @Test
+  public void testBasicCommandsMatchReference() {
+    addCommand(program, "step", "direction", "down");
+    addCommand(program, "pickUp");
+    assertSameRun(new HeadlessSimulator(), new PackedSimulator(), 1, program);
+  }
+
+  @Test
+  public void testLoopMatchesReference() {
+    addCommand(program, "step", "direction", "left");
+    addCommand(program, "jump", "destination", "1");
+    assertSameRun(new HeadlessSimulator(), new PackedSimulator(), 1, program);
+  }
+
+  @Test
+  public void testConditionalsMatchReference() {
+    addCommand(program, "if", "direction", "right", "comparator", "equal", "target", "datacube");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "pickUp");
+    addCommand(program, "end if");
+    addCommand(program, "if", "direction", "down", "comparator", "not equal", "target", "wall");
+    addCommand(program, "step", "direction", "down");
+    addCommand(program, "end if");
+    addCommand(program, "throw", "direction", "right");
+    addCommand(program, "jump", "destination", "1");
+    assertSameRun(new HeadlessSimulator(), new PackedSimulator(), 11, program);
+  }
+
+  @Test
+  public void testDataCubeCommandsMatchReference() {
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "pickUp");
+    addCommand(program, "increment");
+    addCommand(program, "multiply");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "add");
+    addCommand(program, "throwOver", "direction", "left");
+    addCommand(program, "nearest", "target", "datacube");
+    addCommand(program, "setZero");
+    addCommand(program, "decrement");
+    assertSameRun(new HeadlessSimulator(), new PackedSimulator(), 11, program);
+  }
+
+  @Test
+  public void testWorldsShareTheStructureLayer() {
+    ElementInformationBundle parsed = new ElementInformationBundle();
+    parsed.setDimensions(3, 2);
+    for (int x = 0; x < 3; x++) {
+      for (int y = 0; y < 2; y++) {
+        parsed.setStructure(x, y, x == 2 ? Structure.WALL : Structure.FLOOR);
+      }
+    }
+    parsed.addAvatar(new Avatar(1, 0, 0));
+    LevelTemplate template = new LevelTemplate(parsed, null, null);
+    PackedWorld first = template.createPackedWorld();
+    PackedWorld second = template.createPackedWorld();
+    first.setStructure(1, 1, Structure.HOLE);
+    assertEquals(Structure.HOLE, first.getStructure(1, 1));
+    assertEquals(Structure.FLOOR, second.getStructure(1, 1));
+    assertEquals(Structure.FLOOR, template.getStructureLayer().getStructure(1, 1));
+    assertEquals(Structure.WALL, second.getStructure(2, 0));
+    first.setTileAvatar(1, 0, first.getTileAvatar(0, 0));
+    first.setTileAvatar(0, 0, PackedWorld.NONE);
+    assertEquals(0, second.getTileAvatar(0, 0));
+    assertEquals(PackedWorld.NONE, second.getTileAvatar(1, 0));
+  }
+}
@@ -0,0 +1,110 @@
+package ooga.model.grid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.gridData.BlockData;
+import ooga.model.grid.gridData.GoalState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestVectorSetTest {
+
+  private InitialConfigurationParser parser;
+  private LevelTemplate fibonacci;
+
+  @BeforeEach
+  public void setup() {
+    parser = new InitialConfigurationParser(8, null, 0);
+    fibonacci = parser.getLevelTemplate();
+  }
+
+  private int goalNumber(LevelTemplate level, int id) {
+    return level.getGoalState().getAllBlockData().get("" + id).getBlockNumber();
+  }
+
+  private Map<Integer, List<Integer>> fibonacciSums() {
+    Map<Integer, List<Integer>> goalSums = new HashMap<>();
+    int[] order = {101, 104, 105, 102, 103, 106, 107, 108, 109, 110};
+    for (int i = 2; i < order.length; i++) {
+      goalSums.put(order[i], List.of(order[i - 2], order[i - 1]));
+    }
+    return goalSums;
+  }
+
+  @Test
+  public void testLevelFilesDeclareTheVectors() {
+    TestVectorSet testVectorSet = parser.getTestVectorSet();
+    assertEquals(8, testVectorSet.size());
+    LevelTemplate explicit = testVectorSet.getLevels().get(1);
+    assertEquals(2, (int) explicit.getBlockNumbers().get(101));
+    assertEquals(3, (int) explicit.getBlockNumbers().get(104));
+    assertEquals(5, goalNumber(explicit, 105));
+    assertEquals(144, goalNumber(explicit, 110));
+    assertEquals(1, new InitialConfigurationParser(1, null, 0).getTestVectorSet().size());
+  }
+
+  @Test
+  public void testDerivedGoalOfTheLevelIsItsGoal() {
+    TestVectorSet testVectorSet = new TestVectorSet(fibonacci, fibonacciSums());
+    testVectorSet.addVector(new HashMap<>());
+    LevelTemplate derived = testVectorSet.getLevels().get(1);
+    for (String id : fibonacci.getGoalState().getAllBlockData().keySet()) {
+      assertEquals(fibonacci.getGoalState().getAllBlockData().get(id).getBlockNumber(),
+          derived.getGoalState().getAllBlockData().get(id).getBlockNumber());
+    }
+  }
+
+  @Test
+  public void testGoalNumbersMoveWithTheStartNumbers() {
+    TestVectorSet testVectorSet = new TestVectorSet(fibonacci, new HashMap<>());
+    testVectorSet.addVector(Map.of(102, 7));
+    LevelTemplate vector = testVectorSet.getLevels().get(1);
+    assertEquals(7, vector.createGameGrid().getBlockData().stream()
+        .filter(block -> block.getId() == 102).findFirst().orElseThrow().getBlockNumber());
+    assertEquals(goalNumber(fibonacci, 102) + 7, goalNumber(vector, 102));
+    assertEquals(goalNumber(fibonacci, 103), goalNumber(vector, 103));
+    assertEquals(fibonacci.getContentHash(), testVectorSet.getLevels().get(0).getContentHash());
+  }
+
+  @Test
+  public void testSameSeedGivesSameVectors() {
+    TestVectorSet first = new TestVectorSet(fibonacci, fibonacciSums());
+    TestVectorSet second = new TestVectorSet(fibonacci, fibonacciSums());
+    first.addGenerated(5, 42, List.of(101, 104), 1, 9);
+    second.addGenerated(5, 42, List.of(101, 104), 1, 9);
+    assertEquals(6, first.size());
+    for (int i = 0; i < first.size(); i++) {
+      assertEquals(first.getLevels().get(i).getContentHash(),
+          second.getLevels().get(i).getContentHash());
+      int seed = first.getLevels().get(i).getBlockNumbers().get(101);
+      assertTrue(seed >= 1 && seed <= 9);
+    }
+  }
+
+  @Test
+  public void testVectorWithItsOwnGoal() {
+    TestVectorSet testVectorSet = new TestVectorSet(fibonacci, fibonacciSums());
+    Map<String, BlockData> goalBlocks = new HashMap<>(
+        fibonacci.getGoalState().getAllBlockData());
+    goalBlocks.put("110", new BlockData(List.of(10, 4), 0, false, 110));
+    GoalState goalState = fibonacci.getGoalState();
+    testVectorSet.addVector(Map.of(), new GoalState(goalState.getAllAvatarLocations(),
+        goalBlocks, goalState.getNumOfCommands(), goalState.getIdealTime(),
+        goalState.getIdealLines()));
+    assertEquals(0, goalNumber(testVectorSet.getLevels().get(1), 110));
+  }
+
+  @Test
+  public void testGoalSumThatDependsOnItselfIsRejected() {
+    Map<Integer, List<Integer>> goalSums = fibonacciSums();
+    goalSums.put(101, List.of(110));
+    assertThrows(ExceptionHandler.class, () -> new TestVectorSet(fibonacci, goalSums));
+  }
+}
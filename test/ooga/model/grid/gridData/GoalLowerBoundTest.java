@@ -0,0 +1,102 @@
+package ooga.model.grid.gridData;
+
+import static ooga.model.SimulationFixtures.addCommand;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import ooga.model.CommandProgram;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.player.Player;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class GoalLowerBoundTest {
+
+  private ElementInformationBundle world;
+  private GoalState goalState;
+  private List<CommandBlock> program;
+
+  @BeforeEach
+  public void setup() {
+    InitialConfigurationParser parser = new InitialConfigurationParser(1, null, 0);
+    world = parser.getLevelTemplate().createGameGrid();
+    goalState = parser.getGoalState();
+    program = new ArrayList<>();
+  }
+
+  // bounds read after each command, until the goal is reached
+  private List<Integer> runUntilGoal(GoalLowerBound goalLowerBound) {
+    List<Integer> bounds = new ArrayList<>();
+    bounds.add(goalLowerBound.getCommandsNeeded());
+    CommandProgram commandProgram = new CommandProgram(program, world);
+    for (int tick = 0; tick < 10; tick++) {
+      for (Player avatar : world.getAvatarList()) {
+        if (avatar.getProgramCounter() <= commandProgram.size()) {
+          commandProgram.getCommand(avatar.getProgramCounter()).execute(avatar.getId());
+          bounds.add(goalLowerBound.getCommandsNeeded());
+          if (goalState.checkGameEnded(world)) {
+            return bounds;
+          }
+        }
+      }
+    }
+    return bounds;
+  }
+
+  @Test
+  public void testStartNeedsCommands() {
+    GoalLowerBound goalLowerBound = new GoalLowerBound(goalState, world, false);
+    assertTrue(goalLowerBound.getCommandsNeeded() > 0);
+    assertFalse(goalLowerBound.cannotFinishWithin(goalState.getNumOfCommands()));
+    assertTrue(goalLowerBound.cannotFinishWithin(0));
+  }
+
+  @Test
+  public void testBoundNeverOverestimatesAWin() {
+    addCommand(program, "step", "direction", "down");
+    addCommand(program, "pickUp");
+    GoalLowerBound goalLowerBound = new GoalLowerBound(goalState, world, false);
+    List<Integer> bounds = runUntilGoal(goalLowerBound);
+    assertTrue(goalState.checkGameEnded(world));
+    int commandsToWin = bounds.size() - 1;
+    for (int executed = 0; executed < bounds.size(); executed++) {
+      assertTrue(bounds.get(executed) <= commandsToWin - executed);
+    }
+    assertEquals(0, goalLowerBound.getCommandsNeeded());
+  }
+
+  @Test
+  public void testWalkingAwayRaisesTheBound() {
+    GoalLowerBound goalLowerBound = new GoalLowerBound(goalState, world, true);
+    int start = goalLowerBound.getCommandsNeeded();
+    addCommand(program, "step", "direction", "up");
+    runUntilGoal(goalLowerBound);
+    assertTrue(goalLowerBound.getCommandsNeeded() > start);
+  }
+
+  @Test
+  public void testBlockWithoutGoalIsUnreachable() {
+    GoalState noBlockGoals = new GoalState(goalState.getAllAvatarLocations(), new HashMap<>(),
+        goalState.getNumOfCommands(), goalState.getIdealTime(), goalState.getIdealLines());
+    GoalLowerBound goalLowerBound = new GoalLowerBound(noBlockGoals, world, true);
+    assertEquals(GoalLowerBound.UNREACHABLE, goalLowerBound.getCommandsNeeded());
+    assertTrue(goalLowerBound.cannotFinishWithin(Integer.MAX_VALUE - 1));
+  }
+
+  @Test
+  public void testDetachedBoundStopsListening() {
+    GoalLowerBound goalLowerBound = new GoalLowerBound(goalState, world, false);
+    int start = goalLowerBound.getCommandsNeeded();
+    goalLowerBound.detach();
+    addCommand(program, "step", "direction", "down");
+    addCommand(program, "pickUp");
+    runUntilGoal(new GoalLowerBound(goalState, world, false));
+    assertEquals(start, goalLowerBound.getCommandsNeeded());
+  }
+}
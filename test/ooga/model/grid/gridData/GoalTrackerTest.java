@@ -0,0 +1,79 @@
+package ooga.model.grid.gridData;
+
+import static ooga.model.SimulationFixtures.addCommand;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import ooga.model.CommandProgram;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.player.Player;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class GoalTrackerTest {
+
+  private ElementInformationBundle world;
+  private GoalState goalState;
+  private List<CommandBlock> program;
+
+  @BeforeEach
+  public void setup() {
+    InitialConfigurationParser parser = new InitialConfigurationParser(1, null, 0);
+    world = parser.getLevelTemplate().createGameGrid();
+    goalState = parser.getGoalState();
+    program = new ArrayList<>();
+  }
+
+  private void runAndCompare(GoalTracker goalTracker) {
+    CommandProgram commandProgram = new CommandProgram(program, world);
+    for (int tick = 0; tick < 10; tick++) {
+      for (Player avatar : world.getAvatarList()) {
+        if (avatar.getProgramCounter() <= commandProgram.size()) {
+          commandProgram.getCommand(avatar.getProgramCounter()).execute(avatar.getId());
+        }
+        assertEquals(goalState.checkGameEnded(world), goalTracker.isGoalReached());
+      }
+    }
+  }
+
+  @Test
+  public void testStartIsNotGoal() {
+    GoalTracker goalTracker = new GoalTracker(goalState, world);
+    assertFalse(goalTracker.isGoalReached());
+    assertEquals(6, goalTracker.getUnsatisfiedConditions());
+  }
+
+  @Test
+  public void testTrackerReachesGoalWithFullCheck() {
+    GoalTracker goalTracker = new GoalTracker(goalState, world);
+    addCommand(program, "step", "direction", "down");
+    addCommand(program, "pickUp");
+    runAndCompare(goalTracker);
+    assertTrue(goalTracker.isGoalReached());
+  }
+
+  @Test
+  public void testTrackerFollowsUndoneConditions() {
+    GoalTracker goalTracker = new GoalTracker(goalState, world);
+    addCommand(program, "step", "direction", "down");
+    addCommand(program, "pickUp");
+    addCommand(program, "drop");
+    addCommand(program, "step", "direction", "up");
+    addCommand(program, "nearest", "target", "datacube");
+    runAndCompare(goalTracker);
+  }
+
+  @Test
+  public void testDetachedTrackerStopsListening() {
+    GoalTracker goalTracker = new GoalTracker(goalState, world);
+    goalTracker.detach();
+    addCommand(program, "step", "direction", "down");
+    runAndCompare(new GoalTracker(goalState, world));
+    assertEquals(6, goalTracker.getUnsatisfiedConditions());
+  }
+}
@@ -0,0 +1,61 @@
+package ooga.model.grid.gridData;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.PackedWorld;
+import ooga.model.player.Avatar;
+import ooga.model.player.Block;
+import ooga.model.simulation.CycleDetector;
+import org.junit.jupiter.api.Test;
+
+public class StateHasherTest {
+
+  @Test
+  public void testHashComesBackWithTheState() {
+    ElementInformationBundle world = new InitialConfigurationParser(1, null, 0)
+        .getLevelTemplate().createGameGrid();
+    StateHasher stateHasher = new StateHasher(world);
+    long start = stateHasher.getHash();
+    Avatar avatar = (Avatar) world.getAvatarById(7);
+    int xCoord = avatar.getXCoord();
+    int yCoord = avatar.getYCoord();
+    avatar.setXY(xCoord + 1, yCoord);
+    long moved = stateHasher.getHash();
+    assertNotEquals(start, moved);
+    stateHasher.setProgramCounter(7, 2);
+    assertNotEquals(moved, stateHasher.getHash());
+    stateHasher.setProgramCounter(7, avatar.getProgramCounter());
+    assertEquals(moved, stateHasher.getHash());
+    avatar.setXY(xCoord, yCoord);
+    assertEquals(start, stateHasher.getHash());
+    Block block = world.getBlockList().get(0);
+    block.setDisplayNum(block.getDisplayNum() + 1);
+    assertNotEquals(start, stateHasher.getHash());
+    block.setDisplayNum(block.getDisplayNum() - 1);
+    assertEquals(start, stateHasher.getHash());
+    stateHasher.detach();
+  }
+
+  @Test
+  public void testEqualWorldsHashTheSame() {
+    InitialConfigurationParser parser = new InitialConfigurationParser(1, null, 0);
+    ElementInformationBundle grid = parser.getLevelTemplate().createGameGrid();
+    PackedWorld packedWorld = parser.getLevelTemplate().createPackedWorld();
+    assertEquals(new StateHasher(grid).getHash(), new StateHasher(packedWorld).getHash());
+  }
+
+  @Test
+  public void testCycleDetectorReturnsTheCycleLength() {
+    CycleDetector cycleDetector = new CycleDetector();
+    for (int tick = 0; tick < 1000; tick++) {
+      assertEquals(0, cycleDetector.visit(tick * 0x9E3779B97F4A7C15L, tick));
+    }
+    assertEquals(1000, cycleDetector.visit(0, 1000));
+    assertEquals(993, cycleDetector.visit(7 * 0x9E3779B97F4A7C15L, 1000));
+    cycleDetector.clear();
+    assertEquals(0, cycleDetector.visit(0, 0));
+  }
+}
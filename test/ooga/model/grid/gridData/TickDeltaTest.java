@@ -0,0 +1,108 @@
+package ooga.model.grid.gridData;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.simulation.HeadlessSimulator;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TickDeltaTest {
+
+  private TickDelta tickDelta;
+
+  @BeforeEach
+  public void setup() {
+    tickDelta = new TickDelta();
+  }
+
+  @Test
+  public void testChangesAreMergedPerElement() {
+    tickDelta.setAvatarPosition(7, 1, 1);
+    tickDelta.setAvatarPosition(8, 2, 2);
+    tickDelta.setAvatarPosition(7, 1, 2);
+    tickDelta.setBlock(4, 1, 1, true, 3, TickDelta.HELD_CHANGED);
+    tickDelta.setBlock(4, 1, 1, true, 5, TickDelta.NUMBER_CHANGED);
+    assertEquals(2, tickDelta.getAvatarCount());
+    assertEquals(7, tickDelta.getAvatarId(0));
+    assertEquals(2, tickDelta.getAvatarY(0));
+    assertEquals(1, tickDelta.getBlockCount());
+    assertEquals(5, tickDelta.getBlockNum(0));
+    assertEquals(TickDelta.HELD_CHANGED | TickDelta.NUMBER_CHANGED,
+        tickDelta.getBlockChanges(0));
+    tickDelta.clear();
+    assertTrue(tickDelta.isEmpty());
+    tickDelta.setBlock(4, 1, 1, false, 5, TickDelta.HELD_CHANGED);
+    assertEquals(TickDelta.HELD_CHANGED, tickDelta.getBlockChanges(0));
+  }
+
+  @Test
+  public void testMergingKeepsTheLatestState() {
+    TickDelta later = new TickDelta();
+    tickDelta.setAvatarPosition(7, 1, 1);
+    tickDelta.setBlock(4, 1, 1, false, 3, TickDelta.NUMBER_CHANGED);
+    tickDelta.addLineIndicator(7, 2);
+    tickDelta.setScore(10);
+    later.setAvatarPosition(7, 2, 1);
+    later.setAvatarPosition(8, 5, 5);
+    later.setBlock(4, 1, 1, true, 3, TickDelta.HELD_CHANGED);
+    later.startLineIndicators();
+    tickDelta.mergeFrom(later);
+    assertEquals(2, tickDelta.getAvatarCount());
+    assertEquals(2, tickDelta.getAvatarX(0));
+    assertEquals(TickDelta.HELD_CHANGED | TickDelta.NUMBER_CHANGED,
+        tickDelta.getBlockChanges(0));
+    assertTrue(tickDelta.hasLineIndicators());
+    assertEquals(0, tickDelta.getLineIndicatorCount());
+    assertEquals(10, tickDelta.getScore());
+    tickDelta.copyFrom(later);
+    assertEquals(TickDelta.HELD_CHANGED, tickDelta.getBlockChanges(0));
+    assertFalse(tickDelta.hasScore());
+  }
+
+  @Test
+  public void testLineIndicatorsAndScore() {
+    tickDelta.startLineIndicators();
+    assertFalse(tickDelta.isEmpty());
+    assertTrue(tickDelta.getLineIndicators().isEmpty());
+    for (int id = 0; id < 20; id++) {
+      tickDelta.addLineIndicator(id, id + 1);
+    }
+    tickDelta.setScore(0);
+    assertEquals(20, tickDelta.getLineIndicatorCount());
+    assertEquals(20, (int) tickDelta.getLineIndicators().get(19));
+    assertTrue(tickDelta.hasScore());
+    assertEquals(0, tickDelta.getScore());
+  }
+
+  @Test
+  public void testRecorderOnlyMarksChangedFields() {
+    InitialConfigurationParser parser = new InitialConfigurationParser(1, null, 0);
+    ElementInformationBundle world = parser.getLevelTemplate().createGameGrid();
+    TickDeltaRecorder recorder = new TickDeltaRecorder(world, tickDelta);
+    List<CommandBlock> program = new ArrayList<>();
+    Map<String, String> parameters = new HashMap<>();
+    parameters.put("direction", "down");
+    program.add(new CommandBlock(1, "step", parameters));
+    program.add(new CommandBlock(2, "pickUp", new HashMap<>()));
+    new HeadlessSimulator().run(world, parser.getGoalState(), program);
+    recorder.detach();
+    assertEquals(3, tickDelta.getAvatarCount());
+    for (int i = 0; i < tickDelta.getAvatarCount(); i++) {
+      assertEquals(4, tickDelta.getAvatarY(i));
+    }
+    assertEquals(3, tickDelta.getBlockCount());
+    for (int i = 0; i < tickDelta.getBlockCount(); i++) {
+      assertEquals(TickDelta.HELD_CHANGED, tickDelta.getBlockChanges(i));
+      assertTrue(tickDelta.isBlockHeld(i));
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package ooga.model.grid.gridData;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class TileOccupancyTest {
+
+  @Test
+  public void testEmptyMapAllocatesNothing() {
+    TileOccupancy occupancy = new TileOccupancy(4000, 3000);
+    assertEquals(TileOccupancy.NONE, occupancy.getAvatar(3999, 2999));
+    assertEquals(TileOccupancy.NONE, occupancy.getBlock(0, 0));
+    occupancy.setBlock(10, 10, TileOccupancy.NONE);
+    assertEquals(0, occupancy.getChunkCount());
+  }
+
+  @Test
+  public void testOnlyVisitedChunksAreAllocated() {
+    TileOccupancy occupancy = new TileOccupancy(4000, 3000);
+    occupancy.setAvatar(3999, 2999, 0);
+    occupancy.setBlock(3999, 2999, 7);
+    occupancy.setBlock(3998, 2999, 3);
+    assertEquals(1, occupancy.getChunkCount());
+    assertEquals(0, occupancy.getAvatar(3999, 2999));
+    assertEquals(7, occupancy.getBlock(3999, 2999));
+    assertEquals(3, occupancy.getBlock(3998, 2999));
+    assertEquals(TileOccupancy.NONE, occupancy.getAvatar(3998, 2999));
+    occupancy.setAvatar(64, 0, 1);
+    assertEquals(2, occupancy.getChunkCount());
+    occupancy.setAvatar(64, 0, TileOccupancy.NONE);
+    assertEquals(TileOccupancy.NONE, occupancy.getAvatar(64, 0));
+  }
+
+  @Test
+  public void testEdgeChunksDoNotOverlap() {
+    TileOccupancy occupancy = new TileOccupancy(70, 3);
+    for (int x = 0; x < 70; x++) {
+      for (int y = 0; y < 3; y++) {
+        occupancy.setBlock(x, y, y * 70 + x);
+      }
+    }
+    for (int x = 0; x < 70; x++) {
+      for (int y = 0; y < 3; y++) {
+        assertEquals(y * 70 + x, occupancy.getBlock(x, y));
+        assertEquals(TileOccupancy.NONE, occupancy.getAvatar(x, y));
+      }
+    }
+  }
+}
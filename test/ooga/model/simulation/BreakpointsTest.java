@@ -0,0 +1,138 @@
+package ooga.model.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.base.Stopwatch;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ooga.controller.BackEndExternalAPI;
+import ooga.model.CommandExecutor;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.Structure;
+import ooga.model.grid.gridData.BlockData;
+import ooga.model.grid.gridData.GoalState;
+import ooga.model.grid.gridData.InitialState;
+import ooga.model.player.Avatar;
+import ooga.model.player.DataCube;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BreakpointsTest {
+
+  private LevelTemplate level;
+
+  @BeforeEach
+  public void setup() {
+    ElementInformationBundle grid = new ElementInformationBundle();
+    grid.setDimensions(10, 3);
+    for (int x = 0; x < 10; x++) {
+      for (int y = 0; y < 3; y++) {
+        grid.setStructure(x, y, Structure.FLOOR);
+      }
+    }
+    grid.addAvatar(new Avatar(1, 0, 1));
+    grid.addAvatar(new Avatar(2, 0, 2));
+    grid.addBlock(new DataCube(5, 2, 1, 12));
+    Map<String, BlockData> goalBlocks = new HashMap<>();
+    goalBlocks.put("1000000", new BlockData(List.of(0, 0), -1, true, 1000000));
+    InitialState initialState = new InitialState(new HashMap<>(), new HashMap<>(),
+        new ArrayList<>(), new HashMap<>(), "", 1, 1, 600, 1);
+    level = new LevelTemplate(grid, initialState,
+        new GoalState(new HashMap<>(), goalBlocks, 1000, 0, 1));
+  }
+
+  private List<CommandBlock> program(String... commands) {
+    List<CommandBlock> program = new ArrayList<>();
+    for (String command : commands) {
+      String[] words = command.split(" ");
+      Map<String, String> parameters = new HashMap<>();
+      if (words.length > 1) {
+        parameters.put("direction", words[1]);
+      }
+      program.add(new CommandBlock(program.size() + 1, words[0], parameters));
+    }
+    return program;
+  }
+
+  private CommandExecutor newRun(List<CommandBlock> program) {
+    BackEndExternalAPI api = (BackEndExternalAPI) Proxy.newProxyInstance(
+        getClass().getClassLoader(), new Class<?>[]{BackEndExternalAPI.class},
+        (proxy, method, args) -> null);
+    return new CommandExecutor(program, api, level.getInitialState(), level.createGameGrid(),
+        level.getGoalState(), Stopwatch.createUnstarted());
+  }
+
+  // ticks run until the executor stops at a breakpoint, or -1 if it never does
+  private int ticksToBreakpoint(CommandExecutor commandExecutor, int maxTicks) {
+    for (int tick = 1; tick <= maxTicks; tick++) {
+      commandExecutor.runNextCommand();
+      if (commandExecutor.isAtBreakpoint()) {
+        return tick;
+      }
+    }
+    return -1;
+  }
+
+  @Test
+  public void testMathComparatorsAreRead() {
+    ElementInformationBundle grid = level.createGameGrid();
+    BreakCondition atMost = BreakCondition.parse("tick " + (char) 0x2264 + " 4");
+    assertTrue(atMost.isMet(4, grid));
+    assertFalse(atMost.isMet(5, grid));
+    assertTrue(BreakCondition.parse("tick " + (char) 0x2265 + " 4").isMet(5, grid));
+    assertFalse(BreakCondition.parse("tick " + (char) 0x2260 + " 4").isMet(4, grid));
+  }
+
+  @Test
+  public void testConditionsAreParsed() {
+    List<BreakCondition> conditions = BreakCondition
+        .parseAll("tick >= 500; avatar 2 holds a cube > 10;;avatar 1 line=3 ; avatar 1 x \u2264 4");
+    assertEquals(4, conditions.size());
+    assertEquals("avatar 2 holds a cube > 10", conditions.get(1).toString());
+    assertTrue(BreakCondition.parseAll("  ").isEmpty());
+    assertThrows(ExceptionHandler.class, () -> BreakCondition.parse("avatar holds > 10"));
+    assertThrows(ExceptionHandler.class, () -> BreakCondition.parse("tick >= many"));
+
+    ElementInformationBundle grid = level.createGameGrid();
+    assertTrue(BreakCondition.parse("tick >= 500").isMet(500, grid));
+    assertFalse(BreakCondition.parse("tick >= 500").isMet(499, grid));
+    assertFalse(BreakCondition.parse("avatar 1 holds > 10").isMet(1, grid));
+    assertTrue(BreakCondition.parse("avatar 2 y = 2").isMet(1, grid));
+    assertFalse(BreakCondition.parse("avatar 9 y = 2").isMet(1, grid));
+  }
+
+  @Test
+  public void testLineBreakpointStopsAfterTheLineRuns() {
+    CommandExecutor commandExecutor = newRun(program("step right", "step right", "step right"));
+    commandExecutor.setBreakpoints(new Breakpoints(List.of(2), List.of()));
+    assertEquals(2, ticksToBreakpoint(commandExecutor, 10));
+    assertEquals(-1, ticksToBreakpoint(commandExecutor, 1));
+
+    CommandExecutor withoutBreakpoints = newRun(program("step right", "step right"));
+    withoutBreakpoints.setBreakpoints(new Breakpoints(List.of(), List.of()));
+    assertEquals(-1, ticksToBreakpoint(withoutBreakpoints, 3));
+  }
+
+  @Test
+  public void testConditionStopsWhenTheStateMatches() {
+    CommandExecutor commandExecutor = newRun(
+        program("step right", "step right", "pickUp", "step right"));
+    commandExecutor.setBreakpoints(new Breakpoints(List.of(),
+        BreakCondition.parseAll("avatar 1 holds a cube > 10")));
+    assertEquals(3, ticksToBreakpoint(commandExecutor, 10));
+
+    CommandExecutor laterRun = newRun(
+        program("step right", "step right", "step right", "step right"));
+    laterRun.setBreakpoints(new Breakpoints(List.of(), BreakCondition.parseAll("tick >= 3")));
+    assertEquals(3, ticksToBreakpoint(laterRun, 10));
+  }
+}
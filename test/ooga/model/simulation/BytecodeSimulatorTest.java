@@ -0,0 +1,157 @@
+package ooga.model.simulation;
+
+import static ooga.model.SimulationFixtures.addCommand;
+import static ooga.model.SimulationFixtures.assertBothFail;
+import static ooga.model.SimulationFixtures.assertSameRun;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import ooga.model.compiler.BytecodeCompiler;
+import ooga.model.compiler.CompiledProgram;
+import ooga.model.compiler.ProgramCompiler;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BytecodeSimulatorTest {
+
+  private List<CommandBlock> program;
+
+  @BeforeEach
+  public void setup() {
+    program = new ArrayList<>();
+  }
+
+  @Test
+  public void testLoopMatchesReference() {
+    addCommand(program, "step", "direction", "left");
+    addCommand(program, "pickUp");
+    addCommand(program, "jump", "destination", "1");
+    assertSameRun(new HeadlessSimulator(), new BytecodeSimulator(new BytecodeCompiler(1)), 1,
+        program);
+  }
+
+  @Test
+  public void testConditionalsMatchReference() {
+    addCommand(program, "if", "direction", "right", "comparator", "equal", "target", "datacube");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "pickUp");
+    addCommand(program, "end if");
+    addCommand(program, "if", "direction", "down", "comparator", "not equal", "target", "wall");
+    addCommand(program, "step", "direction", "down");
+    addCommand(program, "end if");
+    addCommand(program, "throw", "direction", "right");
+    addCommand(program, "jump", "destination", "1");
+    assertSameRun(new HeadlessSimulator(), new BytecodeSimulator(new BytecodeCompiler(1)), 11,
+        program);
+  }
+
+  @Test
+  public void testDataCubeCommandsMatchReference() {
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "pickUp");
+    addCommand(program, "increment");
+    addCommand(program, "multiply");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "add");
+    addCommand(program, "throwOver", "direction", "left");
+    addCommand(program, "nearest", "target", "datacube");
+    addCommand(program, "setZero");
+    addCommand(program, "decrement");
+    addCommand(program, "subtract");
+    assertSameRun(new HeadlessSimulator(), new BytecodeSimulator(new BytecodeCompiler(1)), 11,
+        program);
+  }
+
+  private void assertSameFailure(Simulator reference) {
+    ExceptionHandler expected = assertThrows(ExceptionHandler.class,
+        () -> reference.run(new InitialConfigurationParser(1, null, 0), program));
+    ExceptionHandler actual = assertThrows(ExceptionHandler.class,
+        () -> new BytecodeSimulator(new BytecodeCompiler(1))
+            .run(new InitialConfigurationParser(1, null, 0), program));
+    assertEquals(expected.getMessage(), actual.getMessage());
+  }
+
+  @Test
+  public void testTellMatchesPackedSimulator() {
+    // the Tell command fails for every avatar it does not name, so tells are compared with the
+    // PackedSimulator, with or without if/end if pairs
+    addCommand(program, "tell", "id", "8");
+    addCommand(program, "step", "direction", "down");
+    addCommand(program, "pickUp");
+    assertSameFailure(new PackedSimulator());
+    addCommand(program, "if", "direction", "down", "comparator", "equal", "target", "datacube");
+    addCommand(program, "end if");
+    assertSameFailure(new PackedSimulator());
+  }
+
+  @Test
+  public void testInvalidLineFailsLikePackedSimulator() {
+    addCommand(program, "step", "direction", "sideways");
+    assertSameFailure(new PackedSimulator());
+  }
+
+  @Test
+  public void testHotProgramsGetOneClass() {
+    addCommand(program, "step", "direction", "down");
+    addCommand(program, "jump", "destination", "1");
+    BytecodeCompiler bytecodeCompiler = new BytecodeCompiler(2);
+    BytecodeSimulator simulator = new BytecodeSimulator(bytecodeCompiler);
+    CompiledProgram compiledProgram = new ProgramCompiler().compile(program);
+    SimulationResult first = simulator.run(new InitialConfigurationParser(1, null, 0), program);
+    assertFalse(bytecodeCompiler.isGenerated(compiledProgram));
+    SimulationResult second = simulator.run(new InitialConfigurationParser(1, null, 0), program);
+    simulator.run(new InitialConfigurationParser(1, null, 0), program);
+    assertTrue(bytecodeCompiler.isGenerated(compiledProgram));
+    assertEquals(1, bytecodeCompiler.getClassesDefined());
+    assertEquals(first.getOutcome(), second.getOutcome());
+    assertEquals(first.getCommandsExecuted(), second.getCommandsExecuted());
+  }
+
+  @Test
+  public void testThreadsLoadingAHotProgramTogetherDefineOneClass() throws Exception {
+    addCommand(program, "step", "direction", "down");
+    addCommand(program, "jump", "destination", "1");
+    BytecodeCompiler bytecodeCompiler = new BytecodeCompiler(1);
+    BytecodeSimulator simulator = new BytecodeSimulator(bytecodeCompiler);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        simulator.run(new InitialConfigurationParser(1, null, 0), program);
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(1, bytecodeCompiler.getClassesDefined());
+  }
+
+  @Test
+  public void testTellFailsLikeReference() {
+    // the reference Tell finds no end line for avatars it does not name, with or without ifs
+    addCommand(program, "tell", "id", "7");
+    addCommand(program, "step", "direction", "right");
+    assertBothFail(new HeadlessSimulator(), new BytecodeSimulator(new BytecodeCompiler(1)), 11,
+        program);
+    addCommand(program, "if", "direction", "down", "comparator", "equal", "target", "wall");
+    addCommand(program, "end if");
+    assertBothFail(new HeadlessSimulator(), new BytecodeSimulator(new BytecodeCompiler(1)), 11,
+        program);
+  }
+}
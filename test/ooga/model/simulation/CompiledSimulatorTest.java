@@ -0,0 +1,188 @@
+package ooga.model.simulation;
+
+import static ooga.model.SimulationFixtures.addCommand;
+import static ooga.model.SimulationFixtures.assertBothFail;
+import static ooga.model.SimulationFixtures.assertSameRun;
+import static ooga.model.SimulationFixtures.corridor;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import ooga.model.compiler.CompiledProgram;
+import ooga.model.compiler.Opcodes;
+import ooga.model.compiler.ProgramCompiler;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.LevelTemplate;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CompiledSimulatorTest {
+
+  private List<CommandBlock> program;
+
+  @BeforeEach
+  public void setup() {
+    program = new ArrayList<>();
+  }
+
+  @Test
+  public void testBasicCommandsMatchReference() {
+    addCommand(program, "step", "direction", "down");
+    addCommand(program, "pickUp");
+    assertSameRun(new HeadlessSimulator(), new CompiledSimulator(), 1, program);
+  }
+
+  @Test
+  public void testLoopMatchesReference() {
+    addCommand(program, "step", "direction", "left");
+    addCommand(program, "jump", "destination", "1");
+    assertSameRun(new HeadlessSimulator(), new CompiledSimulator(), 1, program);
+  }
+
+  @Test
+  public void testConditionalsMatchReference() {
+    addCommand(program, "if", "direction", "right", "comparator", "equal", "target", "datacube");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "pickUp");
+    addCommand(program, "end if");
+    addCommand(program, "if", "direction", "down", "comparator", "not equal", "target", "wall");
+    addCommand(program, "step", "direction", "down");
+    addCommand(program, "end if");
+    addCommand(program, "throw", "direction", "right");
+    addCommand(program, "jump", "destination", "1");
+    assertSameRun(new HeadlessSimulator(), new CompiledSimulator(), 11, program);
+  }
+
+  @Test
+  public void testDataCubeCommandsMatchReference() {
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "pickUp");
+    addCommand(program, "increment");
+    addCommand(program, "multiply");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "add");
+    addCommand(program, "throwOver", "direction", "left");
+    addCommand(program, "nearest", "target", "datacube");
+    addCommand(program, "setZero");
+    addCommand(program, "decrement");
+    assertSameRun(new HeadlessSimulator(), new CompiledSimulator(), 11, program);
+  }
+
+  @Test
+  public void testCompilerResolvesOperands() {
+    addCommand(program, "if", "direction", "up-left", "comparator", "not equal", "target", "hole");
+    addCommand(program, "jump", "destination", "1");
+    addCommand(program, "end if");
+    CompiledProgram compiledProgram = new ProgramCompiler().compile(program);
+    assertEquals(3, compiledProgram.size());
+    assertEquals(Opcodes.IF, compiledProgram.getOpcode(1));
+    assertEquals(-1, compiledProgram.getOperand(1, 0));
+    assertEquals(-1, compiledProgram.getOperand(1, 1));
+    assertEquals(Opcodes.TARGET_HOLE, compiledProgram.getOperand(1, 2));
+    assertEquals(0, compiledProgram.getOperand(1, 3));
+    assertEquals(3, compiledProgram.getOperand(1, 4));
+    assertEquals(1, compiledProgram.getOperand(2, 0));
+    assertEquals(Opcodes.END_IF, compiledProgram.getOpcode(3));
+  }
+
+  @Test
+  public void testInvalidLineFailsWhenExecuted() {
+    addCommand(program, "step", "direction", "sideways");
+    CompiledProgram compiledProgram = new ProgramCompiler().compile(program);
+    assertEquals(Opcodes.INVALID, compiledProgram.getOpcode(1));
+    assertNotNull(compiledProgram.getError(1));
+    assertThrows(ExceptionHandler.class, () -> new CompiledSimulator()
+        .run(new InitialConfigurationParser(1, null, 0), program));
+  }
+
+  @Test
+  public void testValidLineHasNoError() {
+    addCommand(program, "drop");
+    assertNull(new ProgramCompiler().compile(program).getError(1));
+  }
+
+  @Test
+  public void testCompilerFusesSuperinstructions() {
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "pickUp");
+    addCommand(program, "if", "direction", "right", "comparator", "equal", "target", "nothing");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "end if");
+    addCommand(program, "drop");
+    addCommand(program, "jump", "destination", "1");
+    addCommand(program, "tell", "id", "1");
+    addCommand(program, "drop");
+    CompiledProgram compiledProgram = new ProgramCompiler().compile(program);
+    assertEquals(8, compiledProgram.getFusedLength(1));
+    assertEquals(5, compiledProgram.getFusedLength(4));
+    assertEquals(3, compiledProgram.getFusedLength(6));
+    assertEquals(1, compiledProgram.getFusedLength(8));
+    assertEquals(1, compiledProgram.getFusedLength(9));
+    assertEquals(1, compiledProgram.getFusedLength(10));
+  }
+
+  private void assertSameFusedRun(LevelTemplate level, boolean detectCycles) {
+    HeadlessSimulator reference = new HeadlessSimulator();
+    reference.setDetectCycles(detectCycles);
+    for (HeadlessSimulator simulator : List.of(new CompiledSimulator(), new PackedSimulator())) {
+      simulator.setDetectCycles(detectCycles);
+      SimulationResult expected = reference.run(level, program);
+      SimulationResult actual = simulator.run(level, program);
+      assertEquals(expected.getOutcome(), actual.getOutcome());
+      assertEquals(expected.getTicks(), actual.getTicks());
+      assertEquals(expected.getCommandsExecuted(), actual.getCommandsExecuted());
+      assertEquals(expected.getFinalWorld().getAvatarList().get(0).getProgramCounter(),
+          actual.getFinalWorld().getAvatarList().get(0).getProgramCounter());
+      assertEquals(expected.getFinalWorld().getBlockData(), actual.getFinalWorld().getBlockData());
+    }
+  }
+
+  @Test
+  public void testSuperinstructionsCountEveryLine() {
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "pickUp");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "drop");
+    addCommand(program, "step", "direction", "right");
+    assertSameFusedRun(corridor(50), true);
+    assertSameFusedRun(corridor(3), true);
+    assertSameFusedRun(corridor(4), false);
+  }
+
+  @Test
+  public void testFusedLoopsStopLikeReference() {
+    addCommand(program, "if", "direction", "right", "comparator", "equal", "target", "datacube");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "pickUp");
+    addCommand(program, "end if");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "drop");
+    addCommand(program, "jump", "destination", "1");
+    assertSameFusedRun(corridor(40), true);
+    assertSameFusedRun(corridor(8), true);
+    setup();
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "step", "direction", "left");
+    addCommand(program, "jump", "destination", "1");
+    assertSameFusedRun(corridor(40), true);
+    assertSameFusedRun(corridor(40), false);
+  }
+
+  @Test
+  public void testTellFailsLikeReference() {
+    // the reference Tell finds no end line for avatars it does not name, with or without ifs
+    addCommand(program, "tell", "id", "7");
+    addCommand(program, "step", "direction", "right");
+    assertBothFail(new HeadlessSimulator(), new CompiledSimulator(), 11, program);
+    addCommand(program, "if", "direction", "down", "comparator", "equal", "target", "wall");
+    addCommand(program, "end if");
+    assertBothFail(new HeadlessSimulator(), new CompiledSimulator(), 11, program);
+  }
+}
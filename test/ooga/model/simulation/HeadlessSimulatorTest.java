@@ -0,0 +1,81 @@
+package ooga.model.simulation;
+
+import static ooga.model.SimulationFixtures.addCommand;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class HeadlessSimulatorTest {
+
+  private Simulator simulator;
+  private List<CommandBlock> program;
+
+  @BeforeEach
+  public void setup() {
+    simulator = new HeadlessSimulator();
+    program = new ArrayList<>();
+  }
+
+  @Test
+  public void testWinningProgram() {
+    addCommand(program, "step", "direction", "down");
+    addCommand(program, "pickUp");
+    SimulationResult result = simulator.run(new InitialConfigurationParser(1, null, 0), program);
+    assertEquals(Outcome.WON, result.getOutcome());
+    assertTrue(result.isWon());
+    assertEquals(2, result.getTicks());
+    assertEquals(6, result.getCommandsExecuted());
+    assertEquals(44, result.getApplesLeft());
+  }
+
+  @Test
+  public void testProgramEndsWithoutWinning() {
+    addCommand(program, "step", "direction", "up");
+    SimulationResult result = simulator.run(new InitialConfigurationParser(1, null, 0), program);
+    assertEquals(Outcome.LOST, result.getOutcome());
+    assertEquals(0, result.getScore());
+  }
+
+  @Test
+  public void testProgramRunsOutOfApples() {
+    addCommand(program, "step", "direction", "left");
+    addCommand(program, "jump", "destination", "1");
+    HeadlessSimulator withoutCycleDetection = new HeadlessSimulator();
+    withoutCycleDetection.setDetectCycles(false);
+    withoutCycleDetection.setStopUnreachable(false);
+    SimulationResult result = withoutCycleDetection
+        .run(new InitialConfigurationParser(1, null, 0), program);
+    assertEquals(Outcome.OUT_OF_APPLES, result.getOutcome());
+    assertEquals(0, result.getApplesLeft());
+  }
+
+  @Test
+  public void testProgramThatCannotFinishIsStoppedEarly() {
+    addCommand(program, "step", "direction", "left");
+    addCommand(program, "jump", "destination", "1");
+    HeadlessSimulator withoutCycleDetection = new HeadlessSimulator();
+    withoutCycleDetection.setDetectCycles(false);
+    SimulationResult result = withoutCycleDetection
+        .run(new InitialConfigurationParser(1, null, 0), program);
+    assertEquals(Outcome.CANNOT_FINISH, result.getOutcome());
+    assertTrue(result.getApplesLeft() > 0);
+    assertEquals(0, result.getScore());
+  }
+
+  @Test
+  public void testProgramThatLoopsForeverIsStoppedEarly() {
+    addCommand(program, "step", "direction", "left");
+    addCommand(program, "jump", "destination", "1");
+    SimulationResult result = simulator.run(new InitialConfigurationParser(1, null, 0), program);
+    assertEquals(Outcome.LOOPS_FOREVER, result.getOutcome());
+    assertEquals(2, result.getCycleLength());
+    assertTrue(result.getApplesLeft() > 0);
+    assertEquals(0, result.getScore());
+  }
+}
@@ -0,0 +1,68 @@
+package ooga.model.simulation;
+
+import static ooga.model.SimulationFixtures.corridor;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import ooga.model.commands.AvailableCommands;
+import ooga.model.grid.LevelTemplate;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.Test;
+
+public class LevelSolverTest {
+
+  private AvailableCommands commands(String... names) {
+    Map<String, List<Map<String, List<String>>>> commandsMap = new HashMap<>();
+    commandsMap.put("step", List.of(Map.of("direction", List.of("left", "right"))));
+    commandsMap.put("pickUp", List.of());
+    commandsMap.put("drop", List.of());
+    commandsMap.put("jump", List.of(Map.of("destination", List.of("1"))));
+    return new AvailableCommands(commandsMap, List.of(names));
+  }
+
+  @Test
+  public void testFindsTheShortestAndCheapestPrograms() {
+    LevelTemplate level = corridor(50);
+    Solution solution = new LevelSolver(level, commands("step", "pickUp", "drop"),
+        new ForkJoinPool(2)).solve(6, 10000);
+    assertTrue(solution.isSolved());
+    assertEquals(5, solution.getShortestLines());
+    assertEquals(5, solution.getFewestCommands());
+    assertEquals("step right | step right | pickUp | step right | drop",
+        Solution.describe(solution.getFewestCommandsProgram()));
+    PackedSimulator simulator = new PackedSimulator();
+    for (List<CommandBlock> program : solution.getShortestPrograms()) {
+      assertTrue(simulator.run(level, program).isWon());
+    }
+  }
+
+  @Test
+  public void testJumpsCanMakeProgramsShorter() {
+    LevelTemplate level = corridor(50);
+    Solution solution = new LevelSolver(level, commands("step", "pickUp", "drop", "jump"))
+        .solve(5, 10000);
+    assertTrue(solution.getShortestLines() <= 5);
+    assertEquals(5, solution.getFewestCommands());
+    PackedSimulator simulator = new PackedSimulator();
+    for (List<CommandBlock> program : solution.getShortestPrograms()) {
+      assertEquals(solution.getShortestLines(), program.size());
+      assertTrue(simulator.run(level, program).isWon());
+    }
+  }
+
+  @Test
+  public void testNothingIsFoundWithoutEnoughApples() {
+    Solution solution = new LevelSolver(corridor(3), commands("step", "pickUp", "drop"))
+        .solve(4, 10000);
+    assertFalse(solution.isSolved());
+    assertEquals(Solution.NOT_FOUND, solution.getShortestLines());
+    assertNull(solution.getFewestCommandsProgram());
+    assertTrue(solution.getProgramsTried() > 0);
+  }
+}
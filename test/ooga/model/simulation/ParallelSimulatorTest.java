@@ -0,0 +1,161 @@
+package ooga.model.simulation;
+
+import static ooga.model.SimulationFixtures.addCommand;
+import static ooga.model.SimulationFixtures.assertSameResult;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.InformationBundle;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.Structure;
+import ooga.model.grid.gridData.BlockData;
+import ooga.model.grid.gridData.GoalState;
+import ooga.model.player.Avatar;
+import ooga.model.player.DataCube;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ParallelSimulatorTest {
+
+  private List<CommandBlock> program;
+
+  @BeforeEach
+  public void setup() {
+    program = new ArrayList<>();
+  }
+
+  // avatars are {id, x, y}, blocks are {id, x, y, num}; the goal can never be reached
+  private LevelTemplate makeLevel(int width, int height, int[][] avatars, int[][] blocks,
+      int numOfCommands) {
+    ElementInformationBundle grid = new ElementInformationBundle();
+    grid.setDimensions(width, height);
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        grid.setStructure(x, y, Structure.FLOOR);
+      }
+    }
+    for (int[] avatar : avatars) {
+      grid.addAvatar(new Avatar(avatar[0], avatar[1], avatar[2]));
+    }
+    for (int[] block : blocks) {
+      grid.addBlock(new DataCube(block[0], block[1], block[2], block[3]));
+    }
+    Map<String, BlockData> goalBlocks = new HashMap<>();
+    goalBlocks.put("1000000", new BlockData(List.of(0, 0), -1, true, 1000000));
+    GoalState goalState = new GoalState(new HashMap<>(), goalBlocks, numOfCommands, 0, 1);
+    return new LevelTemplate(grid, null, goalState);
+  }
+
+  @Test
+  public void testConflictGoesToLowestId() {
+    addCommand(program, "nearest", "target", "datacube");
+    int[][] blocks = {{5, 1, 0, 0}};
+    LevelTemplate idTwoFirst = makeLevel(3, 1, new int[][]{{2, 0, 0}, {1, 2, 0}}, blocks, 4);
+    LevelTemplate idOneFirst = makeLevel(3, 1, new int[][]{{1, 2, 0}, {2, 0, 0}}, blocks, 4);
+    for (LevelTemplate level : List.of(idTwoFirst, idOneFirst)) {
+      InformationBundle world = new ParallelSimulator(2).run(level, program).getFinalWorld();
+      assertEquals(1, world.getAvatarById(1).getXCoord());
+      assertEquals(0, world.getAvatarById(2).getXCoord());
+    }
+  }
+
+  @Test
+  public void testSingleAvatarMatchesSerial() {
+    addCommand(program, "nearest", "target", "datacube");
+    addCommand(program, "pickUp");
+    addCommand(program, "increment");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "if", "direction", "right", "comparator", "equal", "target", "datacube");
+    addCommand(program, "add");
+    addCommand(program, "end if");
+    addCommand(program, "throwOver", "direction", "left");
+    addCommand(program, "jump", "destination", "1");
+    LevelTemplate level = makeLevel(6, 3, new int[][]{{1, 0, 0}},
+        new int[][]{{2, 3, 1, 4}, {3, 5, 2, 6}}, 40);
+    assertSameResult(new PackedSimulator().run(level, program),
+        new ParallelSimulator(2).run(level, program));
+  }
+
+  // the blocks of these levels have no goals, so the lower bound would end every run at once
+  private HeadlessSimulator withoutLowerBound(HeadlessSimulator simulator) {
+    simulator.setStopUnreachable(false);
+    return simulator;
+  }
+
+  @Test
+  public void testCannotFinishIsFoundLikeTheSerialSimulator() {
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "jump", "destination", "1");
+    LevelTemplate level = makeLevel(6, 3, new int[][]{{1, 0, 0}}, new int[][]{{5, 5, 1, 0}},
+        500);
+    SimulationResult expected = new HeadlessSimulator().run(level, program);
+    assertEquals(Outcome.CANNOT_FINISH, expected.getOutcome());
+    assertEquals(1, expected.getTicks());
+    assertSameResult(expected, new ParallelSimulator(2).run(level, program));
+  }
+
+  @Test
+  public void testResultDoesNotDependOnThreadsOrOrder() {
+    addCommand(program, "nearest", "target", "datacube");
+    addCommand(program, "pickUp");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "throw", "direction", "down");
+    addCommand(program, "drop");
+    addCommand(program, "jump", "destination", "1");
+    List<int[]> avatars = new ArrayList<>();
+    List<int[]> blocks = new ArrayList<>();
+    for (int x = 0; x < 40; x += 2) {
+      for (int y = 0; y < 40; y += 2) {
+        avatars.add(new int[]{avatars.size() + 1, x, y});
+        if ((x + y) % 6 == 0) {
+          blocks.add(new int[]{10000 + blocks.size(), x + 1, y + 1, x + y});
+        }
+      }
+    }
+    List<int[]> reversed = new ArrayList<>(avatars);
+    Collections.reverse(reversed);
+    LevelTemplate level = makeLevel(40, 40, avatars.toArray(new int[0][]),
+        blocks.toArray(new int[0][]), 5000);
+    LevelTemplate reversedLevel = makeLevel(40, 40, reversed.toArray(new int[0][]),
+        blocks.toArray(new int[0][]), 5000);
+    SimulationResult expected = withoutLowerBound(new ParallelSimulator(1)).run(level, program);
+    assertEquals(Outcome.OUT_OF_APPLES, expected.getOutcome());
+    assertSameResult(expected, withoutLowerBound(new ParallelSimulator(4)).run(level, program));
+    assertSameResult(expected,
+        withoutLowerBound(new ParallelSimulator(4)).run(reversedLevel, program));
+  }
+
+  @Test
+  public void testLoopsAreDetectedLikeTheSerialSimulator() {
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "step", "direction", "left");
+    addCommand(program, "jump", "destination", "1");
+    LevelTemplate level = makeLevel(6, 3, new int[][]{{1, 0, 0}, {2, 0, 2}},
+        new int[][]{{5, 5, 1, 0}}, 500);
+    SimulationResult expected = withoutLowerBound(new HeadlessSimulator()).run(level, program);
+    assertEquals(Outcome.LOOPS_FOREVER, expected.getOutcome());
+    assertEquals(3, expected.getCycleLength());
+    assertEquals(3, expected.getTicks());
+    SimulationResult actual = withoutLowerBound(new ParallelSimulator(2)).run(level, program);
+    assertSameResult(expected, actual);
+    assertEquals(3, actual.getCycleLength());
+  }
+
+  @Test
+  public void testChangingNumbersAreNotALoop() {
+    addCommand(program, "pickUp");
+    addCommand(program, "increment");
+    addCommand(program, "jump", "destination", "2");
+    LevelTemplate level = makeLevel(3, 3, new int[][]{{1, 1, 1}}, new int[][]{{5, 1, 1, 0}},
+        300);
+    SimulationResult expected = withoutLowerBound(new HeadlessSimulator()).run(level, program);
+    assertEquals(Outcome.OUT_OF_APPLES, expected.getOutcome());
+    assertSameResult(expected, withoutLowerBound(new ParallelSimulator(2)).run(level, program));
+  }
+}
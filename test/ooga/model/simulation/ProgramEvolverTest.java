@@ -0,0 +1,110 @@
+package ooga.model.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import ooga.model.commands.AvailableCommands;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.Structure;
+import ooga.model.grid.gridData.BlockData;
+import ooga.model.grid.gridData.GoalState;
+import ooga.model.grid.gridData.InitialState;
+import ooga.model.player.Avatar;
+import ooga.model.player.DataCube;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ProgramEvolverTest {
+
+  private LevelTemplate level;
+  private AvailableCommands availableCommands;
+
+  // one avatar at the left of a corridor that has to carry the cube one tile to the right
+  @BeforeEach
+  public void setup() {
+    ElementInformationBundle grid = new ElementInformationBundle();
+    grid.setDimensions(6, 3);
+    for (int x = 0; x < 6; x++) {
+      for (int y = 0; y < 3; y++) {
+        grid.setStructure(x, y, y == 1 ? Structure.FLOOR : Structure.WALL);
+      }
+    }
+    grid.addAvatar(new Avatar(1, 0, 1));
+    grid.addBlock(new DataCube(5, 2, 1, 12));
+    Map<String, BlockData> goalBlocks = new HashMap<>();
+    goalBlocks.put("5", new BlockData(List.of(3, 1), 12, false, 5));
+    InitialState initialState = new InitialState(new HashMap<>(), new HashMap<>(),
+        new ArrayList<>(), new HashMap<>(), "", 1, 1, 50, 1);
+    level = new LevelTemplate(grid, initialState,
+        new GoalState(new HashMap<>(), goalBlocks, 50, 0, 5));
+    Map<String, List<Map<String, List<String>>>> commandsMap = new HashMap<>();
+    commandsMap.put("step", List.of(Map.of("direction", List.of("left", "right"))));
+    commandsMap.put("pickUp", List.of());
+    commandsMap.put("drop", List.of());
+    commandsMap.put("jump", List.of(Map.of("destination", List.of("1"))));
+    availableCommands = new AvailableCommands(commandsMap,
+        List.of("step", "pickUp", "drop", "jump"));
+  }
+
+  private List<CommandBlock> program(String... commands) {
+    List<CommandBlock> program = new ArrayList<>();
+    for (String command : commands) {
+      String[] words = command.split(" ");
+      Map<String, String> parameters = new HashMap<>();
+      if (words.length > 1) {
+        parameters.put("direction", words[1]);
+      }
+      program.add(new CommandBlock(program.size() + 1, words[0], parameters));
+    }
+    return program;
+  }
+
+  @Test
+  public void testDistanceShrinksTowardsTheGoal() {
+    GoalDistance goalDistance = new GoalDistance(level.getGoalState());
+    PackedSimulator simulator = new PackedSimulator();
+    assertEquals(3, goalDistance.measure(level.createGameGrid()));
+    assertEquals(2, goalDistance.measure(
+        simulator.run(level, program("step right")).getFinalWorld()));
+    assertEquals(2, goalDistance.measure(
+        simulator.run(level, program("step right", "step right", "pickUp")).getFinalWorld()));
+    assertEquals(1, goalDistance.measure(simulator
+        .run(level, program("step right", "step right", "pickUp", "step right")).getFinalWorld()));
+  }
+
+  @Test
+  public void testEvolvesAWinningProgram() {
+    ProgramEvolver programEvolver = new ProgramEvolver(level, availableCommands,
+        new ForkJoinPool(2), 200, 8, 7);
+    List<Integer> distances = new ArrayList<>();
+    programEvolver.evolve(60, evolver -> distances.add(evolver.getBestDistance()));
+    assertEquals(61, distances.size());
+    for (int i = 1; i < distances.size(); i++) {
+      assertTrue(distances.get(i) <= distances.get(i - 1));
+    }
+    assertTrue(programEvolver.isBestWinning());
+    assertTrue(new PackedSimulator().run(level, programEvolver.getBestProgram()).isWon());
+    assertTrue(programEvolver.getEvaluations() > 0);
+    assertTrue(programEvolver.getEvaluationsPerSecond() > 0);
+  }
+
+  @Test
+  public void testTheSameSeedGivesTheSameSearch() {
+    ProgramEvolver onOneThread = new ProgramEvolver(level, availableCommands,
+        new ForkJoinPool(1), 50, 8, 3);
+    ProgramEvolver onFourThreads = new ProgramEvolver(level, availableCommands,
+        new ForkJoinPool(4), 50, 8, 3);
+    onOneThread.evolve(5, null);
+    onFourThreads.evolve(5, null);
+    assertEquals(Solution.describe(onOneThread.getBestProgram()),
+        Solution.describe(onFourThreads.getBestProgram()));
+    assertEquals(onOneThread.getEvaluations(), onFourThreads.getEvaluations());
+  }
+}
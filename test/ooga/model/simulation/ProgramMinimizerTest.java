@@ -0,0 +1,114 @@
+package ooga.model.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.Structure;
+import ooga.model.grid.gridData.BlockData;
+import ooga.model.grid.gridData.GoalState;
+import ooga.model.grid.gridData.InitialState;
+import ooga.model.player.Avatar;
+import ooga.model.player.DataCube;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.Test;
+
+public class ProgramMinimizerTest {
+
+  // a 6x3 room with the avatar at (0, 1) and a cube at (cubeX, cubeY)
+  private LevelTemplate room(int cubeX, int cubeY, Map<String, List<Integer>> avatarGoals,
+      Map<String, BlockData> blockGoals) {
+    ElementInformationBundle grid = new ElementInformationBundle();
+    grid.setDimensions(6, 3);
+    for (int x = 0; x < 6; x++) {
+      for (int y = 0; y < 3; y++) {
+        grid.setStructure(x, y, Structure.FLOOR);
+      }
+    }
+    grid.addAvatar(new Avatar(1, 0, 1));
+    grid.addBlock(new DataCube(5, cubeX, cubeY, 12));
+    InitialState initialState = new InitialState(new HashMap<>(), new HashMap<>(),
+        new ArrayList<>(), new HashMap<>(), "", 1, 1, 100, 1);
+    return new LevelTemplate(grid, initialState,
+        new GoalState(avatarGoals, blockGoals, 100, 0, 5));
+  }
+
+  private LevelTemplate carryCube() {
+    Map<String, BlockData> blockGoals = new HashMap<>();
+    blockGoals.put("5", new BlockData(List.of(3, 1), 12, false, 5));
+    return room(2, 1, new HashMap<>(), blockGoals);
+  }
+
+  private List<CommandBlock> program(String... commands) {
+    List<CommandBlock> program = new ArrayList<>();
+    for (String command : commands) {
+      String[] words = command.split(" ");
+      Map<String, String> parameters = new HashMap<>();
+      if (words[0].equals("jump")) {
+        parameters.put("destination", words[1]);
+      } else if (words.length > 1) {
+        parameters.put("direction", words[1]);
+      }
+      program.add(new CommandBlock(program.size() + 1, words[0], parameters));
+    }
+    return program;
+  }
+
+  @Test
+  public void testUselessLinesAreRemoved() {
+    LevelTemplate level = carryCube();
+    ProgramMinimizer programMinimizer = new ProgramMinimizer(level, new ForkJoinPool(2));
+    List<CommandBlock> minimized = programMinimizer.minimize(program("pickUp", "step right",
+        "drop", "step up", "step down", "step right", "pickUp", "step right", "drop",
+        "step left"));
+    assertEquals("step right | step right | pickUp | step right | drop",
+        Solution.describe(minimized));
+    assertEquals(5, programMinimizer.getCommandsExecuted());
+    assertTrue(new PackedSimulator().run(level, minimized).isWon());
+  }
+
+  @Test
+  public void testStepsAreMergedIntoDiagonals() {
+    Map<String, List<Integer>> avatarGoals = new HashMap<>();
+    avatarGoals.put("1", List.of(2, 2));
+    Map<String, BlockData> blockGoals = new HashMap<>();
+    blockGoals.put("5", new BlockData(List.of(2, 1), 12, false, 5));
+    LevelTemplate level = room(2, 1, avatarGoals, blockGoals);
+    List<CommandBlock> minimized = new ProgramMinimizer(level, new ForkJoinPool(2))
+        .minimize(program("step right", "step down", "step up", "step down", "step right"));
+    assertEquals(2, minimized.size());
+    assertTrue(new PackedSimulator().run(level, minimized).isWon());
+  }
+
+  @Test
+  public void testJumpsFollowTheLinesTheyPointAt() {
+    Map<String, List<Integer>> avatarGoals = new HashMap<>();
+    avatarGoals.put("1", List.of(4, 1));
+    Map<String, BlockData> blockGoals = new HashMap<>();
+    blockGoals.put("5", new BlockData(List.of(5, 0), 12, false, 5));
+    LevelTemplate level = room(5, 0, avatarGoals, blockGoals);
+    ProgramMinimizer onOneThread = new ProgramMinimizer(level, new ForkJoinPool(1));
+    ProgramMinimizer onFourThreads = new ProgramMinimizer(level, new ForkJoinPool(4));
+    List<CommandBlock> program = program("drop", "drop", "step right", "jump 3");
+    List<CommandBlock> minimized = onOneThread.minimize(program);
+    assertEquals("step right | jump 1", Solution.describe(minimized));
+    assertEquals(Solution.describe(minimized),
+        Solution.describe(onFourThreads.minimize(program)));
+    assertTrue(new PackedSimulator().run(level, minimized).isWon());
+    assertTrue(onOneThread.getCandidatesRun() > 0);
+  }
+
+  @Test
+  public void testLosingProgramsAreRejected() {
+    assertThrows(ExceptionHandler.class, () -> new ProgramMinimizer(carryCube(),
+        new ForkJoinPool(1)).minimize(program("step right")));
+  }
+}
@@ -0,0 +1,202 @@
+package ooga.model.simulation;
+
+import static ooga.model.SimulationFixtures.command;
+import static ooga.model.SimulationFixtures.recordingApi;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.base.Stopwatch;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import ooga.model.CommandExecutor;
+import ooga.model.TraceReplayExecutor;
+import ooga.model.database.parser.InitialConfigurationParser;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.gridData.GoalState;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ResultCacheTest {
+
+  private LevelTemplate level;
+  private List<CommandBlock> program;
+
+  @BeforeEach
+  public void setup() {
+    level = new InitialConfigurationParser(1, null, 0).getLevelTemplate();
+    program = new ArrayList<>();
+  }
+
+  private List<String> runAndCache(ResultCache resultCache, ResultKey key, Stopwatch stopwatch) {
+    List<String> calls = new ArrayList<>();
+    CommandExecutor commandExecutor = new CommandExecutor(program, recordingApi(calls),
+        level.getInitialState(), level.createGameGrid(), level.getGoalState(), stopwatch);
+    commandExecutor.recordInto(resultCache, key);
+    for (int tick = 0; tick < 100 && resultCache.size() == 0; tick++) {
+      commandExecutor.runNextCommand();
+    }
+    return calls;
+  }
+
+  private List<String> replay(CachedRun cachedRun, Stopwatch stopwatch) {
+    List<String> calls = new ArrayList<>();
+    TraceReplayExecutor replayExecutor = new TraceReplayExecutor(cachedRun.getTrace(),
+        recordingApi(calls), level.getInitialState(), stopwatch);
+    for (int tick = 0; tick < cachedRun.getTicks(); tick++) {
+      replayExecutor.runNextCommand();
+    }
+    return calls;
+  }
+
+  @Test
+  public void testProgramsAreHashedByContent() {
+    program.add(command(1, "step", "direction", "down"));
+    program.add(command(2, "pickUp"));
+    List<CommandBlock> renumbered = new ArrayList<>();
+    renumbered.add(command(7, "step", "direction", "down"));
+    renumbered.add(command(9, "pickUp"));
+    List<CommandBlock> changed = new ArrayList<>();
+    changed.add(command(1, "step", "direction", "up"));
+    changed.add(command(2, "pickUp"));
+    assertEquals(ResultKey.of(level, program), ResultKey.of(level, renumbered));
+    assertNotEquals(ResultKey.of(level, program), ResultKey.of(level, changed));
+    LevelTemplate sameLevel = new InitialConfigurationParser(1, null, 0).getLevelTemplate();
+    LevelTemplate otherLevel = new InitialConfigurationParser(2, null, 0).getLevelTemplate();
+    assertEquals(level.getContentHash(), sameLevel.getContentHash());
+    assertNotEquals(level.getContentHash(), otherLevel.getContentHash());
+  }
+
+  @Test
+  public void testReplayMakesTheSameCalls() {
+    program.add(command(1, "step", "direction", "down"));
+    program.add(command(2, "pickUp"));
+    ResultCache resultCache = new ResultCache(4, 1000);
+    ResultKey key = ResultKey.of(level, program);
+    Stopwatch stopwatch = Stopwatch.createUnstarted();
+    List<String> calls = runAndCache(resultCache, key, stopwatch);
+    CachedRun cachedRun = resultCache.get(key);
+    assertNotNull(cachedRun);
+    assertEquals(Outcome.WON, cachedRun.getOutcome());
+    assertEquals(2, cachedRun.getTicks());
+    assertEquals(44, cachedRun.getApplesLeft());
+    assertTrue(calls.get(2).startsWith("winLevel 44 "));
+    assertEquals(calls, replay(cachedRun, stopwatch));
+    assertEquals(1, resultCache.getHits());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedRunsAreEvicted() {
+    ResultCache resultCache = new ResultCache(2, 100);
+    RunTrace trace = new RunTrace();
+    trace.startTick();
+    trace.addLose();
+    resultCache.put(new ResultKey(1, 1), new CachedRun(Outcome.LOST, 1, 1, null));
+    resultCache.put(new ResultKey(1, 2), new CachedRun(Outcome.LOST, 2, 1, null));
+    assertNotNull(resultCache.get(new ResultKey(1, 1)));
+    resultCache.put(new ResultKey(1, 3), new CachedRun(Outcome.OUT_OF_APPLES, 0, 1, trace));
+    assertNull(resultCache.get(new ResultKey(1, 2)));
+    assertNotNull(resultCache.get(new ResultKey(1, 1)));
+    assertTrue(resultCache.get(new ResultKey(1, 3)).hasTrace());
+
+    ResultCache smallCache = new ResultCache(10, trace.getSize());
+    smallCache.put(new ResultKey(2, 1), new CachedRun(Outcome.OUT_OF_APPLES, 0, 1, trace));
+    smallCache.put(new ResultKey(2, 2), new CachedRun(Outcome.OUT_OF_APPLES, 0, 1, trace));
+    assertNull(smallCache.get(new ResultKey(2, 1)));
+    assertEquals(1, smallCache.size());
+
+    ResultCache tinyCache = new ResultCache(10, trace.getSize() - 1);
+    tinyCache.put(new ResultKey(3, 1), new CachedRun(Outcome.OUT_OF_APPLES, 0, 1, trace));
+    CachedRun withoutTrace = tinyCache.get(new ResultKey(3, 1));
+    assertEquals(Outcome.OUT_OF_APPLES, withoutTrace.getOutcome());
+    assertNull(withoutTrace.getTrace());
+  }
+
+  @Test
+  public void testRunThatCannotFinishIsCachedAndReplayed() {
+    program.add(command(1, "step", "direction", "down"));
+    program.add(command(2, "pickUp"));
+    GoalState goalState = level.getGoalState();
+    level = new LevelTemplate(level.createGameGrid(), level.getInitialState(),
+        new GoalState(goalState.getAllAvatarLocations(), goalState.getAllBlockData(), 4,
+            goalState.getIdealTime(), goalState.getIdealLines()));
+    ResultCache resultCache = new ResultCache(4, 1000);
+    ResultKey key = ResultKey.of(level, program);
+    Stopwatch stopwatch = Stopwatch.createUnstarted();
+    List<String> calls = runAndCache(resultCache, key, stopwatch);
+    CachedRun cachedRun = resultCache.get(key);
+    assertEquals(Outcome.CANNOT_FINISH, cachedRun.getOutcome());
+    assertEquals(1, cachedRun.getTicks());
+    assertTrue(calls.stream().anyMatch(call -> call.startsWith("cannotFinish")));
+    assertEquals(calls, replay(cachedRun, stopwatch));
+  }
+
+  @Test
+  public void testCacheIsKeptInItsFile() throws Exception {
+    program.add(command(1, "step", "direction", "left"));
+    program.add(command(2, "jump", "destination", "1"));
+    Path directory = Files.createTempDirectory("resultCache");
+    Path file = directory.resolve("results.dat");
+    ResultKey key = ResultKey.of(level, program);
+    Stopwatch stopwatch = Stopwatch.createUnstarted();
+    ResultCache saved = new ResultCache(4, 1000, file);
+    List<String> calls = runAndCache(saved, key, stopwatch);
+    assertFalse(Files.exists(file));
+    saved.save();
+    ResultCache loaded = new ResultCache(4, 1000, file);
+    CachedRun cachedRun = loaded.get(key);
+    assertEquals(Outcome.LOOPS_FOREVER, cachedRun.getOutcome());
+    assertEquals(calls, replay(cachedRun, stopwatch));
+
+    Files.write(file, new byte[]{1, 2, 3});
+    assertEquals(0, new ResultCache(4, 1000, file).size());
+    Files.delete(file);
+    Files.delete(directory);
+  }
+
+  private void writeCacheFile(Path file, int engineVersion, int... trace) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+      out.writeInt(0x50494B43);
+      out.writeInt(2);
+      out.writeInt(engineVersion);
+      out.writeInt(1);
+      out.writeLong(1);
+      out.writeLong(2);
+      out.writeUTF(Outcome.LOST.name());
+      out.writeInt(0);
+      out.writeInt(1);
+      out.writeInt(trace.length);
+      for (int value : trace) {
+        out.writeInt(value);
+      }
+    }
+  }
+
+  @Test
+  public void testDamagedOrStaleFilesGiveAnEmptyCache() throws Exception {
+    Path directory = Files.createTempDirectory("resultCache");
+    Path file = directory.resolve("results.dat");
+    writeCacheFile(file, ResultKey.ENGINE_VERSION, 1, 0, 2);
+    assertEquals(1, new ResultCache(4, 1000, file).size());
+    writeCacheFile(file, ResultKey.ENGINE_VERSION + 1, 1, 0, 2);
+    assertEquals(0, new ResultCache(4, 1000, file).size());
+    writeCacheFile(file, ResultKey.ENGINE_VERSION, 7, 0, 2);
+    assertEquals(0, new ResultCache(4, 1000, file).size());
+    writeCacheFile(file, ResultKey.ENGINE_VERSION, -4, 0, 2);
+    assertEquals(0, new ResultCache(4, 1000, file).size());
+    writeCacheFile(file, ResultKey.ENGINE_VERSION, 1, 0, 0, 900, 1, 2);
+    assertEquals(0, new ResultCache(4, 1000, file).size());
+    writeCacheFile(file, ResultKey.ENGINE_VERSION, 2, 0, 5, 2);
+    assertEquals(0, new ResultCache(4, 1000, file).size());
+    Files.delete(file);
+    Files.delete(directory);
+  }
+}
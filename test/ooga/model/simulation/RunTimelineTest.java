@@ -0,0 +1,121 @@
+package ooga.model.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.Structure;
+import ooga.model.grid.gridData.TickDelta;
+import ooga.model.player.Avatar;
+import ooga.model.player.DataCube;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RunTimelineTest {
+
+  private ElementInformationBundle grid;
+  private List<int[]> states;
+
+  @BeforeEach
+  public void setup() {
+    grid = new ElementInformationBundle();
+    grid.setDimensions(5, 5);
+    for (int x = 0; x < 5; x++) {
+      for (int y = 0; y < 5; y++) {
+        grid.setStructure(x, y, Structure.FLOOR);
+      }
+    }
+    grid.addAvatar(new Avatar(1, 0, 0));
+    grid.addAvatar(new Avatar(2, 4, 4));
+    grid.addBlock(new DataCube(7, 2, 2, 3));
+    states = new ArrayList<>();
+  }
+
+  // avatar 1 walks back and forth, avatar 2 only sometimes, and the block changes number
+  private RunTimeline recordRun(int snapshotInterval, int maxSnapshots, int ticks) {
+    RunTimeline runTimeline = new RunTimeline(snapshotInterval, maxSnapshots);
+    runTimeline.start(grid, 50);
+    states.add(runTimeline.getState());
+    TickDelta tickDelta = new TickDelta();
+    for (int tick = 1; tick <= ticks; tick++) {
+      tickDelta.clear();
+      tickDelta.setAvatarPosition(1, tick % 5, 0);
+      if (tick % 3 == 0) {
+        tickDelta.setAvatarPosition(2, 4, tick % 5);
+      }
+      tickDelta.setBlock(7, 2, 2, tick % 2 == 0, tick, TickDelta.NUMBER_CHANGED);
+      tickDelta.startLineIndicators();
+      tickDelta.addLineIndicator(1, tick % 4 + 1);
+      tickDelta.setScore(50 - tick);
+      runTimeline.record(tickDelta);
+      states.add(runTimeline.getState());
+    }
+    return runTimeline;
+  }
+
+  @Test
+  public void testSteppingBackUndoesATick() {
+    RunTimeline runTimeline = recordRun(4, 8, 10);
+    TickDelta tickDelta = new TickDelta();
+    assertTrue(runTimeline.seek(9, tickDelta));
+    assertEquals(9, runTimeline.getCurrentTick());
+    assertArrayEquals(states.get(9), runTimeline.getState());
+    assertEquals(1, tickDelta.getAvatarCount());
+    assertEquals(1, tickDelta.getAvatarId(0));
+    assertEquals(4, tickDelta.getAvatarX(0));
+    assertEquals(1, tickDelta.getBlockCount());
+    assertEquals(TickDelta.HELD_CHANGED | TickDelta.NUMBER_CHANGED, tickDelta.getBlockChanges(0));
+    assertFalse(tickDelta.isBlockHeld(0));
+    assertEquals(9, tickDelta.getBlockNum(0));
+    assertEquals(1, tickDelta.getLineIndicatorCount());
+    assertEquals(1, tickDelta.getLineIndicatorAvatarId(0));
+    assertEquals(2, tickDelta.getLineIndicatorLine(0));
+    assertEquals(41, tickDelta.getScore());
+    assertTrue(runTimeline.isBehind());
+  }
+
+  @Test
+  public void testSeekingAnywhereShowsThatTick() {
+    RunTimeline runTimeline = recordRun(4, 8, 30);
+    Random random = new Random(15);
+    for (int i = 0; i < 200; i++) {
+      int tick = random.nextInt(31);
+      runTimeline.seek(tick, new TickDelta());
+      assertArrayEquals(states.get(tick), runTimeline.getState());
+    }
+    runTimeline.seek(0, null);
+    assertArrayEquals(states.get(0), runTimeline.getState());
+    assertFalse(runTimeline.seek(0, null));
+  }
+
+  @Test
+  public void testRecordingMovesBackToTheEnd() {
+    RunTimeline runTimeline = recordRun(4, 8, 5);
+    runTimeline.seek(2, null);
+    TickDelta tickDelta = new TickDelta();
+    tickDelta.setScore(1);
+    runTimeline.record(tickDelta);
+    assertEquals(6, runTimeline.getLastTick());
+    assertFalse(runTimeline.isBehind());
+    runTimeline.seek(5, null);
+    assertArrayEquals(states.get(5), runTimeline.getState());
+  }
+
+  @Test
+  public void testOnlyTheLastSnapshotsAreKept() {
+    RunTimeline runTimeline = recordRun(4, 3, 40);
+    assertEquals(32, runTimeline.getFirstTick());
+    runTimeline.seek(0, null);
+    assertEquals(32, runTimeline.getCurrentTick());
+    assertArrayEquals(states.get(32), runTimeline.getState());
+    for (int tick = 40; tick >= 32; tick--) {
+      runTimeline.seek(tick, null);
+      assertArrayEquals(states.get(tick), runTimeline.getState());
+    }
+  }
+}
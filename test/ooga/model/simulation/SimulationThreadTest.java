@@ -0,0 +1,222 @@
+package ooga.model.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import ooga.model.Executor;
+import ooga.model.exceptions.ExceptionHandler;
+import ooga.model.grid.gridData.TickDelta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SimulationThreadTest {
+
+  private static final long TIMEOUT_MILLIS = 5000;
+
+  private SimulationThread simulationThread;
+  private List<Integer> handled;
+
+  @BeforeEach
+  public void setup() {
+    simulationThread = new SimulationThread(16);
+    handled = new ArrayList<>();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    simulationThread.shutdown();
+  }
+
+  /**
+   * Moves avatar 1 to x = tick number every tick and ends the run after the given number of ticks
+   */
+  private class CountingExecutor implements Executor {
+
+    private final int ticksToEnd;
+    private final TickDelta tickDelta = new TickDelta();
+    private volatile int ticks;
+    private int breakAt;
+
+    CountingExecutor(int ticksToEnd) {
+      this.ticksToEnd = ticksToEnd;
+    }
+
+    @Override
+    public void runNextCommand() {
+      ticks++;
+      if (ticks > ticksToEnd) {
+        simulationThread.publishEndOfRun();
+        return;
+      }
+      tickDelta.clear();
+      tickDelta.setAvatarPosition(1, ticks, 0);
+      simulationThread.publishTickDelta(tickDelta);
+    }
+
+    @Override
+    public void checkTimeLeftOrNot() {
+    }
+
+    @Override
+    public boolean isAtBreakpoint() {
+      return ticks == breakAt;
+    }
+  }
+
+  private void handle(TickEvent tickEvent) {
+    if (tickEvent.getKind() == TickEvent.TICK_DELTA) {
+      handled.add(tickEvent.getTickDelta().getAvatarX(0));
+    } else if (tickEvent.getKind() == TickEvent.END_OF_RUN) {
+      handled.add(-1);
+    } else if (tickEvent.getKind() == TickEvent.BREAKPOINT) {
+      handled.add(-2);
+    } else if (tickEvent.getKind() == TickEvent.ERROR) {
+      throw tickEvent.getError();
+    }
+  }
+
+  // the frontend side of AnimationController: one tick per frame, asking again if it is not ready
+  private void nextTick() {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (!simulationThread.pollTick(this::handle)) {
+      simulationThread.step();
+      assertTrue(System.currentTimeMillis() < deadline, "tick never arrived");
+      Thread.onSpinWait();
+    }
+  }
+
+  @Test
+  public void testStepRunsOneTickAtATime() throws InterruptedException {
+    CountingExecutor executor = new CountingExecutor(10);
+    simulationThread.reset(executor);
+    for (int i = 1; i <= 3; i++) {
+      nextTick();
+      assertEquals(i, (int) handled.get(i - 1));
+    }
+    Thread.sleep(50);
+    assertEquals(3, executor.ticks);
+    assertFalse(simulationThread.pollTick(this::handle));
+  }
+
+  @Test
+  public void testPlayRunsAheadUntilTheRunEnds() throws InterruptedException {
+    CountingExecutor executor = new CountingExecutor(40);
+    simulationThread.reset(executor);
+    simulationThread.play();
+    for (int i = 0; i <= 40; i++) {
+      nextTick();
+    }
+    assertEquals(41, handled.size());
+    for (int i = 0; i < 40; i++) {
+      assertEquals(i + 1, (int) handled.get(i));
+    }
+    assertEquals(-1, (int) handled.get(40));
+    Thread.sleep(50);
+    assertEquals(41, executor.ticks);
+  }
+
+  @Test
+  public void testTurboMergesTicks() {
+    simulationThread.reset(new CountingExecutor(12));
+    simulationThread.play(5);
+    for (int i = 0; i < 3; i++) {
+      nextTick();
+    }
+    assertEquals(5, (int) handled.get(0));
+    assertEquals(10, (int) handled.get(1));
+    assertEquals(12, (int) handled.get(2));
+    assertEquals(-1, (int) handled.get(3));
+    assertEquals(4, handled.size());
+  }
+
+  @Test
+  public void testRunToEndStopsAtABreakpoint() throws InterruptedException {
+    CountingExecutor executor = new CountingExecutor(5000);
+    executor.breakAt = 300;
+    simulationThread.reset(executor);
+    simulationThread.play(SimulationThread.RUN_TO_END);
+    nextTick();
+    assertEquals(List.of(300, -2), handled);
+    Thread.sleep(50);
+    assertEquals(300, executor.ticks);
+    assertFalse(simulationThread.pollTick(this::handle));
+
+    nextTick();
+    assertEquals(301, (int) handled.get(2));
+    simulationThread.play(SimulationThread.RUN_TO_END);
+    nextTick();
+    assertEquals(5000, (int) handled.get(3));
+    assertEquals(-1, (int) handled.get(4));
+  }
+
+  @Test
+  public void testRunToEndSendsOnlyTheFinalState() {
+    CountingExecutor executor = new CountingExecutor(5000);
+    simulationThread.reset(executor);
+    simulationThread.play(SimulationThread.RUN_TO_END);
+    nextTick();
+    assertEquals(5001, executor.ticks);
+    assertEquals(5000, (int) handled.get(0));
+    assertEquals(-1, (int) handled.get(1));
+    assertEquals(2, handled.size());
+  }
+
+  @Test
+  public void testResetSkipsTicksOfTheOldRun() {
+    simulationThread.reset(new CountingExecutor(1000));
+    simulationThread.play();
+    nextTick();
+    simulationThread.reset(new CountingExecutor(5));
+    nextTick();
+    assertEquals(1, (int) handled.get(0));
+    assertEquals(1, (int) handled.get(1));
+    assertEquals(2, handled.size());
+  }
+
+  @Test
+  public void testExceptionsReachTheFrontend() {
+    ExceptionHandler error = new ExceptionHandler("bad command");
+    simulationThread.reset(new Executor() {
+      @Override
+      public void runNextCommand() {
+        throw error;
+      }
+
+      @Override
+      public void checkTimeLeftOrNot() {
+      }
+    });
+    simulationThread.step();
+    ExceptionHandler thrown = assertThrows(ExceptionHandler.class, () -> {
+      long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+      while (System.currentTimeMillis() < deadline) {
+        simulationThread.pollTick(this::handle);
+      }
+    });
+    assertSame(error, thrown);
+  }
+
+  @Test
+  public void testRingOnlyShowsPublishedEvents() {
+    assertThrows(ExceptionHandler.class, () -> new TickEventRing(12));
+    TickEventRing ring = new TickEventRing(4);
+    for (int i = 0; i < 4; i++) {
+      assertNotNull(ring.claim());
+    }
+    assertNull(ring.claim());
+    assertNull(ring.peek());
+    ring.publish();
+    assertNotNull(ring.peek());
+    ring.release();
+    assertEquals(1, ring.getFreeSlots());
+    assertNotNull(ring.claim());
+  }
+}
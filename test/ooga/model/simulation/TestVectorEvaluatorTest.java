@@ -0,0 +1,93 @@
+package ooga.model.simulation;
+
+import static ooga.model.SimulationFixtures.addCommand;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import ooga.model.grid.ElementInformationBundle;
+import ooga.model.grid.LevelTemplate;
+import ooga.model.grid.Structure;
+import ooga.model.grid.TestVectorSet;
+import ooga.model.grid.gridData.BlockData;
+import ooga.model.grid.gridData.GoalState;
+import ooga.model.player.Avatar;
+import ooga.model.player.DataCube;
+import ooga.view.level.codearea.CommandBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TestVectorEvaluatorTest {
+
+  private List<CommandBlock> program;
+  private TestVectorSet testVectorSet;
+
+  // the avatar has to carry block 12 across blocks 10 and 11 and end up with their sum on it
+  @BeforeEach
+  public void setup() {
+    program = new ArrayList<>();
+    ElementInformationBundle grid = new ElementInformationBundle();
+    grid.setDimensions(3, 1);
+    for (int x = 0; x < 3; x++) {
+      grid.setStructure(x, 0, Structure.FLOOR);
+    }
+    grid.addAvatar(new Avatar(1, 0, 0));
+    grid.addBlock(new DataCube(12, 0, 0, 0));
+    grid.addBlock(new DataCube(10, 1, 0, 2));
+    grid.addBlock(new DataCube(11, 2, 0, 3));
+    Map<String, BlockData> goalBlocks = new HashMap<>();
+    goalBlocks.put("12", new BlockData(List.of(2, 0), 5, true, 12));
+    goalBlocks.put("10", new BlockData(List.of(1, 0), 2, false, 10));
+    goalBlocks.put("11", new BlockData(List.of(2, 0), 3, false, 11));
+    LevelTemplate level = new LevelTemplate(grid, null,
+        new GoalState(new HashMap<>(), goalBlocks, 20, 0, 5));
+    testVectorSet = new TestVectorSet(level, Map.of(12, List.of(10, 11)));
+    testVectorSet.addVector(Map.of(10, 4, 11, 3));
+    testVectorSet.addGenerated(6, 3, List.of(10, 11), 1, 9);
+  }
+
+  @Test
+  public void testProgramThatAddsPassesEveryVector() {
+    addCommand(program, "pickUp");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "add");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "add");
+    TestVectorEvaluator testVectorEvaluator = new TestVectorEvaluator(testVectorSet);
+    assertEquals(8, testVectorEvaluator.getVectorCount());
+    assertTrue(testVectorEvaluator.passes(program));
+    assertEquals(0, testVectorEvaluator.getVectorsSkipped());
+  }
+
+  @Test
+  public void testHardcodedProgramFailsTheFirstOtherVector() {
+    addCommand(program, "pickUp");
+    addCommand(program, "step", "direction", "right");
+    addCommand(program, "step", "direction", "right");
+    for (int i = 0; i < 5; i++) {
+      addCommand(program, "increment");
+    }
+    assertTrue(new PackedSimulator().run(testVectorSet.getLevels().get(0), program).isWon());
+    for (int threads : new int[]{1, 4}) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      try {
+        TestVectorEvaluator testVectorEvaluator = new TestVectorEvaluator(testVectorSet, pool);
+        assertEquals(1, testVectorEvaluator.findFailingVector(program));
+        assertFalse(testVectorEvaluator.passes(program));
+      } finally {
+        pool.shutdown();
+      }
+    }
+  }
+
+  @Test
+  public void testProgramThatLosesTheLevelFailsVectorZero() {
+    addCommand(program, "step", "direction", "right");
+    assertEquals(0, new TestVectorEvaluator(testVectorSet).findFailingVector(program));
+  }
+}
@@ -0,0 +1,24 @@
+package ooga.view.level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.text.MessageFormat;
+import java.util.ResourceBundle;
+import ooga.view.ScreenCreator;
+import org.junit.jupiter.api.Test;
+
+public class ScreenStringsTest {
+
+  // the screens format their messages with MessageFormat, where a single apostrophe starts a
+  // quote and drops the rest of the message's arguments
+  @Test
+  public void testEveryMessageFormatsWithItsArgument() {
+    ResourceBundle screenStrings = ResourceBundle
+        .getBundle(ScreenCreator.RESOURCES + WinScreen.SCREEN_MESSAGES);
+    for (String key : screenStrings.keySet()) {
+      String message = screenStrings.getString(key);
+      String expected = message.replace("{0}", "42").replace("''", "'");
+      assertEquals(expected, new MessageFormat(message).format(new Object[]{42}), key);
+    }
+  }
+}